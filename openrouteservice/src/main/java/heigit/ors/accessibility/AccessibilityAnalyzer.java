@@ -22,6 +22,7 @@ package heigit.ors.accessibility;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.vividsolutions.jts.geom.Coordinate;
@@ -30,6 +31,7 @@ import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
 
 import heigit.ors.common.NamedLocation;
+import heigit.ors.common.TravelRangeType;
 import heigit.ors.common.TravellerInfo;
 import heigit.ors.exceptions.InternalServerException;
 import heigit.ors.isochrones.IsochroneMap;
@@ -39,9 +41,14 @@ import heigit.ors.locations.LocationsRequest;
 import heigit.ors.locations.LocationsResult;
 import heigit.ors.locations.providers.LocationsDataProvider;
 import heigit.ors.locations.providers.LocationsDataProviderFactory;
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixRequest;
 import heigit.ors.routing.RouteResult;
 import heigit.ors.routing.RoutingProfileManager;
+import heigit.ors.routing.RouteSearchParameters;
 import heigit.ors.routing.RoutingRequest;
+import heigit.ors.routing.WeightingMethod;
+import heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
 import heigit.ors.services.locations.LocationsServiceSettings;
 import heigit.ors.util.GeomUtility;
 
@@ -53,105 +60,182 @@ public class AccessibilityAnalyzer
 		{
 			AccessibilityResult accesibilityResult = new AccessibilityResult();
 
+			List<TravellerInfo> travellers = req.getTravellers();
+			boolean exactReachability = req.getExactReachability();
+			IsochroneSearchParameters[] searchParams = new IsochroneSearchParameters[travellers.size()];
+			for (int i = 0;i < travellers.size(); ++i)
+			{
+				searchParams[i] = req.getIsochroneSearchParameters(i);
+				searchParams[i].setKeepAccessibilityMap(exactReachability);
+			}
+
 			// Phase I: compute isochrone that includes all possible POIs or user-defined locations.
+			// User-defined locations don't need it when their costs are read from the shortest path trees.
 			IsochroneMapCollection isoMaps = new IsochroneMapCollection();
+			Geometry geomArea = null;
 
-			List<TravellerInfo> travellers = req.getTravellers();
-			for (int i = 0;i < travellers.size(); ++i){
-				IsochroneSearchParameters searchParams =  req.getIsochroneSearchParameters(i);
-				IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams, null);
-				isoMaps.add(isochroneMap);
+			if (!(exactReachability && req.getUserLocations() != null))
+			{
+				for (int i = 0;i < travellers.size(); ++i){
+					IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams[i], null);
+					isoMaps.add(isochroneMap);
+				}
+
+				// Compute intersection between all isochrones
+				if (isoMaps.size() > 0)
+					geomArea = isoMaps.computeIntersection();
 			}
 
-			if (isoMaps.size() > 0)
+			List<LocationsResult> destLocations = null;
+			Coordinate[] destCoords = null;
+
+			// Phase II: find locations within an isochrone
+			if (req.getUserLocations() != null)
 			{
-				// Compute intersection between all isochrones
-				Geometry geomArea = isoMaps.computeIntersection();
+				NamedLocation[] userLocations = req.getUserLocations();
+				List<NamedLocation> filteredLocations = new ArrayList<>(userLocations.length);
 
-				if (geomArea != null)
+				if (exactReachability)
 				{
-					List<LocationsResult> destLocations = null;
-					Coordinate[] arrDestLocations = null; // all found destinations + 1 source
-					
-					// Phase II: find locations within an isochrone
-					if (req.getUserLocations() != null)
+					filteredLocations.addAll(Arrays.asList(userLocations));
+				}
+				else if (geomArea != null)
+				{
+					Polygon poly = (Polygon)geomArea;
+
+					for (int i = 0; i < userLocations.length; i++)
 					{
-						NamedLocation[] userLocations = req.getUserLocations();
-						destLocations = new ArrayList<LocationsResult>(userLocations.length);
+						NamedLocation namedLoc = userLocations[i];
+						Point p = GeomUtility.createPoint(namedLoc.getCoordinate());
+						if (poly.contains(p))
+							filteredLocations.add(namedLoc);
+					}
+				}
 
-						List<NamedLocation> filteredLocations = new ArrayList<>(userLocations.length);
-						Polygon poly = (Polygon)geomArea;
-						
-						for (int i = 0; i < userLocations.length; i++)
-						{
-							NamedLocation namedLoc = userLocations[i];
-							Point p = GeomUtility.createPoint(namedLoc.getCoordinate());
-							if (poly.contains(p))
-								filteredLocations.add(namedLoc);
-						}
-						
-						if (!filteredLocations.isEmpty())
-						{
-							arrDestLocations = new Coordinate[filteredLocations.size() + 1];
-							for(int i = 0 ; i < filteredLocations.size(); ++i)
-							{
-								NamedLocation namedLoc = filteredLocations.get(i);
-								Coordinate c = namedLoc.getCoordinate();
-								
-								LocationsResult lr = new LocationsResult();
-								lr.setGeometry( GeomUtility.createPoint(c));
-								if (namedLoc.getName() != null)
-									lr.addProperty("name", namedLoc.getName());
-								destLocations.add(lr);
-
-								arrDestLocations[i+1] = c;
-							}
-						}
+				if (!filteredLocations.isEmpty())
+				{
+					destLocations = new ArrayList<LocationsResult>(filteredLocations.size());
+					destCoords = new Coordinate[filteredLocations.size()];
+					for(int i = 0 ; i < filteredLocations.size(); ++i)
+					{
+						NamedLocation namedLoc = filteredLocations.get(i);
+						Coordinate c = namedLoc.getCoordinate();
+
+						LocationsResult lr = new LocationsResult();
+						lr.setGeometry( GeomUtility.createPoint(c));
+						if (namedLoc.getName() != null)
+							lr.addProperty("name", namedLoc.getName());
+						destLocations.add(lr);
+
+						destCoords[i] = c;
 					}
-					else {
-						LocationsRequest reqLocations = req.getLocationsRequest().clone();
-						reqLocations.setGeometry(geomArea);
-
-						LocationsDataProvider provider = LocationsDataProviderFactory.getProvider(LocationsServiceSettings.getProviderName(), LocationsServiceSettings.getProviderParameters());
-						List<LocationsResult> poiLocations = provider.findLocations(reqLocations);
-						
-						if (!poiLocations.isEmpty())
-						{
-							destLocations = new ArrayList<LocationsResult>(poiLocations.size());
-							arrDestLocations = new Coordinate[poiLocations.size() + 1];
-
-							for(int i = 0 ; i < poiLocations.size(); ++i)
-							{
-								LocationsResult lr = poiLocations.get(i);
-								destLocations.add(lr);
-								arrDestLocations[i+1] = lr.getGeometry().getCoordinate();
-							}
-						}
+				}
+			}
+			else if (geomArea != null)
+			{
+				LocationsRequest reqLocations = req.getLocationsRequest().clone();
+				reqLocations.setGeometry(geomArea);
+				// fetch as many candidates as allowed, the closest ones are selected in phase III
+				reqLocations.setLimit(LocationsServiceSettings.getResponseLimit());
+
+				LocationsDataProvider provider = LocationsDataProviderFactory.getProvider(LocationsServiceSettings.getProviderName(), LocationsServiceSettings.getProviderParameters());
+				List<LocationsResult> poiLocations = provider.findLocations(reqLocations);
+
+				if (!poiLocations.isEmpty())
+				{
+					destLocations = new ArrayList<LocationsResult>(poiLocations);
+					destCoords = new Coordinate[poiLocations.size()];
+
+					for(int i = 0 ; i < poiLocations.size(); ++i)
+						destCoords[i] = poiLocations.get(i).getGeometry().getCoordinate();
+				}
+			}
+
+			// Costs of all locations read from the shortest path trees of the travellers. Only 
+			// locations that can be reached by every traveller within the given range are kept.
+			float[][] costs = null;
+			if (exactReachability && destCoords != null)
+			{
+				costs = new float[travellers.size()][];
+				boolean[] reachable = new boolean[destCoords.length];
+				Arrays.fill(reachable, true);
+
+				for (int j = 0; j < travellers.size(); j++)
+				{
+					AccessibilityMap edgeMap = isoMaps.size() > 0 ? isoMaps.getIsochrone(j).getAccessibilityMap() : null;
+					costs[j] = RoutingProfileManager.getInstance().computeReachability(searchParams[j], edgeMap, destCoords);
+
+					for (int i = 0; i < destCoords.length; i++)
+					{
+						if (costs[j][i] < 0)
+							reachable[i] = false;
 					}
+				}
 
-					accesibilityResult.setLocations(destLocations);
+				List<LocationsResult> reachableLocations = new ArrayList<LocationsResult>(destCoords.length);
+				for (int i = 0; i < destCoords.length; i++)
+				{
+					if (reachable[i])
+						reachableLocations.add(destLocations.get(i));
+				}
 
-					// Phase III: compute routes from start point to all found places
-					if (arrDestLocations != null)
+				int nReachable = reachableLocations.size();
+				Coordinate[] reachableCoords = new Coordinate[nReachable];
+				for (int j = 0; j < travellers.size(); j++)
+				{
+					float[] reachableCosts = new float[nReachable];
+					for (int i = 0, k = 0; i < destCoords.length; i++)
 					{
-						List<RouteResult> routes = new ArrayList<RouteResult>(2*req.getTravellers().size());
-						
-						for (int j = 0; j < req.getTravellers().size(); j++)
+						if (reachable[i])
 						{
-							TravellerInfo traveller = req.getTravellers().get(j);
-							arrDestLocations[0] = traveller.getLocation();
-
-							RoutingRequest reqRouting = new RoutingRequest();
-							reqRouting.setCoordinates(arrDestLocations);
-							reqRouting.setLocationIndex(j);
-							
-							List<RouteResult> routesToLocation = RoutingProfileManager.getInstance().computeRoutes(reqRouting, "destination".equalsIgnoreCase(traveller.getLocationType()), true);
-							routes.addAll(routesToLocation);
+							reachableCoords[k] = destCoords[i];
+							reachableCosts[k++] = costs[j][i];
 						}
-					
-						accesibilityResult.setRoutes(routes);
 					}
+					costs[j] = reachableCosts;
+				}
+
+				destLocations = nReachable > 0 ? reachableLocations : null;
+				destCoords = nReachable > 0 ? reachableCoords : null;
+			}
+
+			accesibilityResult.setLocations(destLocations);
+
+			// Phase III: rank all found places with one matrix pass per traveller (unless their costs 
+			// are already known) and compute full routes only for the closest ones.
+			if (destCoords != null)
+			{
+				List<RouteResult> routes = new ArrayList<RouteResult>(destCoords.length * travellers.size());
+
+				for (int j = 0; j < travellers.size(); j++)
+				{
+					TravellerInfo traveller = travellers.get(j);
+					boolean invertFlow = "destination".equalsIgnoreCase(traveller.getLocationType());
+					RouteResult[] travellerRoutes = new RouteResult[destCoords.length];
+
+					float[] travellerCosts = costs != null ? costs[j] : computeTravelCosts(traveller, destCoords, invertFlow);
+					int[] closest = findClosestDestinations(travellerCosts, destCoords.length, req.getLimit());
+					if (closest.length > 0)
+					{
+						Coordinate[] arrDestLocations = new Coordinate[closest.length + 1];
+						arrDestLocations[0] = traveller.getLocation();
+						for (int i = 0; i < closest.length; i++)
+							arrDestLocations[i + 1] = destCoords[closest[i]];
+
+						RoutingRequest reqRouting = new RoutingRequest();
+						reqRouting.setCoordinates(arrDestLocations);
+						reqRouting.setSearchParameters(traveller.getRouteSearchParameters());
+						reqRouting.setLocationIndex(j);
+
+						List<RouteResult> routesToLocation = RoutingProfileManager.getInstance().computeRoutes(reqRouting, invertFlow, true);
+						for (int i = 0; i < closest.length; i++)
+							travellerRoutes[closest[i]] = routesToLocation.get(i);
+					}
+
+					routes.addAll(Arrays.asList(travellerRoutes));
 				}
+
+				accesibilityResult.setRoutes(routes);
 			}
 
 			return accesibilityResult;
@@ -161,4 +245,74 @@ public class AccessibilityAnalyzer
 			throw new InternalServerException(AccessibilityErrorCodes.UNKNOWN, ex.getMessage());
 		}
 	}
+
+	/**
+	 * Computes travel costs from (or to) the traveller to all destinations using a single one-to-many 
+	 * matrix search. Unreachable destinations get a negative cost. Returns null if the search fails.
+	 */
+	private static float[] computeTravelCosts(TravellerInfo traveller, Coordinate[] destinations, boolean invertFlow)
+	{
+		RouteSearchParameters searchParams = traveller.getRouteSearchParameters();
+		int metric = traveller.getRangeType() == TravelRangeType.Distance ? MatrixMetricsType.Distance : MatrixMetricsType.Duration;
+
+		MatrixRequest mtxReq = new MatrixRequest();
+		mtxReq.setProfileType(searchParams.getProfileType());
+		mtxReq.setWeightingMethod(WeightingMethod.getName(searchParams.getWeightingMethod()));
+		mtxReq.setFlexibleMode(searchParams.getFlexibleMode());
+		mtxReq.setMetrics(metric);
+
+		Coordinate[] origin = new Coordinate[] { traveller.getLocation() };
+		if (invertFlow)
+		{
+			mtxReq.setSources(origin);
+			mtxReq.setDestinations(destinations);
+		}
+		else
+		{
+			mtxReq.setSources(destinations);
+			mtxReq.setDestinations(origin);
+		}
+
+		try
+		{
+			// with a single source or a single destination the table is indexed by destination
+			return RoutingProfileManager.getInstance().computeMatrix(mtxReq).getTable(metric);
+		}
+		catch(Exception ex)
+		{
+			// the matrix search gives up when some destination can't be reached
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the indices of at most <code>limit</code> destinations with the lowest costs, ordered 
+	 * by increasing cost. Destinations with negative costs are omitted. Without costs, the first 
+	 * <code>limit</code> destinations are returned in the order of the locations provider.
+	 */
+	private static int[] findClosestDestinations(float[] costs, int count, int limit)
+	{
+		if (costs == null)
+		{
+			int[] res = new int[Math.min(limit, count)];
+			for (int i = 0; i < res.length; i++)
+				res[i] = i;
+			return res;
+		}
+
+		List<Integer> indices = new ArrayList<Integer>(costs.length);
+		for (int i = 0; i < costs.length; i++)
+		{
+			if (costs[i] >= 0)
+				indices.add(i);
+		}
+
+		indices.sort((a, b) -> Float.compare(costs[a], costs[b]));
+
+		int[] res = new int[Math.min(limit, indices.size())];
+		for (int i = 0; i < res.length; i++)
+			res[i] = indices.get(i);
+
+		return res;
+	}
 }
@@ -45,6 +45,7 @@ public class AccessibilityRequest extends ServiceRequest
 	private boolean _includeElevation = false;
 	private boolean _includeGeometry = false;
 	private String _geometryFormat = "encodedpolyline";
+	private boolean _exactReachability = false;
 
 	public AccessibilityRequest()
 	{
@@ -128,6 +129,14 @@ public class AccessibilityRequest extends ServiceRequest
 		_geometryFormat = geometryFormat;
 	}
 	
+	public boolean getExactReachability() {
+		return _exactReachability;
+	}
+
+	public void setExactReachability(boolean exactReachability) {
+		_exactReachability = exactReachability;
+	}
+
 	public IsochroneSearchParameters getIsochroneSearchParameters(int travellerIndex)
 	{
 		TravellerInfo traveller = _travellers.get(travellerIndex);
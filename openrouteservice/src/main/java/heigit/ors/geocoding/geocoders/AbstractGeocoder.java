@@ -25,12 +25,19 @@ public abstract class AbstractGeocoder implements Geocoder {
 	protected String geocodingURL;
 	protected String reverseGeocodingURL;
 	protected String userAgent;
+	protected GeocoderHttpClient httpClient;
 	
 	public AbstractGeocoder(String geocodingURL, String reverseGeocodingURL, String userAgent)
 	{
 		this.geocodingURL = geocodingURL;
 		this.reverseGeocodingURL = reverseGeocodingURL;
 		this.userAgent = userAgent;
+		this.httpClient = new GeocoderHttpClient(userAgent, GeocoderHttpClient.DEFAULT_MAX_CONNECTIONS);
+	}
+	
+	public void setHttpClient(GeocoderHttpClient httpClient)
+	{
+		this.httpClient = httpClient;
 	}
 	
 	public abstract GeocodingResult[] geocode(String address, String languages, SearchBoundary searchBoundary, int limit) throws Exception;
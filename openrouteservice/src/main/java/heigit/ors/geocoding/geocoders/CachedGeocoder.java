@@ -0,0 +1,197 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.geocoding.geocoders;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/*
+ * Keeps the results of recent geocoding requests of another geocoder. Queries which differ only in case or white 
+ * space share their entry. Results are kept for a limited time, as the data of the backend may change. Empty results 
+ * are not cached, since they are often caused by a backend which could not be reached.
+ */
+public class CachedGeocoder implements Geocoder {
+	// locations of reverse requests are compared with a precision of about 0.1 m
+	private static final double COORDINATE_PRECISION = 1e6;
+
+	private final Geocoder _geocoder;
+	private final Map<String, Entry> _entries;
+	private final long _timeToLive;
+	private long _hits;
+	private long _misses;
+
+	private static class Entry {
+		final GeocodingResult[] results;
+		final long expires;
+
+		Entry(GeocodingResult[] results, long expires)
+		{
+			this.results = results;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * @param timeToLive the time in milliseconds after which an entry is dropped, or 0 to keep entries until they are evicted.
+	 */
+	public CachedGeocoder(Geocoder geocoder, final int capacity, long timeToLive)
+	{
+		_geocoder = geocoder;
+		_timeToLive = timeToLive;
+		_entries = new LinkedHashMap<String, Entry>(capacity + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	@Override
+	public GeocodingResult[] geocode(String address, String languages, SearchBoundary boundary, int limit) throws Exception 
+	{
+		String key = createKey("search", normalize(address), languages, boundary, limit);
+		GeocodingResult[] results = get(key);
+		if (results == null)
+		{
+			results = _geocoder.geocode(address, languages, boundary, limit);
+			put(key, results);
+		}
+
+		return results;
+	}
+
+	@Override
+	public GeocodingResult[] geocode(Address address, String languages, SearchBoundary boundary, int limit) throws Exception 
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(normalize(address.getAddress())).append(';');
+		sb.append(normalize(address.getNeighbourhood())).append(';');
+		sb.append(normalize(address.getBorough())).append(';');
+		sb.append(normalize(address.getLocality())).append(';');
+		sb.append(normalize(address.getCounty())).append(';');
+		sb.append(normalize(address.getRegion())).append(';');
+		sb.append(normalize(address.getPostalcode())).append(';');
+		sb.append(normalize(address.getCountry()));
+
+		String key = createKey("structured", sb.toString(), languages, boundary, limit);
+		GeocodingResult[] results = get(key);
+		if (results == null)
+		{
+			results = _geocoder.geocode(address, languages, boundary, limit);
+			put(key, results);
+		}
+
+		return results;
+	}
+
+	@Override
+	public GeocodingResult[] reverseGeocode(double lon, double lat, int limit) throws Exception 
+	{
+		String key = "reverse|" + Math.round(lon * COORDINATE_PRECISION) + "," + Math.round(lat * COORDINATE_PRECISION) + "|" + limit;
+		GeocodingResult[] results = get(key);
+		if (results == null)
+		{
+			results = _geocoder.reverseGeocode(lon, lat, limit);
+			put(key, results);
+		}
+
+		return results;
+	}
+
+	private synchronized GeocodingResult[] get(String key)
+	{
+		if (key == null)
+			return null;
+
+		Entry entry = _entries.get(key);
+		if (entry != null && _timeToLive > 0 && entry.expires < System.currentTimeMillis())
+		{
+			_entries.remove(key);
+			entry = null;
+		}
+
+		if (entry == null)
+		{
+			_misses++;
+			return null;
+		}
+
+		_hits++;
+		return entry.results;
+	}
+
+	private synchronized void put(String key, GeocodingResult[] results)
+	{
+		if (key != null && results != null && results.length > 0)
+			_entries.put(key, new Entry(results, System.currentTimeMillis() + _timeToLive));
+	}
+
+	public synchronized long getHits()
+	{
+		return _hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return _misses;
+	}
+
+	private static String createKey(String type, String query, String languages, SearchBoundary boundary, int limit)
+	{
+		StringBuilder sb = new StringBuilder(type);
+		sb.append('|').append(query);
+		sb.append('|').append(languages == null ? "" : languages.toLowerCase(Locale.ROOT));
+		sb.append('|');
+
+		if (boundary instanceof RectSearchBoundary)
+		{
+			Envelope env = ((RectSearchBoundary)boundary).getRectangle();
+			sb.append("rect:").append(env.getMinX()).append(',').append(env.getMinY()).append(',').append(env.getMaxX()).append(',').append(env.getMaxY());
+		}
+		else if (boundary instanceof CircleSearchBoundary)
+		{
+			CircleSearchBoundary csb = (CircleSearchBoundary)boundary;
+			sb.append("circle:").append(csb.getLongitude()).append(',').append(csb.getLatitude()).append(',').append(csb.getRadius());
+		}
+		else if (boundary != null)
+		{
+			// unknown boundaries can't be compared, such requests bypass the cache
+			return null;
+		}
+
+		sb.append('|').append(limit);
+
+		return sb.toString();
+	}
+
+	static String normalize(String value)
+	{
+		if (value == null)
+			return "";
+
+		return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+}
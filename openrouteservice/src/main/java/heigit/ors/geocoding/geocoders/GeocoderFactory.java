@@ -21,6 +21,13 @@
 package heigit.ors.geocoding.geocoders;
 
 public class GeocoderFactory {
+  public static Geocoder createGeocoder(String name, String geocodingURL, String reverseGeocodingURL, String userAgent, int maxConnections) throws Exception
+  {
+	  AbstractGeocoder geocoder = (AbstractGeocoder)createGeocoder(name, geocodingURL, reverseGeocodingURL, userAgent);
+	  geocoder.setHttpClient(new GeocoderHttpClient(userAgent, maxConnections));
+	  return geocoder;
+  }
+
   public static Geocoder createGeocoder(String name, String geocodingURL, String reverseGeocodingURL, String userAgent) throws Exception
   {
 	  switch(name.toLowerCase())
@@ -0,0 +1,126 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.geocoding.geocoders;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import heigit.ors.util.HTTPUtility;
+
+/*
+ * Sends the requests of a geocoder to its backend. The number of concurrent connections is bounded, by default to the 
+ * size of the JDK keep-alive cache per host (http.maxConnections), so that every connection can be kept open and 
+ * reused by the next request instead of paying for a new TCP handshake. Requests which are not needed right away, such 
+ * as fallback queries, can be sent in parallel on a shared pool of daemon threads, but only while a thread and a 
+ * connection are free, so that they never delay the requests which are needed.
+ */
+public class GeocoderHttpClient {
+	public static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+	private static final int CONNECT_TIMEOUT = 1000;
+
+	private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, 16, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+		private final AtomicInteger _counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ORS-geocoder-" + _counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}, new ThreadPoolExecutor.AbortPolicy());
+
+	private final String _userAgent;
+	private final Semaphore _connections;
+
+	public GeocoderHttpClient(String userAgent, int maxConnections)
+	{
+		_userAgent = userAgent;
+		_connections = new Semaphore(Math.max(1, maxConnections), true);
+	}
+
+	public String getResponse(String url, int timeOut) throws IOException
+	{
+		try
+		{
+			_connections.acquire();
+		}
+		catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a connection to " + url);
+		}
+
+		try
+		{
+			return HTTPUtility.getResponse(url, CONNECT_TIMEOUT, timeOut, _userAgent, "UTF-8");
+		}
+		finally
+		{
+			_connections.release();
+		}
+	}
+
+	/**
+	 * Sends the request on a background thread if a thread and a connection are free right now.
+	 * 
+	 * @return the pending response or null if the client is saturated, in which case the caller has to send the 
+	 * request itself with {@link #getResponse(String, int)} if it still needs the response. A running request can't be 
+	 * aborted, as a blocking read of an HttpURLConnection is not interruptible, so it keeps its connection until the 
+	 * response is read or the time out is reached.
+	 */
+	public Future<String> submit(final String url, final int timeOut)
+	{
+		if (!_connections.tryAcquire())
+			return null;
+
+		try
+		{
+			return EXECUTOR.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					try
+					{
+						return HTTPUtility.getResponse(url, CONNECT_TIMEOUT, timeOut, _userAgent, "UTF-8");
+					}
+					finally
+					{
+						_connections.release();
+					}
+				}
+			});
+		}
+		catch(RejectedExecutionException ex)
+		{
+			_connections.release();
+			return null;
+		}
+	}
+}
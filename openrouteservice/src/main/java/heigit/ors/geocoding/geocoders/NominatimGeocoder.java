@@ -29,7 +29,6 @@ import org.json.JSONObject;
 import com.graphhopper.util.Helper;
 
 import heigit.ors.geocoding.geocoders.AbstractGeocoder;
-import heigit.ors.util.HTTPUtility;
 
 public class NominatimGeocoder extends AbstractGeocoder {
 	
@@ -185,7 +184,7 @@ public class NominatimGeocoder extends AbstractGeocoder {
 		
 		try
 		{
-			result = HTTPUtility.getResponse(service + reqParams, 5000, userAgent, "UTF-8");
+			result = httpClient.getResponse(service + reqParams, 5000);
 		}
 		catch(Exception ex)
 		{
@@ -194,7 +193,7 @@ public class NominatimGeocoder extends AbstractGeocoder {
 		
 		if (result == null && !Helper.isEmpty(service2))
 		{
-			result = HTTPUtility.getResponse(service2 + reqParams, 5000, userAgent, "UTF-8"); 
+			result = httpClient.getResponse(service2 + reqParams, 5000); 
 		}
 		
 		return result;
@@ -22,6 +22,8 @@ package heigit.ors.geocoding.geocoders;
 
 import java.net.URLEncoder;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -32,7 +34,6 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 
 import heigit.ors.exceptions.MissingParameterException;
-import heigit.ors.util.HTTPUtility;
 import heigit.ors.util.LocaleUtility;
 import heigit.ors.util.StringUtility;
 
@@ -98,7 +99,7 @@ public class PeliasGeocoder extends AbstractGeocoder
 
 		reqParams = applySearchBoundary(reqParams, searchBoundary);
 
-		String respContent = HTTPUtility.getResponse(geocodingURL + reqParams, RESPONSE_TIMEOUT, userAgent);
+		String respContent = httpClient.getResponse(geocodingURL + reqParams, RESPONSE_TIMEOUT);
 		if (!Helper.isEmpty(respContent) && !respContent.equals("[]")) 
 			return getGeocodeResults(respContent, searchBoundary, null);
 		else
@@ -115,24 +116,28 @@ public class PeliasGeocoder extends AbstractGeocoder
 
 		GeocodingResult[] result = null;
 
-		String respContent = HTTPUtility.getResponse(geocodingURL + reqParams, RESPONSE_TIMEOUT, userAgent);
+		// if the result of a request with all layers is quite poor, we try to narrow down the search by specifying layers.
+		// The narrowed request is sent right away if the client has a spare connection, so that a poor result doesn't cost 
+		// a second round trip. Otherwise it is only sent once the first result turns out to be poor.
+		// Example: http://localhost:8082/openrouteservice-4.2.0/geocode?lang=en&limit=20&query=Hauptwasen,+Balingen
+		String layers = "venue,street";
+		if (StringUtility.containsDigit(address))
+			layers += ",address";
+		String layersUrl = geocodingURL + reqParams + "&layers=" + layers;
+		Future<String> layersResponse = httpClient.submit(layersUrl, RESPONSE_TIMEOUT);
+
+		String respContent = httpClient.getResponse(geocodingURL + reqParams, RESPONSE_TIMEOUT);
+
 		if (!Helper.isEmpty(respContent) && !respContent.equals("[]")) 
 			result = getGeocodeResults(respContent, searchBoundary, null);
 
 		if (result != null && result.length > 0)
 		{ 
-			// if the result of a request with all layers is quite poor, we try to narrow down the search by specifying layers
-			// Example: http://localhost:8082/openrouteservice-4.2.0/geocode?lang=en&limit=20&query=Hauptwasen,+Balingen
 			if (result[0].confidence <= 0.75)
 			{
-				boolean hasNumbers = StringUtility.containsDigit(address);
-
 				GeocodingResult[] result2 = null;
-				String layers = "venue,street";
-				if (hasNumbers)
-					layers += ",address";
 
-				respContent = HTTPUtility.getResponse(geocodingURL + reqParams + "&layers=" + layers, RESPONSE_TIMEOUT, userAgent, "UTF-8");
+				respContent = layersResponse != null ? getResponse(layersResponse) : httpClient.getResponse(layersUrl, RESPONSE_TIMEOUT);
 				if (!Helper.isEmpty(respContent) && !respContent.equals("[]")) 
 					result2 = getGeocodeResults(respContent, searchBoundary, null);
 
@@ -174,6 +179,20 @@ public class PeliasGeocoder extends AbstractGeocoder
 		return result;
 	}
 
+	private String getResponse(Future<String> response) throws Exception
+	{
+		try
+		{
+			return response.get();
+		}
+		catch(ExecutionException ex)
+		{
+			if (ex.getCause() instanceof Exception)
+				throw (Exception)ex.getCause();
+			throw ex;
+		}
+	}
+
 	private String applySearchBoundary(String reqParams, SearchBoundary searchBoundary)
 	{
 		if (searchBoundary != null)
@@ -197,7 +216,7 @@ public class PeliasGeocoder extends AbstractGeocoder
 	@Override
 	public GeocodingResult[] reverseGeocode(double lon, double lat, int limit) throws Exception {
 		String reqParams = "?point.lat=" + lat  + "&point.lon=" + lon + "&size=" + limit;
-		String respContent = HTTPUtility.getResponse(reverseGeocodingURL + reqParams, RESPONSE_TIMEOUT, userAgent);
+		String respContent = httpClient.getResponse(reverseGeocodingURL + reqParams, RESPONSE_TIMEOUT);
 
 		if (!Helper.isEmpty(respContent) && !respContent.equals("[]")) 
 			return getGeocodeResults(respContent, null, new Coordinate(lon, lat));
@@ -30,8 +30,6 @@ import org.json.JSONObject;
 
 import com.graphhopper.util.Helper;
 
-import heigit.ors.util.HTTPUtility;
-
 public class PhotonGeocoder extends AbstractGeocoder {
 
 	private static final ArrayList<String> supportedLanguages = new ArrayList<String>();
@@ -62,7 +60,7 @@ public class PhotonGeocoder extends AbstractGeocoder {
     		code = "en";
     	
 		String reqParams = "?q=" + URLEncoder.encode(GeocodingUtils.sanitizeAddress(address), "UTF-8") + "&limit=" + limit + "&lang=" + code;
-		String respContent = HTTPUtility.getResponse(geocodingURL + reqParams, 5000, userAgent, "UTF-8");
+		String respContent = httpClient.getResponse(geocodingURL + reqParams, 5000);
 		
 		if (!Helper.isEmpty(respContent) && !respContent.equals("[]")) {
 	    	
@@ -75,7 +73,7 @@ public class PhotonGeocoder extends AbstractGeocoder {
 	public GeocodingResult[] reverseGeocode(double lon, double lat, int limit) throws IOException
 	{
 		String reqParams = "?lat=" + lat  + "&lon=" + lon + "&limit=" + limit;
-		String respContent = HTTPUtility.getResponse(reverseGeocodingURL + reqParams, 5000, userAgent, "UTF-8");
+		String respContent = httpClient.getResponse(reverseGeocodingURL + reqParams, 5000);
 
 		if (!Helper.isEmpty(respContent) && !respContent.equals("[]")) {
 			return getGeocodeResults(respContent, null);
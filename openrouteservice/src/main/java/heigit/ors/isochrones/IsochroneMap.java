@@ -26,11 +26,14 @@ import java.util.List;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 
+import heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
+
 public class IsochroneMap {
 	private int _travellerId;
 	private Envelope _envelope;
 	private List<Isochrone> _isochrones;
 	private Coordinate _center;
+	private AccessibilityMap _accessibilityMap;
 	
 	public IsochroneMap(int travellerId, Coordinate center)
 	{
@@ -80,4 +83,14 @@ public class IsochroneMap {
 	{
 		return _envelope;
 	}
+
+	public AccessibilityMap getAccessibilityMap()
+	{
+		return _accessibilityMap;
+	}
+
+	public void setAccessibilityMap(AccessibilityMap accessibilityMap)
+	{
+		_accessibilityMap = accessibilityMap;
+	}
 }
@@ -33,6 +33,7 @@ public class IsochroneSearchParameters {
 	private double[] _ranges;
 	private RouteSearchParameters _parameters;
 	private String _calcMethod;
+	private boolean _keepAccessibilityMap = false;
 
 	public IsochroneSearchParameters(int travellerId, Coordinate location, double[] ranges) {
 		_travellerId = travellerId;
@@ -120,4 +121,18 @@ public class IsochroneSearchParameters {
 	{
 		_calcMethod = calcMethod;
 	}
+
+	public boolean getKeepAccessibilityMap()
+	{
+		return _keepAccessibilityMap;
+	}
+
+	/**
+	 * When set, the shortest path tree used to build the isochrones is kept in the resulting 
+	 * {@link IsochroneMap} so that network costs to other locations can be read from it later.
+	 */
+	public void setKeepAccessibilityMap(boolean value)
+	{
+		_keepAccessibilityMap = value;
+	}
 }
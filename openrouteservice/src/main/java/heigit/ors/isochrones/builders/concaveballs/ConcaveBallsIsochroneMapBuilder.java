@@ -98,6 +98,8 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 		ByteArrayBuffer arrayBuffer = new ByteArrayBuffer();
 
 		AccessibilityMap edgeMap = GraphEdgeMapFinder.findEdgeMap(_searchContext, parameters, arrayBuffer);
+		if (parameters.getKeepAccessibilityMap())
+			isochroneMap.setAccessibilityMap(edgeMap);
 
 		if (LOGGER.isDebugEnabled())
 		{
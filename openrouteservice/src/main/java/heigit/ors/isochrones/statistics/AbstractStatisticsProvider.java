@@ -20,6 +20,7 @@
  */
 package heigit.ors.isochrones.statistics;
 
+import java.util.List;
 import java.util.Map;
 
 import heigit.ors.isochrones.Isochrone;
@@ -29,4 +30,17 @@ public abstract class AbstractStatisticsProvider implements StatisticsProvider {
 	 public abstract void close() throws Exception;	
 	 
 	 public abstract double[] getStatistics(Isochrone isochrone, String[] properties) throws Exception;
+
+	 /**
+	  * Computes the statistics of several isochrones. Providers which can answer all of them with a single
+	  * query should override this method, the default implementation queries one isochrone after another.
+	  */
+	 public double[][] getStatistics(List<Isochrone> isochrones, String[] properties) throws Exception
+	 {
+		 double[][] res = new double[isochrones.size()][];
+		 for (int i = 0; i < res.length; i++)
+			 res[i] = getStatistics(isochrones.get(i), properties);
+
+		 return res;
+	 }
 }
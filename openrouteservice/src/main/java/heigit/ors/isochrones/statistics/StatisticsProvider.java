@@ -20,6 +20,7 @@
  */
 package heigit.ors.isochrones.statistics;
 
+import java.util.List;
 import java.util.Map;
 
 import heigit.ors.isochrones.Isochrone;
@@ -30,4 +31,6 @@ public interface StatisticsProvider {
 	public String getName();
 	
     public double[] getStatistics(Isochrone isochrone, String[] properties) throws Exception;
+
+    public double[][] getStatistics(List<Isochrone> isochrones, String[] properties) throws Exception;
 }
@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -54,6 +56,7 @@ public class PostgresSQLStatisticsProvider extends AbstractStatisticsProvider {
 
     private String _tableName = null;
     private String _geomColumn = null;
+    private String _statisticsQuery = null;
     private HikariDataSource _dataSource;
 
     /**
@@ -81,6 +84,11 @@ public class PostgresSQLStatisticsProvider extends AbstractStatisticsProvider {
         else
             _geomColumn = value;
 
+        // The statement text does not depend on the request, so that the driver is able to reuse its server-side
+        // prepared statement. All isochrones are passed as one array and answered in a single round trip.
+        _statisticsQuery = "SELECT polys.idx, ST_Area(polys.poly) / 1000000 AS total_area_km, ROUND(SUM((ST_SummaryStats(ST_Clip(" + _geomColumn + ", polys.poly))).sum)) AS total_pop " +
+                "FROM (SELECT idx, ST_Simplify(ST_Transform(ST_GeomFromText(wkt, 4326), 954009), 125) AS poly FROM unnest(?::text[]) WITH ORDINALITY AS t(wkt, idx)) AS polys " +
+                "JOIN " + _tableName + " ON ST_Intersects(polys.poly, " + _geomColumn + ") GROUP BY polys.idx, polys.poly";
 
         //https://github.com/pgjdbc/pgjdbc/pull/772
         org.postgresql.Driver.isRegistered();
@@ -129,46 +137,59 @@ public class PostgresSQLStatisticsProvider extends AbstractStatisticsProvider {
      */
     @Override
     public double[] getStatistics(Isochrone isochrone, String[] properties) throws Exception {
+        return getStatistics(Collections.singletonList(isochrone), properties)[0];
+    }
+
+    /**
+     * The function computes the statistics of all given isochrones with one query.
+     *
+     * @param isochrones {@link List} of {@link Isochrone} objects as input.
+     * @param properties {@link String}[] as input holding the attributes parameters.
+     * @return Returns a double[][] holding one row per isochrone with the desired values in the order that was asked for in the attributes.
+     * @throws Exception If the sql is corrupt or the server can not be reached, an {@link Exception} will be thrown.
+     */
+    @Override
+    public double[][] getStatistics(List<Isochrone> isochrones, String[] properties) throws Exception {
         int nProperties = properties.length;
-        double[] res = new double[nProperties];
+        double[][] res = new double[isochrones.size()][nProperties];
+
+        // column of the query result for each property, 0 if the property is unknown
+        int[] columns = new int[nProperties];
+        for (int i = 0; i < nProperties; i++) {
+            switch (properties[i]) {
+                case "total_area_km":
+                    columns[i] = 2;
+                    break;
+                case "total_pop":
+                    columns[i] = 3;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (isochrones.isEmpty())
+            return res;
+
+        String[] polyGeoms = new String[isochrones.size()];
+        for (int i = 0; i < polyGeoms.length; i++)
+            polyGeoms[i] = isochrones.get(i).getGeometry().toText();
+
         Connection connection = null;
         PreparedStatement preparedStatement = null;
-        ResultSet resultSet;
         try {
-            String sql = null;
-            for (String property : properties) {
-                String polyGeom = isochrone.getGeometry().toText();
-                switch (property) {
-                    case "total_area_km":
-                    case "total_pop":
-                        sql = "SELECT ST_Area(poly) / 1000000 AS total_area_km, ROUND(SUM((ST_SummaryStats(ST_Clip(" + _geomColumn + ", poly))).sum)) AS total_pop FROM " + _tableName + ", ST_Simplify(ST_Transform(ST_GeomFromText('" + polyGeom + "', 4326), 954009), 125) AS poly WHERE ST_Intersects(poly, " + _geomColumn + ") GROUP BY poly;";
-                        break;
-                    default:
-                        break;
-                }
-
-            }
             connection = _dataSource.getConnection();
             connection.setAutoCommit(false);
-            preparedStatement = connection.prepareStatement(sql);
-
-            resultSet = preparedStatement.executeQuery();
-            // check if the resultSet contains values
-            if (resultSet.next()) {
-                // check for each property if the result contains a value
-                int propertyCounter = 0;
-                for (String property : properties) {
-                    int i = 0;
-                    // check each value
-                    while (i < nProperties) {
-                        // Get the column name
-                        String columnName = resultSet.getMetaData().getColumnName(i + 1);
-                        // If a value fits the current property it is set in the correct place in the result[]
-                        if (columnName.equals(property))
-                            res[propertyCounter] = resultSet.getDouble(i + 1);
-                        i++;
-                    }
-                    propertyCounter++;
+            preparedStatement = connection.prepareStatement(_statisticsQuery);
+            preparedStatement.setArray(1, connection.createArrayOf("text", polyGeoms));
+
+            ResultSet resultSet = preparedStatement.executeQuery();
+            // isochrones which do not intersect any cell have no row and keep their zero values
+            while (resultSet.next()) {
+                double[] values = res[resultSet.getInt(1) - 1];
+                for (int i = 0; i < nProperties; i++) {
+                    if (columns[i] > 0)
+                        values[i] = resultSet.getDouble(columns[i]);
                 }
             }
         } catch (Exception ex) {
@@ -184,7 +205,6 @@ public class PostgresSQLStatisticsProvider extends AbstractStatisticsProvider {
             }
         }
         return res;
-
     }
 
 
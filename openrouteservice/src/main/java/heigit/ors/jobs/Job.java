@@ -0,0 +1,150 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.jobs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+public class Job {
+	private final String _id;
+	private final JobTask _task;
+	private final File _file;
+	private final List<File> _tempFiles = new ArrayList<File>();
+	private final long _submitTime;
+	private volatile int _status = JobStatus.Queued;
+	private volatile double _progress;
+	private volatile boolean _cancelled;
+	private volatile long _finishTime;
+	private volatile String _error;
+	private Future<?> _future;
+
+	public Job(String id, JobTask task, File file) {
+		_id = id;
+		_task = task;
+		_file = file;
+		_submitTime = System.currentTimeMillis();
+	}
+
+	public String getId() {
+		return _id;
+	}
+
+	public JobTask getTask() {
+		return _task;
+	}
+
+	/**
+	 * @return the file holding the result, it is complete only if the job is finished.
+	 */
+	public File getFile() {
+		return _file;
+	}
+
+	/**
+	 * Creates an empty file next to the result for intermediate data of the task. It counts towards the disk 
+	 * quota of the spool directory and is deleted when the job ends.
+	 */
+	public synchronized File createTempFile() throws IOException {
+		File file = new File(_file.getParentFile(), _id + "." + _tempFiles.size() + ".tmp");
+		if (!file.createNewFile())
+			throw new IOException("Unable to create temporary file " + file.getName() + ".");
+		_tempFiles.add(file);
+		return file;
+	}
+
+	/**
+	 * @return the number of bytes currently written to the result and temporary files.
+	 */
+	synchronized long getUsedSpace() {
+		long size = _file.length();
+		for (File file : _tempFiles)
+			size += file.length();
+		return size;
+	}
+
+	synchronized void deleteTempFiles() {
+		for (File file : _tempFiles)
+			file.delete();
+		_tempFiles.clear();
+	}
+
+	public int getStatus() {
+		return _status;
+	}
+
+	void setStatus(int status) {
+		_status = status;
+		if (JobStatus.isTerminal(status))
+			_finishTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the share of the work done, between 0 and 1.
+	 */
+	public double getProgress() {
+		return _progress;
+	}
+
+	public void setProgress(double progress) {
+		_progress = progress;
+	}
+
+	public long getSubmitTime() {
+		return _submitTime;
+	}
+
+	public long getFinishTime() {
+		return _finishTime;
+	}
+
+	public String getError() {
+		return _error;
+	}
+
+	void setError(String error) {
+		_error = error;
+	}
+
+	public boolean isCancelled() {
+		return _cancelled;
+	}
+
+	void cancel() {
+		_cancelled = true;
+		if (_future != null)
+			_future.cancel(false);
+	}
+
+	void setFuture(Future<?> future) {
+		_future = future;
+	}
+
+	/**
+	 * Has to be called by the task between two pieces of work, so that cancelled jobs stop early.
+	 */
+	public void checkCancelled() throws JobCancelledException {
+		if (_cancelled || Thread.currentThread().isInterrupted())
+			throw new JobCancelledException();
+	}
+}
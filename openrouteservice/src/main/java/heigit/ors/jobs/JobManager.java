@@ -0,0 +1,276 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.jobs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import heigit.ors.common.StatusCode;
+import heigit.ors.exceptions.StatusCodeException;
+import heigit.ors.services.jobs.JobsServiceSettings;
+
+/*
+ * Runs long computations like very large matrices in the background. The jobs are executed on a 
+ * small pool of low priority threads, so that they don't affect the latency of interactive requests, 
+ * and their results are written to files in a spool directory from where they can be downloaded later. 
+ * The files of the oldest finished jobs are evicted as soon as the spool directory exceeds its quota. 
+ * Submissions are rejected while the files of the running jobs alone fill the quota, as these can't be 
+ * evicted. The number of jobs waiting for a thread is limited, further submissions are rejected as well.
+ */
+public class JobManager {
+	private static final Logger LOGGER = Logger.getLogger(JobManager.class.getName());
+	// jobs which failed or were cancelled are kept this long to report their status
+	private static final int MAXIMUM_INACTIVE_JOBS = 1000;
+	// result files are named by the id of their job and the extension of its task, temporary files by the id and a number
+	private static final Pattern JOB_FILE_PATTERN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\.(bin|csv|geojsonl|[0-9]+\\.tmp)");
+
+	private static JobManager mInstance;
+
+	private final Map<String, Job> _jobs = new LinkedHashMap<String, Job>();
+	private final ThreadPoolExecutor _executor;
+	private final File _spoolDir;
+	private final long _diskQuota;
+
+	public static synchronized JobManager getInstance() {
+		if (mInstance == null)
+			mInstance = new JobManager(new File(JobsServiceSettings.getSpoolPath()), JobsServiceSettings.getThreads(), JobsServiceSettings.getMaximumQueuedJobs(), JobsServiceSettings.getDiskQuota());
+
+		return mInstance;
+	}
+
+	public static synchronized void release() {
+		if (mInstance != null) {
+			mInstance.destroy();
+			mInstance = null;
+		}
+	}
+
+	public JobManager(File spoolDir, int threads, int maxQueuedJobs, long diskQuota) {
+		_spoolDir = spoolDir;
+		_diskQuota = diskQuota;
+
+		if (!_spoolDir.exists())
+			_spoolDir.mkdirs();
+
+		// jobs are not persisted, so files left from a previous run can't be requested anymore. Other files 
+		// are left alone in case the spool path points to a directory which is shared with other applications.
+		File[] files = _spoolDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isFile() && JOB_FILE_PATTERN.matcher(file.getName()).matches())
+					file.delete();
+			}
+		}
+
+		_executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, maxQueuedJobs)), new LowPriorityThreadFactory());
+	}
+
+	public Job submit(JobTask task) throws Exception {
+		String id = UUID.randomUUID().toString();
+		Job job = new Job(id, task, new File(_spoolDir, id + "." + task.getFileExtension()));
+
+		synchronized (this) {
+			if (_diskQuota > 0 && getRunningJobsSpace() >= _diskQuota)
+				throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, JobsErrorCodes.DISK_QUOTA_EXCEEDED, "The results of the running jobs fill the disk quota, please try again later.");
+
+			try {
+				job.setFuture(_executor.submit(new JobRunner(this, job)));
+			} catch (RejectedExecutionException ex) {
+				throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, JobsErrorCodes.QUEUE_FULL, "Too many jobs are waiting to be processed, please try again later.");
+			}
+			_jobs.put(id, job);
+		}
+
+		return job;
+	}
+
+	public synchronized Job getJob(String id) {
+		return _jobs.get(id);
+	}
+
+	/**
+	 * Stops the job if it is queued or running and removes its result if it is finished already.
+	 */
+	public Job cancel(String id) {
+		Job job = getJob(id);
+		if (job == null)
+			return null;
+
+		synchronized (job) {
+			job.cancel();
+			if (job.getStatus() == JobStatus.Queued)
+				job.setStatus(JobStatus.Cancelled);
+			else if (job.getStatus() == JobStatus.Finished) {
+				job.setStatus(JobStatus.Cancelled);
+				job.getFile().delete();
+			}
+		}
+
+		return job;
+	}
+
+	public void destroy() {
+		_executor.shutdownNow();
+	}
+
+	private void run(Job job) {
+		synchronized (job) {
+			if (job.isCancelled())
+				return;
+			job.setStatus(JobStatus.Running);
+		}
+
+		try {
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(job.getFile()));
+			try {
+				job.getTask().execute(job, out);
+			} finally {
+				out.close();
+			}
+
+			synchronized (job) {
+				job.checkCancelled();
+				job.setProgress(1.0);
+				job.setStatus(JobStatus.Finished);
+			}
+		} catch (JobCancelledException ex) {
+			job.getFile().delete();
+			job.setStatus(JobStatus.Cancelled);
+		} catch (Exception ex) {
+			LOGGER.error("Job " + job.getId() + " failed.", ex);
+			job.getFile().delete();
+			job.setError(ex.getMessage());
+			job.setStatus(JobStatus.Failed);
+		} finally {
+			job.deleteTempFiles();
+		}
+
+		evictJobs();
+	}
+
+	/**
+	 * @return the number of bytes written by the running jobs so far.
+	 */
+	private long getRunningJobsSpace() {
+		long usedSpace = 0;
+		for (Job job : _jobs.values()) {
+			if (job.getStatus() == JobStatus.Running)
+				usedSpace += job.getUsedSpace();
+		}
+
+		return usedSpace;
+	}
+
+	/**
+	 * Removes the oldest finished jobs until their files and those of the running jobs fit into the disk quota, and 
+	 * the oldest failed or cancelled jobs if there are too many of them.
+	 */
+	private synchronized void evictJobs() {
+		long usedSpace = 0;
+		int inactiveJobs = 0;
+		List<Job> finishedJobs = new ArrayList<Job>();
+
+		for (Job job : _jobs.values()) {
+			if (job.getStatus() == JobStatus.Finished) {
+				usedSpace += job.getFile().length();
+				finishedJobs.add(job);
+			} else if (job.getStatus() == JobStatus.Running)
+				usedSpace += job.getUsedSpace();
+			else if (JobStatus.isTerminal(job.getStatus()))
+				inactiveJobs++;
+		}
+
+		if (_diskQuota > 0 && usedSpace > _diskQuota) {
+			// the insertion order of the jobs is not the order in which they finished
+			Collections.sort(finishedJobs, new Comparator<Job>() {
+				@Override
+				public int compare(Job a, Job b) {
+					return Long.compare(a.getFinishTime(), b.getFinishTime());
+				}
+			});
+
+			for (Job job : finishedJobs) {
+				if (usedSpace <= _diskQuota)
+					break;
+
+				usedSpace -= job.getFile().length();
+				job.getFile().delete();
+				_jobs.remove(job.getId());
+			}
+		}
+
+		Iterator<Job> iter = _jobs.values().iterator();
+		while (inactiveJobs > MAXIMUM_INACTIVE_JOBS && iter.hasNext()) {
+			Job job = iter.next();
+			if (job.getStatus() == JobStatus.Failed || job.getStatus() == JobStatus.Cancelled) {
+				iter.remove();
+				inactiveJobs--;
+			}
+		}
+	}
+
+	private static class JobRunner implements Runnable {
+		private JobManager _manager;
+		private Job _job;
+
+		public JobRunner(JobManager manager, Job job) {
+			_manager = manager;
+			_job = job;
+		}
+
+		@Override
+		public void run() {
+			_manager.run(_job);
+		}
+	}
+
+	private static class LowPriorityThreadFactory implements ThreadFactory {
+		private final AtomicInteger _counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ors-job-" + _counter.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.jobs;
+
+public class JobStatus {
+	public static final int Queued = 0;
+	public static final int Running = 1;
+	public static final int Finished = 2;
+	public static final int Failed = 3;
+	public static final int Cancelled = 4;
+
+	public static boolean isTerminal(int status) {
+		return status == Finished || status == Failed || status == Cancelled;
+	}
+
+	public static String getName(int status) {
+		switch (status) {
+		case Queued:
+			return "queued";
+		case Running:
+			return "running";
+		case Finished:
+			return "finished";
+		case Failed:
+			return "failed";
+		case Cancelled:
+			return "cancelled";
+		default:
+			return "unknown";
+		}
+	}
+}
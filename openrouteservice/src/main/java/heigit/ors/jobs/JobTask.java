@@ -0,0 +1,37 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.jobs;
+
+import java.io.OutputStream;
+
+/*
+ * The computation carried out by a {@link Job}. Implementations write their result to the given 
+ * stream piece by piece, report their progress and check regularly whether the job was cancelled.
+ */
+public interface JobTask {
+	String getType();
+
+	String getFileExtension();
+
+	String getContentType();
+
+	void execute(Job job, OutputStream out) throws Exception;
+}
@@ -0,0 +1,37 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.jobs;
+
+/**
+ * This Class handles the error Codes as described in the error_codes.md
+ */
+public class JobsErrorCodes {
+    public static int INVALID_JSON_FORMAT = 7000;
+    public static int MISSING_PARAMETER = 7001;
+    public static int INVALID_PARAMETER_FORMAT = 7002;
+    public static int INVALID_PARAMETER_VALUE = 7003;
+    public static int PARAMETER_VALUE_EXCEEDS_MAXIMUM = 7004;
+    public static int JOB_NOT_FOUND = 7005;
+    public static int JOB_NOT_FINISHED = 7006;
+    public static int QUEUE_FULL = 7007;
+    public static int DISK_QUOTA_EXCEEDED = 7008;
+    public static int UNKNOWN = 7099;
+}
@@ -0,0 +1,602 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.locations.providers.local;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.graphhopper.util.Helper;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateFilter;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+import heigit.ors.exceptions.InternalServerException;
+import heigit.ors.exceptions.UnknownParameterValueException;
+import heigit.ors.locations.LocationDetailsType;
+import heigit.ors.locations.LocationsCategory;
+import heigit.ors.locations.LocationsCategoryClassifier;
+import heigit.ors.locations.LocationsCategoryGroup;
+import heigit.ors.locations.LocationsErrorCodes;
+import heigit.ors.locations.LocationsRequest;
+import heigit.ors.locations.LocationsResult;
+import heigit.ors.locations.LocationsResultSortType;
+import heigit.ors.locations.LocationsSearchFilter;
+import heigit.ors.locations.providers.LocationsDataProvider;
+import heigit.ors.util.CSVUtility;
+import heigit.ors.util.FormatUtility;
+
+/*
+ * Answers locations requests from points of interest held in memory instead of querying a database. 
+ * The points are read from a CSV file with a header naming the columns osm_id, osm_type, category, 
+ * lon, lat and optionally name, address, phone, website, opening_hours, wheelchair, smoking and fee. 
+ * If a refresh interval is configured, the file is checked in the background and the index is 
+ * replaced as a whole once the file has changed, so that requests never see a partially loaded index.
+ */
+public class LocalLocationsDataProvider implements LocationsDataProvider 
+{
+	private static final Logger LOGGER = Logger.getLogger(LocalLocationsDataProvider.class.getName());
+
+	private static final double METERS_PER_DEGREE = 111320.0;
+
+	private volatile LocationsIndex _index;
+	private File _file;
+	private long _lastModified;
+	private ScheduledExecutorService _refreshExecutor;
+	private final GeometryFactory _geomFactory = new GeometryFactory();
+
+	public void init(Map<String, Object> parameters) throws Exception
+	{
+		Object value = parameters.get("file");
+		if (value == null || Helper.isEmpty(value.toString()))
+			throw new InternalServerException(LocationsErrorCodes.UNKNOWN, "'file' parameter can not be null or empty.");
+
+		_file = new File(value.toString());
+		_lastModified = _file.lastModified();
+		_index = loadIndex(_file);
+
+		value = parameters.get("refresh_interval");
+		int refreshInterval = value == null ? 0 : Integer.parseInt(value.toString());
+		if (refreshInterval > 0)
+		{
+			_refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "ors-locations-refresh");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			_refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					refresh();
+				}
+			}, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Uses the given index, mainly for tests.
+	 */
+	public void init(LocationsIndex index)
+	{
+		_index = index;
+	}
+
+	private void refresh()
+	{
+		long lastModified = _file.lastModified();
+		if (lastModified == _lastModified)
+			return;
+
+		try
+		{
+			_index = loadIndex(_file);
+			_lastModified = lastModified;
+		}
+		catch (Exception ex)
+		{
+			// keep the current index and try again at the next refresh
+			LOGGER.error("Unable to reload points of interest from '" + _file + "'.", ex);
+		}
+	}
+
+	public static LocationsIndex loadIndex(File file) throws Exception
+	{
+		long startTime = System.currentTimeMillis();
+		LocationsIndexBuilder builder = new LocationsIndexBuilder();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+		try
+		{
+			String line = reader.readLine();
+			if (line == null)
+				throw new Exception("File '" + file + "' is empty.");
+
+			Map<String, Integer> columns = new HashMap<String, Integer>();
+			List<String> header = CSVUtility.parseLine(line, ',', '"');
+			for (int i = 0; i < header.size(); i++)
+				columns.put(header.get(i).trim().toLowerCase(), i);
+
+			int osmIdColumn = getColumn(columns, "osm_id", true);
+			int osmTypeColumn = getColumn(columns, "osm_type", false);
+			int categoryColumn = getColumn(columns, "category", true);
+			int lonColumn = getColumn(columns, "lon", true);
+			int latColumn = getColumn(columns, "lat", true);
+			int feeColumn = getColumn(columns, "fee", false);
+			int[] attributeColumns = new int[LocationsIndex.ATTRIBUTE_NAMES.length];
+			for (int a = 0; a < attributeColumns.length; a++)
+				attributeColumns[a] = getColumn(columns, LocationsIndex.ATTRIBUTE_NAMES[a], false);
+
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.isEmpty())
+					continue;
+
+				List<String> values = CSVUtility.parseLine(line, ',', '"');
+
+				String[] attributes = new String[attributeColumns.length];
+				for (int a = 0; a < attributeColumns.length; a++)
+					attributes[a] = getValue(values, attributeColumns[a]);
+
+				String osmType = getValue(values, osmTypeColumn);
+				String fee = getValue(values, feeColumn);
+
+				builder.add(Long.parseLong(values.get(osmIdColumn).trim()), 
+						osmType == null ? 1 : Integer.parseInt(osmType.trim()),
+						Integer.parseInt(values.get(categoryColumn).trim()),
+						Double.parseDouble(values.get(lonColumn).trim()),
+						Double.parseDouble(values.get(latColumn).trim()),
+						attributes,
+						fee == null ? -1 : Integer.parseInt(fee.trim()));
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+
+		LocationsIndex index = builder.build();
+		LOGGER.info(String.format("Loaded %d points of interest from '%s' in %d ms.", index.size(), file, System.currentTimeMillis() - startTime));
+
+		return index;
+	}
+
+	private static int getColumn(Map<String, Integer> columns, String name, boolean required) throws Exception
+	{
+		Integer column = columns.get(name);
+		if (column == null)
+		{
+			if (required)
+				throw new Exception("Column '" + name + "' is missing.");
+			return -1;
+		}
+
+		return column;
+	}
+
+	private static String getValue(List<String> values, int column)
+	{
+		if (column < 0 || column >= values.size())
+			return null;
+
+		String value = values.get(column);
+		return value.isEmpty() ? null : value;
+	}
+
+	public List<LocationsResult> findLocations(LocationsRequest request) throws Exception
+	{
+		final LocationsIndex index = _index;
+		final SearchArea area = new SearchArea(request.getGeometry(), request.getBBox(), request.getRadius());
+		final ItemFilter filter = new ItemFilter(index, request.getSearchFilter());
+		final int limit = request.getLimit();
+		final LocationsResultSortType sortType = request.getSortType();
+		final List<Candidate> candidates = new ArrayList<Candidate>();
+
+		Envelope env = area.getEnvelope();
+		index.query(env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(), filter.getCategoryMask(), new LocationsIndex.Visitor() {
+			@Override
+			public boolean visit(int item) {
+				if (!filter.accept(item))
+					return true;
+
+				double distance = area.getDistance(index.getX(item), index.getY(item));
+				if (distance < 0)
+					return true;
+
+				candidates.add(new Candidate(item, distance, index.getCategory(item)));
+				// without sorting the first results are as good as any
+				return sortType != LocationsResultSortType.NONE || candidates.size() < limit;
+			}
+		});
+
+		if (sortType == LocationsResultSortType.DISTANCE)
+		{
+			Collections.sort(candidates, new Comparator<Candidate>() {
+				@Override
+				public int compare(Candidate a, Candidate b) {
+					return Double.compare(a.distance, b.distance);
+				}
+			});
+		}
+		else if (sortType == LocationsResultSortType.CATEGORY)
+		{
+			Collections.sort(candidates, new Comparator<Candidate>() {
+				@Override
+				public int compare(Candidate a, Candidate b) {
+					return Integer.compare(a.category, b.category);
+				}
+			});
+		}
+
+		int details = request.getDetails();
+		LocationsSearchFilter searchFilter = request.getSearchFilter();
+		boolean includeAttributes = LocationDetailsType.isSet(details, LocationDetailsType.ATTRIBUTES);
+		// the distance is not defined for polygons and bounding boxes
+		boolean includeDistance = !(request.getGeometry() instanceof Polygon || request.getGeometry() == null);
+
+		int nResults = Math.min(limit, candidates.size());
+		List<LocationsResult> results = new ArrayList<LocationsResult>(nResults);
+
+		for (int i = 0; i < nResults; i++)
+		{
+			int item = candidates.get(i).item;
+			LocationsResult lr = new LocationsResult();
+
+			lr.addProperty("osm_id", index.getOsmId(item));
+			lr.addProperty("osm_type", index.getOsmType(item));
+			lr.addProperty("category", index.getCategory(item));
+			addProperty(lr, index, item, LocationsIndex.NAME);
+
+			if (LocationDetailsType.isSet(details, LocationDetailsType.ADDRESS))
+				addProperty(lr, index, item, LocationsIndex.ADDRESS);
+
+			if (LocationDetailsType.isSet(details, LocationDetailsType.CONTACT))
+			{
+				addProperty(lr, index, item, LocationsIndex.PHONE);
+				addProperty(lr, index, item, LocationsIndex.WEBSITE);
+			}
+
+			if (includeAttributes)
+				addProperty(lr, index, item, LocationsIndex.OPENING_HOURS);
+			if (includeAttributes || !Helper.isEmpty(searchFilter.getWheelchair()))
+				addProperty(lr, index, item, LocationsIndex.WHEELCHAIR);
+			if (includeAttributes || !Helper.isEmpty(searchFilter.getSmoking()))
+				addProperty(lr, index, item, LocationsIndex.SMOKING);
+			if ((includeAttributes || searchFilter.getFee() != null) && index.getFee(item) >= 0)
+				lr.addProperty("fee", index.getFee(item));
+
+			if (includeDistance)
+				lr.addProperty("distance", FormatUtility.roundToDecimals(candidates.get(i).distance, 2));
+
+			lr.setGeometry(_geomFactory.createPoint(new Coordinate(index.getX(item), index.getY(item))));
+
+			results.add(lr);
+		}
+
+		return results;
+	}
+
+	private static void addProperty(LocationsResult lr, LocationsIndex index, int item, int attribute)
+	{
+		String value = index.getAttribute(item, attribute);
+		if (value != null)
+			lr.addProperty(LocationsIndex.ATTRIBUTE_NAMES[attribute], value);
+	}
+
+	public List<LocationsCategory> findCategories(LocationsRequest request) throws Exception
+	{
+		final LocationsIndex index = _index;
+		final SearchArea area = new SearchArea(request.getGeometry(), request.getBBox(), request.getRadius());
+		final ItemFilter filter = new ItemFilter(index, request.getSearchFilter());
+		final Map<Integer, long[]> counts = new HashMap<Integer, long[]>();
+
+		Envelope env = area.getEnvelope();
+		if (request.getGeometry() != null && request.getBBox() != null)
+			env = env.intersection(request.getBBox());
+
+		index.query(env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(), filter.getCategoryMask(), new LocationsIndex.Visitor() {
+			@Override
+			public boolean visit(int item) {
+				if (filter.accept(item) && area.getDistance(index.getX(item), index.getY(item)) >= 0)
+				{
+					long[] count = counts.get(index.getCategory(item));
+					if (count == null)
+					{
+						count = new long[1];
+						counts.put(index.getCategory(item), count);
+					}
+					count[0]++;
+				}
+				return true;
+			}
+		});
+
+		Map<Integer, Map<Integer, Long>> groupsStats = new HashMap<Integer, Map<Integer, Long>>();
+		long[] groupCount = new long[LocationsCategoryClassifier.getGroupsCount()];
+
+		for (Map.Entry<Integer, long[]> entry : counts.entrySet())
+		{
+			int catIndex = entry.getKey();
+			int groupIndex = LocationsCategoryClassifier.getGroupIndex(catIndex);
+			if (groupIndex < 0)
+				continue;
+
+			Map<Integer, Long> stats = groupsStats.get(groupIndex);
+			if (stats == null)
+			{
+				stats = new HashMap<Integer, Long>();
+				groupsStats.put(groupIndex, stats);
+			}
+
+			groupCount[groupIndex] += entry.getValue()[0];
+			stats.put(catIndex, entry.getValue()[0]);
+		}
+
+		List<LocationsCategory> results = new ArrayList<LocationsCategory>();
+		for (Map.Entry<Integer, Map<Integer, Long>> stats : groupsStats.entrySet())
+		{
+			int groupIndex = stats.getKey();
+			results.add(new LocationsCategory(LocationsCategoryClassifier.getGroupId(groupIndex), LocationsCategoryClassifier.getGroupName(groupIndex), stats.getValue(), groupCount[groupIndex]));
+		}
+
+		return results;
+	}
+
+	public void close()
+	{
+		if (_refreshExecutor != null)
+		{
+			_refreshExecutor.shutdownNow();
+			_refreshExecutor = null;
+		}
+
+		_index = null;
+	}
+
+	public String getName()
+	{
+		return "local";
+	}
+
+	private static class Candidate
+	{
+		final int item;
+		final double distance;
+		final int category;
+
+		Candidate(int item, double distance, int category)
+		{
+			this.item = item;
+			this.distance = distance;
+			this.category = category;
+		}
+	}
+
+	/*
+	 * Tests whether points lie within the requested geometry, bounding box or radius. Distances are computed 
+	 * in an equirectangular projection centered on the geometry, which is accurate enough for the search radii 
+	 * allowed by the service.
+	 */
+	private class SearchArea
+	{
+		private Envelope _envelope;
+		private double _scaleX;
+		private Geometry _geometry;
+		private PreparedGeometry _polygon;
+		private double _radius;
+
+		public SearchArea(Geometry geom, Envelope bbox, double radius)
+		{
+			if (geom == null)
+			{
+				_envelope = bbox;
+				return;
+			}
+
+			Envelope env = geom.getEnvelopeInternal();
+			double maxLat = Math.min(89.0, Math.max(Math.abs(env.getMinY()), Math.abs(env.getMaxY())));
+			_scaleX = METERS_PER_DEGREE * Math.cos(Math.toRadians(env.centre().y));
+			_radius = radius;
+
+			_envelope = new Envelope(env);
+			_envelope.expandBy(radius / (METERS_PER_DEGREE * Math.cos(Math.toRadians(maxLat))), radius / METERS_PER_DEGREE);
+
+			_geometry = (Geometry)geom.clone();
+			_geometry.apply(new CoordinateFilter() {
+				@Override
+				public void filter(Coordinate c) {
+					c.x *= _scaleX;
+					c.y *= METERS_PER_DEGREE;
+				}
+			});
+			_geometry.geometryChanged();
+
+			if (geom instanceof Polygon)
+				_polygon = PreparedGeometryFactory.prepare(radius > 0 ? _geometry.buffer(radius) : _geometry);
+		}
+
+		public Envelope getEnvelope()
+		{
+			return _envelope;
+		}
+
+		/**
+		 * @return the distance in meters to the geometry, 0 if there is no geometry or -1 if the point is outside of the search area.
+		 */
+		public double getDistance(double x, double y)
+		{
+			if (_geometry == null)
+				return _envelope.contains(x, y) ? 0 : -1;
+
+			Point point = _geomFactory.createPoint(new Coordinate(x * _scaleX, y * METERS_PER_DEGREE));
+
+			if (_polygon != null)
+				return _polygon.intersects(point) ? 0 : -1;
+
+			double distance = _geometry.distance(point);
+			return distance <= _radius ? distance : -1;
+		}
+	}
+
+	/*
+	 * Checks the attributes of points against the search filter of a request.
+	 */
+	private static class ItemFilter
+	{
+		private LocationsIndex _index;
+		private long[] _categoryMask;
+		private Pattern _namePattern;
+		private String _name;
+		private String[] _wheelchair;
+		private String[] _smoking;
+		private int _fee = -1;
+
+		public ItemFilter(LocationsIndex index, LocationsSearchFilter filter) throws Exception
+		{
+			_index = index;
+
+			if (filter == null)
+				return;
+
+			if (filter.getCategoryGroupIds() != null)
+			{
+				_categoryMask = index.createCategoryMask();
+				for (int groupId : filter.getCategoryGroupIds())
+				{
+					LocationsCategoryGroup group = LocationsCategoryClassifier.getGroupById(groupId);
+					if (group == null)
+						throw new UnknownParameterValueException(LocationsErrorCodes.INVALID_PARAMETER_VALUE, "category_group_id", Integer.toString(groupId));
+
+					index.addCategories(_categoryMask, group.getMinCategoryId(), group.getMaxCategoryId());
+				}
+			}
+			else if (filter.getCategoryIds() != null)
+			{
+				_categoryMask = index.createCategoryMask();
+				for (int categoryId : filter.getCategoryIds())
+					index.addCategories(_categoryMask, categoryId, categoryId);
+			}
+
+			if (filter.getName() != null)
+			{
+				if (filter.getName().contains("*"))
+				{
+					String[] parts = filter.getName().toLowerCase().split("\\*", -1);
+					StringBuilder regex = new StringBuilder();
+					for (int i = 0; i < parts.length; i++)
+					{
+						if (i > 0)
+							regex.append(".*");
+						regex.append(Pattern.quote(parts[i]));
+					}
+					_namePattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+				}
+				else
+					_name = filter.getName().toLowerCase();
+			}
+
+			_wheelchair = splitValues(filter.getWheelchair());
+			_smoking = splitValues(filter.getSmoking());
+
+			if (filter.getFee() != null)
+				_fee = filter.getFee() ? 1 : 0;
+		}
+
+		private static String[] splitValues(String value)
+		{
+			if (Helper.isEmpty(value))
+				return null;
+
+			String[] values = value.split(",");
+			for (int i = 0; i < values.length; i++)
+				values[i] = values[i].trim();
+
+			return values;
+		}
+
+		public long[] getCategoryMask()
+		{
+			return _categoryMask;
+		}
+
+		public boolean accept(int item)
+		{
+			if (_name != null || _namePattern != null)
+			{
+				String name = _index.getAttribute(item, LocationsIndex.NAME);
+				if (name == null)
+					return false;
+
+				name = name.toLowerCase();
+				if (_name != null ? !_name.equals(name) : !_namePattern.matcher(name).matches())
+					return false;
+			}
+
+			if (_wheelchair != null && !contains(_wheelchair, _index.getAttribute(item, LocationsIndex.WHEELCHAIR)))
+				return false;
+
+			if (_smoking != null && !contains(_smoking, _index.getAttribute(item, LocationsIndex.SMOKING)))
+				return false;
+
+			if (_fee >= 0 && _index.getFee(item) != _fee)
+				return false;
+
+			return true;
+		}
+
+		private static boolean contains(String[] values, String value)
+		{
+			if (value == null)
+				return false;
+
+			for (String v : values)
+			{
+				if (v.equals(value))
+					return true;
+			}
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.locations.providers.local;
+
+/*
+ * Read-only in-memory index of points of interest. The attributes are stored column-wise in primitive 
+ * arrays ordered like the leaves of a packed STR-tree, so that the points of a leaf lie next to each 
+ * other in memory. Every node of the tree keeps the bounding box and a bitset of the categories below 
+ * it, which allows to skip whole branches when searching for certain categories only.
+ */
+public class LocationsIndex 
+{
+	public static final int NODE_CAPACITY = 16;
+
+	public static final int NAME = 0;
+	public static final int ADDRESS = 1;
+	public static final int PHONE = 2;
+	public static final int WEBSITE = 3;
+	public static final int OPENING_HOURS = 4;
+	public static final int WHEELCHAIR = 5;
+	public static final int SMOKING = 6;
+	public static final String[] ATTRIBUTE_NAMES = new String[] { "name", "address", "phone", "website", "opening_hours", "wheelchair", "smoking" };
+
+	public interface Visitor
+	{
+		/**
+		 * @return false to stop the search.
+		 */
+		boolean visit(int item);
+	}
+
+	private final int _size;
+	private final double[] _x;
+	private final double[] _y;
+	private final long[] _osmIds;
+	private final byte[] _osmTypes;
+	private final int[] _categories;
+	private final byte[] _fees;
+	private final String[][] _attributes;
+
+	private final int _categoryWords;
+	private final int _leafCount;
+	private final int _nodeCount;
+	private final int _levels;
+	private final double[] _nodeMinX;
+	private final double[] _nodeMinY;
+	private final double[] _nodeMaxX;
+	private final double[] _nodeMaxY;
+	// range of items for leaves and range of child nodes for inner nodes
+	private final int[] _nodeStart;
+	private final int[] _nodeEnd;
+	private final long[] _nodeCategories;
+
+	LocationsIndex(int size, double[] x, double[] y, long[] osmIds, byte[] osmTypes, int[] categories, byte[] fees, String[][] attributes, int maxCategory)
+	{
+		_size = size;
+		_x = x;
+		_y = y;
+		_osmIds = osmIds;
+		_osmTypes = osmTypes;
+		_categories = categories;
+		_fees = fees;
+		_attributes = attributes;
+		_categoryWords = (maxCategory >> 6) + 1;
+
+		_leafCount = (size + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int nodeCount = 0;
+		int levels = 0;
+		for (int levelSize = _leafCount; levelSize > 0; levelSize = levelSize == 1 ? 0 : (levelSize + NODE_CAPACITY - 1) / NODE_CAPACITY)
+		{
+			nodeCount += levelSize;
+			levels++;
+		}
+		_nodeCount = nodeCount;
+		_levels = levels;
+
+		_nodeMinX = new double[nodeCount];
+		_nodeMinY = new double[nodeCount];
+		_nodeMaxX = new double[nodeCount];
+		_nodeMaxY = new double[nodeCount];
+		_nodeStart = new int[nodeCount];
+		_nodeEnd = new int[nodeCount];
+		_nodeCategories = new long[nodeCount * _categoryWords];
+
+		buildNodes();
+	}
+
+	private void buildNodes()
+	{
+		for (int node = 0; node < _leafCount; node++)
+		{
+			int start = node * NODE_CAPACITY;
+			int end = Math.min(_size, start + NODE_CAPACITY);
+			initNode(node, start, end);
+
+			for (int i = start; i < end; i++)
+			{
+				expandNode(node, _x[i], _y[i], _x[i], _y[i]);
+				_nodeCategories[node * _categoryWords + (_categories[i] >> 6)] |= 1L << _categories[i];
+			}
+		}
+
+		// the nodes of a level are in the order of the leaves, so consecutive nodes are grouped to form the next level
+		int levelStart = 0;
+		int levelEnd = _leafCount;
+		while (levelEnd - levelStart > 1)
+		{
+			int node = levelEnd;
+			for (int child = levelStart; child < levelEnd; child += NODE_CAPACITY, node++)
+			{
+				int end = Math.min(levelEnd, child + NODE_CAPACITY);
+				initNode(node, child, end);
+
+				for (int i = child; i < end; i++)
+				{
+					expandNode(node, _nodeMinX[i], _nodeMinY[i], _nodeMaxX[i], _nodeMaxY[i]);
+					for (int w = 0; w < _categoryWords; w++)
+						_nodeCategories[node * _categoryWords + w] |= _nodeCategories[i * _categoryWords + w];
+				}
+			}
+
+			levelStart = levelEnd;
+			levelEnd = node;
+		}
+	}
+
+	private void initNode(int node, int start, int end)
+	{
+		_nodeStart[node] = start;
+		_nodeEnd[node] = end;
+		_nodeMinX[node] = Double.MAX_VALUE;
+		_nodeMinY[node] = Double.MAX_VALUE;
+		_nodeMaxX[node] = -Double.MAX_VALUE;
+		_nodeMaxY[node] = -Double.MAX_VALUE;
+	}
+
+	private void expandNode(int node, double minX, double minY, double maxX, double maxY)
+	{
+		_nodeMinX[node] = Math.min(_nodeMinX[node], minX);
+		_nodeMinY[node] = Math.min(_nodeMinY[node], minY);
+		_nodeMaxX[node] = Math.max(_nodeMaxX[node], maxX);
+		_nodeMaxY[node] = Math.max(_nodeMaxY[node], maxY);
+	}
+
+	/**
+	 * Passes all items within the given box to the visitor.
+	 *
+	 * @param categoryMask the categories to search for as created by {@link #createCategoryMask()}, or null for all categories.
+	 */
+	public void query(double minX, double minY, double maxX, double maxY, long[] categoryMask, Visitor visitor)
+	{
+		if (_nodeCount == 0)
+			return;
+
+		int[] stack = new int[_levels * NODE_CAPACITY + 1];
+		int stackSize = 0;
+		stack[stackSize++] = _nodeCount - 1;
+
+		while (stackSize > 0)
+		{
+			int node = stack[--stackSize];
+
+			if (_nodeMinX[node] > maxX || _nodeMaxX[node] < minX || _nodeMinY[node] > maxY || _nodeMaxY[node] < minY)
+				continue;
+
+			if (categoryMask != null && !intersects(node, categoryMask))
+				continue;
+
+			if (node < _leafCount)
+			{
+				for (int i = _nodeStart[node]; i < _nodeEnd[node]; i++)
+				{
+					if (_x[i] < minX || _x[i] > maxX || _y[i] < minY || _y[i] > maxY)
+						continue;
+
+					if (categoryMask != null && !hasCategory(categoryMask, _categories[i]))
+						continue;
+
+					if (!visitor.visit(i))
+						return;
+				}
+			}
+			else
+			{
+				for (int child = _nodeEnd[node] - 1; child >= _nodeStart[node]; child--)
+					stack[stackSize++] = child;
+			}
+		}
+	}
+
+	private boolean intersects(int node, long[] categoryMask)
+	{
+		int offset = node * _categoryWords;
+		for (int w = 0; w < _categoryWords; w++)
+		{
+			if ((_nodeCategories[offset + w] & categoryMask[w]) != 0)
+				return true;
+		}
+
+		return false;
+	}
+
+	public long[] createCategoryMask()
+	{
+		return new long[_categoryWords];
+	}
+
+	/**
+	 * Adds the categories from minCategory to maxCategory to the mask. Categories which do not occur in the index are ignored.
+	 */
+	public void addCategories(long[] categoryMask, int minCategory, int maxCategory)
+	{
+		int max = Math.min(maxCategory, (_categoryWords << 6) - 1);
+		for (int c = Math.max(0, minCategory); c <= max; c++)
+			categoryMask[c >> 6] |= 1L << c;
+	}
+
+	private static boolean hasCategory(long[] categoryMask, int category)
+	{
+		return (categoryMask[category >> 6] & (1L << category)) != 0;
+	}
+
+	public int size()
+	{
+		return _size;
+	}
+
+	public double getX(int item)
+	{
+		return _x[item];
+	}
+
+	public double getY(int item)
+	{
+		return _y[item];
+	}
+
+	public long getOsmId(int item)
+	{
+		return _osmIds[item];
+	}
+
+	public short getOsmType(int item)
+	{
+		return _osmTypes[item];
+	}
+
+	public int getCategory(int item)
+	{
+		return _categories[item];
+	}
+
+	/**
+	 * @return 1 if a fee has to be paid, 0 if not and -1 if unknown.
+	 */
+	public int getFee(int item)
+	{
+		return _fees[item];
+	}
+
+	/**
+	 * @param attribute one of the attribute constants, e.g. {@link #NAME}.
+	 */
+	public String getAttribute(int item, int attribute)
+	{
+		return _attributes[attribute][item];
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.locations.providers.local;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/*
+ * Collects points of interest and sorts them into a {@link LocationsIndex}.
+ */
+public class LocationsIndexBuilder 
+{
+	private int _size;
+	private double[] _x = new double[1024];
+	private double[] _y = new double[1024];
+	private long[] _osmIds = new long[1024];
+	private byte[] _osmTypes = new byte[1024];
+	private int[] _categories = new int[1024];
+	private byte[] _fees = new byte[1024];
+	private String[][] _attributes = new String[LocationsIndex.ATTRIBUTE_NAMES.length][1024];
+	private int _maxCategory;
+
+	/**
+	 * @param attributes the values of the attributes in the order of {@link LocationsIndex#ATTRIBUTE_NAMES}, entries may be null.
+	 * @param fee 1 if a fee has to be paid, 0 if not and -1 if unknown.
+	 */
+	public void add(long osmId, int osmType, int category, double x, double y, String[] attributes, int fee)
+	{
+		if (category < 0)
+			throw new IllegalArgumentException("Category must not be negative.");
+
+		if (_size == _x.length)
+			grow();
+
+		_x[_size] = x;
+		_y[_size] = y;
+		_osmIds[_size] = osmId;
+		_osmTypes[_size] = (byte)osmType;
+		_categories[_size] = category;
+		_fees[_size] = (byte)fee;
+		for (int a = 0; a < _attributes.length; a++)
+			_attributes[a][_size] = attributes != null && a < attributes.length ? attributes[a] : null;
+
+		_maxCategory = Math.max(_maxCategory, category);
+		_size++;
+	}
+
+	private void grow()
+	{
+		int capacity = _x.length * 2;
+		_x = Arrays.copyOf(_x, capacity);
+		_y = Arrays.copyOf(_y, capacity);
+		_osmIds = Arrays.copyOf(_osmIds, capacity);
+		_osmTypes = Arrays.copyOf(_osmTypes, capacity);
+		_categories = Arrays.copyOf(_categories, capacity);
+		_fees = Arrays.copyOf(_fees, capacity);
+		for (int a = 0; a < _attributes.length; a++)
+			_attributes[a] = Arrays.copyOf(_attributes[a], capacity);
+	}
+
+	public int size()
+	{
+		return _size;
+	}
+
+	/**
+	 * Sorts the points with the Sort-Tile-Recursive algorithm: the points are split into vertical slices 
+	 * by longitude and each slice is sorted by latitude, so that consecutive runs of points form the leaves.
+	 */
+	public LocationsIndex build()
+	{
+		int n = _size;
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+
+		final double[] x = _x;
+		final double[] y = _y;
+
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(x[a], x[b]);
+			}
+		});
+
+		int leafCount = (n + LocationsIndex.NODE_CAPACITY - 1) / LocationsIndex.NODE_CAPACITY;
+		int sliceSize = (int)Math.ceil(Math.sqrt(leafCount)) * LocationsIndex.NODE_CAPACITY;
+		Comparator<Integer> byY = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(y[a], y[b]);
+			}
+		};
+		for (int start = 0; start < n; start += sliceSize)
+			Arrays.sort(order, start, Math.min(n, start + sliceSize), byY);
+
+		double[] sortedX = new double[n];
+		double[] sortedY = new double[n];
+		long[] osmIds = new long[n];
+		byte[] osmTypes = new byte[n];
+		int[] categories = new int[n];
+		byte[] fees = new byte[n];
+		String[][] attributes = new String[_attributes.length][n];
+
+		for (int i = 0; i < n; i++)
+		{
+			int j = order[i];
+			sortedX[i] = x[j];
+			sortedY[i] = y[j];
+			osmIds[i] = _osmIds[j];
+			osmTypes[i] = _osmTypes[j];
+			categories[i] = _categories[j];
+			fees[i] = _fees[j];
+			for (int a = 0; a < attributes.length; a++)
+				attributes[a][i] = _attributes[a][j];
+		}
+
+		return new LocationsIndex(n, sortedX, sortedY, osmIds, osmTypes, categories, fees, attributes, _maxCategory);
+	}
+}
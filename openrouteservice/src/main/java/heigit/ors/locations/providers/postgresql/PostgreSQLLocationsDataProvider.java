@@ -47,6 +47,7 @@ import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class PostgreSQLLocationsDataProvider implements LocationsDataProvider 
@@ -57,7 +58,15 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 	 
 	private String _tableName = null;
 	private int _geomColumnIndex = 4;
+	private int _fetchSize = 500;
 	private HikariDataSource  _dataSource;
+	// WKBReader is not thread-safe, but it can be reused by the requests of a thread
+	private final ThreadLocal<WKBReader> _wkbReader = new ThreadLocal<WKBReader>() {
+		@Override
+		protected WKBReader initialValue() {
+			return new WKBReader();
+		}
+	};
 	
 	static
 	{
@@ -152,6 +161,9 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 			throw new InternalServerException(LocationsErrorCodes.UNKNOWN, "'table_name' parameter can not be null or empty.");
 		else
 			_tableName = value;
+
+		if (parameters.containsKey("fetch_size"))
+			_fetchSize = Integer.parseInt(parameters.get("fetch_size").toString());
 		
 		//https://github.com/pgjdbc/pgjdbc/pull/772
 		org.postgresql.Driver.isRegistered();
@@ -227,7 +239,7 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 			if (request.getGeometry() instanceof Polygon || request.getGeometry() == null)
 				nColumns--; // skip distance column for polygons
 			
-			WKBReader wkbReader = new WKBReader();
+			WKBReader wkbReader = _wkbReader.get();
 			
 			while (resSet.next()) 
 			{
@@ -285,7 +297,13 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 		return results;
 	}
 
-	private String buildSearchFilter(LocationsSearchFilter filter) throws Exception
+	/**
+	 * Builds the condition which the stored functions append to their queries. The condition is passed to them as
+	 * parameter, so string values are quoted as literals of their own.
+	 *
+	 * @param formatted true if the function runs the condition through format(), which requires % to be escaped.
+	 */
+	private String buildSearchFilter(LocationsSearchFilter filter, boolean formatted) throws Exception
 	{
 		String cmdText = "";
 		
@@ -299,24 +317,24 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 			if (filter.getName() != null)
 			{
 				if (filter.getName().contains("*"))
-					cmdText = addConditions(cmdText, "(name IS NOT NULL AND (lower(name) LIKE ''" + filter.getName().replace("*", "%%").toLowerCase() + "''))");
+					cmdText = addConditions(cmdText, "(name IS NOT NULL AND (lower(name) LIKE " + toLiteral(filter.getName().replace("*", "%").toLowerCase(), formatted) + "))");
 				else
-					cmdText = addConditions(cmdText, "(lower(name) = ''" + filter.getName().toLowerCase() + "'')");
+					cmdText = addConditions(cmdText, "(lower(name) = " + toLiteral(filter.getName().toLowerCase(), formatted) + ")");
 			}
 
 			if (!Helper.isEmpty(filter.getWheelchair()))
 			{
 				if (filter.getWheelchair().indexOf(',') > 0)
-					cmdText = addConditions(cmdText, "(wheelchair IN ("+ fixStringValues(filter.getWheelchair(), true) +"))");
+					cmdText = addConditions(cmdText, "(wheelchair IN ("+ fixStringValues(filter.getWheelchair(), formatted) +"))");
 				else
-					cmdText = addConditions(cmdText, "(wheelchair = "+ fixStringValues(filter.getWheelchair(), false) +")");
+					cmdText = addConditions(cmdText, "(wheelchair = "+ toLiteral(filter.getWheelchair().trim(), formatted) +")");
 			}
 			if (!Helper.isEmpty(filter.getSmoking()))
 			{
 				if (filter.getSmoking().indexOf(',') > 0)
-					cmdText = addConditions(cmdText, "(smoking IN (" + fixStringValues(filter.getSmoking(), true) + "))");
+					cmdText = addConditions(cmdText, "(smoking IN (" + fixStringValues(filter.getSmoking(), formatted) + "))");
 				else
-					cmdText = addConditions(cmdText, "(smoking = "+ fixStringValues(filter.getSmoking(), false) +")");
+					cmdText = addConditions(cmdText, "(smoking = "+ toLiteral(filter.getSmoking().trim(), formatted) +")");
 			}
 
 			if (filter.getFee() != null)
@@ -342,28 +360,16 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 		byte[] geomBytes = geometryToWKB(geom, bbox);
 
 		// at the end, we add virtual column to store the exact distance. 
-		String query = "SELECT " + queryInfo.getQuery1Columns() + " FROM " + _tableName;
-		
-		String whereCondition = "";
-		
-		String searchCondition = buildSearchFilter(request.getSearchFilter());
-		if (!Helper.isEmpty(searchCondition))
-			whereCondition += searchCondition;
-		
-		String stateText = String.format("SELECT %s FROM ORS_FindLocations('(%s) as tmp', '%s', ?, %.3f, %d) AS %s", queryInfo.getQuery2Columns(), query, whereCondition, request.getRadius(), request.getLimit(), queryInfo.getReturnTable());
-
-		if (request.getSortType() != LocationsResultSortType.NONE)
-		{
-			if (request.getSortType() == LocationsResultSortType.CATEGORY)
-				stateText += " ORDER BY category";
-			else if (request.getSortType() == LocationsResultSortType.DISTANCE)
-				stateText += " ORDER BY distance";
-		}
+		String query = "(SELECT " + queryInfo.getQuery1Columns() + " FROM " + _tableName + ") as tmp";
 
-		PreparedStatement statement = conn.prepareStatement(stateText);    
+		PreparedStatement statement = conn.prepareStatement(queryInfo.getLocationsQuery(request.getSortType()));
 		statement.setMaxRows(request.getLimit());
-		if (geomBytes != null)
-			statement.setBytes(1, geomBytes);
+		statement.setFetchSize(_fetchSize);
+		statement.setString(1, query);
+		statement.setString(2, buildSearchFilter(request.getSearchFilter(), true));
+		statement.setBytes(3, geomBytes);
+		statement.setDouble(4, request.getRadius());
+		statement.setInt(5, request.getLimit());
 
 		return statement;
 	}
@@ -434,28 +440,34 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 
 	private PreparedStatement createCategoriesStatement(LocationsRequest request, Connection conn) throws Exception 
 	{
-		String cmdFilter = buildSearchFilter(request.getSearchFilter()); 
+		String cmdFilter = buildSearchFilter(request.getSearchFilter(), false); 
 
-		byte[] 	geomBytes = null;
 		Geometry geom = request.getGeometry();
 		Envelope bbox = request.getBBox();
-		
-		if (geom != null)
-		   geomBytes = geometryToWKB(geom, bbox);
-
-		if (bbox != null)
-			cmdFilter = addConditions(cmdFilter, buildBboxFilter(bbox));
+		PreparedStatement statement = null;
 
-		String stateText = null;
-		
 		if (geom == null)
-			stateText = String.format("SELECT category, COUNT(category) AS count FROM %s WHERE (%s) GROUP BY category ORDER BY category", _tableName, cmdFilter);
+		{
+			String condition = addConditions(cmdFilter, "(geom && ST_Transform(ST_MakeEnvelope(?, ?, ?, ?, 4326), 900913))");
+			statement = conn.prepareStatement("SELECT category, COUNT(category) AS count FROM " + _tableName + " WHERE " + condition + " GROUP BY category ORDER BY category");
+			statement.setDouble(1, bbox.getMinX());
+			statement.setDouble(2, bbox.getMinY());
+			statement.setDouble(3, bbox.getMaxX());
+			statement.setDouble(4, bbox.getMaxY());
+		}
 		else
-			stateText = String.format("SELECT * FROM ORS_FindLocationCategories('%s', '%s', ?, %.3f) AS categories(category smallint, count bigint)", _tableName, cmdFilter, request.getRadius());
+		{
+			if (bbox != null)
+				cmdFilter = addConditions(cmdFilter, buildBboxFilter(bbox));
+
+			statement = conn.prepareStatement("SELECT * FROM ORS_FindLocationCategories(?, ?, ?, ?) AS categories(category smallint, count bigint)");
+			statement.setString(1, _tableName);
+			statement.setString(2, cmdFilter);
+			statement.setBytes(3, geometryToWKB(geom, bbox));
+			statement.setDouble(4, request.getRadius());
+		}
 
-		PreparedStatement statement = conn.prepareStatement(stateText);
-		if (geomBytes != null)
-			statement.setBytes(1, geomBytes);
+		statement.setFetchSize(_fetchSize);
 		
 		return statement;
 	}
@@ -476,7 +488,7 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 
 	private String buildBboxFilter(Envelope bbox)
 	{
-		return String.format(" (geom && ST_Transform(ST_MakeEnvelope(%.7f,%.7f,%.7f,%.7f,4326), 900913))", bbox.getMinX(), bbox.getMinY(), bbox.getMaxX(), bbox.getMaxY());
+		return String.format(Locale.ROOT, " (geom && ST_Transform(ST_MakeEnvelope(%.7f,%.7f,%.7f,%.7f,4326), 900913))", bbox.getMinX(), bbox.getMinY(), bbox.getMaxX(), bbox.getMaxY());
 	}
 
 	private String buildCategoryIdsFilter(int[] ids)
@@ -539,30 +551,26 @@ public class PostgreSQLLocationsDataProvider implements LocationsDataProvider
 		return sb.toString();
 	}
 
-	private String fixStringValues(String value, Boolean multipeValues)
+	private String fixStringValues(String value, boolean formatted)
 	{
-		if (multipeValues)
-		{
-			String result = "";
-
-			String[] values = value.split(",");
-			int nValues = values.length;
-			for(int i = 0; i < nValues; i++)
-			{
-				result += "''" + values[i].trim() + "''";
-				if (i < nValues - 1)
-					result += ",";
-			}
+		String result = "";
 
-			return result;
-		}
-		else
+		String[] values = value.split(",");
+		int nValues = values.length;
+		for(int i = 0; i < nValues; i++)
 		{
-			if (value.indexOf('\'') > 0)
-				return value;
-			else
-				return "''"+ value+"''";
+			result += toLiteral(values[i].trim(), formatted);
+			if (i < nValues - 1)
+				result += ",";
 		}
+
+		return result;
+	}
+
+	private static String toLiteral(String value, boolean formatted)
+	{
+		String literal = "'" + value.replace("'", "''") + "'";
+		return formatted ? literal.replace("%", "%%") : literal;
 	}
 	
 	public void close()
@@ -25,17 +25,31 @@ import java.util.List;
 
 import com.graphhopper.util.Helper;
 
+import heigit.ors.locations.LocationsResultSortType;
+
 public class QueryColumnsInfo 
 {
+	private static final int TYPE_OTHER = 0;
+	private static final int TYPE_STRING = 1;
+	private static final int TYPE_INTEGER = 2;
+	private static final int TYPE_SHORT = 3;
+	private static final int TYPE_LONG = 4;
+	private static final int TYPE_DOUBLE = 5;
+
 	private String _query1Columns;
 	private String _query2Columns;
 	private String _returnTable;
 	private ColumnDescription[] _columns;
+	private int[] _types;
 	private int _returnColumnCount;
+	private String[] _locationsQueries;
 
 	public QueryColumnsInfo(ColumnDescription[] columns, List<String> ignoreQuery2Columns)
 	{
 		_columns = columns;
+		_types = new int[columns.length];
+		for (int i = 0; i < columns.length; i++)
+			_types[i] = getTypeCode(columns[i].getType());
 
 		_query1Columns = "";
 		_query2Columns = "";
@@ -79,6 +93,30 @@ public class QueryColumnsInfo
 		returnTable += " location geography, distance numeric";
 
 		_returnTable = "pois(" + returnTable + ")";
+
+		// the statements differ only in their parameters, so that the driver can reuse the server-side prepared statements
+		String query = "SELECT " + _query2Columns + " FROM ORS_FindLocations(?, ?, ?, ?, ?) AS " + _returnTable;
+		_locationsQueries = new String[LocationsResultSortType.values().length];
+		_locationsQueries[LocationsResultSortType.NONE.ordinal()] = query;
+		_locationsQueries[LocationsResultSortType.CATEGORY.ordinal()] = query + " ORDER BY category";
+		_locationsQueries[LocationsResultSortType.DISTANCE.ordinal()] = query + " ORDER BY distance";
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static int getTypeCode(Class type)
+	{
+		if (type == String.class)
+			return TYPE_STRING;
+		else if (type == Integer.class)
+			return TYPE_INTEGER;
+		else if (type == Short.class)
+			return TYPE_SHORT;
+		else if (type == Long.class)
+			return TYPE_LONG;
+		else if (type == Double.class)
+			return TYPE_DOUBLE;
+
+		return TYPE_OTHER;
 	}
 
 	private String getColumnDataType(String clmName)
@@ -121,31 +159,22 @@ public class QueryColumnsInfo
 		return _columns[index].getName();
 	}
 	
-	@SuppressWarnings("rawtypes")
 	public Object getType(int index, ResultSet resultSet) throws Exception
 	{
-		Class type = _columns[index].getType();
-		
-		if (type == String.class)
+		switch (_types[index])
 		{
+		case TYPE_STRING:
 			String str = resultSet.getString(index + 1);
 			if (!Helper.isEmpty(str))
 				return str;
-		}
-		else if (type == Integer.class)
-		{
+			break;
+		case TYPE_INTEGER:
 			return resultSet.getInt(index + 1);
-		}
-		else if (type == Short.class)
-		{
+		case TYPE_SHORT:
 			return resultSet.getShort(index + 1);
-		}
-		else if (type == Long.class)
-		{
+		case TYPE_LONG:
 			return resultSet.getLong(index + 1);
-		}
-		else if (type == Double.class)
-		{
+		case TYPE_DOUBLE:
 			return resultSet.getDouble(index + 1);
 		}
 		
@@ -171,4 +200,12 @@ public class QueryColumnsInfo
 	{
 		return _returnTable;
 	}
+
+	/**
+	 * @return the statement calling ORS_FindLocations with the parameters table query, condition, geometry, radius and limit.
+	 */
+	public String getLocationsQuery(LocationsResultSortType sortType)
+	{
+		return _locationsQueries[sortType.ordinal()];
+	}
 }
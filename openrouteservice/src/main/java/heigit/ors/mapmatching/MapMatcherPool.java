@@ -0,0 +1,80 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.mapmatching;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.graphhopper.GraphHopper;
+
+import heigit.ors.mapmatching.hmm.HiddenMarkovMapMatcher;
+
+/*
+ * Map matchers keep mutable scratch data and per-call settings such as the search radius and edge filter, 
+ * so that an instance must not be used by more than one thread at a time. The pool hands out an exclusive 
+ * instance per call and keeps released instances for reuse.
+ */
+public class MapMatcherPool {
+	private GraphHopper _graphHopper;
+	private ConcurrentLinkedQueue<MapMatcher> _matchers = new ConcurrentLinkedQueue<MapMatcher>();
+	private AtomicInteger _idleCount = new AtomicInteger();
+	private int _maxIdle;
+
+	public MapMatcherPool(GraphHopper gh)
+	{
+		this(gh, Runtime.getRuntime().availableProcessors());
+	}
+
+	public MapMatcherPool(GraphHopper gh, int maxIdle)
+	{
+		_graphHopper = gh;
+		_maxIdle = Math.max(1, maxIdle);
+	}
+
+	public MapMatcher acquire()
+	{
+		MapMatcher matcher = _matchers.poll();
+
+		if (matcher == null)
+		{
+			matcher = new HiddenMarkovMapMatcher();
+			matcher.setGraphHopper(_graphHopper);
+		}
+		else
+			_idleCount.decrementAndGet();
+
+		return matcher;
+	}
+
+	public void release(MapMatcher matcher)
+	{
+		if (matcher == null)
+			return;
+
+		// do not hold on to filters of previous requests
+		matcher.setEdgeFilter(null);
+
+		if (_idleCount.incrementAndGet() <= _maxIdle)
+			_matchers.offer(matcher);
+		else
+			_idleCount.decrementAndGet();
+	}
+}
@@ -21,24 +21,32 @@
 package heigit.ors.mapmatching.hmm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
 import heigit.ors.mapmatching.AbstractMapMatcher;
 import heigit.ors.mapmatching.LocationIndexMatch;
 import heigit.ors.mapmatching.RouteSegmentInfo;
+import heigit.ors.routing.algorithms.DijkstraOneToManyAlgorithm;
 
-import com.graphhopper.GHRequest;
-import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopper;
-import com.graphhopper.PathWrapper;
+import com.graphhopper.routing.QueryGraph;
 import com.graphhopper.routing.util.DefaultEdgeFilter;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.SPTEntry;
 import com.graphhopper.storage.index.QueryResult;
+import com.graphhopper.util.ByteArrayBuffer;
 import com.graphhopper.util.DistanceCalc;
 import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.EdgeIteratorState;
 import com.vividsolutions.jts.geom.Coordinate;
 
 /*
@@ -46,18 +54,24 @@ import com.vividsolutions.jts.geom.Coordinate;
  * 
  * http://research.microsoft.com/en-us/um/people/jckrumm/Publications%202009/map%20matching%20ACM%20GIS%20camera%20ready.pdf
  * 
+ * Instances hold per-call scratch data and are not thread-safe, use MapMatcherPool to share them between threads.
  * */
 public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 
 	private DistanceCalc distCalcEarth = new DistanceCalcEarth(); // DistancePlaneProjection
 	private LocationIndexMatch locationIndex;
 	private FlagEncoder encoder;
+	private Weighting distanceWeighting;
+	private Weighting timeWeighting;
+	private ByteArrayBuffer arrayBuffer = new ByteArrayBuffer();
 	private List<MatchPoint> matchPoints = new ArrayList<>(2);
 	private List<Integer> roadSegments = new ArrayList<Integer>();
 	
 	private static double sigma_z = 4.07;// sigma_z(z, x); this value is taken from a paper by Newson and Krumm
 	private static double beta =  0.00959442; // beta(z, x); 
 	private static double denom = Math.sqrt(2 * Math.PI) * sigma_z; // see Equation 1
+	// candidate pairs whose network distance exceeds this multiple of the GPS distance are considered unreachable
+	private static double maxDetourFactor = 4.0;
 	
 	private double[] distances = new double[2];
 	private double[] longitudes = new double[2];
@@ -69,6 +83,7 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		public int segmentId;
 		public double distance;
 		public int measuredPointIndex;
+		public QueryResult queryResult;
 
 		public MatchPoint(double lat, double lon) {
 			super(lat, lon);
@@ -86,6 +101,8 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		_graphHopper = gh;
 
 		encoder = gh.getEncodingManager().fetchEdgeEncoders().get(0);
+		distanceWeighting = new ShortestWeighting(encoder);
+		timeWeighting = new FastestWeighting(encoder);
 		GraphHopperStorage graph = gh.getGraphHopperStorage();
 		locationIndex = new LocationIndexMatch(graph,
 				(com.graphhopper.storage.index.LocationIndexTree) gh.getLocationIndex(), (int)_searchRadius);
@@ -102,7 +119,8 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		//inputPoints[1] = new Point((lat0 + lat1)/2.0, (lon0+lon1)/2.0); // extension
 		//inputPoints[2] = new Point(lat1, lon1);
 		//inputPoints[1] = new Point(lat1, lon1);
-		Coordinate[] z = locations;
+		// the points are reversed in place when both directions are matched, so do not touch the caller's array
+		Coordinate[] z = bothDirections ? locations.clone() : locations;
 		int Nz = z.length;
 		int Nr = 0;
 		matchPoints.clear();
@@ -131,11 +149,20 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		if (Nr == 0)
 			return null;
 		
+		// snap all candidates into one query graph, so that transition costs can be computed 
+		// from the exact snapped positions without a separate routing request per candidate pair
+		List<QueryResult> queryResults = new ArrayList<QueryResult>(matchPoints.size());
+		for (MatchPoint mp : matchPoints)
+			queryResults.add(mp.queryResult);
+
+		QueryGraph queryGraph = new QueryGraph(_graphHopper.getGraphHopperStorage().getBaseGraph());
+		queryGraph.lookup(queryResults, arrayBuffer);
+
 		double[][] transProbs = new double[Nr][Nr];
 		double[][] emissionProbs = new double[Nr][Nz];
 		double[] startProbs = new double[Nr];
 
-		RouteSegmentInfo seg1 = findRouteSegments(z, x, Nr, Nz, startProbs, emissionProbs, transProbs, edgeFilter);
+		RouteSegmentInfo seg1 = findRouteSegments(z, x, Nr, Nz, startProbs, emissionProbs, transProbs, queryGraph, edgeFilter);
 		RouteSegmentInfo seg2 = null;
 		
 		if (bothDirections)
@@ -161,7 +188,7 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 				}
 			}
 
-			seg2 = findRouteSegments(z, x, Nr, Nz, startProbs, emissionProbs, transProbs, edgeFilter);
+			seg2 = findRouteSegments(z, x, Nr, Nz, startProbs, emissionProbs, transProbs, queryGraph, edgeFilter);
 		}
 		
 		if (seg1 !=  null && seg2 != null)
@@ -193,7 +220,7 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		return result;
 	}
 
-	private RouteSegmentInfo findRouteSegments(Coordinate[] z, MatchPoint[][] x, int Nr, int Nz, double[] startProbs, double[][] emissionProbs, double[][] transProbs, EdgeFilter edgeFilter)
+	private RouteSegmentInfo findRouteSegments(Coordinate[] z, MatchPoint[][] x, int Nr, int Nz, double[] startProbs, double[][] emissionProbs, double[][] transProbs, QueryGraph queryGraph, EdgeFilter edgeFilter)
 	{
 		// Phase II: Compute distances, probabilities, etc.
 
@@ -244,61 +271,7 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		
 		double perfTime = (distances[0]/encoder.getMaxSpeed())*3600;
 		
-		for (int i = 0; i < Nr; i++) {
-		    MatchPoint xi = matchPoints.get(i);
-			
-			for (int j = 0; j < Nr; j++) {
-				
-				double value = defaultProbability;
-				
-				if (i != j)
-				{
-					MatchPoint xj = matchPoints.get(j);
-				 
-					// check the order of points from 0 -> 1
-					if (xi.measuredPointIndex < xj.measuredPointIndex)
-					{
-						//Point zt = z[xi.measuredPointIndex ];
-						//Point zt1 = z[xj.measuredPointIndex];
-						double dz = distances[xi.measuredPointIndex]; // distCalcEarth.calcDist(zt.lat, zt.lon, zt1.lat, zt1.lon);
-				
-						GHRequest req = new GHRequest(xi.y, xi.x, xj.y, xj.x);
-						req.getHints().put("ch.disable", true);
-						req.getHints().put("lm.disable", true);
-						req.setAlgorithm("dijkstrabi"); 
-						
-						try
-						{
-							GHResponse resp = _graphHopper.route(req);
-						
-							if (!resp.hasErrors())
-							{
-								PathWrapper path = resp.getBest();
-								/*
-								double dx = resp.getDistance();
-								double dt = Math.abs(dz - dx);
-                                								
-								value = exponentialDistribution(100*beta, dt);  // Equation 2
-								*/
-								
-								double dx = path.getDistance();
-								double dt = Math.abs(dz - dx)/distances[0]; // normalize 
-
-								double time = path.getTime();
-								//(distances[0]/1000/encoder.getMaxSpeed())*60*60*1000
-                                double dt2 = Math.abs(time - perfTime)/perfTime;
-                                								
-								value = exponentialDistribution(beta, 0.2*dt + 0.8*dt2); 
-							}
-						}
-						catch(Exception ex)
-						{}
-					}
-				}
-				
-				transProbs[i][j] = value;
-			}
-		}
+		computeTransitionProbabilities(Nr, Nz, perfTime, defaultProbability, transProbs, queryGraph, edgeFilter);
 
 		// Phase III: Apply Viterbi algorithm to find the path through the
 		// lattice that maximizes the product of the measurement probabilities
@@ -340,6 +313,93 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 		return res;
 	}
 	
+	/*
+	 * Fills the transition table by running one bounded one-to-many search per candidate towards all 
+	 * candidates of later observations. Only distance and time of the shortest paths are read, 
+	 * no path geometry is built.
+	 */
+	private void computeTransitionProbabilities(int Nr, int Nz, double perfTime, double defaultProbability, double[][] transProbs, QueryGraph queryGraph, EdgeFilter edgeFilter)
+	{
+		DijkstraOneToManyAlgorithm algorithm = new DijkstraOneToManyAlgorithm(queryGraph, distanceWeighting, TraversalMode.NODE_BASED);
+		algorithm.setEdgeFilter(edgeFilter);
+
+		int[] targetNodes = new int[Nr];
+		int[] targetIndices = new int[Nr];
+
+		for (int i = 0; i < Nr; i++) {
+			MatchPoint xi = matchPoints.get(i);
+
+			for (int j = 0; j < Nr; j++)
+				transProbs[i][j] = defaultProbability;
+
+			int nTargets = 0;
+			int lastMeasuredPointIndex = xi.measuredPointIndex;
+
+			// check the order of points from 0 -> 1
+			for (int j = 0; j < Nr; j++) {
+				MatchPoint xj = matchPoints.get(j);
+				if (i != j && xi.measuredPointIndex < xj.measuredPointIndex) {
+					targetNodes[nTargets] = xj.queryResult.getClosestNode();
+					targetIndices[nTargets] = j;
+					nTargets++;
+
+					if (xj.measuredPointIndex > lastMeasuredPointIndex)
+						lastMeasuredPointIndex = xj.measuredPointIndex;
+				}
+			}
+
+			if (nTargets == 0)
+				continue;
+
+			// network distance bound derived from the GPS distance to the most distant target observation
+			double gpsDistance = 0.0;
+			for (int t = xi.measuredPointIndex; t < lastMeasuredPointIndex && t < Nz - 1; t++)
+				gpsDistance += distances[t];
+
+			int[] to = Arrays.copyOf(targetNodes, nTargets);
+
+			try
+			{
+				algorithm.reset();
+				algorithm.setMaxWeight(Math.max(maxDetourFactor * gpsDistance, gpsDistance + 2 * _searchRadius));
+				int from = xi.queryResult.getClosestNode();
+				algorithm.prepare(new int[] { from }, to);
+				SPTEntry[] targets = algorithm.calcPaths(from, to);
+
+				double dz = distances[xi.measuredPointIndex];
+
+				for (int k = 0; k < nTargets; k++) {
+					SPTEntry goalEdge = targets[k];
+					if (goalEdge == null)
+						continue;
+
+					double dx = goalEdge.weight;
+					double dt = Math.abs(dz - dx)/distances[0]; // normalize 
+
+					double time = calcPathTime(queryGraph, goalEdge);
+					double dt2 = Math.abs(time - perfTime)/perfTime;
+
+					transProbs[i][targetIndices[k]] = exponentialDistribution(beta, 0.2*dt + 0.8*dt2); 
+				}
+			}
+			catch(Exception ex)
+			{}
+		}
+	}
+
+	private double calcPathTime(QueryGraph queryGraph, SPTEntry goalEdge)
+	{
+		double time = 0.0;
+
+		while (goalEdge != null && EdgeIterator.Edge.isValid(goalEdge.edge)) {
+			EdgeIteratorState iter = queryGraph.getEdgeIteratorState(goalEdge.edge, goalEdge.adjNode);
+			time += timeWeighting.calcMillis(iter, false, EdgeIterator.NO_EDGE);
+			goalEdge = goalEdge.parent;
+		}
+
+		return time;
+	}
+
 	static double exponentialDistribution(double beta, double x) {
         return 1.0 / beta * Math.exp(-x / beta); 
     }
@@ -371,6 +431,7 @@ public class HiddenMarkovMapMatcher extends AbstractMapMatcher {
 				mp.distance = distance;
                 mp.segmentId = roadSegments.indexOf(edgeId);
                 mp.measuredPointIndex = measuredPointIndex;
+                mp.queryResult = qr;
 
 				matchPoints.add(mp);
 			}
@@ -0,0 +1,440 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.mapmatching.hmm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import heigit.ors.mapmatching.LocationIndexMatch;
+import heigit.ors.routing.algorithms.DijkstraOneToManyAlgorithm;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntHashSet;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.QueryGraph;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.SPTEntry;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.QueryResult;
+import com.graphhopper.util.ByteArrayBuffer;
+import com.graphhopper.util.DistanceCalc;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.EdgeIterator;
+import com.vividsolutions.jts.geom.Coordinate;
+
+/*
+ * Map matching of long GPS traces based on the Hidden Markov Model described by Paul Newson and John Krumm
+ * in "Hidden Markov Map Matching Through Noise and Sparseness".
+ *
+ * In contrast to HiddenMarkovMapMatcher, observations are processed as a stream: candidates are looked up
+ * chunk by chunk, transition costs are computed with bounded one-to-many searches between consecutive observations
+ * and the most likely sequence is decoded by a sliding window Viterbi. Memory consumption therefore depends
+ * on the window size and not on the length of the trace.
+ *
+ * The result consists of the matched sequences of the trace together with the edges of the paths between their 
+ * observations, so that the route along a sequence can be restricted to exactly the matched edges.
+ *
+ * Instances are thread-safe, the mutable scratch data is taken from a pool of the instance for every call. It is 
+ * therefore released together with the matcher when the graph is replaced.
+ */
+public class OnlineHiddenMarkovMapMatcher {
+	private static final int CHUNK_SIZE = 32;
+
+	private DistanceCalc distCalc = new DistanceCalcEarth();
+	private GraphHopperStorage graph;
+	private LocationIndexTree locationIndex;
+
+	private double sigma = 4.07; // standard deviation of GPS noise, see Newson and Krumm
+	private double beta = 2.0; // scale of the difference between great circle and route distances in meters
+	private double maxDetourFactor = 4.0;
+	private int maxCandidates = 8;
+	private int windowSize = 64;
+
+	private final ConcurrentLinkedQueue<MatchingState> idleStates = new ConcurrentLinkedQueue<MatchingState>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final int maxIdle = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * A part of the trace in which every observation can be reached from the previous one.
+	 */
+	public static class MatchedSequence {
+		private Coordinate[] coordinates;
+		private IntHashSet edges;
+
+		public MatchedSequence(Coordinate[] coordinates, IntHashSet edges) {
+			this.coordinates = coordinates;
+			this.edges = edges;
+		}
+
+		/**
+		 * @return the snapped positions of the matched observations, where runs on the same edge are reduced to their first and last position
+		 */
+		public Coordinate[] getCoordinates() {
+			return coordinates;
+		}
+
+		/**
+		 * @return the ids of the base graph edges of the matched path
+		 */
+		public IntHashSet getEdges() {
+			return edges;
+		}
+	}
+
+	private class Candidate {
+		public QueryResult queryResult;
+		public double lat;
+		public double lon;
+		public int edgeId;
+		public int index;
+		// the query graph of the transitions to this candidate and the paths from the candidates of the previous observation
+		public QueryGraph queryGraph;
+		public SPTEntry[] paths;
+	}
+
+	private class MatchingState {
+		public LocationIndexMatch indexMatch;
+		public ViterbiSolver viterbi = new ViterbiSolver();
+		public ByteArrayBuffer arrayBuffer = new ByteArrayBuffer();
+		public ArrayDeque<Candidate[]> pending = new ArrayDeque<Candidate[]>();
+		public IntArrayList decoded = new IntArrayList();
+		public List<Candidate> matched = new ArrayList<Candidate>();
+		public IntHashSet matchedEdges = new IntHashSet();
+		public List<MatchedSequence> sequences = new ArrayList<MatchedSequence>();
+
+		public MatchingState() {
+			indexMatch = new LocationIndexMatch(graph, locationIndex, 15);
+		}
+
+		public void clear() {
+			pending.clear();
+			decoded.clear();
+			matched.clear();
+			// both are handed out as the result of a call
+			matchedEdges = new IntHashSet();
+			sequences = new ArrayList<MatchedSequence>();
+		}
+	}
+
+	public OnlineHiddenMarkovMapMatcher(GraphHopper gh) {
+		graph = gh.getGraphHopperStorage();
+		locationIndex = (LocationIndexTree) gh.getLocationIndex();
+	}
+
+	public void setMaximumCandidates(int value) {
+		maxCandidates = Math.max(1, value);
+	}
+
+	public void setWindowSize(int value) {
+		windowSize = Math.max(2, value);
+	}
+
+	public void setSigma(double value) {
+		sigma = value;
+	}
+
+	public void setBeta(double value) {
+		beta = value;
+	}
+
+	/**
+	 * Matches a GPS trace to the road network.
+	 *
+	 * @param locations measured positions of the trace
+	 * @param encoder flag encoder of the profile
+	 * @param edgeFilter filter restricting both candidate edges and transitions
+	 * @param searchRadius maximum distance in meters between a measured position and its candidates
+	 * @return the matched sequences of the trace with at least two distinct positions each, split where an observation can't be reached from the previous one
+	 */
+	public List<MatchedSequence> match(Coordinate[] locations, FlagEncoder encoder, EdgeFilter edgeFilter, double searchRadius) {
+		MatchingState state = acquireState();
+		try {
+			return match(state, locations, encoder, edgeFilter, searchRadius);
+		} finally {
+			releaseState(state);
+		}
+	}
+
+	private List<MatchedSequence> match(MatchingState state, Coordinate[] locations, FlagEncoder encoder, EdgeFilter edgeFilter, double searchRadius) {
+		state.indexMatch.setGpxAccuracy(searchRadius);
+		state.viterbi.setWindowSize(windowSize);
+
+		Weighting weighting = new ShortestWeighting(encoder);
+		double minDistance = 2 * sigma;
+		int nLocations = locations.length;
+
+		Candidate[] prevCandidates = null;
+		Coordinate prevLocation = null;
+		List<Candidate[]> chunk = new ArrayList<Candidate[]>(CHUNK_SIZE);
+		List<Coordinate> chunkLocations = new ArrayList<Coordinate>(CHUNK_SIZE);
+
+		int i = 0;
+		while (i < nLocations) {
+			chunk.clear();
+			chunkLocations.clear();
+
+			// Phase I: candidate lookup for the next chunk of observations
+			for (; i < nLocations && chunk.size() < CHUNK_SIZE; i++) {
+				Coordinate z = locations[i];
+
+				// skip positions which are too close to the previous one to carry information, but always keep the last one
+				Coordinate last = chunkLocations.isEmpty() ? prevLocation : chunkLocations.get(chunkLocations.size() - 1);
+				if (last != null && i < nLocations - 1 && distCalc.calcDist(last.y, last.x, z.y, z.x) < minDistance)
+					continue;
+
+				Candidate[] candidates = findCandidates(state, z, edgeFilter, searchRadius);
+				if (candidates == null)
+					continue;
+
+				chunk.add(candidates);
+				chunkLocations.add(z);
+			}
+
+			if (chunk.isEmpty())
+				continue;
+
+			QueryGraph queryGraph = createQueryGraph(state, prevCandidates, chunk);
+			DijkstraOneToManyAlgorithm algorithm = new DijkstraOneToManyAlgorithm(queryGraph, weighting, TraversalMode.NODE_BASED);
+			algorithm.setEdgeFilter(edgeFilter);
+
+			// Phase II and III: transition costs and online decoding
+			for (int k = 0; k < chunk.size(); k++) {
+				Candidate[] candidates = chunk.get(k);
+				Coordinate z = chunkLocations.get(k);
+				double[] emissions = computeEmissionLogProbabilities(z, candidates);
+
+				if (prevCandidates == null) {
+					state.viterbi.start(emissions);
+				} else {
+					double gpsDistance = distCalc.calcDist(prevLocation.y, prevLocation.x, z.y, z.x);
+					double[][] transitions = computeTransitionLogProbabilities(queryGraph, algorithm, prevCandidates, candidates, gpsDistance, searchRadius);
+
+					if (!state.viterbi.next(transitions, emissions)) {
+						// HMM break: finish the current sequence and start a new one at this observation
+						state.viterbi.flush(state.decoded);
+						collectMatched(state);
+						finishSequence(state);
+						state.viterbi.start(emissions);
+					}
+				}
+
+				state.pending.add(candidates);
+				state.viterbi.poll(state.decoded);
+				collectMatched(state);
+
+				prevCandidates = candidates;
+				prevLocation = z;
+			}
+		}
+
+		if (prevCandidates != null) {
+			state.viterbi.flush(state.decoded);
+			collectMatched(state);
+			finishSequence(state);
+		}
+
+		return state.sequences;
+	}
+
+	private MatchingState acquireState() {
+		MatchingState state = idleStates.poll();
+		if (state == null)
+			state = new MatchingState();
+		else
+			idleCount.decrementAndGet();
+
+		return state;
+	}
+
+	private void releaseState(MatchingState state) {
+		state.clear();
+
+		if (idleCount.incrementAndGet() <= maxIdle)
+			idleStates.offer(state);
+		else
+			idleCount.decrementAndGet();
+	}
+
+	private Candidate[] findCandidates(MatchingState state, Coordinate z, EdgeFilter edgeFilter, double searchRadius) {
+		List<QueryResult> qResults = state.indexMatch.findNClosest(z.y, z.x, edgeFilter);
+		if (qResults.isEmpty())
+			return null;
+
+		// results are sorted by distance and contain at most one entry per edge
+		int n = 0;
+		Candidate[] candidates = new Candidate[Math.min(maxCandidates, qResults.size())];
+
+		for (QueryResult qr : qResults) {
+			if (n == candidates.length || qr.getQueryDistance() > searchRadius)
+				break;
+
+			Candidate c = new Candidate();
+			c.index = n;
+			c.queryResult = qr;
+			c.lat = qr.getSnappedPoint().getLat();
+			c.lon = qr.getSnappedPoint().getLon();
+			c.edgeId = qr.getClosestEdge().getEdge();
+			candidates[n++] = c;
+		}
+
+		if (n == 0)
+			return null;
+
+		return n == candidates.length ? candidates : Arrays.copyOf(candidates, n);
+	}
+
+	private QueryGraph createQueryGraph(MatchingState state, Candidate[] prevCandidates, List<Candidate[]> chunk) {
+		List<QueryResult> queryResults = new ArrayList<QueryResult>();
+
+		if (prevCandidates != null) {
+			for (Candidate c : prevCandidates)
+				queryResults.add(c.queryResult);
+		}
+
+		for (Candidate[] candidates : chunk) {
+			for (Candidate c : candidates)
+				queryResults.add(c.queryResult);
+		}
+
+		QueryGraph queryGraph = new QueryGraph(graph.getBaseGraph());
+		queryGraph.lookup(queryResults, state.arrayBuffer);
+
+		return queryGraph;
+	}
+
+	private double[] computeEmissionLogProbabilities(Coordinate z, Candidate[] candidates) {
+		double[] res = new double[candidates.length];
+		double logDenom = Math.log(Math.sqrt(2 * Math.PI) * sigma);
+
+		for (int i = 0; i < candidates.length; i++) {
+			Candidate c = candidates[i];
+			double v = distCalc.calcDist(z.y, z.x, c.lat, c.lon) / sigma;
+			res[i] = -0.5 * v * v - logDenom;
+		}
+
+		return res;
+	}
+
+	private double[][] computeTransitionLogProbabilities(QueryGraph queryGraph, DijkstraOneToManyAlgorithm algorithm, Candidate[] from, Candidate[] to, double gpsDistance, double searchRadius) {
+		double[][] res = new double[from.length][to.length];
+		int[] targetNodes = new int[to.length];
+		for (int j = 0; j < to.length; j++) {
+			targetNodes[j] = to[j].queryResult.getClosestNode();
+			to[j].queryGraph = queryGraph;
+			to[j].paths = new SPTEntry[from.length];
+		}
+
+		double logBeta = Math.log(beta);
+		double maxDistance = Math.max(maxDetourFactor * gpsDistance, gpsDistance + 2 * searchRadius);
+
+		for (int i = 0; i < from.length; i++) {
+			Arrays.fill(res[i], Double.NEGATIVE_INFINITY);
+
+			int fromNode = from[i].queryResult.getClosestNode();
+			algorithm.reset();
+			algorithm.setMaxWeight(maxDistance);
+			algorithm.prepare(new int[] { fromNode }, targetNodes);
+			SPTEntry[] targets = algorithm.calcPaths(fromNode, targetNodes);
+
+			for (int j = 0; j < to.length; j++) {
+				SPTEntry goalEdge = targets[j];
+				if (goalEdge != null) {
+					res[i][j] = -logBeta - Math.abs(gpsDistance - goalEdge.weight) / beta;
+					to[j].paths[i] = goalEdge;
+				}
+			}
+		}
+
+		return res;
+	}
+
+	private void collectMatched(MatchingState state) {
+		for (int i = 0; i < state.decoded.size(); i++) {
+			Candidate[] candidates = state.pending.poll();
+			Candidate c = candidates[state.decoded.get(i)];
+
+			state.matchedEdges.add(c.edgeId);
+			if (!state.matched.isEmpty())
+				addPathEdges(state.matchedEdges, c, state.matched.get(state.matched.size() - 1));
+			state.matched.add(c);
+
+			// the paths are not needed anymore once the observation is decoded
+			for (Candidate other : candidates) {
+				other.paths = null;
+				other.queryGraph = null;
+			}
+		}
+
+		state.decoded.clear();
+	}
+
+	/**
+	 * Adds the base graph edges of the path from the previous to the given candidate, which was found while
+	 * computing the transition probabilities.
+	 */
+	private void addPathEdges(IntHashSet edges, Candidate c, Candidate prev) {
+		SPTEntry entry = c.paths == null ? null : c.paths[prev.index];
+
+		for (; entry != null && entry.edge != EdgeIterator.NO_EDGE; entry = entry.parent)
+			edges.add(c.queryGraph.getEdgeIteratorState(entry.edge, entry.adjNode).getOriginalEdge());
+	}
+
+	private void finishSequence(MatchingState state) {
+		Coordinate[] coords = toCoordinates(state.matched);
+		if (coords != null)
+			state.sequences.add(new MatchedSequence(coords, state.matchedEdges));
+
+		state.matched.clear();
+		state.matchedEdges = new IntHashSet();
+	}
+
+	private Coordinate[] toCoordinates(List<Candidate> matched) {
+		List<Coordinate> res = new ArrayList<Coordinate>();
+		int n = matched.size();
+
+		for (int i = 0; i < n; i++) {
+			Candidate c = matched.get(i);
+
+			// only the first and the last position on an edge are required to reproduce the matched path
+			if (i > 0 && i < n - 1 && matched.get(i - 1).edgeId == c.edgeId && matched.get(i + 1).edgeId == c.edgeId)
+				continue;
+
+			if (!res.isEmpty()) {
+				Coordinate last = res.get(res.size() - 1);
+				if (last.x == c.lon && last.y == c.lat)
+					continue;
+			}
+
+			res.add(new Coordinate(c.lon, c.lat));
+		}
+
+		return res.size() < 2 ? null : res.toArray(new Coordinate[res.size()]);
+	}
+}
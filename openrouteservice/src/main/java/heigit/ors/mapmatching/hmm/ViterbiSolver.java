@@ -20,7 +20,17 @@
  */
 package heigit.ors.mapmatching.hmm;
 
+import com.carrotsearch.hppc.IntArrayList;
+
 public class ViterbiSolver {
+	// state of the online (sliding window) decoder
+	private int _windowSize = 64;
+	private double[] _delta;
+	private int[][] _backPointers;
+	private int _head;
+	private int _pending;
+	private IntArrayList _decoded = new IntArrayList();
+
 	
 	public int[] findPath(double[] startProbability, double[][] transitionProbability, double[][] emissionProbability, boolean scaled)
 	{
@@ -102,4 +112,206 @@ public class ViterbiSolver {
 	    
 	    return sequence;
 	}
+
+	public void setWindowSize(int windowSize)
+	{
+		_windowSize = Math.max(2, windowSize);
+	}
+
+	/**
+	 * Starts online decoding of a new sequence. All observations that have not been polled yet are discarded.
+	 * 
+	 * @param logEmissionProbability log emission probabilities of the states of the first observation
+	 */
+	public void start(double[] logEmissionProbability)
+	{
+		if (_backPointers == null || _backPointers.length != _windowSize)
+			_backPointers = new int[_windowSize][];
+
+		_delta = logEmissionProbability.clone();
+		_head = 0;
+		_pending = 1;
+		_decoded.clear();
+	}
+
+	/**
+	 * Adds the next observation to the online decoder. The most likely states of the oldest observations 
+	 * are committed as soon as all surviving paths share them or the window is full. 
+	 * 
+	 * @return false if none of the states of the new observation can be reached (HMM break); the decoder state is left untouched in this case
+	 */
+	public boolean next(double[][] logTransitionProbability, double[] logEmissionProbability)
+	{
+		int nPrevStates = _delta.length;
+		int nStates = logEmissionProbability.length;
+		double[] delta = new double[nStates];
+		int[] phi = new int[nStates];
+		boolean reachable = false;
+
+		for (int i = 0; i < nStates; i++) {
+			int maxState = -1;
+			double maxProb = Double.NEGATIVE_INFINITY;
+
+			for (int j = 0; j < nPrevStates; j++) {
+				double prob = _delta[j] + logTransitionProbability[j][i];
+				if (prob > maxProb) {
+					maxProb = prob;
+					maxState = j;
+				}
+			}
+
+			phi[i] = maxState;
+			delta[i] = maxState < 0 ? Double.NEGATIVE_INFINITY : maxProb + logEmissionProbability[i];
+
+			if (delta[i] != Double.NEGATIVE_INFINITY)
+				reachable = true;
+		}
+
+		if (!reachable)
+			return false;
+
+		if (_pending == _windowSize)
+			commitOldest(delta, phi);
+
+		_backPointers[(_head + _pending - 1) % _windowSize] = phi;
+		_delta = delta;
+		_pending++;
+
+		commitConverged();
+
+		return true;
+	}
+
+	/**
+	 * Moves the committed state indices of the oldest observations into the given list. 
+	 * 
+	 * @return the number of observations which have been decoded
+	 */
+	public int poll(IntArrayList states)
+	{
+		int n = _decoded.size();
+		if (n > 0) {
+			states.addAll(_decoded);
+			_decoded.clear();
+		}
+
+		return n;
+	}
+
+	/**
+	 * Decodes all pending observations using the most likely final state. 
+	 * 
+	 * @return the number of observations which have been decoded
+	 */
+	public int flush(IntArrayList states)
+	{
+		if (_pending > 0) {
+			int bestState = 0;
+			for (int i = 1; i < _delta.length; i++) {
+				if (_delta[i] > _delta[bestState])
+					bestState = i;
+			}
+
+			int[] sequence = new int[_pending];
+			sequence[_pending - 1] = bestState;
+			for (int t = _pending - 2; t >= 0; t--)
+				sequence[t] = getBackPointers(t)[sequence[t + 1]];
+
+			_decoded.add(sequence, 0, sequence.length);
+			_pending = 0;
+		}
+
+		return poll(states);
+	}
+
+	private int[] getBackPointers(int index)
+	{
+		// back pointers of pending observation index + 1 into the states of observation index
+		return _backPointers[(_head + index) % _windowSize];
+	}
+
+	private void commitOldest(double[] delta, int[] phi)
+	{
+		// fixed lag decoding: the oldest observation takes the state on the path of the currently best state  
+		int bestState = 0;
+		for (int i = 1; i < delta.length; i++) {
+			if (delta[i] > delta[bestState])
+				bestState = i;
+		}
+
+		int state = phi[bestState];
+		for (int t = _pending - 2; t >= 0; t--)
+			state = getBackPointers(t)[state];
+
+		// discard the paths which do not pass through the committed state, so that the decoded sequence stays consistent
+		for (int i = 0; i < delta.length; i++) {
+			if (delta[i] == Double.NEGATIVE_INFINITY)
+				continue;
+
+			int s = phi[i];
+			for (int t = _pending - 2; t >= 0; t--)
+				s = getBackPointers(t)[s];
+
+			if (s != state)
+				delta[i] = Double.NEGATIVE_INFINITY;
+		}
+
+		_decoded.add(state);
+		_head = (_head + 1) % _windowSize;
+		_pending--;
+	}
+
+	private void commitConverged()
+	{
+		int nStates = _delta.length;
+		int[] states = new int[nStates];
+		int nAlive = 0;
+
+		for (int i = 0; i < nStates; i++) {
+			if (_delta[i] != Double.NEGATIVE_INFINITY)
+				states[nAlive++] = i;
+		}
+
+		// walk back from the newest observation until all surviving paths meet in one state
+		int level = _pending - 1;
+		while (!allEqual(states, nAlive)) {
+			if (level == 0)
+				return;
+
+			int[] phi = getBackPointers(level - 1);
+			for (int i = 0; i < nAlive; i++)
+				states[i] = phi[states[i]];
+			level--;
+		}
+
+		int state = states[0];
+
+		// the newest observation always stays pending, as the next one is linked to it
+		if (level == _pending - 1) {
+			if (level == 0)
+				return;
+
+			state = getBackPointers(level - 1)[state];
+			level--;
+		}
+
+		int[] sequence = new int[level + 1];
+		sequence[level] = state;
+		for (int t = level - 1; t >= 0; t--)
+			sequence[t] = getBackPointers(t)[sequence[t + 1]];
+
+		_decoded.add(sequence, 0, sequence.length);
+		_head = (_head + level + 1) % _windowSize;
+		_pending -= level + 1;
+	}
+
+	private static boolean allEqual(int[] values, int count)
+	{
+		for (int i = 1; i < count; i++) {
+			if (values[i] != values[0])
+				return false;
+		}
+
+		return true;
+	}
 }
@@ -130,4 +130,24 @@ public class MatrixRequest extends ServiceRequest
 	public boolean isValid(){
 		return !(_sources == null && _destinations == null);
 	}
+
+	/**
+	 * @return a request with the same options and destinations for other sources.
+	 */
+	public MatrixRequest copy(Coordinate[] sources)
+	{
+		MatrixRequest req = new MatrixRequest();
+		req._profileType = _profileType;
+		req._sources = sources;
+		req._destinations = _destinations;
+		req._metrics = _metrics;
+		req._weightingMethod = _weightingMethod;
+		req._units = _units;
+		req._resolveLocations = _resolveLocations;
+		req._flexibleMode = _flexibleMode;
+		req._algorithm = _algorithm;
+		req.setId(getId());
+
+		return req;
+	}
 }
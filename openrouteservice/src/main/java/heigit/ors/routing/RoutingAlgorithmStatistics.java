@@ -0,0 +1,56 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Collects the number of nodes visited by the routing algorithms of a profile, so that the 
+ * effect of the speed-up techniques (CH, CCH, landmarks) can be monitored.
+ */
+public class RoutingAlgorithmStatistics {
+	private final Map<String, long[]> _counters = new HashMap<String, long[]>();
+
+	public synchronized void addRequest(String algorithm, long visitedNodes)
+	{
+		long[] counter = _counters.get(algorithm);
+		if (counter == null)
+		{
+			counter = new long[2];
+			_counters.put(algorithm, counter);
+		}
+
+		counter[0]++;
+		counter[1] += visitedNodes;
+	}
+
+	public synchronized Map<String, Double> getAverageVisitedNodes()
+	{
+		Map<String, Double> res = new TreeMap<String, Double>();
+
+		for (Map.Entry<String, long[]> entry : _counters.entrySet())
+			res.put(entry.getKey(), (double)entry.getValue()[1] / entry.getValue()[0]);
+
+		return res;
+	}
+}
@@ -20,6 +20,7 @@
  */
 package heigit.ors.routing;
 
+import com.carrotsearch.hppc.IntObjectMap;
 import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopper;
@@ -27,6 +28,8 @@ import com.graphhopper.reader.dem.ElevationProvider;
 import com.graphhopper.routing.util.*;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.QueryResult;
 import com.graphhopper.util.*;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
@@ -40,8 +43,12 @@ import heigit.ors.isochrones.statistics.StatisticsProvider;
 import heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import heigit.ors.isochrones.statistics.StatisticsProviderFactory;
 import heigit.ors.mapmatching.MapMatcher;
+import heigit.ors.mapmatching.MapMatcherPool;
+import heigit.ors.mapmatching.MapMatchingErrorCodes;
+import heigit.ors.mapmatching.MapMatchingRequest;
 import heigit.ors.mapmatching.RouteSegmentInfo;
-import heigit.ors.mapmatching.hmm.HiddenMarkovMapMatcher;
+import heigit.ors.mapmatching.hmm.OnlineHiddenMarkovMapMatcher;
+import heigit.ors.mapmatching.hmm.OnlineHiddenMarkovMapMatcher.MatchedSequence;
 import heigit.ors.matrix.*;
 import heigit.ors.matrix.algorithms.MatrixAlgorithm;
 import heigit.ors.matrix.algorithms.MatrixAlgorithmFactory;
@@ -53,6 +60,7 @@ import heigit.ors.optimization.solvers.OptimizationProblemSolverFactory;
 import heigit.ors.optimization.solvers.OptimizationSolution;
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
 import heigit.ors.routing.graphhopper.extensions.*;
+import heigit.ors.routing.graphhopper.extensions.cch.CCHPreparation;
 import heigit.ors.routing.graphhopper.extensions.edgefilters.*;
 import heigit.ors.routing.graphhopper.extensions.flagencoders.WheelchairFlagEncoder;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
@@ -62,6 +70,7 @@ import heigit.ors.routing.traffic.TrafficEdgeAnnotator;
 import heigit.ors.services.isochrones.IsochronesServiceSettings;
 import heigit.ors.services.matrix.MatrixServiceSettings;
 import heigit.ors.services.optimization.OptimizationServiceSettings;
+import heigit.ors.services.routing.RoutingServiceSettings;
 import heigit.ors.util.DebugUtility;
 import heigit.ors.util.RuntimeUtility;
 import heigit.ors.util.StringUtility;
@@ -90,13 +99,22 @@ public class RoutingProfile {
     private static final Logger LOGGER = Logger.getLogger(RoutingProfileManager.class.getName());
     private static int profileIdentifier = 0;
     private static final Object lockObj = new Object();
+    // number of distinct avoid area sets whose edge masks are kept in memory
+    private static final int AVOID_AREAS_CACHE_SIZE = 16;
+    private static final int DESTINATION_EDGES_CACHE_SIZE = 1000;
+    private static final int CCH_METRICS_CACHE_SIZE = 4;
 
     private ORSGraphHopper mGraphHopper;
     private boolean mUseTrafficInfo;
     private Integer[] mRoutePrefs;
     private Integer mUseCounter;
     private boolean mUpdateRun;
-    private MapMatcher mMapMatcher;
+    private MapMatcherPool mMapMatcherPool;
+    private OnlineHiddenMarkovMapMatcher mTrackMatcher;
+    private AvoidAreasEdgeMaskCache mAvoidAreasMaskCache;
+    private DestinationEdgesCache mDestinationEdgesCache;
+    private final RoutingAlgorithmStatistics mAlgorithmStatistics = new RoutingAlgorithmStatistics();
+    private RoutingResultCache mResultCache;
 
     private RouteProfileConfiguration _config;
     private String _astarApproximation;
@@ -109,6 +127,9 @@ public class RoutingProfile {
 
         mGraphHopper = initGraphHopper(osmFile, rpc, profiles, loadCntx);
 
+        if (RoutingServiceSettings.getResultCacheSize() > 0)
+            mResultCache = new RoutingResultCache(RoutingServiceSettings.getResultCacheSize());
+
         _config = rpc;
 
         Config optsExecute = _config.getExecutionOpts();
@@ -161,6 +182,20 @@ public class RoutingProfile {
 
         gh.importOrLoad();
 
+        prepareORSLandmarks(gh, config, profileId);
+
+        if (config.getPreparationOpts() != null && config.getPreparationOpts().hasPath("methods.cch")) {
+            Config cchOpts = config.getPreparationOpts().getConfig("methods.cch");
+
+            if (cchOpts.hasPath("enabled") && cchOpts.getBoolean("enabled")) {
+                long cchStartTime = System.currentTimeMillis();
+                gh.prepareCCH(cchOpts.hasPath("metrics") ? cchOpts.getInt("metrics") : CCH_METRICS_CACHE_SIZE);
+
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info(String.format("[%d] CCH preparation: %d arcs, took %s.", profileId, gh.getCCHPreparation().getArcs(), TimeUtility.getElapsedTime(cchStartTime, true)));
+            }
+        }
+
         if (LOGGER.isInfoEnabled()) {
             EncodingManager encodingMgr = gh.getEncodingManager();
             GraphHopperStorage ghStorage = gh.getGraphHopperStorage();
@@ -248,7 +283,7 @@ public class RoutingProfile {
                         if (lmOpts.hasPath("threads"))
                             args.put("prepare.lm.threads", lmOpts.getInt("threads"));
                         if (lmOpts.hasPath("weightings"))
-                            args.put("prepare.lm.weightings", StringUtility.trimQuotes(lmOpts.getString("weightings")));
+                            args.put("prepare.lm.weightings", getGHLandmarkWeightings(StringUtility.trimQuotes(lmOpts.getString("weightings"))));
                         if (lmOpts.hasPath("landmarks"))
                             args.put("prepare.lm.landmarks", lmOpts.getInt("landmarks"));
                     }
@@ -298,6 +333,54 @@ public class RoutingProfile {
         return args;
     }
 
+    /**
+     * Removes the time based weighting from the landmark weightings prepared by GraphHopper. Its landmarks would not 
+     * be admissible for the ORS weightings, which are covered by {@link ORSGraphHopper#prepareLandmarks} instead.
+     */
+    private static String getGHLandmarkWeightings(String weightings) {
+        String separator = weightings.contains("|") ? "|" : ",";
+        String res = "";
+
+        for (String weighting : weightings.split("[,|]")) {
+            weighting = weighting.trim();
+            if (weighting.isEmpty() || "fastest".equalsIgnoreCase(weighting))
+                continue;
+
+            res += res.isEmpty() ? weighting : separator + weighting;
+        }
+
+        return res.isEmpty() ? "no" : res;
+    }
+
+    private static void prepareORSLandmarks(ORSGraphHopper gh, RouteProfileConfiguration config, int profileId) throws Exception {
+        Config prepOpts = config.getPreparationOpts();
+        if (prepOpts == null || !prepOpts.hasPath("methods.lm"))
+            return;
+
+        Config lmOpts = prepOpts.getConfig("methods.lm");
+        if ((lmOpts.hasPath("enabled") && !lmOpts.getBoolean("enabled")) || !lmOpts.hasPath("weightings"))
+            return;
+
+        boolean timeBased = false;
+        for (String weighting : StringUtility.trimQuotes(lmOpts.getString("weightings")).split("[,|]"))
+            timeBased |= "fastest".equalsIgnoreCase(weighting.trim());
+
+        if (!timeBased)
+            return;
+
+        int landmarks = lmOpts.hasPath("landmarks") ? lmOpts.getInt("landmarks") : 16;
+        int activeLandmarks = Math.min(landmarks, 8);
+        Config execOpts = config.getExecutionOpts();
+        if (execOpts != null && execOpts.hasPath("methods.lm.active_landmarks"))
+            activeLandmarks = execOpts.getInt("methods.lm.active_landmarks");
+
+        long startTime = System.currentTimeMillis();
+        gh.prepareLandmarks(landmarks, activeLandmarks, lmOpts.hasPath("threads") ? lmOpts.getInt("threads") : 1);
+
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info(String.format("[%d] Landmarks for ORS weightings: %d, took %s.", profileId, landmarks, TimeUtility.getElapsedTime(startTime, true)));
+    }
+
     public HashMap<Integer, Long> getTmcEdges() {
         return mGraphHopper.getTmcGraphEdges();
     }
@@ -394,6 +477,14 @@ public class RoutingProfile {
                     RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext();
 
                     mGraphHopper = initGraphHopper(ghOld.getDataReaderFile(), _config, RoutingProfileManager.getInstance().getProfiles(), loadCntx);
+                    // the getters of these instances are synchronized as well
+                    synchronized (this) {
+                        mTrackMatcher = null;
+                        mMapMatcherPool = null;
+                        mAvoidAreasMaskCache = null;
+                        mDestinationEdgesCache = null;
+                    }
+                    clearResultCache();
 
                     loadCntx.release();
 
@@ -498,15 +589,18 @@ public class RoutingProfile {
                     }
                 }
 
+                List<Isochrone> isochrones = new ArrayList<Isochrone>(result.getIsochronesCount());
+                for (Isochrone isochrone : result.getIsochrones())
+                    isochrones.add(isochrone);
+
                 for (Map.Entry<StatisticsProviderConfiguration, List<String>> entry : mapProviderToAttrs.entrySet()) {
                     StatisticsProviderConfiguration provConfig = entry.getKey();
                     StatisticsProvider provider = StatisticsProviderFactory.getProvider(provConfig.getName(), provConfig.getParameters());
                     String[] provAttrs = provConfig.getMappedProperties(entry.getValue());
 
-                    for (Isochrone isochrone : result.getIsochrones()) {
-                        double[] attrValues = provider.getStatistics(isochrone, provAttrs);
-                        isochrone.setAttributes(entry.getValue(), attrValues, provConfig.getAttribution());
-                    }
+                    double[][] attrValues = provider.getStatistics(isochrones, provAttrs);
+                    for (int i = 0; i < attrValues.length; i++)
+                        isochrones.get(i).setAttributes(entry.getValue(), attrValues[i], provConfig.getAttribution());
                 }
 
             } catch (Exception ex) {
@@ -519,6 +613,49 @@ public class RoutingProfile {
         return result;
     }
 
+    /**
+     * Reads the network costs (seconds or meters depending on the range type) of the given locations 
+     * from the shortest path tree of an isochrone search. Locations are snapped to their closest graph 
+     * node, unreachable ones get a cost of -1. If no tree is given, it is computed once for all locations.
+     */
+    public float[] computeReachability(IsochroneSearchParameters parameters, AccessibilityMap edgeMap, Coordinate[] locations) throws Exception {
+        float[] costs = new float[locations.length];
+
+        waitForUpdateCompletion();
+
+        beginUseGH();
+
+        try {
+            RouteSearchContext searchCntx = createSearchContext(parameters.getRouteParameters(), RouteSearchMode.Isochrones, null);
+            ByteArrayBuffer arrayBuffer = new ByteArrayBuffer();
+
+            if (edgeMap == null)
+                edgeMap = GraphEdgeMapFinder.findEdgeMap(searchCntx, parameters, arrayBuffer);
+
+            IntObjectMap<SPTEntry> map = edgeMap.getMap();
+            LocationIndex locIndex = getGraphhopper().getLocationIndex();
+            double maxCost = parameters.getMaximumRange();
+
+            for (int i = 0; i < locations.length; i++) {
+                Coordinate c = locations[i];
+                QueryResult qr = locIndex.findClosest(c.y, c.x, searchCntx.getEdgeFilter(), arrayBuffer);
+                SPTEntry entry = qr.isValid() ? map.get(qr.getClosestNode()) : null;
+
+                costs[i] = (entry == null || entry.weight > maxCost) ? -1 : (float) entry.weight;
+            }
+
+            endUseGH();
+        } catch (Exception ex) {
+            endUseGH();
+
+            LOGGER.error(ex);
+
+            throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to compute the reachability of locations.");
+        }
+
+        return costs;
+    }
+
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
         MatrixResult mtxResult = null;
 
@@ -624,7 +761,7 @@ public class RoutingProfile {
                         + mGraphHopper.getEncodingManager());
             }
 
-            edgeFilter = new AvoidAreasEdgeFilter(flagEncoder, searchParams.getAvoidAreas());
+            edgeFilter = new AvoidAreasEdgeFilter(flagEncoder, getAvoidAreasMaskCache().getMask(searchParams.getAvoidAreas()));
         }
 
         if (RoutingProfileType.isDriving(profileType)) {
@@ -729,6 +866,8 @@ public class RoutingProfile {
 
         if (edgeFilter == null)
             edgeFilter = new DefaultEdgeFilter(flagEncoder);
+        else if (edgeFilter instanceof EdgeFilterSequence)
+            edgeFilter = ((EdgeFilterSequence) edgeFilter).fuse(flagEncoder);
 
         RouteSearchContext searchCntx = new RouteSearchContext(mGraphHopper, edgeFilter, flagEncoder);
         searchCntx.setProperties(props);
@@ -759,15 +898,111 @@ public class RoutingProfile {
 
     private RouteSegmentInfo[] getMatchedSegmentsInternal(Coordinate[] locations,
                                                           double searchRadius, EdgeFilter edgeFilter, boolean bothDirections) {
-        if (mMapMatcher == null) {
-            mMapMatcher = new HiddenMarkovMapMatcher();
-            mMapMatcher.setGraphHopper(mGraphHopper);
+        MapMatcherPool pool = getMapMatcherPool();
+        MapMatcher matcher = pool.acquire();
+
+        try {
+            matcher.setSearchRadius(searchRadius);
+            matcher.setEdgeFilter(edgeFilter);
+
+            return matcher.match(locations, bothDirections);
+        } finally {
+            pool.release(matcher);
+        }
+    }
+
+    private synchronized AvoidAreasEdgeMaskCache getAvoidAreasMaskCache() {
+        if (mAvoidAreasMaskCache == null)
+            mAvoidAreasMaskCache = new AvoidAreasEdgeMaskCache(mGraphHopper.getGraphHopperStorage(), AVOID_AREAS_CACHE_SIZE);
+
+        return mAvoidAreasMaskCache;
+    }
+
+    private synchronized DestinationEdgesCache getDestinationEdgesCache() {
+        if (mDestinationEdgesCache == null)
+            mDestinationEdgesCache = new DestinationEdgesCache(DESTINATION_EDGES_CACHE_SIZE);
+
+        return mDestinationEdgesCache;
+    }
+
+    private synchronized MapMatcherPool getMapMatcherPool() {
+        if (mMapMatcherPool == null)
+            mMapMatcherPool = new MapMatcherPool(mGraphHopper);
+
+        return mMapMatcherPool;
+    }
+
+    /**
+     * Matches a GPS trace to the road network and computes the route along the matched positions. Every part of the 
+     * trace between two breaks of the matching is returned as a response of its own, whose route is restricted to 
+     * the edges of the matched path.
+     *
+     * @param req The map matching request holding the trace and the search parameters
+     * @param routeProcCntx The context holding the path processor used for extras and elevation
+     * @return The routes along the matched parts of the trace, empty if no part of the trace could be matched
+     */
+    public List<GHResponse> matchTrack(MapMatchingRequest req, RouteProcessContext routeProcCntx) throws Exception {
+        List<GHResponse> resp = new ArrayList<GHResponse>();
+
+        waitForUpdateCompletion();
+
+        beginUseGH();
+
+        try {
+            RouteSearchParameters searchParams = req.getSearchParameters();
+            RouteSearchContext searchCntx = createSearchContext(searchParams, RouteSearchMode.Routing, null);
+            PathProcessor pathProcessor = routeProcCntx.getPathProcessor();
+
+            List<MatchedSequence> sequences = getTrackMatcher().match(req.getCoordinates(), searchCntx.getEncoder(), searchCntx.getEdgeFilter(), req.getAccuracy());
+
+            for (int i = 0; i < sequences.size(); i++) {
+                MatchedSequence sequence = sequences.get(i);
+
+                GHRequest ghReq = new GHRequest();
+                for (Coordinate p : sequence.getCoordinates())
+                    ghReq.addPoint(new GHPoint(p.y, p.x));
+
+                ghReq.setVehicle(searchCntx.getEncoder().toString());
+                ghReq.setSimplifyGeometry(req.getSimplifyGeometry());
+                ghReq.setAlgorithm("dijkstrabi");
+                // the same weighting as used by the matcher, so that ties between the matched edges are resolved alike
+                ghReq.setWeighting("shortest");
+
+                PMap props = searchCntx.getProperties();
+                if (props != null && props.size() > 0)
+                    ghReq.getHints().merge(props);
+
+                // the matched positions are close to each other, so that plain searches are cheaper than preparing CH or LM queries
+                if (mGraphHopper.isCHEnabled())
+                    ghReq.getHints().put("ch.disable", true);
+                ghReq.getHints().put("lm.disable", true);
+
+                ghReq.setEdgeFilter(new MatchedEdgesEdgeFilter(searchCntx.getEdgeFilter(), sequence.getEdges()));
+
+                if (pathProcessor != null)
+                    pathProcessor.setSegmentIndex(i, sequences.size());
+                ghReq.setPathProcessor(pathProcessor);
+
+                resp.add(mGraphHopper.route(ghReq, routeProcCntx.getArrayBuffer()));
+            }
+
+            endUseGH();
+        } catch (Exception ex) {
+            endUseGH();
+
+            LOGGER.error(ex);
+
+            throw new InternalServerException(MapMatchingErrorCodes.UNKNOWN, "Unable to match the trace.");
         }
 
-        mMapMatcher.setSearchRadius(searchRadius);
-        mMapMatcher.setEdgeFilter(edgeFilter);
+        return resp;
+    }
+
+    private synchronized OnlineHiddenMarkovMapMatcher getTrackMatcher() {
+        if (mTrackMatcher == null)
+            mTrackMatcher = new OnlineHiddenMarkovMapMatcher(mGraphHopper);
 
-        return mMapMatcher.match(locations, bothDirections);
+        return mTrackMatcher;
     }
 
     public boolean canProcessRequest(double totalDistance, double longestSegmentDistance, int wayPoints) {
@@ -787,11 +1022,6 @@ public class RoutingProfile {
         beginUseGH();
 
         try {
-            int profileType = searchParams.getProfileType();
-            int weightingMethod = searchParams.getWeightingMethod();
-            RouteSearchContext searchCntx = createSearchContext(searchParams, RouteSearchMode.Routing, customEdgeFilter);
-
-            boolean flexibleMode = searchParams.getFlexibleMode();
             GHRequest req = null;
             if (bearings == null || bearings[0] == null)
                 req = new GHRequest(new GHPoint(lat0, lon0), new GHPoint(lat1, lon1));
@@ -800,86 +1030,68 @@ public class RoutingProfile {
             else
                 req = new GHRequest(new GHPoint(lat0, lon0), new GHPoint(lat1, lon1), bearings[0].getValue(), bearings[0].getDeviation(), bearings[1].getValue(), bearings[1].getDeviation());
 
-            req.setVehicle(searchCntx.getEncoder().toString());
-            req.setMaxSpeed(searchParams.getMaximumSpeed());
-            req.setSimplifyGeometry(simplifyGeometry);
-            req.setAlgorithm("dijkstrabi");
-
             if (radiuses != null)
                 req.setMaxSearchDistance(radiuses);
 
-            PMap props = searchCntx.getProperties();
-            if (props != null && props.size() > 0)
-                req.getHints().merge(props);
-
-            if (supportWeightingMethod(profileType)) {
-                if (weightingMethod == WeightingMethod.FASTEST) {
-                    req.setWeighting("fastest");
-                    req.getHints().put("weighting_method", "fastest");
-                } else if (weightingMethod == WeightingMethod.SHORTEST) {
-                    req.setWeighting("shortest");
-                    req.getHints().put("weighting_method", "shortest");
-                    flexibleMode = true;
-                } else if (weightingMethod == WeightingMethod.RECOMMENDED) {
-                    req.setWeighting("fastest");
-                    req.getHints().put("weighting_method", "recommended");
-                    flexibleMode = true;
-                }
-            }
+            setRouteRequestParameters(req, searchParams, customEdgeFilter, simplifyGeometry, routeProcCntx);
 
-            if ((profileType == RoutingProfileType.CYCLING_TOUR || profileType == RoutingProfileType.CYCLING_MOUNTAIN)
-                    && weightingMethod == WeightingMethod.FASTEST) {
-                req.setWeighting("fastest");
-                req.getHints().put("weighting_method", "recommended");
-                flexibleMode = true;
-            }
+			/*if (directedSegment)
+				resp = mGraphHopper.directRoute(req); NOTE IMPLEMENTED!!!
+			else */
+            resp = mGraphHopper.route(req, routeProcCntx.getArrayBuffer());
 
-            if ((profileType == RoutingProfileType.CYCLING_TOUR /*RoutingProfileType.isCycling(profileType) || RoutingProfileType.isWalking(profileType)*/ || (profileType == RoutingProfileType.DRIVING_HGV && HeavyVehicleAttributes.HGV == searchParams
-                    .getVehicleType())) && weightingMethod == WeightingMethod.RECOMMENDED) {
-                req.setWeighting("fastest");
-                req.getHints().put("weighting_method", "recommended_pref");
+            if (!resp.hasErrors())
+                mAlgorithmStatistics.addRequest(getAlgorithmName(req), resp.getHints().getLong("visited_nodes.sum", 0));
 
-                flexibleMode = true;
+            if (DebugUtility.isDebug()) {
+                System.out.println("visited_nodes.average - " + resp.getHints().get("visited_nodes.average", ""));
             }
 
-            if (RoutingProfileType.isDriving(profileType) && RealTrafficDataProvider.getInstance().isInitialized())
-                req.setEdgeAnnotator(new TrafficEdgeAnnotator(mGraphHopper.getGraphHopperStorage()));
+            endUseGH();
+        } catch (Exception ex) {
+            endUseGH();
 
-            req.setEdgeFilter(searchCntx.getEdgeFilter());
-            req.setPathProcessor(routeProcCntx.getPathProcessor());
+            LOGGER.error(ex);
 
-            if (useDynamicWeights(searchParams) || flexibleMode) {
-                if (mGraphHopper.isCHEnabled())
-                    req.getHints().put("ch.disable", true);
-                if (mGraphHopper.getLMFactoryDecorator().isEnabled())
-                    req.setAlgorithm("astarbi");
-                req.getHints().put("lm.disable", false);
-            } else {
-                if (mGraphHopper.isCHEnabled())
-                    req.getHints().put("lm.disable", true);
-                else
-                    req.getHints().put("ch.disable", true);
-            }
+            throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to compute a route");
+        }
 
-            if (profileType == RoutingProfileType.DRIVING_EMERGENCY) {
-                req.getHints().put("custom_weightings", true);
-                req.getHints().put("weighting_#acceleration#", true);
-                req.getHints().put("lm.disable", true); // REMOVE
-            }
+        return resp;
+    }
+
+    /**
+     * Computes all legs of a route through the given waypoints with one request. The waypoints are snapped only once and
+     * the legs are searched on a single query graph, see {@link ORSGraphHopper#routeLegs(GHRequest, GHResponse, boolean)}.
+     * Bearings and path processors are not supported in this mode.
+     *
+     * @return one response per leg or null if any of the legs could not be found. The caller is expected to compute the
+     * legs one by one then in order to report which of them failed.
+     */
+    public List<GHResponse> computeRouteLegs(Coordinate[] coords, double[] radiuses, RouteSearchParameters searchParams, EdgeFilter customEdgeFilter, boolean simplifyGeometry, RouteProcessContext routeProcCntx)
+            throws Exception {
 
-            if (_astarEpsilon != null)
-                req.getHints().put("astarbi.epsilon", _astarEpsilon);
-            if (_astarApproximation != null)
-                req.getHints().put("astarbi.approximation", _astarApproximation);
+        List<GHResponse> legs = null;
 
-			/*if (directedSegment)
-				resp = mGraphHopper.directRoute(req); NOTE IMPLEMENTED!!!
-			else */
-            resp = mGraphHopper.route(req, routeProcCntx.getArrayBuffer());
+        waitForUpdateCompletion();
 
-            if (DebugUtility.isDebug()) {
-                System.out.println("visited_nodes.average - " + resp.getHints().get("visited_nodes.average", ""));
-            }
+        beginUseGH();
+
+        try {
+            GHRequest req = new GHRequest(coords.length);
+            for (Coordinate c : coords)
+                req.addPoint(new GHPoint(c.y, c.x));
+
+            if (radiuses != null)
+                req.setMaxSearchDistance(radiuses);
+
+            setRouteRequestParameters(req, searchParams, customEdgeFilter, simplifyGeometry, routeProcCntx);
+            req.getHints().put(Parameters.Routing.INSTRUCTIONS, _config.getInstructions());
+
+            GHResponse resp = new GHResponse();
+            legs = mGraphHopper.routeLegs(req, resp, simplifyGeometry);
+
+            if (!resp.hasErrors())
+                mAlgorithmStatistics.addRequest(getAlgorithmName(req), resp.getHints().getLong("visited_nodes.sum", 0));
 
             endUseGH();
         } catch (Exception ex) {
@@ -890,7 +1102,118 @@ public class RoutingProfile {
             throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to compute a route");
         }
 
-        return resp;
+        return legs;
+    }
+
+    private void setRouteRequestParameters(GHRequest req, RouteSearchParameters searchParams, EdgeFilter customEdgeFilter, boolean simplifyGeometry, RouteProcessContext routeProcCntx) throws Exception {
+        int profileType = searchParams.getProfileType();
+        int weightingMethod = searchParams.getWeightingMethod();
+        RouteSearchContext searchCntx = createSearchContext(searchParams, RouteSearchMode.Routing, customEdgeFilter);
+
+        boolean flexibleMode = searchParams.getFlexibleMode();
+
+        req.setVehicle(searchCntx.getEncoder().toString());
+        req.setMaxSpeed(searchParams.getMaximumSpeed());
+        req.setSimplifyGeometry(simplifyGeometry);
+        req.setAlgorithm("dijkstrabi");
+
+        PMap props = searchCntx.getProperties();
+        if (props != null && props.size() > 0)
+            req.getHints().merge(props);
+
+        if (supportWeightingMethod(profileType)) {
+            if (weightingMethod == WeightingMethod.FASTEST) {
+                req.setWeighting("fastest");
+                req.getHints().put("weighting_method", "fastest");
+            } else if (weightingMethod == WeightingMethod.SHORTEST) {
+                req.setWeighting("shortest");
+                req.getHints().put("weighting_method", "shortest");
+                flexibleMode = true;
+            } else if (weightingMethod == WeightingMethod.RECOMMENDED) {
+                req.setWeighting("fastest");
+                req.getHints().put("weighting_method", "recommended");
+                flexibleMode = true;
+            }
+        }
+
+        if ((profileType == RoutingProfileType.CYCLING_TOUR || profileType == RoutingProfileType.CYCLING_MOUNTAIN)
+                && weightingMethod == WeightingMethod.FASTEST) {
+            req.setWeighting("fastest");
+            req.getHints().put("weighting_method", "recommended");
+            flexibleMode = true;
+        }
+
+        if ((profileType == RoutingProfileType.CYCLING_TOUR /*RoutingProfileType.isCycling(profileType) || RoutingProfileType.isWalking(profileType)*/ || (profileType == RoutingProfileType.DRIVING_HGV && HeavyVehicleAttributes.HGV == searchParams
+                .getVehicleType())) && weightingMethod == WeightingMethod.RECOMMENDED) {
+            req.setWeighting("fastest");
+            req.getHints().put("weighting_method", "recommended_pref");
+
+            flexibleMode = true;
+        }
+
+        if (RoutingProfileType.isDriving(profileType) && RealTrafficDataProvider.getInstance().isInitialized())
+            req.setEdgeAnnotator(new TrafficEdgeAnnotator(mGraphHopper.getGraphHopperStorage()));
+
+        req.setEdgeFilter(searchCntx.getEdgeFilter());
+        req.setPathProcessor(routeProcCntx.getPathProcessor());
+
+        if (useDynamicWeights(searchParams) || flexibleMode) {
+            if (mGraphHopper.isCHEnabled())
+                req.getHints().put("ch.disable", true);
+            if (useCustomizableCH(searchParams, customEdgeFilter))
+                setCustomizableCHMetric(req, searchParams, searchCntx);
+            if (mGraphHopper.isLMEnabled())
+                req.setAlgorithm("astarbi");
+            req.getHints().put("lm.disable", false);
+        } else {
+            if (mGraphHopper.isCHEnabled())
+                req.getHints().put("lm.disable", true);
+            else
+                req.getHints().put("ch.disable", true);
+        }
+
+        if (profileType == RoutingProfileType.DRIVING_EMERGENCY) {
+            req.getHints().put("custom_weightings", true);
+            req.getHints().put("weighting_#acceleration#", true);
+            req.getHints().put("lm.disable", true); // REMOVE
+        }
+
+        if (_astarEpsilon != null)
+            req.getHints().put("astarbi.epsilon", _astarEpsilon);
+        if (_astarApproximation != null)
+            req.getHints().put("astarbi.approximation", _astarApproximation);
+    }
+
+    private String getAlgorithmName(GHRequest req) {
+        HintsMap hints = req.getHints();
+
+        if (hints.has("cch.metric"))
+            return "cch";
+        else if (mGraphHopper.isCHEnabled() && !hints.getBool("ch.disable", false))
+            return "ch";
+        else if (mGraphHopper.isLMEnabled() && !hints.getBool("lm.disable", true))
+            return "lm";
+
+        return req.getAlgorithm();
+    }
+
+    public RoutingAlgorithmStatistics getAlgorithmStatistics() {
+        return mAlgorithmStatistics;
+    }
+
+    /**
+     * @return the cache of route and matrix results computed with the current graph or null if caching is disabled.
+     */
+    public RoutingResultCache getResultCache() {
+        return mResultCache;
+    }
+
+    /**
+     * Drops the cached results, has to be called whenever the graph or the traffic state used by the profile changes.
+     */
+    public void clearResultCache() {
+        if (mResultCache != null)
+            mResultCache.clear();
     }
 
     private boolean useDynamicWeights(RouteSearchParameters searchParams) {
@@ -899,6 +1222,37 @@ public class RoutingProfile {
         return dynamicWeights;
     }
 
+    /**
+     * Customizable CH are used for dynamic requests whose weights only depend on a small set of request parameters, 
+     * so that the number of distinct metrics stays bounded. Turn costs, live traffic, speed limits, destination 
+     * dependent edge filters as well as free-form inputs (avoid polygons, avoid countries, profile parameters) are 
+     * not covered by a metric and keep using the regular algorithms.
+     */
+    private boolean useCustomizableCH(RouteSearchParameters searchParams, EdgeFilter customEdgeFilter) {
+        int profileType = searchParams.getProfileType();
+
+        return mGraphHopper.isCCHEnabled() && customEdgeFilter == null && !searchParams.getConsiderTurnRestrictions() && !searchParams.getConsiderTraffic()
+                && searchParams.getMaximumSpeed() <= 0 && profileType != RoutingProfileType.DRIVING_EMERGENCY
+                && !searchParams.hasAvoidAreas() && !searchParams.hasAvoidCountries() && searchParams.getProfileParameters() == null;
+    }
+
+    private void setCustomizableCHMetric(GHRequest req, RouteSearchParameters searchParams, RouteSearchContext searchCntx) {
+        // the hints determine the weighting, the remaining whitelisted parameters the edge filters
+        String metricKey = searchParams.getProfileType() + "|" + searchParams.getWeightingMethod() + "|" + searchParams.getAvoidFeatureTypes()
+                + "|" + searchParams.getAvoidBorders() + "|" + searchParams.getVehicleType() + "|" + new TreeMap<String, String>(req.getHints().getMap());
+
+        CCHPreparation cch = mGraphHopper.getCCHPreparation();
+        if (cch.getMetric(metricKey) == null) {
+            GraphHopperStorage gs = mGraphHopper.getGraphHopperStorage();
+            Weighting weighting = new ORSWeightingFactory(RealTrafficDataProvider.getInstance()).createWeighting(req.getHints(), TraversalMode.NODE_BASED, searchCntx.getEncoder(), gs.getBaseGraph(), mGraphHopper.getLocationIndex(), gs);
+            // too many customizations in progress, the request is computed with the regular algorithms
+            if (cch.customize(metricKey, weighting, searchCntx.getEdgeFilter()) == null)
+                return;
+        }
+
+        req.getHints().put("cch.metric", metricKey);
+    }
+
     private EdgeFilter createEdgeFilter(EdgeFilter edgeFilter, EdgeFilter seq) {
         if (seq != null && seq instanceof EdgeFilterSequence) {
             EdgeFilterSequence seqFilter = (EdgeFilterSequence) seq;
@@ -938,7 +1292,7 @@ public class RoutingProfile {
             if (vehicleParams.hasAttributes()) {
                 EdgeFilter ef = null;
                 if (searchParams.getProfileType() == RoutingProfileType.DRIVING_HGV)
-                    ef = new HeavyVehicleEdgeFilter(flagEncoder, vehicleType, vehicleParams, gs);
+                    ef = new HeavyVehicleEdgeFilter(flagEncoder, vehicleType, vehicleParams, gs, getDestinationEdgesCache());
                 else if (searchParams.getProfileType() == RoutingProfileType.DRIVING_EMERGENCY)
                     ef = new EmergencyVehicleEdgeFilter(flagEncoder, vehicleParams, gs);
 
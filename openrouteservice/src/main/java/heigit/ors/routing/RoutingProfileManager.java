@@ -24,7 +24,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
@@ -38,12 +40,14 @@ import org.apache.log4j.Logger;
 import heigit.ors.routing.parameters.VehicleParameters;
 import heigit.ors.routing.pathprocessors.ElevationSmoothPathProcessor;
 import heigit.ors.routing.pathprocessors.ExtraInfoProcessor;
+import heigit.ors.routing.pathprocessors.RecordingPathProcessor;
 import heigit.ors.routing.configuration.RoutingManagerConfiguration;
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
 import heigit.ors.routing.traffic.RealTrafficDataProvider;
 import heigit.ors.services.routing.RoutingServiceSettings;
 import heigit.ors.util.FormatUtility;
 import heigit.ors.isochrones.IsochroneSearchParameters;
+import heigit.ors.mapmatching.MapMatchingErrorCodes;
 import heigit.ors.mapmatching.MapMatchingRequest;
 import heigit.ors.matrix.MatrixErrorCodes;
 import heigit.ors.matrix.MatrixRequest;
@@ -55,6 +59,7 @@ import heigit.ors.exceptions.InternalServerException;
 import heigit.ors.exceptions.ServerLimitExceededException;
 import heigit.ors.isochrones.IsochroneMap;
 import heigit.ors.routing.RoutingProfilesCollection;
+import heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
 import heigit.ors.routing.RouteSearchParameters;
 import heigit.ors.routing.RoutingProfileType;
 import heigit.ors.routing.WeightingMethod;
@@ -76,6 +81,8 @@ public class RoutingProfileManager {
 
     private RoutingProfilesCollection _routeProfiles;
     private RoutingProfilesUpdater _profileUpdater;
+    private ExecutorService _legsExecutor;
+    private ExecutorService _batchExecutor;
     private static RoutingProfileManager mInstance;
 
     public static synchronized RoutingProfileManager getInstance() throws IOException {
@@ -277,6 +284,13 @@ public class RoutingProfileManager {
             RealTrafficDataProvider.getInstance().destroy();
 
         _routeProfiles.destroy();
+
+        synchronized (this) {
+            if (_legsExecutor != null)
+                _legsExecutor.shutdown();
+            if (_batchExecutor != null)
+                _batchExecutor.shutdown();
+        }
     }
 
     public RoutingProfilesCollection getProfiles() {
@@ -350,15 +364,67 @@ public class RoutingProfileManager {
     }
 
     public RouteResult matchTrack(MapMatchingRequest req) throws Exception {
-        //RoutingProfile rp = getRouteProfile(req, false);
+        RouteSearchParameters searchParams = req.getSearchParameters();
+        RoutingProfile rp = _routeProfiles.getRouteProfile(searchParams.getProfileType(), false);
+
+        if (rp == null)
+            throw new InternalServerException(MapMatchingErrorCodes.UNKNOWN, "Unable to get an appropriate route profile for RoutePreference = " + RoutingProfileType.getName(searchParams.getProfileType()));
+
+        PathProcessor pathProcessor = null;
+
+        if (req.getExtraInfo() > 0) {
+            // do not allow geometry simplification when extras are requested
+            req.setSimplifyGeometry(false);
 
-        return null;
+            pathProcessor = new ExtraInfoProcessor(rp.getGraphhopper(), req);
+        } else {
+            if (req.getIncludeElevation())
+                pathProcessor = new ElevationSmoothPathProcessor();
+        }
+
+        // the segment index is set by the routing profile, every matched part of the trace is a segment
+        RouteProcessContext routeProcCntx = new RouteProcessContext(pathProcessor);
+        List<GHResponse> routes = rp.matchTrack(req, routeProcCntx);
+
+        if (routes.isEmpty())
+            throw new RouteNotFoundException(MapMatchingErrorCodes.UNKNOWN, "Unable to match the trace to the road network.");
+
+        for (GHResponse gr : routes) {
+            if (gr.hasErrors())
+                throw new RouteNotFoundException(MapMatchingErrorCodes.UNKNOWN, "Unable to match the trace to the road network.");
+        }
+
+        return new RouteResultBuilder().createRouteResult(routes, req, (pathProcessor != null && (pathProcessor instanceof ExtraInfoProcessor)) ? ((ExtraInfoProcessor) pathProcessor).getExtras() : null);
     }
 
     public RouteResult computeRoute(RoutingRequest req) throws Exception {
-        List<GHResponse> routes = new ArrayList<GHResponse>();
+        return computeRoute(req, true);
+    }
 
+    /**
+     * @param useCache false for requests which are unlikely to be repeated, like the pairs of a batch, so that
+     *                 they don't evict the results of interactive requests.
+     */
+    public RouteResult computeRoute(RoutingRequest req, boolean useCache) throws Exception {
         RoutingProfile rp = getRouteProfile(req, false);
+        RoutingResultCache cache = useCache ? rp.getResultCache() : null;
+        if (cache == null)
+            return computeRoute(rp, req);
+
+        String key = RoutingResultCache.createKey(req);
+        RouteResult result = (RouteResult) cache.get(key);
+        if (result == null) {
+            long version = cache.getVersion();
+            result = computeRoute(rp, req);
+            cache.put(key, result, version);
+        }
+
+        return result;
+    }
+
+    private RouteResult computeRoute(RoutingProfile rp, RoutingRequest req) throws Exception {
+        List<GHResponse> routes = null;
+
         RouteSearchParameters searchParams = req.getSearchParameters();
         PathProcessor pathProcessor = null;
 
@@ -372,12 +438,58 @@ public class RoutingProfileManager {
                 pathProcessor = new ElevationSmoothPathProcessor();
         }
 
+        Coordinate[] coords = req.getCoordinates();
+        int nSegments = coords.length - 1;
+        EdgeFilter customEdgeFilter = rp.createAccessRestrictionFilter(coords);
+
+        // path processors, bearings and continue_straight depend on the leg by leg computation below
+        if (nSegments > 1 && RoutingServiceSettings.getSharedQueryGraph() && pathProcessor == null
+                && !req.getContinueStraight() && searchParams.getBearings() == null) {
+            routes = rp.computeRouteLegs(coords, searchParams.getMaximumRadiuses(), searchParams, customEdgeFilter, req.getSimplifyGeometry(), new RouteProcessContext(null));
+            // failed legs are computed again one by one to report which of them could not be found
+            if (routes != null)
+                return new RouteResultBuilder().createRouteResult(routes, req, null);
+        }
+
+        LegRouter legRouter = createLegRouter(rp, req, customEdgeFilter);
+        ExecutorService legsExecutor = nSegments > 1 ? getLegsExecutor() : null;
+        if (legsExecutor != null)
+            routes = computeLegsConcurrently(legsExecutor, legRouter, req, pathProcessor);
+        else
+            routes = computeLegs(legRouter, req, pathProcessor);
+
+        return new RouteResultBuilder().createRouteResult(routes, req, (pathProcessor != null && (pathProcessor instanceof ExtraInfoProcessor)) ? ((ExtraInfoProcessor) pathProcessor).getExtras() : null);
+    }
+
+    /**
+     * Computes a single leg of a route. The legs of a request are computed by a {@link RoutingProfile}, see
+     * {@link #createLegRouter(RoutingProfile, RoutingRequest, EdgeFilter)}.
+     */
+    interface LegRouter {
+        GHResponse computeRoute(Coordinate c0, Coordinate c1, WayPointBearing[] bearings, double[] radiuses, RouteProcessContext routeProcCntx) throws Exception;
+    }
+
+    private static LegRouter createLegRouter(final RoutingProfile rp, final RoutingRequest req, final EdgeFilter customEdgeFilter) {
+        return new LegRouter() {
+            @Override
+            public GHResponse computeRoute(Coordinate c0, Coordinate c1, WayPointBearing[] bearings, double[] radiuses, RouteProcessContext routeProcCntx) throws Exception {
+                return rp.computeRoute(c0.y, c0.x, c1.y, c1.x, bearings, radiuses, c0.z == 1.0, req.getSearchParameters(), customEdgeFilter, req.getSimplifyGeometry(), routeProcCntx);
+            }
+        };
+    }
+
+    /**
+     * Computes the legs of a route one after the other on the calling thread.
+     */
+    static List<GHResponse> computeLegs(LegRouter legRouter, RoutingRequest req, PathProcessor pathProcessor) throws Exception {
+        RouteSearchParameters searchParams = req.getSearchParameters();
         Coordinate[] coords = req.getCoordinates();
         Coordinate c0 = coords[0];
         Coordinate c1;
         int nSegments = coords.length - 1;
         RouteProcessContext routeProcCntx = new RouteProcessContext(pathProcessor);
-        EdgeFilter customEdgeFilter = rp.createAccessRestrictionFilter(coords);
+        List<GHResponse> routes = new ArrayList<GHResponse>(nSegments);
+
         GHResponse prevResp = null;
         WayPointBearing[] bearings = (req.getContinueStraight() || searchParams.getBearings() != null) ? new WayPointBearing[2] : null;
         double[] radiuses = searchParams.getMaximumRadiuses() != null ? new double[2] : null;
@@ -405,25 +517,22 @@ public class RoutingProfileManager {
                 radiuses[1] = searchParams.getMaximumRadiuses()[i];
             }
 
-            GHResponse gr = rp.computeRoute(c0.y, c0.x, c1.y, c1.x, bearings, radiuses, c0.z == 1.0, searchParams, customEdgeFilter, req.getSimplifyGeometry(), routeProcCntx);
-
-            if (gr.hasErrors()) {
-                if (gr.getErrors().size() > 0) {
-                    if(gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.ConnectionNotFoundException) {
-                        throw new RouteNotFoundException(
-                                RoutingErrorCodes.ROUTE_NOT_FOUND,
-                                String.format("Unable to find a route between points %d (%s) and %d (%s).",
-                                        i,
-                                        FormatUtility.formatCoordinate(c0),
-                                        i + 1,
-                                        FormatUtility.formatCoordinate(c1))
-                        );
-                    } else {
-                        throw new InternalServerException(RoutingErrorCodes.UNKNOWN, gr.getErrors().get(0).getMessage());
-                    }
-                } else {
-                    // If there are no errors stored but there is indication that there are errors, something strange
-                    // has happened, so return that a route could not be found
+            GHResponse gr = legRouter.computeRoute(c0, c1, bearings, radiuses, routeProcCntx);
+
+            checkLegResponse(gr, i, c0, c1);
+
+            prevResp = gr;
+            routes.add(gr);
+            c0 = c1;
+        }
+
+        return routes;
+    }
+
+    private static void checkLegResponse(GHResponse gr, int i, Coordinate c0, Coordinate c1) throws Exception {
+        if (gr.hasErrors()) {
+            if (gr.getErrors().size() > 0) {
+                if(gr.getErrors().get(0) instanceof com.graphhopper.util.exceptions.ConnectionNotFoundException) {
                     throw new RouteNotFoundException(
                             RoutingErrorCodes.ROUTE_NOT_FOUND,
                             String.format("Unable to find a route between points %d (%s) and %d (%s).",
@@ -432,18 +541,269 @@ public class RoutingProfileManager {
                                     i + 1,
                                     FormatUtility.formatCoordinate(c1))
                     );
+                } else {
+                    throw new InternalServerException(RoutingErrorCodes.UNKNOWN, gr.getErrors().get(0).getMessage());
                 }
+            } else {
+                // If there are no errors stored but there is indication that there are errors, something strange
+                // has happened, so return that a route could not be found
+                throw new RouteNotFoundException(
+                        RoutingErrorCodes.ROUTE_NOT_FOUND,
+                        String.format("Unable to find a route between points %d (%s) and %d (%s).",
+                                i,
+                                FormatUtility.formatCoordinate(c0),
+                                i + 1,
+                                FormatUtility.formatCoordinate(c1))
+                );
             }
+        }
+    }
 
-            prevResp = gr;
-            routes.add(gr);
-            c0 = c1;
+    private synchronized ExecutorService getLegsExecutor() {
+        if (_legsExecutor == null && RoutingServiceSettings.getParallelLegsThreads() > 1)
+            _legsExecutor = Executors.newFixedThreadPool(RoutingServiceSettings.getParallelLegsThreads());
+
+        return _legsExecutor;
+    }
+
+    /**
+     * Computes the legs of a route independently of each other. The path processor of the route receives the calls
+     * recorded for each leg in the order of the legs, so that the extras are the same as for sequentially computed legs.
+     *
+     * If continue_straight is requested without bearings, every leg depends on the heading at the end of the previous
+     * leg. Such routes are computed sequentially with {@link #computeLegs(LegRouter, RoutingRequest, PathProcessor)}.
+     */
+    static List<GHResponse> computeLegsConcurrently(ExecutorService executor, LegRouter legRouter, RoutingRequest req, PathProcessor pathProcessor) throws Exception {
+        if (req.getContinueStraight() && req.getSearchParameters().getBearings() == null)
+            return computeLegs(legRouter, req, pathProcessor);
+
+        Coordinate[] coords = req.getCoordinates();
+        int nSegments = coords.length - 1;
+        boolean recordPaths = pathProcessor != null;
+
+        List<Future<LegResult>> futures = new ArrayList<Future<LegResult>>(nSegments);
+        for (int i = 1; i <= nSegments; ++i)
+            futures.add(executor.submit(new LegTask(legRouter, req, i, recordPaths)));
+
+        List<GHResponse> routes = new ArrayList<GHResponse>(nSegments);
+        try {
+            for (int i = 1; i <= nSegments; ++i) {
+                LegResult leg = getFutureResult(futures.get(i - 1));
+
+                checkLegResponse(leg.response, i, coords[i - 1], coords[i]);
+
+                if (recordPaths) {
+                    pathProcessor.setSegmentIndex(i - 1, nSegments);
+                    leg.pathRecorder.replay(pathProcessor);
+                }
+
+                routes.add(leg.response);
+            }
+        } finally {
+            // the remaining legs are of no use once one of them failed
+            for (Future<LegResult> future : futures)
+                future.cancel(false);
         }
 
-        return new RouteResultBuilder().createRouteResult(routes, req, (pathProcessor != null && (pathProcessor instanceof ExtraInfoProcessor)) ? ((ExtraInfoProcessor) pathProcessor).getExtras() : null);
+        return routes;
+    }
+
+    private static <T> T getFutureResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception)
+                throw (Exception) ex.getCause();
+            throw ex;
+        }
     }
 
-    private double getHeadingDirection(GHResponse resp) {
+    private static class LegResult {
+        public GHResponse response;
+        public RecordingPathProcessor pathRecorder;
+
+        public LegResult(GHResponse response, RecordingPathProcessor pathRecorder) {
+            this.response = response;
+            this.pathRecorder = pathRecorder;
+        }
+    }
+
+    /**
+     * Computes the leg ending at the waypoint with the given index, mirroring one iteration of the sequential loop in
+     * {@link RoutingProfileManager#computeLegs(LegRouter, RoutingRequest, PathProcessor)}.
+     */
+    private static class LegTask implements Callable<LegResult> {
+        private LegRouter legRouter;
+        private RoutingRequest req;
+        private int index;
+        private boolean recordPath;
+
+        public LegTask(LegRouter legRouter, RoutingRequest req, int index, boolean recordPath) {
+            this.legRouter = legRouter;
+            this.req = req;
+            this.index = index;
+            this.recordPath = recordPath;
+        }
+
+        @Override
+        public LegResult call() throws Exception {
+            RouteSearchParameters searchParams = req.getSearchParameters();
+            Coordinate[] coords = req.getCoordinates();
+            int nSegments = coords.length - 1;
+            int i = index;
+            Coordinate c0 = coords[i - 1];
+            Coordinate c1 = coords[i];
+
+            WayPointBearing[] bearings = (req.getContinueStraight() || searchParams.getBearings() != null) ? new WayPointBearing[2] : null;
+            if (bearings != null) {
+                if (searchParams.getBearings() != null) {
+                    bearings[0] = searchParams.getBearings()[i - 1];
+                    bearings[1] = (i == nSegments && searchParams.getBearings().length != nSegments + 1) ? new WayPointBearing(Double.NaN, Double.NaN) : searchParams.getBearings()[i];
+                }
+            }
+
+            double[] radiuses = null;
+            if (searchParams.getMaximumRadiuses() != null) {
+                radiuses = new double[2];
+                radiuses[0] = searchParams.getMaximumRadiuses()[i - 1];
+                radiuses[1] = searchParams.getMaximumRadiuses()[i];
+            }
+
+            RecordingPathProcessor pathRecorder = recordPath ? new RecordingPathProcessor() : null;
+            RouteProcessContext routeProcCntx = new RouteProcessContext(pathRecorder);
+
+            GHResponse gr = legRouter.computeRoute(c0, c1, bearings, radiuses, routeProcCntx);
+
+            return new LegResult(gr, pathRecorder);
+        }
+    }
+
+    private synchronized ExecutorService getBatchExecutor() {
+        if (_batchExecutor == null && RoutingServiceSettings.getBatchThreads() > 1)
+            _batchExecutor = Executors.newFixedThreadPool(RoutingServiceSettings.getBatchThreads());
+
+        return _batchExecutor;
+    }
+
+    /**
+     * Computes the routes between many origin-destination pairs which share the options of the given request. The pairs
+     * are grouped by their origin and every group is computed as one task on the batch worker pool. The results of a
+     * group are passed to the handler on the calling thread as soon as the group is finished, so they are not ordered
+     * by the index of the pairs.
+     */
+    public void computeRouteBatch(RoutingRequest req, Coordinate[][] pairs, RouteBatchHandler handler) throws Exception {
+        Map<Coordinate, List<Integer>> groups = new LinkedHashMap<Coordinate, List<Integer>>();
+        for (int i = 0; i < pairs.length; i++) {
+            List<Integer> group = groups.get(pairs[i][0]);
+            if (group == null) {
+                group = new ArrayList<Integer>();
+                groups.put(pairs[i][0], group);
+            }
+            group.add(i);
+        }
+
+        ExecutorService executor = getBatchExecutor();
+        if (executor == null) {
+            for (List<Integer> group : groups.values())
+                new BatchGroupTask(this, req, pairs, group).call().passTo(handler);
+            return;
+        }
+
+        ExecutorCompletionService<BatchGroupResult> compService = new ExecutorCompletionService<BatchGroupResult>(executor);
+        List<Future<BatchGroupResult>> futures = new ArrayList<Future<BatchGroupResult>>(groups.size());
+        for (List<Integer> group : groups.values())
+            futures.add(compService.submit(new BatchGroupTask(this, req, pairs, group)));
+
+        try {
+            for (int i = 0; i < futures.size(); i++)
+                getFutureResult(compService.take()).passTo(handler);
+        } finally {
+            // the remaining groups are of no use if the results can not be delivered
+            for (Future<BatchGroupResult> future : futures)
+                future.cancel(false);
+        }
+    }
+
+    private static class BatchGroupResult {
+        private List<Integer> indices;
+        private RouteResult[] routes;
+        private Exception[] errors;
+
+        public BatchGroupResult(List<Integer> indices) {
+            this.indices = indices;
+            this.routes = new RouteResult[indices.size()];
+            this.errors = new Exception[indices.size()];
+        }
+
+        public void passTo(RouteBatchHandler handler) throws Exception {
+            for (int j = 0; j < routes.length; j++) {
+                if (routes[j] != null)
+                    handler.handleRoute(indices.get(j), routes[j]);
+                else
+                    handler.handleError(indices.get(j), errors[j]);
+            }
+        }
+    }
+
+    /**
+     * Computes the routes of all pairs of a batch starting at the same origin. Without extras the group is computed as
+     * one request which resolves the profile and the access restrictions only once and then runs a point-to-point search
+     * for every destination. Otherwise, or if the group fails as a whole, every pair is computed as a route request of
+     * its own. Like the groups, these are not stored in the result cache.
+     */
+    private static class BatchGroupTask implements Callable<BatchGroupResult> {
+        private RoutingProfileManager manager;
+        private RoutingRequest req;
+        private Coordinate[][] pairs;
+        private List<Integer> indices;
+
+        public BatchGroupTask(RoutingProfileManager manager, RoutingRequest req, Coordinate[][] pairs, List<Integer> indices) {
+            this.manager = manager;
+            this.req = req;
+            this.pairs = pairs;
+            this.indices = indices;
+        }
+
+        @Override
+        public BatchGroupResult call() {
+            BatchGroupResult result = new BatchGroupResult(indices);
+            int n = indices.size();
+            Coordinate source = pairs[indices.get(0)][0];
+
+            if (n > 1 && req.getExtraInfo() == 0) {
+                Coordinate[] coords = new Coordinate[n + 1];
+                coords[0] = source;
+                for (int j = 0; j < n; j++)
+                    coords[j + 1] = pairs[indices.get(j)][1];
+
+                try {
+                    List<RouteResult> routes = manager.computeRoutes(req.copy(coords), true, true);
+                    for (int j = 0; j < n; j++) {
+                        result.routes[j] = routes.get(j);
+                        if (result.routes[j] == null)
+                            result.errors[j] = new RouteNotFoundException(RoutingErrorCodes.ROUTE_NOT_FOUND,
+                                    String.format("Unable to find a route between points %s and %s.", FormatUtility.formatCoordinate(source), FormatUtility.formatCoordinate(coords[j + 1])));
+                    }
+
+                    return result;
+                } catch (Exception ex) {
+                    // one of the destinations might exceed the limits, compute the pairs one by one to tell which
+                }
+            }
+
+            for (int j = 0; j < n; j++) {
+                try {
+                    result.routes[j] = manager.computeRoute(req.copy(pairs[indices.get(j)]), false);
+                } catch (Exception ex) {
+                    result.errors[j] = ex;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    private static double getHeadingDirection(GHResponse resp) {
         PointList points = resp.getBest().getPoints();
         int nPoints = points.size();
         if (nPoints > 1) {
@@ -495,10 +855,13 @@ public class RoutingProfileManager {
                 if (oneToMany) {
                     for (int i = 1; i < nCoords; i++) {
                         c1 = coords[i];
-                        totalDist = distCalc.calcDist(c0.y, c0.x, c1.y, c1.x);
-                        if (totalDist > longestSegmentDist)
-                            longestSegmentDist = totalDist;
+                        double dist = distCalc.calcDist(c0.y, c0.x, c1.y, c1.x);
+                        if (dist > longestSegmentDist)
+                            longestSegmentDist = dist;
                     }
+
+                    // every destination is a route of its own, so the farthest one has to stay within the limit
+                    totalDist = longestSegmentDist;
                 } else {
                     if (nCoords == 2) {
                         c1 = coords[1];
@@ -545,13 +908,40 @@ public class RoutingProfileManager {
         return rp.buildIsochrone(parameters, attributes);
     }
 
+    public float[] computeReachability(IsochroneSearchParameters parameters, AccessibilityMap edgeMap, Coordinate[] locations) throws Exception {
+        int profileType = parameters.getRouteParameters().getProfileType();
+        RoutingProfile rp = _routeProfiles.getRouteProfile(profileType, false);
+
+        return rp.computeReachability(parameters, edgeMap, locations);
+    }
+
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
+        return computeMatrix(req, true);
+    }
+
+    /**
+     * @param useCache false for requests which are unlikely to be repeated, like the blocks of a matrix job, so that
+     *                 they don't evict the results of interactive requests.
+     */
+    public MatrixResult computeMatrix(MatrixRequest req, boolean useCache) throws Exception {
         RoutingProfile rp = _routeProfiles.getRouteProfile(req.getProfileType(), !req.getFlexibleMode());
 
         if (rp == null)
             throw new InternalServerException(MatrixErrorCodes.UNKNOWN, "Unable to find an appropriate routing profile.");
 
-        return rp.computeMatrix(req);
+        RoutingResultCache cache = useCache ? rp.getResultCache() : null;
+        if (cache == null)
+            return rp.computeMatrix(req);
+
+        String key = RoutingResultCache.createKey(req);
+        MatrixResult result = (MatrixResult) cache.get(key);
+        if (result == null) {
+            long version = cache.getVersion();
+            result = rp.computeMatrix(req);
+            cache.put(key, result, version);
+        }
+
+        return result;
     }
 
     public RouteOptimizationResult computeOptimizedRoutes(RouteOptimizationRequest req) throws Exception {
@@ -201,4 +201,29 @@ public class RoutingRequest extends ServiceRequest
 	public boolean isValid() {
 		return !(_coordinates == null);
 	}
+
+	/**
+	 * @return a request with the same options for other coordinates. The search parameters are shared with this request.
+	 */
+	public RoutingRequest copy(Coordinate[] coordinates) {
+		RoutingRequest req = new RoutingRequest();
+		req._coordinates = coordinates;
+		req._searchParameters = _searchParameters;
+		req._units = _units;
+		req._language = _language;
+		req._geometryFormat = _geometryFormat;
+		req._instructionsFormat = _instructionsFormat;
+		req._includeInstructions = _includeInstructions;
+		req._includeElevation = _includeElevation;
+		req._includeGeometry = _includeGeometry;
+		req._includeManeuvers = _includeManeuvers;
+		req._includeRoundaboutExits = _includeRoundaboutExits;
+		req._simplifyGeometry = _simplifyGeometry;
+		req._attributes = _attributes;
+		req._extraInfo = _extraInfo;
+		req._continueStraight = _continueStraight;
+		req.setId(getId());
+
+		return req;
+	}
 }
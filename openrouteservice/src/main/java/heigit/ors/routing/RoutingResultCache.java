@@ -0,0 +1,197 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.matrix.MatrixRequest;
+
+/*
+ * Keeps the results of recent route and matrix requests of a routing profile, so that repeated 
+ * requests with the same locations and options don't have to be computed again. The results are 
+ * bound to the graph and the traffic state they were computed with, the cache therefore has to be 
+ * cleared when either of them changes. Results computed while the cache was cleared are not stored.
+ */
+public class RoutingResultCache {
+	// locations are compared with the precision used to snap them, about 0.1 m
+	private static final double COORDINATE_PRECISION = 1e6;
+
+	private final Map<String, Object> _entries;
+	private long _version;
+	private long _hits;
+	private long _misses;
+
+	public RoutingResultCache(final int capacity)
+	{
+		_entries = new LinkedHashMap<String, Object>(capacity + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public synchronized Object get(String key)
+	{
+		Object result = _entries.get(key);
+		if (result == null)
+			_misses++;
+		else
+			_hits++;
+
+		return result;
+	}
+
+	/**
+	 * @return the version which has to be passed to {@link #put(String, Object, long)} for a result computed from now on
+	 */
+	public synchronized long getVersion()
+	{
+		return _version;
+	}
+
+	public synchronized void put(String key, Object result, long version)
+	{
+		if (version == _version)
+			_entries.put(key, result);
+	}
+
+	public synchronized void clear()
+	{
+		_entries.clear();
+		_version++;
+	}
+
+	public synchronized long getHits()
+	{
+		return _hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return _misses;
+	}
+
+	public synchronized double getHitRate()
+	{
+		long total = _hits + _misses;
+		return total == 0 ? 0.0 : (double)_hits / total;
+	}
+
+	public static String createKey(RoutingRequest req)
+	{
+		StringBuilder sb = new StringBuilder("route|");
+		appendCoordinates(sb, req.getCoordinates());
+		appendSearchParameters(sb, req.getSearchParameters());
+
+		sb.append('|').append(req.getUnits());
+		sb.append('|').append(req.getLanguage());
+		sb.append('|').append(req.getGeometryFormat());
+		sb.append('|').append(req.getInstructionsFormat());
+		sb.append('|').append(req.getIncludeInstructions());
+		sb.append('|').append(req.getIncludeElevation());
+		sb.append('|').append(req.getIncludeGeometry());
+		sb.append('|').append(req.getIncludeManeuvers());
+		sb.append('|').append(req.getIncludeRoundaboutExits());
+		sb.append('|').append(req.getSimplifyGeometry());
+		sb.append('|').append(req.getExtraInfo());
+		sb.append('|').append(req.getContinueStraight());
+
+		String[] attributes = req.getAttributes();
+		if (attributes != null)
+		{
+			for (String attr : attributes)
+				sb.append('|').append(attr);
+		}
+
+		return sb.toString();
+	}
+
+	public static String createKey(MatrixRequest req)
+	{
+		StringBuilder sb = new StringBuilder("matrix|");
+		appendCoordinates(sb, req.getSources());
+		sb.append('|');
+		appendCoordinates(sb, req.getDestinations());
+
+		sb.append('|').append(req.getProfileType());
+		sb.append('|').append(req.getMetrics());
+		sb.append('|').append(req.getUnits());
+		sb.append('|').append(req.getWeightingMethod());
+		sb.append('|').append(req.getResolveLocations());
+		sb.append('|').append(req.getFlexibleMode());
+		sb.append('|').append(req.getAlgorithm());
+
+		return sb.toString();
+	}
+
+	private static void appendSearchParameters(StringBuilder sb, RouteSearchParameters searchParams)
+	{
+		sb.append('|').append(searchParams.getProfileType());
+		sb.append('|').append(searchParams.getWeightingMethod());
+		sb.append('|').append(searchParams.getConsiderTraffic());
+		sb.append('|').append(searchParams.getConsiderTurnRestrictions());
+		sb.append('|').append(searchParams.getMaximumSpeed());
+		sb.append('|').append(searchParams.getVehicleType());
+		sb.append('|').append(searchParams.getFlexibleMode());
+		// avoid areas and features, profile parameters etc. are all parsed from the options
+		sb.append('|').append(searchParams.getOptions());
+
+		WayPointBearing[] bearings = searchParams.getBearings();
+		if (bearings != null)
+		{
+			for (WayPointBearing bearing : bearings)
+			{
+				if (bearing == null)
+					sb.append("|b");
+				else
+					sb.append("|b").append(bearing.getValue()).append(',').append(bearing.getDeviation());
+			}
+		}
+
+		double[] radiuses = searchParams.getMaximumRadiuses();
+		if (radiuses != null)
+		{
+			for (double radius : radiuses)
+				sb.append("|r").append(radius);
+		}
+	}
+
+	private static void appendCoordinates(StringBuilder sb, Coordinate[] coords)
+	{
+		if (coords == null)
+			return;
+
+		for (Coordinate c : coords)
+		{
+			sb.append(Math.round(c.x * COORDINATE_PRECISION)).append(',').append(Math.round(c.y * COORDINATE_PRECISION));
+			// z marks directed segments
+			if (!Double.isNaN(c.z))
+				sb.append(',').append(c.z);
+			sb.append(';');
+		}
+	}
+}
@@ -41,6 +41,7 @@ public class DijkstraOneToManyAlgorithm extends AbstractOneToManyRoutingAlgorith
     private int _targetsFound = 0;
     private IntObjectMap<SPTEntry> _targets;
     private int _targetsCount = 0;
+    private double _maxWeight = Double.MAX_VALUE;
 
     public DijkstraOneToManyAlgorithm(Graph graph, Weighting weighting, TraversalMode tMode) {
         super(graph, weighting, tMode);
@@ -61,6 +62,15 @@ public class DijkstraOneToManyAlgorithm extends AbstractOneToManyRoutingAlgorith
     	_targetsFound = 0;
     }
     
+    /**
+     * Limits the search to entries whose accumulated weight does not exceed the given value.
+     * Targets beyond this bound remain unresolved (null) in the result of {@link #calcPaths(int, int[])}.
+     */
+    public void setMaxWeight(double maxWeight)
+    {
+    	_maxWeight = maxWeight;
+    }
+    
     public int getFoundTargets()
     {
     	return _targetsFound;
@@ -124,7 +134,7 @@ public class DijkstraOneToManyAlgorithm extends AbstractOneToManyRoutingAlgorith
 
                 int traversalId = traversalMode.createTraversalId(iter, false);
                 double tmpWeight = weighting.calcWeight(iter, false, _currEdge.edge) + _currEdge.weight;
-                if (Double.isInfinite(tmpWeight))
+                if (Double.isInfinite(tmpWeight) || tmpWeight > _maxWeight)
                     continue;
 
                 SPTEntry nEdge = _fromMap.get(traversalId);
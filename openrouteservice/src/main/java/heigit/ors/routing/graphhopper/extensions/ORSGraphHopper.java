@@ -28,21 +28,38 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
 import heigit.ors.mapmatching.RouteSegmentInfo;
 import heigit.ors.routing.RoutingProfile;
+import heigit.ors.routing.graphhopper.extensions.cch.CCHMetric;
+import heigit.ors.routing.graphhopper.extensions.cch.CCHPreparation;
+import heigit.ors.routing.graphhopper.extensions.cch.CCHRoutingAlgorithmFactory;
+import heigit.ors.routing.graphhopper.extensions.lm.LMRoutingAlgorithmFactory;
+import heigit.ors.routing.graphhopper.extensions.lm.ORSLandmarks;
+import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 
 import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopper;
+import com.graphhopper.PathWrapper;
 import com.graphhopper.reader.DataReader;
 import com.graphhopper.routing.Path;
+import com.graphhopper.routing.RoutingAlgorithmFactory;
+import com.graphhopper.routing.lm.PrepareLandmarks;
 import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.HintsMap;
 import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.DouglasPeucker;
 import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.Parameters;
+import com.graphhopper.util.PathMerger;
 import com.graphhopper.util.PointList;
+import com.graphhopper.util.Translation;
 import com.graphhopper.util.shapes.GHPoint;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.GeometryFactory;
@@ -52,6 +69,8 @@ public class ORSGraphHopper extends GraphHopper {
 	private GraphProcessContext _procCntx;
 	private HashMap<Long, ArrayList<Integer>> osmId2EdgeIds; // one osm id can correspond to multiple edges 
 	private HashMap<Integer, Long> tmcEdges;
+	private CCHPreparation cchPreparation;
+	private ORSLandmarks orsLandmarks;
 	
 	// A route profile for referencing which is used to extract names of adjacent streets and other objects.
 	private RoutingProfile refRouteProfile;
@@ -90,6 +109,12 @@ public class ORSGraphHopper extends GraphHopper {
 	public GraphHopper importOrLoad() {
 		GraphHopper gh = super.importOrLoad();
 		
+		// the packed rows are copied from the individual storages after the import or for graphs built without them
+		PackedEdgeAttributesGraphStorage packedStorage = GraphStorageUtils.getGraphExtension(getGraphHopperStorage(), PackedEdgeAttributesGraphStorage.class);
+		if (packedStorage != null && packedStorage.isMigrationRequired()) {
+			packedStorage.importFrom(getGraphHopperStorage());
+			packedStorage.flush();
+		}
 
 		if ((tmcEdges != null) && (osmId2EdgeIds !=null)) {
 			java.nio.file.Path path = Paths.get(gh.getGraphHopperLocation(), "edges_ors_traffic");
@@ -137,6 +162,98 @@ public class ORSGraphHopper extends GraphHopper {
 		return gh;
 	}
 	
+	/**
+	 * Prepares the metric-independent part of customizable contraction hierarchies which are used for 
+	 * requests carrying a "cch.metric" hint, see {@link #getAlgorithmFactory(HintsMap)}.
+	 */
+	public void prepareCCH(int metricsCacheSize) {
+		CCHPreparation cch = new CCHPreparation(getGraphHopperStorage().getBaseGraph(), metricsCacheSize);
+		cch.doWork();
+		cchPreparation = cch;
+	}
+
+	public boolean isCCHEnabled() {
+		return cchPreparation != null;
+	}
+
+	public CCHPreparation getCCHPreparation() {
+		return cchPreparation;
+	}
+
+	/**
+	 * Loads or prepares landmarks for the time based ORS weightings of all flag encoders, see {@link ORSLandmarks}.
+	 */
+	public void prepareLandmarks(int landmarks, int activeLandmarks, int threads) throws Exception {
+		ORSLandmarks lms = new ORSLandmarks(getGraphHopperStorage(), landmarks, activeLandmarks);
+		lms.loadOrDoWork(threads);
+		orsLandmarks = lms;
+	}
+
+	public boolean isLMEnabled() {
+		return orsLandmarks != null || getLMFactoryDecorator().isEnabled();
+	}
+
+	@Override
+	public RoutingAlgorithmFactory getAlgorithmFactory(HintsMap map) {
+		if (cchPreparation != null) {
+			String metricKey = map.get("cch.metric", "");
+			if (!Helper.isEmpty(metricKey)) {
+				CCHMetric metric = cchPreparation.getMetric(metricKey);
+				// the metric might have been evicted in the meantime, fall back to the regular algorithms then
+				if (metric != null)
+					return new CCHRoutingAlgorithmFactory(metric);
+			}
+		}
+
+		// soft weightings may lower the weights below the bounds of the landmarks
+		if (orsLandmarks != null && !map.getBool("lm.disable", true) && "fastest".equalsIgnoreCase(map.getWeighting())
+				&& !map.getBool("custom_weightings", false)) {
+			PrepareLandmarks plm = orsLandmarks.getPreparation(map.getVehicle());
+			if (plm != null)
+				return new LMRoutingAlgorithmFactory(plm);
+		}
+
+		return super.getAlgorithmFactory(map);
+	}
+
+	/**
+	 * Computes the legs of a route through all points of the request in a single pass. The points are looked up only once 
+	 * and the paths of all legs are found on one query graph, but unlike {@link #route(GHRequest)} the paths are not merged 
+	 * and one response per leg is returned as the route result builder expects it.
+	 * 
+	 * @param response receives the errors and hints of the whole request
+	 * @return the responses of the legs or null if any of the legs could not be found
+	 */
+	public List<GHResponse> routeLegs(GHRequest request, GHResponse response, boolean simplifyGeometry) {
+		List<Path> paths = calcPaths(request, response);
+
+		if (response.hasErrors() || paths.size() != request.getPoints().size() - 1)
+			return null;
+
+		HintsMap hints = request.getHints();
+		double wayPointMaxDistance = hints.getDouble(Parameters.Routing.WAY_POINT_MAX_DISTANCE, 1d);
+		PathMerger pathMerger = new PathMerger()
+				.setCalcPoints(hints.getBool(Parameters.Routing.CALC_POINTS, true))
+				.setDouglasPeucker(new DouglasPeucker().setMaxDistance(wayPointMaxDistance))
+				.setEnableInstructions(hints.getBool(Parameters.Routing.INSTRUCTIONS, true))
+				.setSimplifyResponse(simplifyGeometry && wayPointMaxDistance > 0);
+		Translation tr = getTranslationMap().getWithFallBack(request.getLocale());
+
+		List<GHResponse> legs = new ArrayList<GHResponse>(paths.size());
+		for (Path path : paths) {
+			PathWrapper pathWrapper = new PathWrapper();
+			pathMerger.doWork(pathWrapper, Collections.singletonList(path), tr);
+			if (pathWrapper.hasErrors())
+				return null;
+
+			GHResponse leg = new GHResponse();
+			leg.add(pathWrapper);
+			legs.add(leg);
+		}
+
+		return legs;
+	}
+
 	public RouteSegmentInfo getRouteSegment(double[] latitudes, double[] longitudes, String vehicle,
 			EdgeFilter edgeFilter) {
 		RouteSegmentInfo result = null;
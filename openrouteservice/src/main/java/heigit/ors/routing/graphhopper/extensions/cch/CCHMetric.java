@@ -0,0 +1,205 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.cch;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.util.AllEdgesIterator;
+import com.graphhopper.util.EdgeIterator;
+
+/*
+ * Arc weights of a CCH for one weighting and edge filter. Every arc of the upward graph has a weight 
+ * for each direction and a via entry which is either the rank of the middle node of the shortcut 
+ * (>= 0) or the encoded id of the original edge (-edgeId - 1), needed to unpack paths.
+ */
+public class CCHMetric {
+	private final CCHPreparation _cch;
+	private final float[] _upWeights;
+	private final float[] _downWeights;
+	private final int[] _upVia;
+	private final int[] _downVia;
+	private final BitSet _acceptedEdges;
+
+	public CCHMetric(CCHPreparation cch)
+	{
+		_cch = cch;
+
+		int arcs = cch.getArcs();
+		_upWeights = new float[arcs];
+		_downWeights = new float[arcs];
+		_upVia = new int[arcs];
+		_downVia = new int[arcs];
+		_acceptedEdges = new BitSet();
+	}
+
+	/**
+	 * Assigns the weights of the original edges to their arcs and propagates them bottom-up through all 
+	 * lower triangles, so that every arc holds the weight of the shortest path it represents.
+	 */
+	public void customize(Weighting weighting, EdgeFilter edgeFilter)
+	{
+		Arrays.fill(_upWeights, Float.POSITIVE_INFINITY);
+		Arrays.fill(_downWeights, Float.POSITIVE_INFINITY);
+
+		FlagEncoder encoder = weighting.getFlagEncoder();
+
+		AllEdgesIterator iter = _cch.getGraph().getAllEdges();
+		while (iter.next())
+		{
+			if (edgeFilter != null && !edgeFilter.accept(iter))
+				continue;
+
+			int edgeId = iter.getEdge();
+			_acceptedEdges.set(edgeId);
+
+			int arc = _cch.getEdgeArc(edgeId);
+			if (arc < 0)
+				continue;
+
+			double fwdWeight = iter.isForward(encoder) ? weighting.calcWeight(iter, false, EdgeIterator.NO_EDGE) : Double.POSITIVE_INFINITY;
+			double bwdWeight = iter.isBackward(encoder) ? weighting.calcWeight(iter, true, EdgeIterator.NO_EDGE) : Double.POSITIVE_INFINITY;
+
+			if (_cch.getRank(iter.getBaseNode()) < _cch.getRank(iter.getAdjNode()))
+			{
+				setEdgeWeight(arc, true, fwdWeight, edgeId);
+				setEdgeWeight(arc, false, bwdWeight, edgeId);
+			}
+			else
+			{
+				setEdgeWeight(arc, true, bwdWeight, edgeId);
+				setEdgeWeight(arc, false, fwdWeight, edgeId);
+			}
+		}
+
+		int nodes = _cch.getNodes();
+		for (int rank = 0; rank < nodes; rank++)
+		{
+			int last = _cch.getLastArc(rank);
+
+			for (int arc1 = _cch.getFirstArc(rank); arc1 < last; arc1++)
+			{
+				float up1 = _upWeights[arc1];
+				float down1 = _downWeights[arc1];
+				if (up1 == Float.POSITIVE_INFINITY && down1 == Float.POSITIVE_INFINITY)
+					continue;
+
+				int head1 = _cch.getArcHead(arc1);
+
+				for (int arc2 = arc1 + 1; arc2 < last; arc2++)
+				{
+					int arc = _cch.findArc(head1, _cch.getArcHead(arc2));
+
+					// head1 -> rank -> head2
+					float weight = down1 + _upWeights[arc2];
+					if (weight < _upWeights[arc])
+					{
+						_upWeights[arc] = weight;
+						_upVia[arc] = rank;
+					}
+
+					// head2 -> rank -> head1
+					weight = _downWeights[arc2] + up1;
+					if (weight < _downWeights[arc])
+					{
+						_downWeights[arc] = weight;
+						_downVia[arc] = rank;
+					}
+				}
+			}
+		}
+	}
+
+	private void setEdgeWeight(int arc, boolean up, double weight, int edgeId)
+	{
+		float[] weights = up ? _upWeights : _downWeights;
+		if (weight < weights[arc])
+		{
+			weights[arc] = (float)weight;
+			(up ? _upVia : _downVia)[arc] = -edgeId - 1;
+		}
+	}
+
+	public CCHPreparation getPreparation()
+	{
+		return _cch;
+	}
+
+	/**
+	 * Returns the weight from the lower to the upper end of the arc.
+	 */
+	public float getUpWeight(int arc)
+	{
+		return _upWeights[arc];
+	}
+
+	/**
+	 * Returns the weight from the upper to the lower end of the arc.
+	 */
+	public float getDownWeight(int arc)
+	{
+		return _downWeights[arc];
+	}
+
+	public boolean isEdgeAccepted(int edgeId)
+	{
+		return _acceptedEdges.get(edgeId);
+	}
+
+	/**
+	 * Appends the original edges of an arc in travel direction together with the node reached by each of them.
+	 * 
+	 * @param arc the arc to unpack
+	 * @param lower the rank of the lower end of the arc
+	 * @param up true for travelling from the lower to the upper end
+	 */
+	public void unpackArc(int arc, int lower, boolean up, IntArrayList edges, IntArrayList nodes)
+	{
+		int upper = _cch.getArcHead(arc);
+		int via = up ? _upVia[arc] : _downVia[arc];
+
+		if (via < 0)
+		{
+			edges.add(-via - 1);
+			nodes.add(_cch.getNodeId(up ? upper : lower));
+		}
+		else
+		{
+			int lowerArc = _cch.findArc(via, lower);
+			int upperArc = _cch.findArc(via, upper);
+
+			if (up)
+			{
+				unpackArc(lowerArc, via, false, edges, nodes);
+				unpackArc(upperArc, via, true, edges, nodes);
+			}
+			else
+			{
+				unpackArc(upperArc, via, false, edges, nodes);
+				unpackArc(lowerArc, via, true, edges, nodes);
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.cch;
+
+import java.util.Arrays;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+
+/*
+ * Computes a metric-independent contraction order by nested dissection. The node set is 
+ * recursively bisected at the coordinate median of its longer side, the boundary nodes of the 
+ * smaller half form the separator and are ranked above both halves. Only the topology and the 
+ * node coordinates are used, so the order stays valid for every weighting and edge filter.
+ */
+public class CCHNodeOrdering {
+	private static final int LEAF_SIZE = 8;
+	private static final double COORD_FACTOR = 1e6;
+	private static final double COORD_OFFSET = 2e8;
+
+	private final Graph _graph;
+	private final NodeAccess _nodeAccess;
+	private final EdgeExplorer _explorer;
+	private byte[] _sides;
+	private int[] _ranks;
+	private int _nextRank;
+
+	public CCHNodeOrdering(Graph graph)
+	{
+		_graph = graph;
+		_nodeAccess = graph.getNodeAccess();
+		_explorer = graph.createEdgeExplorer(EdgeFilter.ALL_EDGES);
+	}
+
+	/**
+	 * Returns the rank of every node, the node with the highest rank is contracted last.
+	 */
+	public int[] computeRanks()
+	{
+		int nodes = _graph.getNodes();
+		_ranks = new int[nodes];
+		_sides = new byte[nodes];
+		_nextRank = nodes - 1;
+
+		int[] all = new int[nodes];
+		for (int i = 0; i < nodes; i++)
+			all[i] = i;
+
+		dissect(all);
+
+		_sides = null;
+
+		return _ranks;
+	}
+
+	private void dissect(int[] nodes)
+	{
+		if (nodes.length <= LEAF_SIZE)
+		{
+			for (int i = nodes.length - 1; i >= 0; i--)
+				_ranks[nodes[i]] = _nextRank--;
+			return;
+		}
+
+		int[] byLat = sortByCoordinate(nodes, true);
+		int[] byLon = sortByCoordinate(nodes, false);
+
+		int[] sepLat = findSeparator(byLat);
+		int[] sepLon = findSeparator(byLon);
+
+		int[] sorted = sepLat.length <= sepLon.length ? byLat : byLon;
+		int[] separator = sepLat.length <= sepLon.length ? sepLat : sepLon;
+
+		// separator nodes are contracted after both halves
+		for (int i = separator.length - 1; i >= 0; i--)
+		{
+			_ranks[separator[i]] = _nextRank--;
+			_sides[separator[i]] = -1;
+		}
+
+		int half = sorted.length / 2;
+		int[] first = collectUnranked(sorted, 0, half);
+		int[] second = collectUnranked(sorted, half, sorted.length);
+
+		for (int i = 0; i < separator.length; i++)
+			_sides[separator[i]] = 0;
+
+		// ranks are handed out from the top, so the second half ends up above the first one
+		dissect(second);
+		dissect(first);
+	}
+
+	private int[] sortByCoordinate(int[] nodes, boolean lat)
+	{
+		long[] keys = new long[nodes.length];
+
+		for (int i = 0; i < nodes.length; i++)
+		{
+			double coord = lat ? _nodeAccess.getLatitude(nodes[i]) : _nodeAccess.getLongitude(nodes[i]);
+			keys[i] = ((long)(coord * COORD_FACTOR + COORD_OFFSET) << 32) | nodes[i];
+		}
+
+		Arrays.sort(keys);
+
+		int[] res = new int[nodes.length];
+		for (int i = 0; i < keys.length; i++)
+			res[i] = (int)(keys[i] & 0xFFFFFFFFL);
+
+		return res;
+	}
+
+	/**
+	 * Splits the sorted nodes at the median and returns the smaller of the two boundaries, i.e. the nodes 
+	 * of one half which are adjacent to the other one.
+	 */
+	private int[] findSeparator(int[] sorted)
+	{
+		int half = sorted.length / 2;
+
+		for (int i = 0; i < sorted.length; i++)
+			_sides[sorted[i]] = (byte)(i < half ? 1 : 2);
+
+		int[] boundary1 = findBoundary(sorted, 0, half, (byte)2);
+		int[] boundary2 = findBoundary(sorted, half, sorted.length, (byte)1);
+
+		for (int i = 0; i < sorted.length; i++)
+			_sides[sorted[i]] = 0;
+
+		return boundary1.length <= boundary2.length ? boundary1 : boundary2;
+	}
+
+	private int[] findBoundary(int[] sorted, int from, int to, byte otherSide)
+	{
+		int[] res = new int[to - from];
+		int count = 0;
+
+		for (int i = from; i < to; i++)
+		{
+			EdgeIterator iter = _explorer.setBaseNode(sorted[i]);
+			while (iter.next())
+			{
+				if (_sides[iter.getAdjNode()] == otherSide)
+				{
+					res[count++] = sorted[i];
+					break;
+				}
+			}
+		}
+
+		return Arrays.copyOf(res, count);
+	}
+
+	private int[] collectUnranked(int[] sorted, int from, int to)
+	{
+		int[] res = new int[to - from];
+		int count = 0;
+
+		for (int i = from; i < to; i++)
+		{
+			if (_sides[sorted[i]] != -1)
+				res[count++] = sorted[i];
+		}
+
+		return Arrays.copyOf(res, count);
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.cch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.AllEdgesIterator;
+
+/*
+ * Metric-independent part of customizable contraction hierarchies (CCH). The nodes are ordered 
+ * by nested dissection and contracted without witness searches, the resulting upward graph is 
+ * kept in a compact array representation indexed by rank. Metrics for concrete weightings and 
+ * edge filters are computed on demand by CCHMetric and cached by a caller-defined key. Concurrent 
+ * requests for the same key share one customization and the number of customizations in progress 
+ * is limited by the size of the cache.
+ */
+public class CCHPreparation {
+	private final Graph _graph;
+	private final Map<String, CCHMetric> _metrics;
+	private final Map<String, FutureTask<CCHMetric>> _pending;
+	private final int _maxPending;
+	private int _nodes;
+	private int[] _ranks;
+	private int[] _nodeIds;
+	private int[] _firstArc;
+	private int[] _arcHeads;
+	private int[] _edgeArcs;
+
+	public CCHPreparation(Graph graph, final int metricsCacheSize)
+	{
+		_graph = graph;
+		_pending = new HashMap<String, FutureTask<CCHMetric>>();
+		_maxPending = Math.max(1, metricsCacheSize);
+		_metrics = new LinkedHashMap<String, CCHMetric>(metricsCacheSize + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CCHMetric> eldest) {
+				return size() > metricsCacheSize;
+			}
+		};
+	}
+
+	public void doWork()
+	{
+		_nodes = _graph.getNodes();
+		_ranks = new CCHNodeOrdering(_graph).computeRanks();
+		_nodeIds = new int[_nodes];
+		for (int i = 0; i < _nodes; i++)
+			_nodeIds[_ranks[i]] = i;
+
+		IntHashSet[] upward = new IntHashSet[_nodes];
+
+		AllEdgesIterator iter = _graph.getAllEdges();
+		while (iter.next())
+			addArc(upward, _ranks[iter.getBaseNode()], _ranks[iter.getAdjNode()]);
+
+		// Eliminating a node turns its upper neighbours into a clique. It is sufficient to connect the lowest 
+		// of them to the remaining ones, the other edges of the clique follow when that neighbour is eliminated.
+		for (int rank = 0; rank < _nodes; rank++)
+		{
+			IntHashSet set = upward[rank];
+			if (set == null || set.size() < 2)
+				continue;
+
+			int[] heads = set.toArray();
+			Arrays.sort(heads);
+
+			for (int i = 1; i < heads.length; i++)
+				addArc(upward, heads[0], heads[i]);
+		}
+
+		_firstArc = new int[_nodes + 1];
+		for (int rank = 0; rank < _nodes; rank++)
+			_firstArc[rank + 1] = _firstArc[rank] + (upward[rank] == null ? 0 : upward[rank].size());
+
+		_arcHeads = new int[_firstArc[_nodes]];
+		for (int rank = 0; rank < _nodes; rank++)
+		{
+			if (upward[rank] == null)
+				continue;
+
+			int[] heads = upward[rank].toArray();
+			Arrays.sort(heads);
+			System.arraycopy(heads, 0, _arcHeads, _firstArc[rank], heads.length);
+			upward[rank] = null;
+		}
+
+		_edgeArcs = new int[iter.getMaxId()];
+		Arrays.fill(_edgeArcs, -1);
+
+		iter = _graph.getAllEdges();
+		while (iter.next())
+		{
+			int rank1 = _ranks[iter.getBaseNode()];
+			int rank2 = _ranks[iter.getAdjNode()];
+			if (rank1 != rank2)
+				_edgeArcs[iter.getEdge()] = findArc(Math.min(rank1, rank2), Math.max(rank1, rank2));
+		}
+	}
+
+	private void addArc(IntHashSet[] upward, int rank1, int rank2)
+	{
+		if (rank1 == rank2)
+			return;
+
+		int lower = Math.min(rank1, rank2);
+		if (upward[lower] == null)
+			upward[lower] = new IntHashSet(4);
+
+		upward[lower].add(Math.max(rank1, rank2));
+	}
+
+	public Graph getGraph()
+	{
+		return _graph;
+	}
+
+	/**
+	 * Returns the number of nodes of the graph at preparation time, nodes with higher ids are virtual.
+	 */
+	public int getNodes()
+	{
+		return _nodes;
+	}
+
+	public int getArcs()
+	{
+		return _arcHeads.length;
+	}
+
+	public int getRank(int nodeId)
+	{
+		return _ranks[nodeId];
+	}
+
+	public int getNodeId(int rank)
+	{
+		return _nodeIds[rank];
+	}
+
+	public int getFirstArc(int rank)
+	{
+		return _firstArc[rank];
+	}
+
+	public int getLastArc(int rank)
+	{
+		return _firstArc[rank + 1];
+	}
+
+	public int getArcHead(int arc)
+	{
+		return _arcHeads[arc];
+	}
+
+	/**
+	 * Returns the arc which represents the given edge or -1 for loops.
+	 */
+	public int getEdgeArc(int edgeId)
+	{
+		return _edgeArcs[edgeId];
+	}
+
+	/**
+	 * Returns the arc between a lower and an upper rank or -1 if both are not adjacent.
+	 */
+	public int findArc(int lower, int upper)
+	{
+		int pos = Arrays.binarySearch(_arcHeads, _firstArc[lower], _firstArc[lower + 1], upper);
+		return pos >= 0 ? pos : -1;
+	}
+
+	public synchronized CCHMetric getMetric(String key)
+	{
+		return _metrics.get(key);
+	}
+
+	/**
+	 * Returns the metric for the given key, customizing it first if it is not cached. A caller asking for a key 
+	 * which is already being customized waits for that customization. Returns null if the maximum number of 
+	 * customizations is already in progress, the caller is expected to use a different algorithm then.
+	 */
+	public CCHMetric customize(final String key, final Weighting weighting, final EdgeFilter edgeFilter)
+	{
+		FutureTask<CCHMetric> task;
+		boolean owner = false;
+
+		synchronized (this) {
+			CCHMetric metric = _metrics.get(key);
+			if (metric != null)
+				return metric;
+
+			task = _pending.get(key);
+			if (task == null)
+			{
+				if (_pending.size() >= _maxPending)
+					return null;
+
+				task = new FutureTask<CCHMetric>(new Callable<CCHMetric>() {
+					@Override
+					public CCHMetric call() {
+						CCHMetric metric = new CCHMetric(CCHPreparation.this);
+						metric.customize(weighting, edgeFilter);
+						return metric;
+					}
+				});
+				_pending.put(key, task);
+				owner = true;
+			}
+		}
+
+		if (owner)
+		{
+			// FutureTask.run does not throw, a failure is reported to every waiting caller by get()
+			task.run();
+
+			synchronized (this) {
+				_pending.remove(key);
+				try {
+					_metrics.put(key, task.get());
+				} catch (InterruptedException | ExecutionException ex) {
+					// nothing to cache, the failure is rethrown below
+				}
+			}
+		}
+
+		return getTaskResult(task);
+	}
+
+	private static CCHMetric getTaskResult(FutureTask<CCHMetric> task)
+	{
+		try {
+			return task.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+}
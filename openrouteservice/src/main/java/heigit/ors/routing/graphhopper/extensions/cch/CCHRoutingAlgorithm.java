@@ -0,0 +1,294 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.cch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.coll.GHIntObjectHashMap;
+import com.graphhopper.routing.AbstractRoutingAlgorithm;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.util.DefaultEdgeFilter;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.SPTEntry;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+
+/*
+ * Bidirectional upward search on a customized CCH. Virtual nodes of a query graph are resolved by a 
+ * small Dijkstra search until the first real nodes are reached, from which the upward searches start.
+ */
+public class CCHRoutingAlgorithm extends AbstractRoutingAlgorithm {
+	private final CCHPreparation _cch;
+	private final CCHMetric _metric;
+	private final int _baseNodes;
+	private IntObjectMap<SPTEntry> _localFrom;
+	private IntObjectMap<SPTEntry> _localTo;
+	private IntObjectMap<SPTEntry> _bestWeightMapFrom;
+	private IntObjectMap<SPTEntry> _bestWeightMapTo;
+	private SPTEntry _currFrom;
+	private SPTEntry _currTo;
+	private double _bestWeight;
+	private int _from;
+	private int _visitedNodes;
+
+	public CCHRoutingAlgorithm(Graph graph, Weighting weighting, CCHMetric metric) {
+		super(graph, weighting, TraversalMode.NODE_BASED);
+
+		_metric = metric;
+		_cch = metric.getPreparation();
+		_baseNodes = _cch.getNodes();
+	}
+
+	@Override
+	public Path calcPath(int from, int to) {
+		checkAlreadyRun();
+
+		_from = from;
+		_bestWeight = Double.POSITIVE_INFINITY;
+		_currFrom = null;
+		_currTo = null;
+
+		_localFrom = searchLocal(from, to, false);
+		_localTo = searchLocal(to, from, true);
+
+		if (from == to)
+		{
+			_bestWeight = 0;
+			_currFrom = _localFrom.get(from);
+			_currTo = null;
+		}
+
+		_bestWeightMapFrom = new GHIntObjectHashMap<SPTEntry>();
+		_bestWeightMapTo = new GHIntObjectHashMap<SPTEntry>();
+		PriorityQueue<SPTEntry> queueFrom = createQueue(_localFrom, _bestWeightMapFrom);
+		PriorityQueue<SPTEntry> queueTo = createQueue(_localTo, _bestWeightMapTo);
+
+		while (!queueFrom.isEmpty() || !queueTo.isEmpty())
+		{
+			if (isMaxVisitedNodesExceeded())
+				break;
+
+			boolean forward = queueTo.isEmpty() || (!queueFrom.isEmpty() && queueFrom.peek().weight <= queueTo.peek().weight);
+			PriorityQueue<SPTEntry> queue = forward ? queueFrom : queueTo;
+			SPTEntry entry = queue.poll();
+
+			if (entry.weight >= _bestWeight)
+			{
+				queue.clear();
+				continue;
+			}
+
+			IntObjectMap<SPTEntry> bestWeightMap = forward ? _bestWeightMapFrom : _bestWeightMapTo;
+			if (bestWeightMap.get(entry.adjNode) != entry)
+				continue;
+
+			_visitedNodes++;
+
+			SPTEntry other = (forward ? _bestWeightMapTo : _bestWeightMapFrom).get(entry.adjNode);
+			if (other != null && entry.weight + other.weight < _bestWeight)
+			{
+				_bestWeight = entry.weight + other.weight;
+				_currFrom = forward ? entry : other;
+				_currTo = forward ? other : entry;
+			}
+
+			int last = _cch.getLastArc(entry.adjNode);
+			for (int arc = _cch.getFirstArc(entry.adjNode); arc < last; arc++)
+			{
+				double weight = entry.weight + (forward ? _metric.getUpWeight(arc) : _metric.getDownWeight(arc));
+				if (Double.isInfinite(weight))
+					continue;
+
+				int head = _cch.getArcHead(arc);
+				SPTEntry ee = bestWeightMap.get(head);
+				if (ee == null || weight < ee.weight)
+				{
+					ee = new SPTEntry(arc, head, weight);
+					ee.parent = entry;
+					bestWeightMap.put(head, ee);
+					queue.add(ee);
+				}
+			}
+		}
+
+		return extractPath();
+	}
+
+	/**
+	 * Explores the virtual part of the query graph around the given node. Real nodes are recorded but not 
+	 * expanded, a direct connection to the other end of the route through virtual edges is recorded as 
+	 * a candidate route.
+	 */
+	private IntObjectMap<SPTEntry> searchLocal(int node, int otherNode, boolean reverse)
+	{
+		IntObjectMap<SPTEntry> map = new GHIntObjectHashMap<SPTEntry>();
+		SPTEntry root = new SPTEntry(EdgeIterator.NO_EDGE, node, 0);
+		map.put(node, root);
+
+		if (node < _baseNodes)
+			return map;
+
+		EdgeExplorer explorer = graph.createEdgeExplorer(new DefaultEdgeFilter(flagEncoder, reverse, !reverse));
+		PriorityQueue<SPTEntry> queue = new PriorityQueue<SPTEntry>();
+		queue.add(root);
+
+		while (!queue.isEmpty())
+		{
+			SPTEntry entry = queue.poll();
+			if (map.get(entry.adjNode) != entry || entry.adjNode < _baseNodes)
+				continue;
+
+			EdgeIterator iter = explorer.setBaseNode(entry.adjNode);
+			while (iter.next())
+			{
+				if (!_metric.isEdgeAccepted(iter.getOriginalEdge()))
+					continue;
+
+				double weight = entry.weight + weighting.calcWeight(iter, reverse, EdgeIterator.NO_EDGE);
+				if (Double.isInfinite(weight))
+					continue;
+
+				int adjNode = iter.getAdjNode();
+				SPTEntry ee = map.get(adjNode);
+				if (ee == null || weight < ee.weight)
+				{
+					ee = new SPTEntry(iter.getEdge(), adjNode, weight);
+					ee.parent = entry;
+					map.put(adjNode, ee);
+					queue.add(ee);
+
+					if (adjNode == otherNode && weight < _bestWeight)
+					{
+						_bestWeight = weight;
+						_currFrom = reverse ? null : ee;
+						_currTo = reverse ? ee : null;
+					}
+				}
+			}
+		}
+
+		return map;
+	}
+
+	private PriorityQueue<SPTEntry> createQueue(IntObjectMap<SPTEntry> localMap, IntObjectMap<SPTEntry> bestWeightMap)
+	{
+		PriorityQueue<SPTEntry> queue = new PriorityQueue<SPTEntry>();
+
+		for (IntObjectCursor<SPTEntry> c : localMap)
+		{
+			if (c.key >= _baseNodes)
+				continue;
+
+			int rank = _cch.getRank(c.key);
+			SPTEntry ee = new SPTEntry(EdgeIterator.NO_EDGE, rank, c.value.weight);
+			bestWeightMap.put(rank, ee);
+			queue.add(ee);
+		}
+
+		return queue;
+	}
+
+	@Override
+	protected boolean finished() {
+		return true;
+	}
+
+	@Override
+	protected Path extractPath() {
+		if (Double.isInfinite(_bestWeight))
+			return createEmptyPath();
+
+		IntArrayList edges = new IntArrayList();
+		IntArrayList nodes = new IntArrayList();
+
+		if (_currFrom != null && _currTo != null)
+		{
+			List<SPTEntry> upEntries = new ArrayList<SPTEntry>();
+			SPTEntry ee = _currFrom;
+			for (; ee.parent != null; ee = ee.parent)
+				upEntries.add(ee);
+
+			appendLocalPath(_localFrom.get(_cch.getNodeId(ee.adjNode)), edges, nodes);
+
+			for (int i = upEntries.size() - 1; i >= 0; i--)
+			{
+				ee = upEntries.get(i);
+				_metric.unpackArc(ee.edge, ee.parent.adjNode, true, edges, nodes);
+			}
+
+			for (ee = _currTo; ee.parent != null; ee = ee.parent)
+				_metric.unpackArc(ee.edge, ee.parent.adjNode, false, edges, nodes);
+
+			appendReversedLocalPath(_localTo.get(_cch.getNodeId(ee.adjNode)), edges, nodes);
+		}
+		else if (_currFrom != null)
+			appendLocalPath(_currFrom, edges, nodes);
+		else
+			appendReversedLocalPath(_currTo, edges, nodes);
+
+		SPTEntry entry = new SPTEntry(EdgeIterator.NO_EDGE, _from, 0);
+		for (int i = 0; i < edges.size(); i++)
+		{
+			SPTEntry next = new SPTEntry(edges.get(i), nodes.get(i), 0);
+			next.parent = entry;
+			entry = next;
+		}
+
+		return new Path(graph, weighting).setWeight(_bestWeight).setSPTEntry(entry).extract();
+	}
+
+	private void appendLocalPath(SPTEntry entry, IntArrayList edges, IntArrayList nodes)
+	{
+		int pos = edges.size();
+
+		for (; entry.parent != null; entry = entry.parent)
+		{
+			edges.insert(pos, entry.edge);
+			nodes.insert(pos, entry.adjNode);
+		}
+	}
+
+	private void appendReversedLocalPath(SPTEntry entry, IntArrayList edges, IntArrayList nodes)
+	{
+		for (; entry.parent != null; entry = entry.parent)
+		{
+			edges.add(entry.edge);
+			nodes.add(entry.parent.adjNode);
+		}
+	}
+
+	@Override
+	public int getVisitedNodes() {
+		return _visitedNodes;
+	}
+
+	@Override
+	public String getName() {
+		return "cch";
+	}
+}
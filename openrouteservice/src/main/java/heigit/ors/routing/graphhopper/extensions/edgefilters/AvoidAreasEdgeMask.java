@@ -0,0 +1,261 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.PointList;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+/*
+ * Resolves which graph edges lie in or cross a set of avoid polygons. Edges whose geometry does not 
+ * overlap the bounding box of the polygons are rejected by a cheap test and not stored. If the mask 
+ * knows the graph, most of these edges are rejected by the position of their tower nodes already, 
+ * without fetching their geometry. The result of the exact geometric test of the remaining edges is 
+ * memorized in two sets of edge ids, so that the memory of a mask depends on the extent of the polygons 
+ * rather than on the size of the graph.
+ * Instances are thread-safe and can be shared by concurrent searches on the same graph.
+ */
+public class AvoidAreasEdgeMask {
+	// upper bound for the number of memorized edges, further edges are tested each time
+	private static final int MAXIMUM_STORED_EDGES = 1 << 20;
+	private static final double METERS_PER_DEGREE = Math.toRadians(DistanceCalcEarth.R);
+
+	private final Polygon[] polys;
+	private final PreparedGeometry[] preparedPolys;
+	private final Envelope env;
+	private final IntHashSet blockedEdges = new IntHashSet();
+	private final IntHashSet freeEdges = new IntHashSet();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final int edgesCount;
+	private final NodeAccess nodeAccess;
+	private final int nodesCount;
+	private final GeometryFactory geomFactory = new GeometryFactory();
+
+	/**
+	 * @param polys areas to avoid
+	 * @param edgesCount number of edges in the base graph; edges with larger ids (e.g. virtual ones) are tested each time. 
+	 *        Pass 0 to disable the mask.
+	 */
+	public AvoidAreasEdgeMask(Polygon[] polys, int edgesCount)
+	{
+		this(polys, edgesCount, null, 0);
+	}
+
+	/**
+	 * Creates a mask for the edges of the given graph, which rejects edges far from the polygons by their tower nodes.
+	 */
+	public AvoidAreasEdgeMask(Polygon[] polys, Graph graph)
+	{
+		this(polys, graph.getAllEdges().getMaxId(), graph.getNodeAccess(), graph.getNodes());
+	}
+
+	private AvoidAreasEdgeMask(Polygon[] polys, int edgesCount, NodeAccess nodeAccess, int nodesCount)
+	{
+		this.polys = polys;
+		this.edgesCount = edgesCount;
+		this.nodeAccess = nodeAccess;
+		this.nodesCount = nodesCount;
+		this.preparedPolys = new PreparedGeometry[polys.length];
+
+		env = new Envelope();
+		for (int i = 0; i < polys.length; i++)
+		{
+			preparedPolys[i] = PreparedGeometryFactory.prepare(polys[i]);
+			env.expandToInclude(polys[i].getEnvelopeInternal());
+		}
+	}
+
+	public Polygon[] getPolygons()
+	{
+		return polys;
+	}
+
+	public boolean isBlocked(EdgeIteratorState iter)
+	{
+		int edgeId = iter.getEdge();
+		boolean stored = edgeId >= 0 && edgeId < edgesCount;
+
+		// most edges of a search are far from the polygons and are rejected before taking the lock
+		if (nodeAccess != null && !canReachEnvelope(iter))
+			return false;
+
+		if (stored)
+		{
+			lock.readLock().lock();
+			try
+			{
+				if (blockedEdges.contains(edgeId))
+					return true;
+				if (freeEdges.contains(edgeId))
+					return false;
+			}
+			finally
+			{
+				lock.readLock().unlock();
+			}
+		}
+
+		PointList pl = iter.fetchWayGeometry(3);
+		if (!overlapsEnvelope(pl))
+			return false;
+
+		boolean blocked = intersects(pl);
+
+		if (stored)
+		{
+			lock.writeLock().lock();
+			try
+			{
+				if (blockedEdges.size() + freeEdges.size() < MAXIMUM_STORED_EDGES)
+				{
+					if (blocked)
+						blockedEdges.add(edgeId);
+					else
+						freeEdges.add(edgeId);
+				}
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+
+		return blocked;
+	}
+
+	/**
+	 * @return the number of edges whose result is memorized.
+	 */
+	public int getStoredEdges()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return blockedEdges.size() + freeEdges.size();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * No point of an edge is farther from its tower nodes than the length of the edge. So if one of them 
+	 * is farther than that from the bounding box of the polygons, the edge can't overlap it.
+	 */
+	private boolean canReachEnvelope(EdgeIteratorState iter)
+	{
+		int baseNode = iter.getBaseNode();
+		int adjNode = iter.getAdjNode();
+		// virtual nodes of a query graph are not known to the node access of the base graph
+		if (baseNode >= nodesCount || adjNode >= nodesCount)
+			return true;
+
+		// some slack for the rounding of the stored distances and coordinates
+		double distance = iter.getDistance() * 1.01 + 1;
+
+		return canReachEnvelope(baseNode, distance) && canReachEnvelope(adjNode, distance);
+	}
+
+	private boolean canReachEnvelope(int node, double distance)
+	{
+		double lat = nodeAccess.getLat(node);
+		double deltaLat = distance / METERS_PER_DEGREE;
+		if (lat + deltaLat < env.getMinY() || lat - deltaLat > env.getMaxY())
+			return false;
+
+		// a degree of longitude is shortest at the latitude farthest from the equator the edge can reach
+		double maxLat = Math.abs(lat) + deltaLat;
+		if (maxLat >= 90)
+			return true;
+
+		double lon = nodeAccess.getLon(node);
+		double deltaLon = deltaLat / Math.cos(Math.toRadians(maxLat));
+
+		return !(lon + deltaLon < env.getMinX() || lon - deltaLon > env.getMaxX());
+	}
+
+	private boolean overlapsEnvelope(PointList pl)
+	{
+		int size = pl.getSize();
+
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+
+		for (int j = 0; j < size; j++)
+		{
+			double x = pl.getLon(j);
+			double y = pl.getLat(j);
+
+			if (x < minX)
+				minX = x;
+			if (y < minY)
+				minY = y;
+			if (x > maxX)
+				maxX = x;
+			if (y > maxY)
+				maxY = y;
+		}
+
+		return !(minX > env.getMaxX() || maxX < env.getMinX() || minY > env.getMaxY() || maxY < env.getMinY());
+	}
+
+	private boolean intersects(PointList pl)
+	{
+		int size = pl.getSize();
+		if (size < 2)
+			return true;
+
+		Coordinate[] coords = new Coordinate[size];
+		for (int j = 0; j < size; j++)
+			coords[j] = new Coordinate(pl.getLon(j), pl.getLat(j));
+
+		LineString ls = geomFactory.createLineString(coords);
+
+		for (int i = 0; i < polys.length; i++)
+		{
+			PreparedGeometry prepPoly = preparedPolys[i];
+
+			if (prepPoly.containsProperly(ls))
+				return true;
+
+			if (prepPoly.intersects(ls) && (polys[i].contains(ls) || ls.crosses(polys[i])))
+				return true;
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.graphhopper.storage.Graph;
+import com.vividsolutions.jts.geom.Polygon;
+
+/*
+ * Keeps the edge masks of recently requested avoid areas, so that repeated requests with 
+ * identical polygons reuse the edges resolved by previous searches. As a mask only stores the
+ * edges close to its polygons, the memory of the cache does not depend on the size of the graph. 
+ * The cache is bound to one graph and has to be dropped when the graph is replaced.
+ */
+public class AvoidAreasEdgeMaskCache {
+	private final Graph graph;
+	private final Map<String, AvoidAreasEdgeMask> masks;
+
+	public AvoidAreasEdgeMaskCache(Graph graph, final int capacity)
+	{
+		this.graph = graph;
+		this.masks = new LinkedHashMap<String, AvoidAreasEdgeMask>(capacity + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, AvoidAreasEdgeMask> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public synchronized AvoidAreasEdgeMask getMask(Polygon[] polys)
+	{
+		String key = createKey(polys);
+		AvoidAreasEdgeMask mask = masks.get(key);
+
+		if (mask == null)
+		{
+			mask = new AvoidAreasEdgeMask(polys, graph);
+			masks.put(key, mask);
+		}
+
+		return mask;
+	}
+
+	private String createKey(Polygon[] polys)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < polys.length; i++)
+		{
+			if (i > 0)
+				sb.append(';');
+			sb.append(polys[i].toText());
+		}
+
+		return sb.toString();
+	}
+}
@@ -30,7 +30,7 @@ import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.pathprocessors.BordersExtractor;
 import org.apache.log4j.Logger;
 
-public class AvoidBordersEdgeFilter implements EdgeFilter {
+public class AvoidBordersEdgeFilter implements EdgeRestrictionFilter {
     private static Logger LOGGER = Logger.getLogger(AvoidFeaturesEdgeFilter.class);
 
     private final boolean _in;
@@ -103,36 +103,38 @@ public class AvoidBordersEdgeFilter implements EdgeFilter {
      */
     @Override
     public final boolean accept(EdgeIteratorState iter) {
+        if (_out && iter.isForward(_encoder) || _in && iter.isBackward(_encoder))
+            return acceptRestrictions(iter);
 
-        if (_out && iter.isForward(_encoder) || _in && iter.isBackward(_encoder)) {
-
-            if (_avoidBorders != BordersExtractor.Avoid.NONE) {
-                // We have been told to avoid some form of border
-                switch(_avoidBorders) {
-                    case ALL:
-                        if(_bordersExtractor.isBorder(iter.getEdge())) {
-                            // It is a border, and we want to avoid all borders
-                            return false;
-                        }
-                    case CONTROLLED:
-                        if(_bordersExtractor.isControlledBorder(iter.getEdge())) {
-                            // We want to only avoid controlled borders
-                            return false;
-                        }
-                        break;
-                }
-            }
+        return false;
+    }
 
-            if(_avoidCountries) {
-                if(_bordersExtractor.restrictedCountry(iter.getEdge())) {
-                       return false;
-                }
+    @Override
+    public boolean acceptRestrictions(EdgeIteratorState iter) {
+        if (_avoidBorders != BordersExtractor.Avoid.NONE) {
+            // We have been told to avoid some form of border
+            switch(_avoidBorders) {
+                case ALL:
+                    if(_bordersExtractor.isBorder(iter.getEdge())) {
+                        // It is a border, and we want to avoid all borders
+                        return false;
+                    }
+                case CONTROLLED:
+                    if(_bordersExtractor.isControlledBorder(iter.getEdge())) {
+                        // We want to only avoid controlled borders
+                        return false;
+                    }
+                    break;
             }
+        }
 
-            return true;
+        if(_avoidCountries) {
+            if(_bordersExtractor.restrictedCountry(iter.getEdge())) {
+                   return false;
+            }
         }
 
-        return false;
+        return true;
     }
 
 }
@@ -34,16 +34,18 @@ import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import org.apache.log4j.Logger;
 
-public class AvoidFeaturesEdgeFilter implements EdgeFilter {
+public class AvoidFeaturesEdgeFilter implements EdgeRestrictionFilter {
 	private static Logger LOGGER = Logger.getLogger(AvoidFeaturesEdgeFilter.class);
 	private final boolean _in;
 	private final boolean _out;
 	protected final FlagEncoder _encoder;
-	private byte[] _buffer;
 	private WayCategoryGraphStorage _extWayCategory;
 	private TollwayExtractor _tollwayExtractor;
 	private int _avoidFeatureType;
 	private int _profileCategory;
+	// way categories that make an edge unacceptable, combined into a single mask
+	private int _avoidFeaturesMask;
+	private int _tollwaysMask;
 
 	private static final int HIGHWAYS = AvoidFeatureFlags.Highways;
 	private static final int TOLLWAYS = AvoidFeatureFlags.Tollways;
@@ -68,7 +70,6 @@ public class AvoidFeaturesEdgeFilter implements EdgeFilter {
 
 		this._encoder = encoder;
 		this._avoidFeatureType = searchParams.getAvoidFeatureTypes();
-		this._buffer = new byte[10];
 
 		_profileCategory = RoutingProfileCategory.getFromRouteProfile(RoutingProfileType.getFromEncoderName(encoder.toString()));
 
@@ -76,150 +77,57 @@ public class AvoidFeaturesEdgeFilter implements EdgeFilter {
 		TollwaysGraphStorage extTollways = GraphStorageUtils.getGraphExtension(graphStorage, TollwaysGraphStorage.class);
 		if (extTollways != null)
 			_tollwayExtractor = new TollwayExtractor(extTollways, searchParams.getVehicleType(), searchParams.getProfileParameters());
+
+		int profileFeatures = 0;
+		switch (_profileCategory)
+		{
+		case RoutingProfileCategory.DRIVING:
+			profileFeatures = HIGHWAYS | FERRIES | UNPAVEDROADS | TRACKS | TUNNELS | BRIDGES | BORDERS | FORDS;
+			if (_tollwayExtractor != null)
+			{
+				profileFeatures |= TOLLWAYS;
+				_tollwaysMask = TOLLWAYS;
+			}
+			break;
+		case RoutingProfileCategory.CYCLING:
+			profileFeatures = FERRIES | UNPAVEDROADS | PAVEDROADS | STEPS | FORDS;
+			break;
+		case RoutingProfileCategory.WALKING:
+			profileFeatures = FERRIES | STEPS | FORDS;
+			break;
+		case RoutingProfileCategory.WHEELCHAIR:
+			profileFeatures = FERRIES;
+			break;
+		}
+
+		if (_extWayCategory != null)
+			_avoidFeaturesMask = _avoidFeatureType & profileFeatures;
 	}
 
 	@Override
 	public final boolean accept(EdgeIteratorState iter) {
+		if (_out && iter.isForward(_encoder) || _in && iter.isBackward(_encoder))
+			return acceptRestrictions(iter);
 
-		if (_out && iter.isForward(_encoder) || _in && iter.isBackward(_encoder)) {
-			if (_avoidFeatureType != 0) {
-				int edgeFeatType = 0;
-				if (_extWayCategory != null) {
-					edgeFeatType = _extWayCategory.getEdgeValue(iter.getEdge(), _buffer);
-
-					if (edgeFeatType > 0) {
-
-						if (_profileCategory == RoutingProfileCategory.DRIVING)
-						{
-
-							if ((_avoidFeatureType & HIGHWAYS) == HIGHWAYS) {
-								if ((edgeFeatType & HIGHWAYS) == HIGHWAYS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & TOLLWAYS) == TOLLWAYS) {
-								if ((edgeFeatType & TOLLWAYS) == TOLLWAYS) {
-									if (_tollwayExtractor != null)
-									{
-										int value = _tollwayExtractor.getValue(iter.getEdge());
-										if (value != 0)
-											return false;
-									}
-								}
-							}
-
-							if ((_avoidFeatureType & FERRIES) == FERRIES) {
-								if ((edgeFeatType & FERRIES) == FERRIES) {
-									return false;
-								}
-							} 
-
-							if ((_avoidFeatureType & UNPAVEDROADS) == UNPAVEDROADS) {
-								if ((edgeFeatType & UNPAVEDROADS) == UNPAVEDROADS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & TRACKS) == TRACKS) {
-								if ((edgeFeatType & TRACKS) == TRACKS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & TUNNELS) == TUNNELS) {
-								if ((edgeFeatType & TUNNELS) == TUNNELS) {
-									return false;
-								}
-							} 
-
-							if ((_avoidFeatureType & BRIDGES) == BRIDGES) {
-								if ((edgeFeatType & BRIDGES) == BRIDGES) {
-									return false;
-								}
-							}
-
-                            if ((_avoidFeatureType & BORDERS) == BORDERS) {
-                                if ((edgeFeatType & BORDERS) == BORDERS) {
-                                    return false;
-                                }
-                            }
-
-                            if ((_avoidFeatureType & FORDS) == FORDS) {
-								if ((edgeFeatType & FORDS) == FORDS) {
-									return false;
-								}
-							}
-						}
-						else if (_profileCategory == RoutingProfileCategory.CYCLING)
-						{
-							if ((_avoidFeatureType & FERRIES) == FERRIES) {
-								if ((edgeFeatType & FERRIES) == FERRIES) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & UNPAVEDROADS) == UNPAVEDROADS) {
-								if ((edgeFeatType & UNPAVEDROADS) == UNPAVEDROADS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & PAVEDROADS) == PAVEDROADS) {
-								if ((edgeFeatType & PAVEDROADS) == PAVEDROADS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & STEPS) == STEPS) {
-								if ((edgeFeatType & STEPS) == STEPS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & FORDS) == FORDS) {
-								if ((edgeFeatType & FORDS) == FORDS) {
-									return false;
-								}
-							}
-						}
-						else if (_profileCategory == RoutingProfileCategory.WALKING)
-						{
-							if ((_avoidFeatureType & FERRIES) == FERRIES) {
-								if ((edgeFeatType & FERRIES) == FERRIES) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & STEPS) == STEPS) {
-								if ((edgeFeatType & STEPS) == STEPS) {
-									return false;
-								}
-							}
-
-							if ((_avoidFeatureType & FORDS) == FORDS) {
-								if ((edgeFeatType & FORDS) == FORDS) {
-									return false;
-								}
-							}
-						}
-						else if (_profileCategory == RoutingProfileCategory.WHEELCHAIR)
-						{
-							if ((_avoidFeatureType & FERRIES) == FERRIES) {
-								if ((edgeFeatType & FERRIES) == FERRIES) {
-									return false;
-								}
-							}
-						}
-						
-					}
-				}
-			}
+		return false;
+	}
+
+	@Override
+	public boolean acceptRestrictions(EdgeIteratorState iter) {
+		if (_avoidFeaturesMask != 0) {
+			int edgeFeatType = _extWayCategory.getEdgeValue(iter.getEdge());
 
-			return true;
+			if ((edgeFeatType & _avoidFeaturesMask) != 0) {
+				if ((edgeFeatType & _avoidFeaturesMask & ~_tollwaysMask) != 0)
+					return false;
+
+				// tollways are avoided only if they are tolled for the given vehicle
+				if (_tollwayExtractor.getValue(iter.getEdge()) != 0)
+					return false;
+			}
 		}
 
-		return false;
+		return true;
 	}
 
 	@Override
@@ -27,14 +27,14 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 
-public class AvoidSteepnessEdgeFilter implements EdgeFilter {
+public class AvoidSteepnessEdgeFilter implements EdgeRestrictionFilter {
 
 	private final boolean in;
 	private final boolean out;
 	protected final FlagEncoder encoder;
-	private byte[] buffer;
     private double maximumSteepness;
     private HillIndexGraphStorage gsHillIndex;
+    private PackedEdgeAttributesGraphStorage gsPackedAttributes;
     
 	public AvoidSteepnessEdgeFilter(FlagEncoder encoder, GraphStorage graphStorage, double maxSteepness) {
 		this(encoder, true, true, graphStorage, maxSteepness);
@@ -46,31 +46,35 @@ public class AvoidSteepnessEdgeFilter implements EdgeFilter {
 
 		this.encoder = encoder;
 		this.maximumSteepness = maxSteepness;
-        this.buffer = new byte[1];
         
-        gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        gsPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX);
+        if (gsPackedAttributes == null)
+        	gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
 	}
 
 	@Override
 	public final boolean accept(EdgeIteratorState iter) {
+		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder))
+			return acceptRestrictions(iter);
 
-		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder)) {
-			
-			if (gsHillIndex != null)
-	    	{
-	    		boolean revert = iter.getBaseNode() < iter.getAdjNode();
-	    		int hillIndex = gsHillIndex.getEdgeValue(iter.getOriginalEdge(), revert, buffer);
-	    		
-	    		if (hillIndex > maximumSteepness)
-	    			return false;
-	    	}
-			
-			return true;
-		}
-		
 		return false;
 	}
 
+	@Override
+	public boolean acceptRestrictions(EdgeIteratorState iter) {
+		if (gsPackedAttributes != null || gsHillIndex != null)
+		{
+			boolean revert = iter.getBaseNode() < iter.getAdjNode();
+			int hillIndex = gsPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getHillIndex(gsPackedAttributes.getSoftAttributes(iter.getOriginalEdge()), revert) 
+					: gsHillIndex.getEdgeValue(iter.getOriginalEdge(), revert);
+
+			if (hillIndex > maximumSteepness)
+				return false;
+		}
+
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return "AVOIDSTEEPNESS|" + encoder;
@@ -28,7 +28,7 @@ import com.graphhopper.util.EdgeIteratorState;
 
 import heigit.ors.routing.graphhopper.extensions.flagencoders.HeavyVehicleFlagEncoder;
 
-public class BlockedEdgesEdgeFilter implements EdgeFilter {
+public class BlockedEdgesEdgeFilter implements EdgeRestrictionFilter {
 
 	private final boolean in;
 	private final boolean out;
@@ -58,27 +58,30 @@ public class BlockedEdgesEdgeFilter implements EdgeFilter {
 	}
 
 	@Override
-	public boolean accept(EdgeIteratorState iter) {
-		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder)) {
-            if (blockedEdges != null)
-            {
-            	if (blockedEdges.contains(iter.getOriginalEdge()))
-            		return false;
-            }
-            
-            if ((blockedEdges_hv.size()!=0) && ( encoder instanceof HeavyVehicleFlagEncoder))
-            {
-         
-            	if (blockedEdges_hv.contains(iter.getOriginalEdge()))
-            		return false;
-            }
-            
-            return true;
-		}
+	public final boolean accept(EdgeIteratorState iter) {
+		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder))
+			return acceptRestrictions(iter);
 
 		return false;
 	}
 
+	@Override
+	public boolean acceptRestrictions(EdgeIteratorState iter) {
+		if (blockedEdges != null)
+		{
+			if (blockedEdges.contains(iter.getOriginalEdge()))
+				return false;
+		}
+
+		if ((blockedEdges_hv.size()!=0) && ( encoder instanceof HeavyVehicleFlagEncoder))
+		{
+			if (blockedEdges_hv.contains(iter.getOriginalEdge()))
+				return false;
+		}
+
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return encoder.toString() + ", in:" + in + ", out:" + out;
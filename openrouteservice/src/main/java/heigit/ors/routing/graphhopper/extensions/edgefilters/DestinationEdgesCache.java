@@ -0,0 +1,63 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.carrotsearch.hppc.IntHashSet;
+
+/*
+ * Keeps the sets of destination-only edges which are reachable from a destination edge for 
+ * a given vehicle type, so that repeated requests to the same destination don't have to 
+ * explore the restricted area again. The cache is bound to one graph and has to be dropped 
+ * when the graph is replaced.
+ */
+public class DestinationEdgesCache {
+	private final Map<Long, IntHashSet> _entries;
+
+	public DestinationEdgesCache(final int capacity)
+	{
+		_entries = new LinkedHashMap<Long, IntHashSet>(capacity + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, IntHashSet> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public synchronized IntHashSet get(int edgeId, int vehicleType)
+	{
+		return _entries.get(createKey(edgeId, vehicleType));
+	}
+
+	public synchronized void put(int edgeId, int vehicleType, IntHashSet edges)
+	{
+		_entries.put(createKey(edgeId, vehicleType), edges);
+	}
+
+	private static long createKey(int edgeId, int vehicleType)
+	{
+		return ((long)edgeId << 32) | (vehicleType & 0xFFFFFFFFL);
+	}
+}
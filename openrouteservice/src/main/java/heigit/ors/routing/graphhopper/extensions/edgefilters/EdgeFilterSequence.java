@@ -23,11 +23,13 @@ package heigit.ors.routing.graphhopper.extensions.edgefilters;
 import java.util.ArrayList;
 
 import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.util.EdgeIteratorState;
 
 public class EdgeFilterSequence implements EdgeFilter {
 
 	private ArrayList<EdgeFilter> edgeFilters;
+	private EdgeFilter[] filters;
 	private int filtersCount;
 
 	/**
@@ -36,13 +38,23 @@ public class EdgeFilterSequence implements EdgeFilter {
 	 */
 	public EdgeFilterSequence(ArrayList<EdgeFilter> edgeFilters) {
 		this.edgeFilters = edgeFilters;
-		this.filtersCount = edgeFilters.size();
+		this.filters = edgeFilters.toArray(new EdgeFilter[edgeFilters.size()]);
+		this.filtersCount = filters.length;
 	}
 
 	public void addFilter(EdgeFilter e) {
 		edgeFilters.add(e);
+		filters = edgeFilters.toArray(new EdgeFilter[edgeFilters.size()]);
 		filtersCount++;
 	}
+
+	/**
+	 * Creates a filter which checks the access flags of an edge only once for all filters 
+	 * of this sequence. All filters must have been created for both directions of the given encoder.
+	 */
+	public EdgeFilter fuse(FlagEncoder encoder) {
+		return new FusedEdgeFilter(encoder, edgeFilters);
+	}
 	
 	public EdgeFilter getEdgeFilter(Class<?> type)
 	{
@@ -67,7 +79,7 @@ public class EdgeFilterSequence implements EdgeFilter {
 	@Override
 	public final boolean accept(EdgeIteratorState iter) {
 		for (int i = 0; i < filtersCount; i++) {
-			if (!edgeFilters.get(i).accept(iter))
+			if (!filters[i].accept(iter))
 				return false;
 		}
 
@@ -0,0 +1,37 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.util.EdgeIteratorState;
+
+/*
+ * An edge filter whose restriction can be evaluated separately from the access check of its 
+ * flag encoder. This allows a sequence of filters created for the same encoder to check the 
+ * access flags of an edge only once (see {@link FusedEdgeFilter}).
+ */
+public interface EdgeRestrictionFilter extends EdgeFilter {
+	/**
+	 * Evaluates only the restriction of this filter, assuming that the edge is accessible 
+	 * for the encoder of the filter.
+	 */
+	boolean acceptRestrictions(EdgeIteratorState iter);
+}
@@ -32,7 +32,7 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 
-public class EmergencyVehicleEdgeFilter implements EdgeFilter {
+public class EmergencyVehicleEdgeFilter implements EdgeRestrictionFilter {
 
 	private EmergencyVehicleAttributesGraphStorage gsAttributes;
 	private final boolean in;
@@ -87,53 +87,57 @@ public class EmergencyVehicleEdgeFilter implements EdgeFilter {
 	}
 
 	@Override
-	public boolean accept(EdgeIteratorState iter) {
-		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder)) {
-			int edgeId = iter.getOriginalEdge();
-
-			if (restCount != 0 && gsAttributes != null) {
-				if (restCount == 1) {
-					double value = gsAttributes.getEdgeRestrictionValue(edgeId, indexValues[0], buffer);
-					if (value > 0 && value < restrictionValues[0])
+	public final boolean accept(EdgeIteratorState iter) {
+		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder))
+			return acceptRestrictions(iter);
+
+		return false;
+	}
+
+	@Override
+	public boolean acceptRestrictions(EdgeIteratorState iter) {
+		int edgeId = iter.getOriginalEdge();
+
+		if (restCount != 0 && gsAttributes != null) {
+			if (restCount == 1) {
+				double value = gsAttributes.getEdgeRestrictionValue(edgeId, indexValues[0], buffer);
+				if (value > 0 && value < restrictionValues[0])
+					return false;
+				else
+					return true;
+			} else {
+				if (gsAttributes.getEdgeRestrictionValues(edgeId, buffer, retValues))
+				{
+					double value = retValues[0];
+					if (value > 0.0f && value < restrictionValues[0])
+						return false;
+
+					value = retValues[1];
+					if (value > 0.0f && value < restrictionValues[1])
 						return false;
-					else
-						return true;
-				} else {
-					if (gsAttributes.getEdgeRestrictionValues(edgeId, buffer, retValues))
-					{
-						double value = retValues[0];
-						if (value > 0.0f && value < restrictionValues[0])
+
+					if (restCount >= 3) {
+						value = retValues[2];
+						if (value > 0.0f && value < restrictionValues[2])
 							return false;
+					}
 
-						value = retValues[1];
-						if (value > 0.0f && value < restrictionValues[1])
+					if (restCount >= 4) {
+						value = retValues[3];
+						if (value > 0.0f && value < restrictionValues[3])
 							return false;
+					}
 
-						if (restCount >= 3) {
-							value = retValues[2];
-							if (value > 0.0f && value < restrictionValues[2])
-								return false;
-						}
-
-						if (restCount >= 4) {
-							value = retValues[3];
-							if (value > 0.0f && value < restrictionValues[3])
-								return false;
-						}
-
-						if (restCount == 5) {
-							value = retValues[4];
-							if (value > 0.0f && value < restrictionValues[4])
-								return false;
-						}
+					if (restCount == 5) {
+						value = retValues[4];
+						if (value > 0.0f && value < restrictionValues[4])
+							return false;
 					}
 				}
 			}
-			
-			return true;
 		}
 		
-		return false;
+		return true;
 	}
 
 	@Override
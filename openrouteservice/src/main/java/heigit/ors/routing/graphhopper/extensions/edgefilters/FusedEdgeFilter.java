@@ -0,0 +1,92 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.graphhopper.routing.util.DefaultEdgeFilter;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.util.EdgeIteratorState;
+
+/*
+ * Combines a sequence of edge filters created for both directions of the same flag encoder 
+ * into a single filter. The access flags of an edge are checked once with a single mask test 
+ * on the flags of the encoder, then the restrictions of all {@link EdgeRestrictionFilter}s are 
+ * evaluated, followed by the remaining filters.
+ */
+public class FusedEdgeFilter implements EdgeFilter {
+	private final FlagEncoder encoder;
+	private final int encoderIndex;
+	// the forward and backward access bits of the encoder
+	private final long accessFlags;
+	private final EdgeRestrictionFilter[] restrictionFilters;
+	private final EdgeFilter[] edgeFilters;
+	private final int restrictionsCount;
+	private final int filtersCount;
+
+	public FusedEdgeFilter(FlagEncoder encoder, List<EdgeFilter> filters)
+	{
+		this.encoder = encoder;
+		this.encoderIndex = encoder.getIndex();
+		this.accessFlags = encoder.setAccess(0, true, true);
+
+		List<EdgeRestrictionFilter> restrictions = new ArrayList<EdgeRestrictionFilter>(filters.size());
+		List<EdgeFilter> others = new ArrayList<EdgeFilter>(filters.size());
+
+		for (EdgeFilter filter : filters)
+		{
+			if (filter instanceof EdgeRestrictionFilter)
+				restrictions.add((EdgeRestrictionFilter)filter);
+			else if (!(filter instanceof DefaultEdgeFilter))
+				others.add(filter);
+		}
+
+		restrictionFilters = restrictions.toArray(new EdgeRestrictionFilter[restrictions.size()]);
+		edgeFilters = others.toArray(new EdgeFilter[others.size()]);
+		restrictionsCount = restrictionFilters.length;
+		filtersCount = edgeFilters.length;
+	}
+
+	@Override
+	public final boolean accept(EdgeIteratorState iter) {
+		if ((iter.getFlags(encoderIndex) & accessFlags) == 0)
+			return false;
+
+		for (int i = 0; i < restrictionsCount; i++) {
+			if (!restrictionFilters[i].acceptRestrictions(iter))
+				return false;
+		}
+
+		for (int i = 0; i < filtersCount; i++) {
+			if (!edgeFilters[i].accept(iter))
+				return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "FusedEdgeFilter|" + encoder + ":" + restrictionsCount + "+" + filtersCount;
+	}
+}
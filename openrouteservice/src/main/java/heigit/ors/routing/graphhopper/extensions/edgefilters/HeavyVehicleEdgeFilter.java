@@ -21,7 +21,6 @@
 package heigit.ors.routing.graphhopper.extensions.edgefilters;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import heigit.ors.routing.parameters.VehicleParameters;
 import heigit.ors.routing.graphhopper.extensions.HeavyVehicleAttributes;
@@ -31,11 +30,11 @@ import heigit.ors.routing.graphhopper.extensions.flagencoders.HeavyVehicleFlagEn
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.storages.HeavyVehicleAttributesGraphStorage;
 
+import com.carrotsearch.hppc.IntHashSet;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.graphhopper.routing.Dijkstra;
 import com.graphhopper.routing.util.DestinationDependentEdgeFilter;
-import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.TraversalMode;
@@ -43,6 +42,7 @@ import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.SPTEntry;
 import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.GraphStorage;
+import com.graphhopper.util.EdgeIterator;
 import com.graphhopper.util.EdgeIteratorState;
 
 public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
@@ -73,17 +73,25 @@ public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
 	private Integer[] indexLocs;
 	private int restCount;
 	private int mode = MODE_CLOSEST_EDGE;
-	private	List<Integer> destinationEdges;
+	private IntHashSet destinationEdges;
+	private DestinationEdgesCache destinationEdgesCache;
 	private byte[] buffer;
 
 	private static final int MODE_DESTINATION_EDGES = -1;
 	private static final int MODE_CLOSEST_EDGE = -2;
 	private static final int MODE_ROUTE = 0;
+	// upper bound for the exploration of destination-only areas
+	private static final int MAX_DESTINATION_SEARCH_NODES = 100000;
 
 	public HeavyVehicleEdgeFilter(FlagEncoder encoder, int vehicleType, VehicleParameters vehicleParams, GraphStorage graphStorage) {
 		this(encoder, true, true, vehicleType, vehicleParams, graphStorage);
 	}
 
+	public HeavyVehicleEdgeFilter(FlagEncoder encoder, int vehicleType, VehicleParameters vehicleParams, GraphStorage graphStorage, DestinationEdgesCache destinationEdgesCache) {
+		this(encoder, true, true, vehicleType, vehicleParams, graphStorage);
+		this.destinationEdgesCache = destinationEdgesCache;
+	}
+
 	/**
 	 * Creates an edges filter which accepts both direction of the specified
 	 * vehicle.
@@ -138,39 +146,58 @@ public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
 	{
 		if (edge != null)
 		{
-			int nodeId = edge.getBaseNode();
-			if (nodeId != -1)
+			int edgeId = edge.getOriginalEdge();
+			IntHashSet edges = destinationEdgesCache != null ? destinationEdgesCache.get(edgeId, vehicleType) : null;
+
+			if (edges == null)
 			{
-				mode = MODE_DESTINATION_EDGES;
-				Weighting weighting = new FastestWeighting(encoder);
-				CustomDijkstra dijkstraAlg = new CustomDijkstra(graph, encoder, weighting, tMode);
-				EdgeFilter edgeFilter = this;
-				dijkstraAlg.setEdgeFilter(edgeFilter);
-				dijkstraAlg.calcPath(nodeId, Integer.MIN_VALUE);
-
-				IntObjectMap<SPTEntry> destination = dijkstraAlg.getMap();
-
-				destinationEdges = new ArrayList<Integer>(destination.size());
-				for (IntObjectCursor<SPTEntry> ee : destination) {
-					if (!destinationEdges.contains(ee.value.edge)) // was originalEdge
-						destinationEdges.add(ee.value.edge);
-				}
+				edges = findDestinationEdges(edgeId, graph.getBaseGraph(), encoder, tMode);
 
-				if (!destinationEdges.contains(edge.getOriginalEdge()))
-				{
-					int vt = gsHeavyVehicles.getEdgeVehicleType(edge.getOriginalEdge(), buffer);
-					boolean dstFlag = buffer[1]!=0;// ((buffer[1] >> (vehicleType >> 1)) & 1) == 1;
+				if (destinationEdgesCache != null)
+					destinationEdgesCache.put(edgeId, vehicleType, edges);
+			}
 
-					if (((vt & vehicleType) == vehicleType) && (dstFlag))
-						destinationEdges.add(edge.getOriginalEdge());
-				}
+			destinationEdges = edges.isEmpty() ? null : edges;
+		}
+
+		mode = MODE_ROUTE;
+	}
+
+	/**
+	 * Collects the destination-only edges around the given edge. The search is restricted to edges with 
+	 * destination access for the vehicle type (see MODE_DESTINATION_EDGES in accept) and runs on the base 
+	 * graph, so that the result does not depend on the virtual edges of a particular query.
+	 */
+	private IntHashSet findDestinationEdges(int edgeId, Graph graph, FlagEncoder encoder, TraversalMode tMode)
+	{
+		IntHashSet edges = new IntHashSet();
 
-				if (destinationEdges.size() == 0)
-					destinationEdges = null;
+		int nodeId = graph.getEdgeIteratorState(edgeId, Integer.MIN_VALUE).getBaseNode();
+		if (nodeId != -1)
+		{
+			mode = MODE_DESTINATION_EDGES;
+			Weighting weighting = new FastestWeighting(encoder);
+			CustomDijkstra dijkstraAlg = new CustomDijkstra(graph, encoder, weighting, tMode);
+			dijkstraAlg.setEdgeFilter(this);
+			dijkstraAlg.setMaxVisitedNodes(MAX_DESTINATION_SEARCH_NODES);
+			dijkstraAlg.calcPath(nodeId, Integer.MIN_VALUE);
+
+			for (IntObjectCursor<SPTEntry> ee : dijkstraAlg.getMap()) {
+				if (ee.value.edge != EdgeIterator.NO_EDGE)
+					edges.add(ee.value.edge);
+			}
+
+			if (!edges.contains(edgeId))
+			{
+				int vt = gsHeavyVehicles.getEdgeVehicleType(edgeId, buffer);
+				boolean dstFlag = buffer[1]!=0;// ((buffer[1] >> (vehicleType >> 1)) & 1) == 1;
+
+				if (((vt & vehicleType) == vehicleType) && (dstFlag))
+					edges.add(edgeId);
 			}
 		}
 
-		mode = MODE_ROUTE;
+		return edges;
 	}
 
 	@Override
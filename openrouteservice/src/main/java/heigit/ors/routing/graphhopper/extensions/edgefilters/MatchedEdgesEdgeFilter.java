@@ -0,0 +1,46 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import com.carrotsearch.hppc.IntHashSet;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.util.EdgeIteratorState;
+
+/*
+ * Restricts a search to the edges of a path found by map matching, so that the route along the matched 
+ * positions follows the matched edges. Virtual edges are accepted if they are part of a matched edge.
+ */
+public class MatchedEdgesEdgeFilter implements EdgeFilter {
+	private final EdgeFilter edgeFilter;
+	private final IntHashSet edges;
+
+	public MatchedEdgesEdgeFilter(EdgeFilter edgeFilter, IntHashSet edges)
+	{
+		this.edgeFilter = edgeFilter;
+		this.edges = edges;
+	}
+
+	@Override
+	public boolean accept(EdgeIteratorState iter)
+	{
+		return edges.contains(iter.getOriginalEdge()) && (edgeFilter == null || edgeFilter.accept(iter));
+	}
+}
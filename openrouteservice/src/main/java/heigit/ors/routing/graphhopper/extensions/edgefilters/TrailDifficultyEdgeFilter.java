@@ -28,9 +28,10 @@ import com.graphhopper.util.EdgeIteratorState;
 import heigit.ors.routing.RoutingProfileType;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 import heigit.ors.routing.graphhopper.extensions.storages.TrailDifficultyScaleGraphStorage;
 
-public class TrailDifficultyEdgeFilter implements EdgeFilter {
+public class TrailDifficultyEdgeFilter implements EdgeRestrictionFilter {
 
 	private final boolean _in;
 	private final boolean _out;
@@ -38,7 +39,7 @@ public class TrailDifficultyEdgeFilter implements EdgeFilter {
 	private boolean _isHiking = true;
 	private TrailDifficultyScaleGraphStorage _extTrailDifficulty;
 	private HillIndexGraphStorage _extHillIndex;
-	private byte[] _buffer = new byte[2];
+	private PackedEdgeAttributesGraphStorage _extPackedAttributes;
 	private int _maximumScale = 10;
 
 	public TrailDifficultyEdgeFilter(FlagEncoder encoder, GraphStorage graphStorage, int maximumScale)
@@ -57,41 +58,66 @@ public class TrailDifficultyEdgeFilter implements EdgeFilter {
 		int routePref = RoutingProfileType.getFromEncoderName(encoder.toString());
 		_isHiking = RoutingProfileType.isWalking(routePref);
 
-		_extTrailDifficulty = GraphStorageUtils.getGraphExtension(graphStorage, TrailDifficultyScaleGraphStorage.class);
-		_extHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+		_extPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_TRAIL_DIFFICULTY 
+				| (_isHiking ? 0 : PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX));
+		if (_extPackedAttributes == null)
+		{
+			_extTrailDifficulty = GraphStorageUtils.getGraphExtension(graphStorage, TrailDifficultyScaleGraphStorage.class);
+			_extHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+		}
 	}
 
 	@Override
 	public final boolean accept(EdgeIteratorState iter )
 	{
 		if (_out && iter.isForward(_encoder) || _in && iter.isBackward(_encoder))
+			return acceptRestrictions(iter);
+
+		return false;
+	}
+
+	@Override
+	public boolean acceptRestrictions(EdgeIteratorState iter)
+	{
+		if (_extPackedAttributes != null)
 		{
+			int edgeId = iter.getOriginalEdge();
+			int value;
 			if (_isHiking)
-			{
-				int value = _extTrailDifficulty.getHikingScale(iter.getOriginalEdge(), _buffer);
-				if (value > _maximumScale)
-					return false;
-			} 
+				value = PackedEdgeAttributesGraphStorage.getHikingScale(_extPackedAttributes.getWayAttributes(edgeId));
 			else
 			{
-				boolean uphill = false;
-				if (_extHillIndex != null)
-				{
-					boolean revert = iter.getBaseNode() < iter.getAdjNode();
-					int hillIndex = _extHillIndex.getEdgeValue(iter.getOriginalEdge(), revert, _buffer);
-					if (hillIndex > 0)
-						uphill = true;
-				}
-				
-				int value = _extTrailDifficulty.getMtbScale(iter.getOriginalEdge(), _buffer, uphill);
-				if (value > _maximumScale)
-					return false;				
+				boolean revert = iter.getBaseNode() < iter.getAdjNode();
+				boolean uphill = PackedEdgeAttributesGraphStorage.getHillIndex(_extPackedAttributes.getSoftAttributes(edgeId), revert) > 0;
+				value = PackedEdgeAttributesGraphStorage.getMtbScale(_extPackedAttributes.getWayAttributes(edgeId), uphill);
 			}
 
-			return true;
+			return value <= _maximumScale;
 		}
 
-		return false;
+		if (_isHiking)
+		{
+			int value = _extTrailDifficulty.getHikingScale(iter.getOriginalEdge());
+			if (value > _maximumScale)
+				return false;
+		} 
+		else
+		{
+			boolean uphill = false;
+			if (_extHillIndex != null)
+			{
+				boolean revert = iter.getBaseNode() < iter.getAdjNode();
+				int hillIndex = _extHillIndex.getEdgeValue(iter.getOriginalEdge(), revert);
+				if (hillIndex > 0)
+					uphill = true;
+			}
+			
+			int value = _extTrailDifficulty.getMtbScale(iter.getOriginalEdge(), uphill);
+			if (value > _maximumScale)
+				return false;				
+		}
+
+		return true;
 	}
 
 	@Override
@@ -22,6 +22,7 @@ package heigit.ors.routing.graphhopper.extensions.edgefilters;
 
 import heigit.ors.routing.graphhopper.extensions.WheelchairAttributes;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 import heigit.ors.routing.graphhopper.extensions.storages.WheelchairAttributesGraphStorage;
 import heigit.ors.routing.parameters.WheelchairParameters;
 
@@ -37,6 +38,7 @@ public class WheelchairEdgeFilter implements EdgeFilter
 	private FlagEncoder encoder;
 	private byte[] _buffer;
 	private WheelchairAttributesGraphStorage _storage;
+	private PackedEdgeAttributesGraphStorage _packedStorage;
 	private WheelchairAttributes _attributes;
 	private WheelchairParameters _params;
 	
@@ -55,6 +57,9 @@ public class WheelchairEdgeFilter implements EdgeFilter
 
 		if (_storage ==  null)
 			throw new Exception("ExtendedGraphStorage for wheelchair attributes was not found.");
+
+		// the encoded attributes are read from the packed row if available, the wheelchair storage decodes them
+		_packedStorage = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_WHEELCHAIR);
 		
 		_params = params;
 		_attributes = new WheelchairAttributes();
@@ -66,7 +71,10 @@ public class WheelchairEdgeFilter implements EdgeFilter
 	{
 		if (out && iter.isForward(encoder) || in && iter.isBackward(encoder))
 		{
-			_storage.getEdgeValues(iter.getEdge(), _attributes, _buffer);
+			if (_packedStorage != null)
+				_storage.decodeAttributes(_packedStorage.getWheelchairAttributes(iter.getEdge()), _attributes);
+			else
+				_storage.getEdgeValues(iter.getEdge(), _attributes, _buffer);
 			
 			if (_attributes.hasValues())
 			{
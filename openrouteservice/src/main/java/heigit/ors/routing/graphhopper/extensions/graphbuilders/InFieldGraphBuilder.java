@@ -20,62 +20,51 @@
  */
 package heigit.ors.routing.graphhopper.extensions.graphbuilders;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import com.carrotsearch.hppc.IntIndexedContainer;
 import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.coll.LongIntMap;
 import com.graphhopper.reader.ReaderWay;
-import com.graphhopper.routing.Dijkstra;
-import com.graphhopper.routing.Path;
-import com.graphhopper.routing.util.EncodingManager;
-import com.graphhopper.routing.weighting.FastestWeighting;
-import com.graphhopper.routing.util.FootFlagEncoder;
-import com.graphhopper.routing.util.TraversalMode;
-import com.graphhopper.routing.weighting.Weighting;
-import com.graphhopper.storage.GraphExtension;
-import com.graphhopper.storage.GraphHopperStorage;
-import com.graphhopper.storage.RAMDirectory;
 import com.graphhopper.util.DistanceCalc;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.Helper;
+import com.vividsolutions.jts.algorithm.RobustLineIntersector;
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.LinearRing;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.strtree.STRtree;
 
 import heigit.ors.routing.graphhopper.extensions.DataReaderContext;
 
+/*
+ * Connects the tower nodes on the boundary of an open space (a closed way tagged area=yes) by the shortest paths 
+ * through the area. The paths are computed on the visibility graph of the boundary nodes, i.e. two nodes are connected 
+ * if the straight line between them lies within the area. Only the edges on these paths and the boundary itself are 
+ * added to the graph.
+ */
 public class InFieldGraphBuilder extends AbstractGraphBuilder {
 
 	private GeometryFactory geometryFactory = new GeometryFactory();
-	private Map<Integer, Integer> intId2idx = new HashMap<Integer, Integer>(); 
-	private Map<Integer, Integer> idx2intId =  new HashMap<Integer, Integer>(); 
-	private Map<Integer, Long> intId2osmId = new HashMap<Integer, Long>();
-	private ArrayList<Integer> internalTowerNodeIds = new ArrayList<Integer>(); 
 	private Coordinate[] _coordinates;
-	private Set<ArrayList<Integer>> _edges = new HashSet<ArrayList<Integer>>();
-	private ArrayList<Integer> tmpEdge = new ArrayList<Integer>();   
-	private FootFlagEncoder footEncoder; 
-	private List<Weighting> weightings;
-	private EncodingManager encodingManager;
+	private int[] _internalIds;
+	private boolean[] _targets;
+	private boolean[] _visited;
+	// edges which have already been added, the key consists of the sorted internal node ids
+	private LongHashSet _edges = new LongHashSet();
+	private VisibilityGraph _graph = new VisibilityGraph();
+	private RobustLineIntersector _lineIntersector = new RobustLineIntersector();
 
 	@Override
 	public void init(GraphHopper graphhopper) throws Exception {
-		// create local network taken from        
-		// https://github.com/graphhopper/graphhopper/blob/0.5/core/src/test/java/com/graphhopper/GraphHopperTest.java#L746
-		footEncoder = new FootFlagEncoder();       
-		encodingManager = new EncodingManager(footEncoder);  
-		weightings = new ArrayList<Weighting>(1);
-		weightings.add(new FastestWeighting(footEncoder));
 	}
 
 	@Override
@@ -86,155 +75,133 @@ public class InFieldGraphBuilder extends AbstractGraphBuilder {
 
 		LongIntMap nodeMap = readerCntx.getNodeMap();
 		Polygon openSpace = osmPolygon2JTS(readerCntx, osmNodeIds);
+		PreparedGeometry preparedOpenSpace = PreparedGeometryFactory.prepare(openSpace);
 
-		internalTowerNodeIds.clear();
-		intId2osmId.clear();
-		idx2intId.clear();
-		intId2idx.clear();
-
-		// fill list with tower nodes        
-		// fill map "internal ID 2 OSM ID"     
-		for (int j = 0; j < osmNodeIds.size() - 1; j++) {       
-			long osmNodeId = osmNodeIds.get(j);           
-			int internalOSMId = nodeMap.get(osmNodeId);   
-			intId2osmId.put(internalOSMId, osmNodeId);          
-			if (internalOSMId < -2) //towernode
-			{        
-				internalTowerNodeIds.add(internalOSMId);    
-			}      
+		// the last node closes the ring and is the same as the first one
+		int nNodes = osmNodeIds.size() - 1;
+		if (_internalIds == null || _internalIds.length < nNodes)
+		{
+			_internalIds = new int[nNodes];
+			_targets = new boolean[nNodes];
+			_visited = new boolean[nNodes];
 		}
 
+		for (int j = 0; j < nNodes; j++)
+			_internalIds[j] = nodeMap.get(osmNodeIds.get(j));
+
+		// index of the boundary segments, segment j connects the nodes j and j + 1
+		STRtree segmentIndex = new STRtree();
+		for (int j = 0; j < nNodes; j++)
+			segmentIndex.insert(new Envelope(_coordinates[j], _coordinates[j + 1]), j);
+		segmentIndex.build();
+
 		DistanceCalc distCalc = Helper.DIST_EARTH;
-		@SuppressWarnings("resource")
-		GraphHopperStorage graphStorage = new GraphHopperStorage(weightings,  new RAMDirectory(), encodingManager, false,  new GraphExtension.NoOpExtension()).create(20);
-
-		for (int j = 0; j < osmNodeIds.size() - 1; j++) {                 
-			long mainOsmId = osmNodeIds.get(j);        
-			int internalMainId = nodeMap.get(mainOsmId);       
-			int idxMain = j;         
-			// coordinates of the first nodes     
-			double latMain = readerCntx.getNodeLatitude(internalMainId),      
-					lonMain = readerCntx.getNodeLongitude(internalMainId);     
-			// connect the boundary of the open space        
-			long neighborOsmId = osmNodeIds.get(j + 1);           
-			int internalNeighborId = nodeMap.get(neighborOsmId);   
-			int idxNeighbor = idxMain + 1;                               
-			double latNeighbor = readerCntx.getNodeLatitude(internalNeighborId), lonNeighbor = readerCntx.getNodeLongitude(internalNeighborId);         
-			double distance = distCalc.calcDist(latMain, lonMain, latNeighbor, lonNeighbor);    
-			graphStorage.edge(idxMain, idxNeighbor, distance, true);         
-			// iterate through remaining nodes,        
-			// but not through the direct neighbors 
-			for (int k = j + 2; k < osmNodeIds.size() - 1; k++) {  
-				long partnerOsmId = osmNodeIds.get(k);          
-				int internalPartnerId = nodeMap.get(partnerOsmId);  
-				// coordinates of second nodes            
-				double latPartner = readerCntx.getNodeLatitude(internalPartnerId),
-						lonPartner = readerCntx.getNodeLatitude(internalPartnerId);   
-				// connect nodes            
-				LineString ls = (LineString) geometryFactory.createLineString( new Coordinate[] { new Coordinate(lonMain, latMain), new Coordinate(lonPartner, latPartner) }); 
-				// check if new edge is within open space     
-				if (ls.within(openSpace)) {        
-					// compute distance between nodes        
-					distance = distCalc.calcDist(latMain, lonMain, latPartner, lonPartner);    
-					// the index number of the nodes in the local network                  
-					// necessary, because it does not accept big values              
-					int idxPartner = k;                   
-					// fill             
-					intId2idx.put(internalMainId, idxMain);  
-					intId2idx.put(internalPartnerId, idxPartner);      
-					// fill                   
-					idx2intId.put(idxMain, internalMainId);     
-					idx2intId.put(idxPartner, internalPartnerId);    
-					// add edge to local graph          
-					graphStorage.edge(idxMain, idxPartner, distance, true);                               
-				}         
-			}    
+		_graph.reset(nNodes);
+
+		for (int j = 0; j < nNodes; j++) {
+			Coordinate cMain = _coordinates[j];
+			// connect the boundary of the open space
+			Coordinate cNeighbor = _coordinates[j + 1];
+			_graph.addEdge(j, (j + 1) % nNodes, distCalc.calcDist(cMain.y, cMain.x, cNeighbor.y, cNeighbor.x));
+
+			// iterate through remaining nodes, but not through the direct neighbors
+			for (int k = j + 2; k < nNodes; k++) {
+				if (j == 0 && k == nNodes - 1)
+					continue;
+
+				Coordinate cPartner = _coordinates[k];
+				// check if new edge is within open space
+				if (isVisible(j, k, segmentIndex, preparedOpenSpace))
+					_graph.addEdge(j, k, distCalc.calcDist(cMain.y, cMain.x, cPartner.y, cPartner.x));
+			}
 		}
 
-		// a set with all created edges.  
-		// the nodes which create the edge are stored in a ArrayList.   
-		// it is important that the first node is smaller than the second node.  
-		// TODO maybe a treeset would make the code more elegant
 		_edges.clear();
 
-		// compute routes between all tower nodes using the local graph    
-		for (int i = 0; i < internalTowerNodeIds.size(); i++) {  
-			int internalIdTowerStart = internalTowerNodeIds.get(i);   
-			// check if tower node is in map         
-			// it can miss if no edge is starting from here    
-			if (false == intId2idx.containsKey(internalIdTowerStart)) {     
-				continue;             }      
-			int idxTowerStart = intId2idx.get(internalIdTowerStart);   
-			for (int j = i + 1; j < internalTowerNodeIds.size(); j++) { 
-				int internalIdTowerDestination = internalTowerNodeIds.get(j);      
-				// check if tower node is in map          
-				// it can miss if no edge is starting from here      
-				if (false == intId2idx.containsKey(internalIdTowerDestination)) {    
-					continue;                 }          
-				int idxTowerDest = intId2idx.get(internalIdTowerDestination);  
-				// compute route between tower nodes          
-				try
-				{
-					Dijkstra dijkstra = new Dijkstra(graphStorage, weightings.get(0), TraversalMode.EDGE_BASED_2DIR);  
-					Path path = dijkstra.calcPath(idxTowerStart, idxTowerDest);            
-					IntIndexedContainer pathNodes = path.calcNodes();           
-					// iterate through nodes of routing result           
-					for (int k = 0; k < pathNodes.size() - 1; k++) {      
-						// local index                 
-						int idxNodeA = pathNodes.get(k);            
-						int idxNodeB = pathNodes.get(k + 1);            
-						// internal Node IDs                
-						int nodeA = idx2intId.get(idxNodeA);     
-						int nodeB = idx2intId.get(idxNodeB);             
-						// add to nodes to array sorted              
-						int minNode = Integer.min(nodeA, nodeB);         
-						int maxNode = Integer.max(nodeA, nodeB);            
-						tmpEdge.clear(); 
-						tmpEdge.add(minNode);          
-						tmpEdge.add(maxNode);           
-						boolean edgeIsNew = _edges.add(tmpEdge);        
-						if (edgeIsNew) {     
-							// it is necessary to get the long node OSM IDs...           
-							long osmNodeA = intId2osmId.get(minNode);         
-							long osmNodeB = intId2osmId.get(maxNode);            
-							addNodePairAsEdgeToGraph(readerCntx, way.getId(), wayFlags, createdEdges, osmNodeA, osmNodeB);           
-						}     
-					}
-				}
-				catch(Exception ex)
-				{
-					
+		// compute routes between all tower nodes using the local graph, one search per tower node finds the routes
+		// to all tower nodes after it
+		int nTargets = 0;
+		for (int j = 0; j < nNodes; j++) {
+			_targets[j] = isTowerNode(_internalIds[j]);
+			if (_targets[j])
+				nTargets++;
+		}
+
+		for (int i = 0; i < nNodes && nTargets > 1; i++) {
+			if (!_targets[i])
+				continue;
+
+			_targets[i] = false;
+			nTargets--;
+
+			_graph.search(i, _targets, nTargets);
+
+			Arrays.fill(_visited, 0, nNodes, false);
+			_visited[i] = true;
+			for (int j = i + 1; j < nNodes; j++) {
+				if (!_targets[j] || !_graph.isSettled(j))
+					continue;
+
+				// follow the path back until it joins a path which has already been added
+				int node = j;
+				while (!_visited[node]) {
+					_visited[node] = true;
+					int parent = _graph.getParent(node);
+					addEdge(readerCntx, way.getId(), wayFlags, createdEdges, osmNodeIds, parent, node);
+					node = parent;
 				}
 			}
 		}
 
-		// TODO this loop can maybe be integrated at the part where the boundary edges are handled alread<       
 		// add boundary of open space
-		for (int i = 0; i < osmNodeIds.size() - 1; i++) {     
-			long osmIdA = osmNodeIds.get(i);        
-			long osmIdB = osmNodeIds.get(i + 1);   
-			int internalIdA = nodeMap.get(osmIdA);     
-			int internalIdB = nodeMap.get(osmIdB);         
-			// add to nodes to array sorted     
-			int minIntId = Integer.min(internalIdA, internalIdB);    
-			int maxIndId = Integer.max(internalIdA, internalIdB);
-			// create a boundary edge     
-			tmpEdge.clear();
-			tmpEdge.add(minIntId);        
-			tmpEdge.add(maxIndId);             
-			// test if already exists       
-			boolean edgeIsNew = _edges.add(tmpEdge);    
-			if (edgeIsNew) {     
-				// edge is added to global GraphHopper graph  
-				addNodePairAsEdgeToGraph(readerCntx, way.getId(), wayFlags, createdEdges, osmIdA, osmIdB);   
-			}     
-		}
+		for (int i = 0; i < nNodes; i++)
+			addEdge(readerCntx, way.getId(), wayFlags, createdEdges, osmNodeIds, i, (i + 1) % nNodes);
 
-		graphStorage.close();
-		
 		return true;
 	}
 
+	/**
+	 * Checks whether the straight line between two boundary nodes lies within the open space. Lines which cross a 
+	 * boundary segment are rejected right away; the remaining ones are tested against the prepared polygon.
+	 */
+	private boolean isVisible(final int idxA, final int idxB, STRtree segmentIndex, PreparedGeometry openSpace)
+	{
+		final Coordinate cA = _coordinates[idxA];
+		final Coordinate cB = _coordinates[idxB];
+		final boolean[] crosses = new boolean[1];
+
+		segmentIndex.query(new Envelope(cA, cB), new ItemVisitor() {
+			@Override
+			public void visitItem(Object item) {
+				if (crosses[0])
+					return;
+
+				int segment = (Integer)item;
+				_lineIntersector.computeIntersection(cA, cB, _coordinates[segment], _coordinates[segment + 1]);
+				if (_lineIntersector.isProper())
+					crosses[0] = true;
+			}
+		});
+
+		if (crosses[0])
+			return false;
+
+		LineString ls = geometryFactory.createLineString(new Coordinate[] { cA, cB });
+		return openSpace.contains(ls);
+	}
+
+	private void addEdge(DataReaderContext readerCntx, long wayOsmId, long wayFlags, List<EdgeIteratorState> createdEdges, LongArrayList osmNodeIds, int idxA, int idxB)
+	{
+		int nodeA = _internalIds[idxA];
+		int nodeB = _internalIds[idxB];
+		if (nodeA == nodeB)
+			return;
+
+		long key = nodeA < nodeB ? ((long)nodeA << 32) | (nodeB & 0xFFFFFFFFL) : ((long)nodeB << 32) | (nodeA & 0xFFFFFFFFL);
+		if (_edges.add(key))
+			addNodePairAsEdgeToGraph(readerCntx, wayOsmId, wayFlags, createdEdges, osmNodeIds.get(idxA), osmNodeIds.get(idxB));
+	}
+
 	private void addNodePairAsEdgeToGraph(DataReaderContext readerCntx, long wayOsmId, long wayFlags,  List<EdgeIteratorState> createdEdges, long Node1, long Node2) {   
 		// list which contains the Nodes of the new Edge     
 		LongArrayList subgraphNodes = new LongArrayList(5);  
@@ -262,6 +229,11 @@ public class InFieldGraphBuilder extends AbstractGraphBuilder {
 		return geometryFactory.createPolygon(ring, holes);  
 	}
 
+	private static boolean isTowerNode(int internalId)
+	{
+		return internalId < -2;
+	}
+
 	@Override
 	public void finish() {
 		
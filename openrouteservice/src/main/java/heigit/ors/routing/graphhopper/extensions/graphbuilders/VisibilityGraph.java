@@ -0,0 +1,211 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.graphbuilders;
+
+import java.util.Arrays;
+
+/*
+ * A small undirected graph of the nodes of one open space. The arrays are kept between open spaces and only grow, so 
+ * that building the graph of the next area does not allocate. Shortest paths are computed by a Dijkstra search from 
+ * one source which stops as soon as all targets are settled.
+ */
+class VisibilityGraph {
+	private static final int NO_EDGE = -1;
+
+	private int _nodeCount;
+	private int[] _firstEdge = new int[64];
+	private int _edgeCount;
+	private int[] _edgeTarget = new int[256];
+	private int[] _nextEdge = new int[256];
+	private double[] _edgeWeight = new double[256];
+
+	// state of the last search
+	private double[] _weights = new double[64];
+	private int[] _parents = new int[64];
+	private boolean[] _settled = new boolean[64];
+
+	// binary heap with lazy deletion, a node can be contained several times
+	private int _heapSize;
+	private double[] _heapKeys = new double[64];
+	private int[] _heapNodes = new int[64];
+
+	public void reset(int nodeCount)
+	{
+		if (_firstEdge.length < nodeCount)
+		{
+			int capacity = Math.max(nodeCount, _firstEdge.length * 2);
+			_firstEdge = new int[capacity];
+			_weights = new double[capacity];
+			_parents = new int[capacity];
+			_settled = new boolean[capacity];
+		}
+
+		_nodeCount = nodeCount;
+		_edgeCount = 0;
+		Arrays.fill(_firstEdge, 0, nodeCount, NO_EDGE);
+	}
+
+	public int getNodeCount()
+	{
+		return _nodeCount;
+	}
+
+	public void addEdge(int nodeA, int nodeB, double weight)
+	{
+		addHalfEdge(nodeA, nodeB, weight);
+		addHalfEdge(nodeB, nodeA, weight);
+	}
+
+	private void addHalfEdge(int from, int to, double weight)
+	{
+		if (_edgeCount == _edgeTarget.length)
+		{
+			int capacity = _edgeCount * 2;
+			_edgeTarget = Arrays.copyOf(_edgeTarget, capacity);
+			_nextEdge = Arrays.copyOf(_nextEdge, capacity);
+			_edgeWeight = Arrays.copyOf(_edgeWeight, capacity);
+		}
+
+		_edgeTarget[_edgeCount] = to;
+		_edgeWeight[_edgeCount] = weight;
+		_nextEdge[_edgeCount] = _firstEdge[from];
+		_firstEdge[from] = _edgeCount;
+		_edgeCount++;
+	}
+
+	/**
+	 * Computes the shortest paths from the source to the targets. The search stops once all targets are settled, 
+	 * the paths can then be followed back to the source with {@link #getParent(int)}.
+	 * 
+	 * @param targets marks the target nodes
+	 * @param targetCount number of marked targets
+	 */
+	public void search(int source, boolean[] targets, int targetCount)
+	{
+		Arrays.fill(_weights, 0, _nodeCount, Double.POSITIVE_INFINITY);
+		Arrays.fill(_parents, 0, _nodeCount, -1);
+		Arrays.fill(_settled, 0, _nodeCount, false);
+		_heapSize = 0;
+
+		_weights[source] = 0;
+		push(0, source);
+
+		int remaining = targetCount;
+		while (_heapSize > 0 && remaining > 0)
+		{
+			int node = _heapNodes[0];
+			pop();
+
+			if (_settled[node])
+				continue;
+			_settled[node] = true;
+
+			if (targets[node])
+				remaining--;
+
+			double weight = _weights[node];
+			for (int edge = _firstEdge[node]; edge != NO_EDGE; edge = _nextEdge[edge])
+			{
+				int adjNode = _edgeTarget[edge];
+				if (_settled[adjNode])
+					continue;
+
+				double newWeight = weight + _edgeWeight[edge];
+				if (newWeight < _weights[adjNode])
+				{
+					_weights[adjNode] = newWeight;
+					_parents[adjNode] = node;
+					push(newWeight, adjNode);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the last search found a path to the node
+	 */
+	public boolean isSettled(int node)
+	{
+		return _settled[node];
+	}
+
+	/**
+	 * @return the predecessor of the node on its shortest path from the source of the last search, or -1 for the source.
+	 */
+	public int getParent(int node)
+	{
+		return _parents[node];
+	}
+
+	public double getWeight(int node)
+	{
+		return _weights[node];
+	}
+
+	private void push(double key, int node)
+	{
+		if (_heapSize == _heapKeys.length)
+		{
+			_heapKeys = Arrays.copyOf(_heapKeys, _heapSize * 2);
+			_heapNodes = Arrays.copyOf(_heapNodes, _heapSize * 2);
+		}
+
+		int i = _heapSize++;
+		while (i > 0)
+		{
+			int parent = (i - 1) >>> 1;
+			if (_heapKeys[parent] <= key)
+				break;
+			_heapKeys[i] = _heapKeys[parent];
+			_heapNodes[i] = _heapNodes[parent];
+			i = parent;
+		}
+
+		_heapKeys[i] = key;
+		_heapNodes[i] = node;
+	}
+
+	private void pop()
+	{
+		_heapSize--;
+		if (_heapSize == 0)
+			return;
+
+		double key = _heapKeys[_heapSize];
+		int node = _heapNodes[_heapSize];
+		int i = 0;
+		int half = _heapSize >>> 1;
+		while (i < half)
+		{
+			int child = 2 * i + 1;
+			if (child + 1 < _heapSize && _heapKeys[child + 1] < _heapKeys[child])
+				child++;
+			if (key <= _heapKeys[child])
+				break;
+			_heapKeys[i] = _heapKeys[child];
+			_heapNodes[i] = _heapNodes[child];
+			i = child;
+		}
+
+		_heapKeys[i] = key;
+		_heapNodes[i] = node;
+	}
+}
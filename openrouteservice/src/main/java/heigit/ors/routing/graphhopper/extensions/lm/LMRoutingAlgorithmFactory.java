@@ -0,0 +1,46 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.lm;
+
+import com.graphhopper.routing.AlgorithmOptions;
+import com.graphhopper.routing.RoutingAlgorithm;
+import com.graphhopper.routing.RoutingAlgorithmFactory;
+import com.graphhopper.routing.RoutingAlgorithmFactorySimple;
+import com.graphhopper.routing.lm.PrepareLandmarks;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.Parameters;
+
+public class LMRoutingAlgorithmFactory implements RoutingAlgorithmFactory {
+	private final PrepareLandmarks _prepareLandmarks;
+	private final RoutingAlgorithmFactory _defaultAlgoFactory = new RoutingAlgorithmFactorySimple();
+
+	public LMRoutingAlgorithmFactory(PrepareLandmarks prepareLandmarks)
+	{
+		_prepareLandmarks = prepareLandmarks;
+	}
+
+	@Override
+	public RoutingAlgorithm createAlgo(Graph g, AlgorithmOptions opts) {
+		AlgorithmOptions astarOpts = AlgorithmOptions.start(opts).algorithm(Parameters.Algorithms.ASTAR_BI).build();
+		RoutingAlgorithm algo = _defaultAlgoFactory.createAlgo(g, astarOpts);
+		return _prepareLandmarks.getDecoratedAlgorithm(g, algo, astarOpts);
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.lm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.graphhopper.routing.lm.PrepareLandmarks;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.storage.GraphHopperStorage;
+
+import heigit.ors.routing.graphhopper.extensions.weighting.LowerBoundWeighting;
+
+/*
+ * Landmarks for the time based ORS weightings. One set of landmarks is prepared per flag encoder with 
+ * a LowerBoundWeighting, so that the same landmarks can be used for all weighting methods, soft 
+ * restrictions and edge filters of the encoder. The preparations of the encoders run in parallel.
+ */
+public class ORSLandmarks {
+	private static final int MAX_MINIMUM_NODES = 500000;
+
+	private final Map<String, PrepareLandmarks> _preparations = new HashMap<String, PrepareLandmarks>();
+
+	public ORSLandmarks(GraphHopperStorage graph, int landmarks, int activeLandmarks)
+	{
+		for (FlagEncoder encoder : graph.getEncodingManager().fetchEdgeEncoders())
+		{
+			PrepareLandmarks plm = new PrepareLandmarks(graph.getDirectory(), graph, new LowerBoundWeighting(encoder), TraversalMode.NODE_BASED, landmarks, activeLandmarks);
+			plm.setMinimumNodes(Math.min(graph.getNodes() / 2, MAX_MINIMUM_NODES));
+			_preparations.put(encoder.toString(), plm);
+		}
+	}
+
+	public void loadOrDoWork(int threads) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, _preparations.size())));
+		ExecutorCompletionService<PrepareLandmarks> compService = new ExecutorCompletionService<PrepareLandmarks>(executor);
+
+		try
+		{
+			for (final PrepareLandmarks plm : _preparations.values())
+			{
+				compService.submit(new Callable<PrepareLandmarks>() {
+					@Override
+					public PrepareLandmarks call() throws Exception {
+						if (!plm.loadExisting())
+							plm.doWork();
+						return plm;
+					}
+				});
+			}
+
+			for (int i = 0; i < _preparations.size(); i++)
+				compService.take().get();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	public PrepareLandmarks getPreparation(String vehicle)
+	{
+		return _preparations.get(vehicle);
+	}
+}
@@ -21,6 +21,8 @@
 package heigit.ors.routing.graphhopper.extensions.reader.borders;
 
 import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 import org.apache.log4j.Logger;
 
 import java.io.InvalidObjectException;
@@ -29,6 +31,8 @@ public class CountryBordersPolygon {
     private static final Logger LOGGER = Logger.getLogger(CountryBordersPolygon.class);
     private String name;
     private MultiPolygon boundary;
+    private PreparedGeometry preparedBoundary;
+    private GeometryFactory geometryFactory;
     private Geometry boundaryLine;
     private double area = 0;
     private long hierarchyId;
@@ -45,6 +49,7 @@ public class CountryBordersPolygon {
         this.name = name;
         this.hierarchyId = hierarchyId;
         GeometryFactory gf = new GeometryFactory();
+        this.geometryFactory = gf;
 
         if(boundary.getGeometryType().equals("Polygon"))
             this.boundary = gf.createMultiPolygon(new Polygon[] {(Polygon) boundary});
@@ -54,6 +59,8 @@ public class CountryBordersPolygon {
             LOGGER.error("Invalid geometry - " + boundary.getGeometryType());
             throw new InvalidObjectException("Invalid geometry for boundary " + name);
         }
+        // the prepared geometry indexes the segments of the boundary so that repeated point lookups are fast
+        this.preparedBoundary = PreparedGeometryFactory.prepare(this.boundary);
         this.boundaryLine = boundary.getBoundary();
         this.area = this.boundary.getArea();
         // calculate lat and lon values
@@ -98,9 +105,7 @@ public class CountryBordersPolygon {
 
     public boolean inArea(Coordinate c) {
         if(!Double.isNaN(c.x) && !Double.isNaN(c.y) && inBbox(c)) {
-            GeometryFactory gf = new GeometryFactory();
-
-            return boundary.contains(gf.createPoint(c));
+            return preparedBoundary.contains(geometryFactory.createPoint(c));
         }
 
         return false;
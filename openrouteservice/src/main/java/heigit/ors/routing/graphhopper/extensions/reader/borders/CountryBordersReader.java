@@ -21,8 +21,10 @@
 package heigit.ors.routing.graphhopper.extensions.reader.borders;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.index.strtree.STRtree;
 import heigit.ors.geojson.GeometryJSON;
 import heigit.ors.util.CSVUtility;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
@@ -53,6 +55,9 @@ public class CountryBordersReader {
 
     private HashMap<Long, CountryBordersHierarchy> hierarchies = new HashMap<>();
 
+    // STR-tree over the envelopes of all polygons, built on the first lookup
+    private STRtree spatialIndex;
+
     /**
      * Empty constructor which does not read any data - the user must explicitly pass information
      */
@@ -100,6 +105,7 @@ public class CountryBordersReader {
     public void addHierarchy(Long id, CountryBordersHierarchy hierarchy) {
         if(!hierarchies.containsKey(id)) {
             hierarchies.put(id, hierarchy);
+            spatialIndex = null;
         }
     }
 
@@ -271,18 +277,9 @@ public class CountryBordersReader {
      */
     public CountryBordersPolygon[] getCountry(Coordinate c) {
         ArrayList<CountryBordersPolygon> countries = new ArrayList<>();
-        Iterator it = hierarchies.entrySet().iterator();
-        while(it.hasNext()) {
-            Map.Entry<Long, CountryBordersHierarchy> pair = (Map.Entry)it.next();
-            CountryBordersHierarchy h =  pair.getValue();
-            if(h.inBbox(c)) {
-                // Now need to check the countries
-                ArrayList<CountryBordersPolygon> ps = h.getPolygons();
-                for(CountryBordersPolygon cp : ps) {
-                    if(cp.inBbox(c) && cp.inArea(c)) {
-                        countries.add(cp);
-                    }
-                }
+        for(IndexEntry entry : queryIndex(new Envelope(c))) {
+            if(entry.hierarchy.inBbox(c) && entry.polygon.inBbox(c) && entry.polygon.inArea(c)) {
+                countries.add(entry.polygon);
             }
         }
 
@@ -299,25 +296,90 @@ public class CountryBordersReader {
      * @return      An array of CountryBorderPolygons that the point is within the geometry of.
      */
     public CountryBordersPolygon[] getCandidateCountry(Coordinate c) {
+        return getCandidateCountry(c, queryIndex(new Envelope(c)), new ArrayList<CountryBordersPolygon>());
+    }
+
+    /**
+     * Batched version of {@link #getCandidateCountry(Coordinate)} which classifies all coordinates of a way. The
+     * spatial index is only queried once with the extent of the whole way and the coordinates are then checked
+     * against the (few) polygons found.
+     *
+     * @param coords    The coordinates of the way
+     * @return          For each coordinate an array of CountryBorderPolygons whose bounding box contains it. Invalid
+     *                  (NaN) coordinates get an empty array.
+     */
+    public CountryBordersPolygon[][] getCandidateCountry(Coordinate[] coords) {
+        CountryBordersPolygon[][] res = new CountryBordersPolygon[coords.length][];
+
+        Envelope env = new Envelope();
+        for(Coordinate c : coords) {
+            if(!Double.isNaN(c.x) && !Double.isNaN(c.y))
+                env.expandToInclude(c);
+        }
+
+        List<IndexEntry> entries = env.isNull() ? Collections.<IndexEntry>emptyList() : queryIndex(env);
         ArrayList<CountryBordersPolygon> countries = new ArrayList<>();
-        Iterator it = hierarchies.entrySet().iterator();
-        while(it.hasNext()) {
-            Map.Entry<Long, CountryBordersHierarchy> pair = (Map.Entry)it.next();
-            CountryBordersHierarchy h =  pair.getValue();
-            if(h.inBbox(c)) {
-                // Now need to check the countries
-                ArrayList<CountryBordersPolygon> ps = h.getPolygons();
-                for(CountryBordersPolygon cp : ps) {
-                    if(cp.inBbox(c)) {
-                        countries.add(cp);
-                    }
-                }
+
+        for(int i=0; i<coords.length; i++) {
+            Coordinate c = coords[i];
+            if(!Double.isNaN(c.x) && !Double.isNaN(c.y))
+                res[i] = getCandidateCountry(c, entries, countries);
+            else
+                res[i] = new CountryBordersPolygon[0];
+        }
+
+        return res;
+    }
+
+    private CountryBordersPolygon[] getCandidateCountry(Coordinate c, List<IndexEntry> entries, ArrayList<CountryBordersPolygon> countries) {
+        countries.clear();
+        for(IndexEntry entry : entries) {
+            if(entry.hierarchy.inBbox(c) && entry.polygon.inBbox(c)) {
+                countries.add(entry.polygon);
             }
         }
 
         return countries.toArray(new CountryBordersPolygon[countries.size()]);
     }
 
+    /**
+     * Get the polygons whose envelope intersects the given one. The entries are returned in the order of the
+     * hierarchies and their polygons so that the results do not depend on the layout of the tree.
+     */
+    @SuppressWarnings("unchecked")
+    private List<IndexEntry> queryIndex(Envelope env) {
+        List<IndexEntry> entries = getSpatialIndex().query(env);
+        Collections.sort(entries, new Comparator<IndexEntry>() {
+            @Override
+            public int compare(IndexEntry e1, IndexEntry e2) {
+                return Integer.compare(e1.order, e2.order);
+            }
+        });
+
+        return entries;
+    }
+
+    /**
+     * Build the STR-tree over the envelopes of the polygons of all hierarchies. Polygons must be added to a hierarchy
+     * before the first lookup, later changes are only picked up when a new hierarchy is added.
+     */
+    private synchronized STRtree getSpatialIndex() {
+        if(spatialIndex == null) {
+            STRtree tree = new STRtree();
+            int order = 0;
+            for(CountryBordersHierarchy h : hierarchies.values()) {
+                for(CountryBordersPolygon cp : h.getPolygons()) {
+                    double[] bb = cp.getBBox();
+                    tree.insert(new Envelope(bb[0], bb[1], bb[2], bb[3]), new IndexEntry(h, cp, order++));
+                }
+            }
+            tree.build();
+            spatialIndex = tree;
+        }
+
+        return spatialIndex;
+    }
+
     /**
      * Get the unique identifier of the country (read from a CSV file in the constructor)
      *
@@ -402,6 +464,21 @@ public class CountryBordersReader {
         }
     }
 
+    /**
+     * Entry of the spatial index linking a polygon to its hierarchy.
+     */
+    private static class IndexEntry {
+        public CountryBordersHierarchy hierarchy;
+        public CountryBordersPolygon polygon;
+        public int order;
+
+        public IndexEntry(CountryBordersHierarchy hierarchy, CountryBordersPolygon polygon, int order) {
+            this.hierarchy = hierarchy;
+            this.polygon = polygon;
+            this.order = order;
+        }
+    }
+
     /**
      * Holder class for storing information about a country read from the ids csv.
      */
@@ -60,11 +60,12 @@ public class GreenIndexGraphStorage implements GraphExtension {
     }
 
     public int getEdgeValue(int edgeId, byte[] buffer) {
-        // TODO this needs further checking when implementing the Weighting classes/functions
-        long edgePointer = (long) edgeId * edgeEntryBytes;
-        orsEdges.getBytes(edgePointer + EF_GREENINDEX, buffer, 1);
+        return getEdgeValue(edgeId);
+    }
 
-        return buffer[0];
+    public int getEdgeValue(int edgeId) {
+        // TODO this needs further checking when implementing the Weighting classes/functions
+        return orsEdges.getByte((long) edgeId * edgeEntryBytes + EF_GREENINDEX);
     }
 
     /**
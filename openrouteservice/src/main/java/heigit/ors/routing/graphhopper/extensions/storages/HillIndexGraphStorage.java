@@ -126,15 +126,15 @@ public class HillIndexGraphStorage implements GraphExtension {
 	}
 
 	public int getEdgeValue(int edgeId, boolean reverse, byte[] buffer) {
+		return getEdgeValue(edgeId, reverse);
+	}
+
+	public int getEdgeValue(int edgeId, boolean reverse) {
 		long edgePointer = (long) edgeId * edgeEntryBytes;
 
 		if (_maxHillIndex <= 15)
 		{
-			orsEdges.getBytes(edgePointer + EF_HILLINDEX, buffer, 1);
-
-			int value = buffer[0];
-			if (value < 0)
-				value = 256 + value;
+			int value = orsEdges.getByte(edgePointer + EF_HILLINDEX) & 0xFF;
 
 			if (reverse)
 				return (value >> 4) & 0xF;
@@ -143,9 +143,7 @@ public class HillIndexGraphStorage implements GraphExtension {
 		}
 		else
 		{
-			orsEdges.getBytes(edgePointer + EF_HILLINDEX, buffer, 2);
-
-			return reverse ? buffer[1] : buffer[0];
+			return orsEdges.getByte(edgePointer + EF_HILLINDEX + (reverse ? 1 : 0));
 		}
 	}
 
@@ -63,11 +63,11 @@ public class NoiseIndexGraphStorage implements GraphExtension {
     }
 
     public int getEdgeValue(int edgeId, byte[] buffer) {
-    	
-        long edgePointer = (long) edgeId * edgeEntryBytes;
-        orsEdges.getBytes(edgePointer + EF_noiseIndex, buffer, 1);
+        return getEdgeValue(edgeId);
+    }
 
-        return buffer[0];
+    public int getEdgeValue(int edgeId) {
+        return orsEdges.getByte((long) edgeId * edgeEntryBytes + EF_noiseIndex);
     }
 
     /**
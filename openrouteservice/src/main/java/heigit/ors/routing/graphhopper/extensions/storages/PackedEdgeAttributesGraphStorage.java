@@ -0,0 +1,303 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.GraphStorage;
+
+/*
+ * Row-packed copy of the most frequently read per-edge attributes. Each edge occupies a fixed row of 
+ * 16 bytes made of four ints, so all attributes of an edge are fetched from one cache line instead of 
+ * touching one DataAccess per attribute:
+ * 
+ *   int 0: green index | noise index << 8 | hill index << 16 | reverse hill index << 24
+ *   int 1: way surface | way category << 8 | hiking scale << 16 | (mtb scale << 4 | mtb uphill scale) << 24
+ *   int 2: encoded wheelchair attributes, see WheelchairAttributesGraphStorage
+ *   int 3: tollways
+ * 
+ * The soft weightings need only the first int, so the factors of all of them are derived from a single read. 
+ * The rows are populated from the individual storages after the import (or on the first load of a graph 
+ * which was built without this storage), so the existing builders stay the single writers.
+ */
+public class PackedEdgeAttributesGraphStorage implements GraphExtension {
+	public static final int ROW_BYTES = 16;
+
+	public static final int ATTR_WAY_SURFACE = 1;
+	public static final int ATTR_WAY_CATEGORY = 2;
+	public static final int ATTR_GREEN_INDEX = 4;
+	public static final int ATTR_NOISE_INDEX = 8;
+	public static final int ATTR_HILL_INDEX = 16;
+	public static final int ATTR_TRAIL_DIFFICULTY = 32;
+	public static final int ATTR_TOLLWAYS = 64;
+	public static final int ATTR_WHEELCHAIR = 128;
+
+	private static final int EF_SOFT_ATTRIBUTES = 0;
+	private static final int EF_WAY_ATTRIBUTES = 4;
+	private static final int EF_WHEELCHAIR = 8;
+	private static final int EF_TOLLWAYS = 12;
+
+	private DataAccess orsEdges;
+	private int edgesCount;
+	private int attributes; // ATTR_* flags of the attributes which have been packed
+	private boolean migrationRequired;
+
+	public PackedEdgeAttributesGraphStorage() {
+		edgesCount = 0;
+		attributes = 0;
+	}
+
+	/**
+	 * @return the packed storage of the graph if its rows have been populated and hold all of the given attributes, 
+	 * otherwise null, in which case the individual storages have to be read.
+	 */
+	public static PackedEdgeAttributesGraphStorage getStorage(GraphStorage graphStorage, int attributes) {
+		PackedEdgeAttributesGraphStorage storage = GraphStorageUtils.getGraphExtension(graphStorage, PackedEdgeAttributesGraphStorage.class);
+		if (storage != null && !storage.isMigrationRequired() && storage.hasAttributes(attributes))
+			return storage;
+
+		return null;
+	}
+
+	public void init(Graph graph, Directory dir) {
+		if (edgesCount > 0)
+			throw new AssertionError("The ORS storage must be initialized only once.");
+
+		this.orsEdges = dir.find("ext_packed_attributes");
+	}
+
+	/**
+	 * Copies the values of all individual ORS storages present in the graph into the packed rows.
+	 */
+	public void importFrom(GraphHopperStorage graphStorage) {
+		WaySurfaceTypeGraphStorage waySurfaceStorage = GraphStorageUtils.getGraphExtension(graphStorage, WaySurfaceTypeGraphStorage.class);
+		WayCategoryGraphStorage wayCategoryStorage = GraphStorageUtils.getGraphExtension(graphStorage, WayCategoryGraphStorage.class);
+		GreenIndexGraphStorage greenStorage = GraphStorageUtils.getGraphExtension(graphStorage, GreenIndexGraphStorage.class);
+		NoiseIndexGraphStorage noiseStorage = GraphStorageUtils.getGraphExtension(graphStorage, NoiseIndexGraphStorage.class);
+		HillIndexGraphStorage hillStorage = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+		TrailDifficultyScaleGraphStorage trailStorage = GraphStorageUtils.getGraphExtension(graphStorage, TrailDifficultyScaleGraphStorage.class);
+		TollwaysGraphStorage tollwaysStorage = GraphStorageUtils.getGraphExtension(graphStorage, TollwaysGraphStorage.class);
+		WheelchairAttributesGraphStorage wheelchairStorage = GraphStorageUtils.getGraphExtension(graphStorage, WheelchairAttributesGraphStorage.class);
+
+		int attrs = 0;
+		if (waySurfaceStorage != null)
+			attrs |= ATTR_WAY_SURFACE;
+		if (wayCategoryStorage != null)
+			attrs |= ATTR_WAY_CATEGORY;
+		if (greenStorage != null)
+			attrs |= ATTR_GREEN_INDEX;
+		if (noiseStorage != null)
+			attrs |= ATTR_NOISE_INDEX;
+		if (hillStorage != null)
+			attrs |= ATTR_HILL_INDEX;
+		if (trailStorage != null)
+			attrs |= ATTR_TRAIL_DIFFICULTY;
+		if (tollwaysStorage != null)
+			attrs |= ATTR_TOLLWAYS;
+		if (wheelchairStorage != null)
+			attrs |= ATTR_WHEELCHAIR;
+
+		int nEdges = graphStorage.getEdges();
+		orsEdges.ensureCapacity((long) nEdges * ROW_BYTES);
+
+		for (int edgeId = 0; edgeId < nEdges; edgeId++) {
+			int softAttrs = 0;
+			if (greenStorage != null)
+				softAttrs |= greenStorage.getEdgeValue(edgeId) & 0xFF;
+			if (noiseStorage != null)
+				softAttrs |= (noiseStorage.getEdgeValue(edgeId) & 0xFF) << 8;
+			if (hillStorage != null)
+				softAttrs |= (hillStorage.getEdgeValue(edgeId, false) & 0xFF) << 16 | (hillStorage.getEdgeValue(edgeId, true) & 0xFF) << 24;
+
+			int wayAttrs = 0;
+			if (waySurfaceStorage != null)
+				wayAttrs |= waySurfaceStorage.getPackedInt(edgeId);
+			if (wayCategoryStorage != null)
+				wayAttrs |= (wayCategoryStorage.getEdgeValue(edgeId) & 0xFF) << 8;
+			if (trailStorage != null)
+				wayAttrs |= (trailStorage.getHikingScale(edgeId) & 0xFF) << 16 | (trailStorage.getMtbScale(edgeId, false) << 4 | trailStorage.getMtbScale(edgeId, true)) << 24;
+
+			long edgePointer = (long) edgeId * ROW_BYTES;
+			orsEdges.setInt(edgePointer + EF_SOFT_ATTRIBUTES, softAttrs);
+			orsEdges.setInt(edgePointer + EF_WAY_ATTRIBUTES, wayAttrs);
+			orsEdges.setInt(edgePointer + EF_WHEELCHAIR, wheelchairStorage != null ? wheelchairStorage.getEncodedValue(edgeId) : 0);
+			orsEdges.setInt(edgePointer + EF_TOLLWAYS, tollwaysStorage != null ? tollwaysStorage.getEdgeValue(edgeId) : 0);
+		}
+
+		edgesCount = nEdges;
+		attributes = attrs;
+		migrationRequired = false;
+	}
+
+	/**
+	 * @return true if the rows still have to be populated by {@link #importFrom(GraphHopperStorage)}, 
+	 * i.e. directly after the import or when the graph has been built without this storage.
+	 */
+	public boolean isMigrationRequired() {
+		return migrationRequired || edgesCount == 0;
+	}
+
+	/**
+	 * @return true if all of the given ATTR_* flags have been packed.
+	 */
+	public boolean hasAttributes(int attributes) {
+		return (this.attributes & attributes) == attributes;
+	}
+
+	/**
+	 * @return the green, noise and hill indices of the edge, use {@link #getGreenIndex(int)}, 
+	 * {@link #getNoiseIndex(int)} and {@link #getHillIndex(int, boolean)} to unpack them.
+	 */
+	public int getSoftAttributes(int edgeId) {
+		return orsEdges.getInt((long) edgeId * ROW_BYTES + EF_SOFT_ATTRIBUTES);
+	}
+
+	/**
+	 * @return the way surface, way category and trail difficulties of the edge, use {@link #getWaySurface(int)}, 
+	 * {@link #getWayCategory(int)}, {@link #getHikingScale(int)} and {@link #getMtbScale(int, boolean)} to unpack them.
+	 */
+	public int getWayAttributes(int edgeId) {
+		return orsEdges.getInt((long) edgeId * ROW_BYTES + EF_WAY_ATTRIBUTES);
+	}
+
+	/**
+	 * @return the wheelchair attributes of the edge, see {@link WheelchairAttributesGraphStorage#getEncodedValue(int)}.
+	 */
+	public int getWheelchairAttributes(int edgeId) {
+		return orsEdges.getInt((long) edgeId * ROW_BYTES + EF_WHEELCHAIR);
+	}
+
+	public int getTollways(int edgeId) {
+		return orsEdges.getInt((long) edgeId * ROW_BYTES + EF_TOLLWAYS);
+	}
+
+	public static int getGreenIndex(int softAttributes) {
+		return softAttributes & 0xFF;
+	}
+
+	public static int getNoiseIndex(int softAttributes) {
+		return (softAttributes >> 8) & 0xFF;
+	}
+
+	/**
+	 * @param reverse has the same meaning as in {@link HillIndexGraphStorage#getEdgeValue(int, boolean)}
+	 */
+	public static int getHillIndex(int softAttributes, boolean reverse) {
+		return (softAttributes >> (reverse ? 24 : 16)) & 0xFF;
+	}
+
+	/**
+	 * @return the packed way and surface type, see {@link WaySurfaceTypeGraphStorage#getPackedInt(int)}
+	 */
+	public static int getWaySurface(int wayAttributes) {
+		return wayAttributes & 0xFF;
+	}
+
+	public static int getWayCategory(int wayAttributes) {
+		return (wayAttributes >> 8) & 0xFF;
+	}
+
+	public static int getHikingScale(int wayAttributes) {
+		return (wayAttributes >> 16) & 0xFF;
+	}
+
+	public static int getMtbScale(int wayAttributes, boolean uphill) {
+		return (wayAttributes >> (uphill ? 24 : 28)) & 0x0F;
+	}
+
+	public void setSegmentSize(int bytes) {
+		orsEdges.setSegmentSize(bytes);
+	}
+
+	public GraphExtension create(long initBytes) {
+		orsEdges.create((long) initBytes * ROW_BYTES);
+		return this;
+	}
+
+	public void flush() {
+		orsEdges.setHeader(0, ROW_BYTES);
+		orsEdges.setHeader(1 * 4, edgesCount);
+		orsEdges.setHeader(2 * 4, attributes);
+		orsEdges.flush();
+	}
+
+	public void close() {
+		orsEdges.close();
+	}
+
+	public long getCapacity() {
+		return orsEdges.getCapacity();
+	}
+
+	public boolean loadExisting() {
+		if (!orsEdges.loadExisting()) {
+			// graphs built before this storage was introduced, the rows are migrated from the individual storages
+			orsEdges.create(1000 * ROW_BYTES);
+			migrationRequired = true;
+			return true;
+		}
+
+		if (orsEdges.getHeader(0) != ROW_BYTES)
+			throw new IllegalStateException("Unable to load storage 'ext_packed_attributes'. Unexpected row size.");
+
+		edgesCount = orsEdges.getHeader(4);
+		attributes = orsEdges.getHeader(8);
+		return true;
+	}
+
+	public boolean isRequireNodeField() {
+		return false;
+	}
+
+	public boolean isRequireEdgeField() {
+		return false;
+	}
+
+	public int getDefaultNodeFieldValue() {
+		return -1;
+	}
+
+	public int getDefaultEdgeFieldValue() {
+		return -1;
+	}
+
+	public GraphExtension copyTo(GraphExtension clonedStorage) {
+		if (!(clonedStorage instanceof PackedEdgeAttributesGraphStorage)) {
+			throw new IllegalStateException("the extended storage to clone must be the same");
+		}
+
+		PackedEdgeAttributesGraphStorage clonedTC = (PackedEdgeAttributesGraphStorage) clonedStorage;
+
+		orsEdges.copyTo(clonedTC.orsEdges);
+		clonedTC.edgesCount = edgesCount;
+		clonedTC.attributes = attributes;
+
+		return clonedStorage;
+	}
+
+	@Override
+	public boolean isClosed() {
+		return false;
+	}
+}
@@ -113,11 +113,14 @@ public class TollwaysGraphStorage implements GraphExtension {
 	}
 
 	public int getEdgeValue(int edgeId, byte[] buffer) {
-		long edgeBase = (long) edgeId * edgeEntryBytes;
-		
-		edges.getBytes(edgeBase + EF_TOLLWAYS, buffer, 4);
+		return getEdgeValue(edgeId);
+	}
+
+	public int getEdgeValue(int edgeId) {
+		long edgeBase = (long) edgeId * edgeEntryBytes + EF_TOLLWAYS;
 		
-		return buffer[0] << 24 | (buffer[1] & 0xFF) << 16 | (buffer[2] & 0xFF) << 8 | (buffer[3] & 0xFF);
+		// the value is stored in big-endian order by setEdgeValue
+		return edges.getByte(edgeBase) << 24 | (edges.getByte(edgeBase + 1) & 0xFF) << 16 | (edges.getByte(edgeBase + 2) & 0xFF) << 8 | (edges.getByte(edgeBase + 3) & 0xFF);
 	}
 
 	public boolean isRequireNodeField() {
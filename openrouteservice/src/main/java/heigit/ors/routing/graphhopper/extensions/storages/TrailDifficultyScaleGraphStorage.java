@@ -110,22 +110,24 @@ public class TrailDifficultyScaleGraphStorage implements GraphExtension {
 	}
 
 	public int getHikingScale(int edgeId, byte[] buffer) {
-		long edgeBase = (long) edgeId * edgeEntryBytes;
-		
-		edges.getBytes(edgeBase + EF_DIFFICULTY_SCALE, buffer, 1);
+		return getHikingScale(edgeId);
+	}
 
-		return buffer[0];
+	public int getHikingScale(int edgeId) {
+		return edges.getByte((long) edgeId * edgeEntryBytes + EF_DIFFICULTY_SCALE);
 	}
 	
 	public int getMtbScale(int edgeId, byte[] buffer, boolean uphill) {
-		long edgeBase = (long) edgeId * edgeEntryBytes;
-		
-		edges.getBytes(edgeBase + EF_DIFFICULTY_SCALE + 1, buffer, 1);
+		return getMtbScale(edgeId, uphill);
+	}
+
+	public int getMtbScale(int edgeId, boolean uphill) {
+		byte value = edges.getByte((long) edgeId * edgeEntryBytes + EF_DIFFICULTY_SCALE + 1);
 		
 		if (uphill)
-			return  (byte)(buffer[0] & 0x0F);
+			return  (byte)(value & 0x0F);
 		else
-			return (byte)((buffer[0] >> 4) & (byte) 0x0F);
+			return (byte)((value >> 4) & (byte) 0x0F);
 	}
 
 	public boolean isRequireNodeField() {
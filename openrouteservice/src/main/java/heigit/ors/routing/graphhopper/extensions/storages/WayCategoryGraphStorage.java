@@ -103,14 +103,11 @@ public class WayCategoryGraphStorage implements GraphExtension {
 	}
 
 	public int getEdgeValue(int edgeId, byte[] buffer) {
-		long edgePointer = (long) edgeId * edgeEntryBytes;
-		orsEdges.getBytes(edgePointer + EF_WAYTYPE, buffer, 1);
-		
-		int result = buffer[0];
-	    if (result < 0)
-	    	result = (int)result & 0xff;
-		
-		return result;
+		return getEdgeValue(edgeId);
+	}
+
+	public int getEdgeValue(int edgeId) {
+		return orsEdges.getByte((long) edgeId * edgeEntryBytes + EF_WAYTYPE) & 0xff;
 	}
 
 	public boolean isRequireNodeField() {
@@ -111,17 +111,38 @@ public class WaySurfaceTypeGraphStorage implements GraphExtension {
 	
 	public WaySurfaceDescription getEdgeValue(int edgeId, byte[] buffer)
 	{
-		long edgePointer = (long) edgeId * edgeEntryBytes;
-		orsEdges.getBytes(edgePointer + EF_WAYTYPE, buffer, 1);
-		
-		byte compValue = buffer[0];
+		int compValue = getPackedInt(edgeId);
 		WaySurfaceDescription res = new WaySurfaceDescription();
-		res.WayType = (byte)((compValue & 0b11110000) >> 4);
-	    res.SurfaceType = (byte)(compValue & 0b00001111);
+		res.WayType = (byte)getWayType(compValue);
+	    res.SurfaceType = (byte)getSurfaceType(compValue);
 	    
 	    return res;
 	}
 
+	/**
+	 * @return the way type and the surface type of the edge packed into the lowest byte, 
+	 * use {@link #getWayType(int)} and {@link #getSurfaceType(int)} to unpack them without allocations.
+	 */
+	public int getPackedInt(int edgeId)
+	{
+		return getByte(edgeId) & 0xFF;
+	}
+
+	public byte getByte(int edgeId)
+	{
+		return orsEdges.getByte((long) edgeId * edgeEntryBytes + EF_WAYTYPE);
+	}
+
+	public static int getWayType(int packedValue)
+	{
+		return (packedValue & 0b11110000) >> 4;
+	}
+
+	public static int getSurfaceType(int packedValue)
+	{
+		return packedValue & 0b00001111;
+	}
+
 	public boolean isRequireNodeField() {
 		return false;
 	}
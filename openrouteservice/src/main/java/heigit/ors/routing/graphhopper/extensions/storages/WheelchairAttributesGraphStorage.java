@@ -179,12 +179,15 @@ public class WheelchairAttributesGraphStorage implements GraphExtension
 
 	private void decodeAttributes(WheelchairAttributes attrs, byte[] buffer)
 	{
-		attrs.reset();
-
-		if (buffer[0] == 0)
-			return;
+		decodeAttributes((buffer[0] & 0xFF) | (buffer[1] & 0xFF) << 8 | (buffer[2] & 0xFF) << 16, attrs);
+	}
 
-		long encodedValue = ((buffer[0] & 0xFF) | (buffer[1] & 0xFF) << 8 |	(buffer[2] & 0xFF) << 16);
+	/**
+	 * Decodes a value returned by {@link #getEncodedValue(int)}.
+	 */
+	public void decodeAttributes(int encodedValue, WheelchairAttributes attrs)
+	{
+		attrs.reset();
 
 		if ((1 & (encodedValue >> 0)) != 0)
 		{
@@ -217,6 +220,16 @@ public class WheelchairAttributesGraphStorage implements GraphExtension
 		decodeAttributes(attrs, buffer);
 	}
 
+	/**
+	 * @return the attributes of the edge encoded into the lowest three bytes, use {@link #decodeAttributes(int, WheelchairAttributes)} 
+	 * to unpack them.
+	 */
+	public int getEncodedValue(int edgeId) {
+		long edgePointer = (long) edgeId * (long) edgeEntryBytes + EF_WHEELCHAIR_ATTRIBUTES;
+
+		return (orsEdges.getByte(edgePointer) & 0xFF) | (orsEdges.getByte(edgePointer + 1) & 0xFF) << 8 | (orsEdges.getByte(edgePointer + 2) & 0xFF) << 16;
+	}
+
 	public boolean isRequireNodeField() {
 		return false;
 	}
@@ -203,11 +203,14 @@ public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder {
         // Go through the points of the linestring and check what country they are in
         int lsLen = coords.length;
         if(lsLen > 1) {
+            // Look up the candidates of all points at once, the reader only queries its spatial index for the extent
+            // of the whole way
+            CountryBordersPolygon[][] candidates = cbReader.getCandidateCountry(coords);
             for(int i=0; i<lsLen; i++) {
                 // Make sure that it is a valid point
                 Coordinate c = coords[i];
                 if(!Double.isNaN(c.x) && !Double.isNaN(c.y)) {
-                    CountryBordersPolygon[] cnts = cbReader.getCandidateCountry(c);
+                    CountryBordersPolygon[] cnts = candidates[i];
                     for (CountryBordersPolygon cbp : cnts) {
                         // This check is for the bbox as that is quickest for detecting if there is the possibility of a
                         // crossing
@@ -20,30 +20,27 @@
  */
 package heigit.ors.routing.graphhopper.extensions.storages.builders;
 
+import com.carrotsearch.hppc.LongByteHashMap;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.reader.ReaderWay;
 import com.graphhopper.storage.GraphExtension;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.Helper;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 
 import heigit.ors.routing.graphhopper.extensions.storages.GreenIndexGraphStorage;
+import heigit.ors.util.NumericCSVReader;
 
 /**
  * Created by lliu on 13/03/2017.
  */
 public class GreenIndexGraphStorageBuilder extends AbstractGraphStorageBuilder {
     private GreenIndexGraphStorage _storage;
-    private Map<Long, Double> _greenIndices = new HashMap<>();
+    // green levels per osm way id, the raw values are mapped to the levels while reading the file
+    private LongByteHashMap _greenIndices = new LongByteHashMap();
     private static int TOTAL_LEVEL = 64;
     private static int DEFAULT_LEVEL = TOTAL_LEVEL - 1;
-    private Map<Byte, SlotRange> _slots = new HashMap<>(TOTAL_LEVEL);
+    private SlotRange[] _slots = new SlotRange[TOTAL_LEVEL];
 
     public GreenIndexGraphStorageBuilder() {
 
@@ -56,71 +53,67 @@ public class GreenIndexGraphStorageBuilder extends AbstractGraphStorageBuilder {
 
         // TODO Check if the _greenIndexFile exists
         String csvFile = _parameters.get("filepath");
+        // the file is read twice, first for the range of the values and then for the levels, so that the raw
+        // values never have to be kept in memory
+        prepareGreenIndexSlots(csvFile);
         readGreenIndicesFromCSV(csvFile);
-        prepareGreenIndexSlots();
         _storage = new GreenIndexGraphStorage();
 
         return _storage;
     }
 
-    private void prepareGreenIndexSlots() {
-        double max = Collections.max(_greenIndices.values());
-        double min = Collections.min(_greenIndices.values());
+    private void prepareGreenIndexSlots(String csvFile) throws IOException {
+        double max = Double.NEGATIVE_INFINITY;
+        double min = Double.POSITIVE_INFINITY;
+        int count = 0;
+
+        NumericCSVReader csvReader = new NumericCSVReader(csvFile);
+        try {
+            while (csvReader.next()) {
+                double value = csvReader.getValue();
+                if (value > max)
+                    max = value;
+                if (value < min)
+                    min = value;
+                count++;
+            }
+        } finally {
+            csvReader.close();
+        }
+
+        if (count == 0)
+            throw new IOException("No green index values found in " + csvFile);
+
         double step = (max - min) / TOTAL_LEVEL;
         // Divide the range of raw green index values into TOTAL_LEVEL,
         // then map the raw value to [0..TOTAL_LEVEL - 1]
         for (byte i = 0; i < TOTAL_LEVEL; i++) {
-            _slots.put(i, new SlotRange(min + i * step, min + (i + 1) * step));
+            _slots[i] = new SlotRange(min + i * step, min + (i + 1) * step);
         }
+
+        _greenIndices = new LongByteHashMap(count);
     }
 
     private void readGreenIndicesFromCSV(String csvFile) throws IOException {
-        BufferedReader csvBuffer = null;
+        NumericCSVReader csvReader = null;
         
         try {
-            String row;
-            csvBuffer = new BufferedReader(new FileReader(csvFile));
-            // Jump the header line
-            row = csvBuffer.readLine();
-            char separator = row.contains(";") ? ';': ',';
-            String[] rowValues = new String[2];
+            csvReader = new NumericCSVReader(csvFile);
             
-            while ((row = csvBuffer.readLine()) != null) 
+            while (csvReader.next()) 
             {
-                if (!parseCSVrow(row, separator, rowValues)) 
-                	continue;
-                
-                _greenIndices.put(Long.parseLong(rowValues[0]), Double.parseDouble(rowValues[1]));
+                _greenIndices.put(csvReader.getKey(), calcGreenLevel(csvReader.getValue()));
             }
 
         } catch (IOException openFileEx) {
             openFileEx.printStackTrace();
             throw openFileEx;
         } finally {
-            if (csvBuffer != null) 
-            	csvBuffer.close();
+            if (csvReader != null) 
+            	csvReader.close();
         }
     }
 
-    private boolean parseCSVrow(String row, char separator,  String[] rowValues) {
-        if (Helper.isEmpty(row))
-        	return false;
-        
-        int pos = row.indexOf(separator);
-        if (pos > 0)
-        {
-        	rowValues[0] = row.substring(0, pos).trim();
-        	rowValues[1] = row.substring(pos+1, row.length()).trim();
-        	// read, check and push "osm_id" and "ungreen_factor" values
-        	if (Helper.isEmpty(rowValues[0]) || Helper.isEmpty(rowValues[1])) 
-        		return false;
-        	
-        	return true;
-        }
-        else
-        	return false;
-    }
-
     @Override
     public void processWay(ReaderWay way) {
 
@@ -148,18 +141,17 @@ public class GreenIndexGraphStorageBuilder extends AbstractGraphStorageBuilder {
     }
 
     private byte calcGreenIndex(long id) {
-        Double gi = _greenIndices.get(id);
-
-        // No such @id key in the _greenIndices, or the value of it is null
+        // No such @id key in the _greenIndices
         // We set its green level to TOTAL_LEVEL/2 indicating the middle value for such cases
         // TODO this DEFAULT_LEVEL should be put in the app.config file and
         // injected back in the code
-        if (gi == null)
-            return (byte) (DEFAULT_LEVEL);
+        return _greenIndices.getOrDefault(id, (byte) (DEFAULT_LEVEL));
+    }
 
-        for (Map.Entry<Byte, SlotRange> s : _slots.entrySet()) {
-            if (s.getValue().within(gi))
-                return s.getKey();
+    private byte calcGreenLevel(double gi) {
+        for (byte i = 0; i < TOTAL_LEVEL; i++) {
+            if (_slots[i].within(gi))
+                return i;
         }
         return (byte) (DEFAULT_LEVEL);
     }
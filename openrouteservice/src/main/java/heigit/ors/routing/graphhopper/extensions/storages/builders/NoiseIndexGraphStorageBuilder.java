@@ -20,26 +20,23 @@
  */
 package heigit.ors.routing.graphhopper.extensions.storages.builders;
 
+import com.carrotsearch.hppc.LongByteHashMap;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.reader.ReaderWay;
 import com.graphhopper.storage.GraphExtension;
 import com.graphhopper.util.EdgeIteratorState;
-import com.graphhopper.util.Helper;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import heigit.ors.routing.graphhopper.extensions.storages.NoiseIndexGraphStorage;
+import heigit.ors.util.NumericCSVReader;
 
 /**
  * Created by ZWang on 13/06/2017.
  */
 public class NoiseIndexGraphStorageBuilder extends AbstractGraphStorageBuilder {
     private NoiseIndexGraphStorage _storage;
-    private Map<Long, Integer> osmId2noiseLevel = new HashMap<>();
+    private LongByteHashMap osmId2noiseLevel = new LongByteHashMap();
     // currently noise level is only from 0 to 3
     private int max_level = 8;
 
@@ -61,47 +58,25 @@ public class NoiseIndexGraphStorageBuilder extends AbstractGraphStorageBuilder {
     }
 
     private void readNoiseIndicesFromCSV(String csvFile) throws IOException {
-        BufferedReader csvBuffer = null;
+        NumericCSVReader csvReader = null;
         try {
-            String row;
-            csvBuffer = new BufferedReader(new FileReader(csvFile));
-            // Jump the header line
-            csvBuffer.readLine();
-            String[] rowValues = new String[2]; 
-            while ((row = csvBuffer.readLine()) != null) 
+            csvReader = new NumericCSVReader(csvFile);
+            while (csvReader.next()) 
             {
-                if (!parseCSVrow(row, rowValues)) 
-                	continue;
-                
-                osmId2noiseLevel.put(Long.parseLong(rowValues[0]), Integer.parseInt(rowValues[1]));
+                double level = csvReader.getValue();
+                if (level != (int) level)
+                    throw new NumberFormatException("Invalid noise level " + level + " of osm way " + csvReader.getKey());
+
+                osmId2noiseLevel.put(csvReader.getKey(), (byte) level);
             }
 
         } catch (IOException openFileEx) {
             openFileEx.printStackTrace();
             throw openFileEx;
         } finally {
-            if (csvBuffer != null) 
-            	csvBuffer.close();
-        }
-    }
-
-    private boolean parseCSVrow(String row,  String[] rowValues) {
-        if (Helper.isEmpty(row))
-        	return false;
-        
-        int pos = row.indexOf(',');
-        if (pos > 0)
-        {
-        	rowValues[0] = row.substring(0, pos).trim();
-        	rowValues[1] = row.substring(pos+1, row.length()).trim();
-        	// read, check and push "osm_id" and "noise level" values
-        	if (Helper.isEmpty(rowValues[0]) || Helper.isEmpty(rowValues[1])) 
-        		return false;
-        	
-        	return true;
+            if (csvReader != null) 
+            	csvReader.close();
         }
-        else
-        	return false;
     }
 
     @Override
@@ -117,16 +92,13 @@ public class NoiseIndexGraphStorageBuilder extends AbstractGraphStorageBuilder {
     }
 
     private byte getNoiseLevel(long id) {
-        Integer gi = osmId2noiseLevel.get(id);
-
-        // No such @id key in the _noiseIndices, or the value of it is null
+        // No such @id key in the _noiseIndices
         // We set its noise level to zero (no noise)
-        if (gi == null)
-            return (byte) (0);
-        if (gi.intValue() > max_level)
+        byte gi = osmId2noiseLevel.getOrDefault(id, (byte) 0);
+        if (gi > max_level)
         	new AssertionError("The noise level of osm way, id = "+ id + " is " + gi +", which is larger than than max level!");
         
-        return (byte) (gi.intValue());
+        return gi;
     }
 
     @Override
@@ -20,6 +20,9 @@
  */
 package heigit.ors.routing.graphhopper.extensions.weighting;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.routing.weighting.AbstractWeighting;
@@ -27,25 +30,71 @@ import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PMap;
 
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
+
 public class AdditionWeighting extends AbstractWeighting {
 	private Weighting _superWeighting;
     private WeightCalc _weightCalc;
+    // soft weightings that only depend on the packed attributes of the edge, evaluated with a single read
+    private PackedWeightCalc _packedWeightCalc;
 
     public AdditionWeighting(Weighting[] weightings, Weighting superWeighting, FlagEncoder encoder, PMap map, GraphStorage graphStorage) {
         super(encoder);
         _superWeighting = superWeighting;
         
+        List<Weighting> packedWeightings = new ArrayList<Weighting>(weightings.length);
+        List<Weighting> otherWeightings = new ArrayList<Weighting>(weightings.length);
+        int attributes = 0;
+        for (Weighting w : weightings) {
+        	int attribute = getPackedAttribute(w);
+        	if (attribute != 0) {
+        		packedWeightings.add(w);
+        		attributes |= attribute;
+        	}
+        	else
+        		otherWeightings.add(w);
+        }
+
+        PackedEdgeAttributesGraphStorage packedStorage = null;
+        if (!packedWeightings.isEmpty())
+        	packedStorage = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, attributes);
+
+        if (packedStorage != null) {
+        	_packedWeightCalc = new PackedWeightCalc(packedStorage, packedWeightings.toArray(new Weighting[packedWeightings.size()]));
+        	_weightCalc = createWeightCalc(otherWeightings.toArray(new Weighting[otherWeightings.size()]));
+        }
+        else
+        	_weightCalc = createWeightCalc(weightings);
+    }
+
+    private WeightCalc createWeightCalc(Weighting[] weightings) {
         int count = weightings.length;
         if (count == 1)
-           _weightCalc = new OneWeightCalc(weightings);
+           return new OneWeightCalc(weightings);
         else if (count == 2)
-            _weightCalc = new TwoWeightCalc(weightings);
+            return new TwoWeightCalc(weightings);
         else if (count == 3)
-            _weightCalc = new ThreeWeightCalc(weightings);
+            return new ThreeWeightCalc(weightings);
         else if (count == 4)
-            _weightCalc = new FourWeightCalc(weightings);
+            return new FourWeightCalc(weightings);
         else if (count == 5)
-            _weightCalc = new FiveWeightCalc(weightings);
+            return new FiveWeightCalc(weightings);
+
+        return null;
+    }
+
+    /**
+     * @return the packed attribute the factor of the weighting is looked up from, or 0 if the weighting depends on more than that.
+     */
+    private static int getPackedAttribute(Weighting weighting) {
+    	if (weighting instanceof GreenWeighting)
+    		return PackedEdgeAttributesGraphStorage.ATTR_GREEN_INDEX;
+    	else if (weighting instanceof QuietWeighting)
+    		return PackedEdgeAttributesGraphStorage.ATTR_NOISE_INDEX;
+    	else if (weighting instanceof AvoidHillsWeighting || weighting instanceof SteepnessDifficultyWeighting)
+    		return PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX;
+
+    	return 0;
     }
     
     public abstract class WeightCalc
@@ -159,10 +208,80 @@ public class AdditionWeighting extends AbstractWeighting {
     	}
     }
 
+    /**
+     * Sums the factors of the green, quiet and hill weightings. The factor tables of the weightings are merged 
+     * per attribute, so an edge costs one read of its packed attributes and at most three table lookups.
+     */
+    public class PackedWeightCalc extends WeightCalc
+    {
+    	private PackedEdgeAttributesGraphStorage _storage;
+    	private double[] _greenFactors;
+    	private double[] _noiseFactors;
+    	private double[] _hillFactors;
+    	private double _constant;
+    	private WeightCalc _millisCalc;
+
+    	public PackedWeightCalc(PackedEdgeAttributesGraphStorage storage, Weighting[] weightings)
+    	{
+    		_storage = storage;
+    		_millisCalc = createWeightCalc(weightings);
+
+    		for (Weighting w : weightings) {
+    			if (w instanceof GreenWeighting)
+    				_greenFactors = addFactors(_greenFactors, ((GreenWeighting) w).getFactors());
+    			else if (w instanceof QuietWeighting)
+    				_noiseFactors = addFactors(_noiseFactors, ((QuietWeighting) w).getFactors());
+    			else if (w instanceof AvoidHillsWeighting)
+    				_hillFactors = addFactors(_hillFactors, ((AvoidHillsWeighting) w).getFactors());
+    			else if (((SteepnessDifficultyWeighting) w).getFactors() != null)
+    				_hillFactors = addFactors(_hillFactors, ((SteepnessDifficultyWeighting) w).getFactors());
+    			else
+    				_constant += 1.0;
+    		}
+    	}
+
+    	private double[] addFactors(double[] factors, double[] otherFactors)
+    	{
+    		if (factors == null)
+    			return otherFactors.clone();
+
+    		double[] res = new double[Math.min(factors.length, otherFactors.length)];
+    		for (int i = 0; i < res.length; i++)
+    			res[i] = factors[i] + otherFactors[i];
+
+    		return res;
+    	}
+
+    	public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId)
+    	{
+    		int value = _storage.getSoftAttributes(edgeState.getOriginalEdge());
+
+    		double weight = _constant;
+    		if (_greenFactors != null)
+    			weight += _greenFactors[PackedEdgeAttributesGraphStorage.getGreenIndex(value)];
+    		if (_noiseFactors != null)
+    			weight += _noiseFactors[PackedEdgeAttributesGraphStorage.getNoiseIndex(value)];
+    		if (_hillFactors != null)
+    			weight += _hillFactors[PackedEdgeAttributesGraphStorage.getHillIndex(value, edgeState.getBaseNode() < edgeState.getAdjNode())];
+
+    		return weight;
+    	}
+
+    	public long calcMillis(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId)
+    	{
+    		return _millisCalc.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+    	}
+    }
+
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
-        
-    	return _superWeighting.calcWeight(edgeState, reverse, prevOrNextEdgeId) * _weightCalc.calcWeight(edgeState, reverse, prevOrNextEdgeId);
+    	double softWeight = 0;
+    	if (_packedWeightCalc != null)
+    		softWeight = _packedWeightCalc.calcWeight(edgeState, reverse, prevOrNextEdgeId);
+    	if (_weightCalc != null)
+    		softWeight += _weightCalc.calcWeight(edgeState, reverse, prevOrNextEdgeId);
+
+    	return _superWeighting.calcWeight(edgeState, reverse, prevOrNextEdgeId) * softWeight;
     }
 
 	@Override
@@ -172,7 +291,13 @@ public class AdditionWeighting extends AbstractWeighting {
 	
 	@Override
 	public long calcMillis(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
-		return _superWeighting.calcMillis(edgeState, reverse, prevOrNextEdgeId) + _weightCalc.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+		long millis = _superWeighting.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+		if (_packedWeightCalc != null)
+			millis += _packedWeightCalc.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+		if (_weightCalc != null)
+			millis += _weightCalc.calcMillis(edgeState, reverse, prevOrNextEdgeId);
+
+		return millis;
 	}
 
 	@Override
@@ -22,6 +22,7 @@ package heigit.ors.routing.graphhopper.extensions.weighting;
 
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 
 import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.routing.util.FlagEncoder;
@@ -37,8 +38,9 @@ import com.graphhopper.util.PMap;
 public class AvoidHillsWeighting extends FastestWeighting
 {
 	private HillIndexGraphStorage gsHillIndex;
-	private byte[] buffer;
+	private PackedEdgeAttributesGraphStorage gsPackedAttributes;
 	private double maxSteepness = -1;
+	private double[] factors;
 	                                         //0     1   2    3    4    5    6    7    8    9   10    11   12   13    14    15
 	private static double[] PENALTY_FACTOR = {1.0, 1.0, 1.1, 1.5, 1.7, 1.8, 2.0, 2.2, 2.4, 2.6, 2.8, 3.2, 3.5, 3.7, 3.9, 4.2};
 	//private static double[] PENALTY_FACTOR = {1.0, 1.0, 1.1, 1.5, 2.0, 2.1, 2.3, 2.4, 2.5, 2.7, 2.9, 3.1, 3.3, 3.6, 3.8, 4.5};
@@ -47,24 +49,36 @@ public class AvoidHillsWeighting extends FastestWeighting
     {
         super(encoder, map);
         
-        buffer = new byte[1];
         this.maxSteepness = map.getDouble("steepness_maximum", -1);
         
-        gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        gsPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX);
+        if (gsPackedAttributes == null)
+        	gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        
+        // the maximum steepness of the request is folded into the penalties, so that an edge needs a single lookup
+        factors = new double[PENALTY_FACTOR.length];
+        for (int i = 0; i < factors.length; i++)
+        	factors[i] = (maxSteepness > 0 && i > maxSteepness) ? 100 : PENALTY_FACTOR[i];
+    }
+    
+    /**
+     * @return the factors per hill index, used by {@link AdditionWeighting} to look them up without this weighting.
+     */
+    double[] getFactors()
+    {
+    	return factors;
     }
     
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId )
     {
-    	if (gsHillIndex != null)
+    	if (gsPackedAttributes != null || gsHillIndex != null)
     	{
     		boolean revert = edgeState.getBaseNode() < edgeState.getAdjNode();
-    		int hillIndex = gsHillIndex.getEdgeValue(edgeState.getEdge(), revert, buffer);
-    		
-    		if (maxSteepness > 0 && hillIndex > maxSteepness)
-    			return 100;
+    		int hillIndex = gsPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getHillIndex(gsPackedAttributes.getSoftAttributes(edgeState.getEdge()), revert) 
+    				: gsHillIndex.getEdgeValue(edgeState.getEdge(), revert);
     		
-    		return PENALTY_FACTOR[hillIndex];
+    		return factors[hillIndex];
     	}
 
     	return 1;
@@ -28,13 +28,14 @@ import com.graphhopper.util.PMap;
 
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.storages.GreenIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 
 /**
  * Created by lliu on 15/03/2017.
  */
 public class GreenWeighting extends FastestWeighting {
     private GreenIndexGraphStorage _gsGreenIndex;
-    private byte[] _buffer = new byte[1];
+    private PackedEdgeAttributesGraphStorage _gsPackedAttributes;
     private double[] _factors = new double[totalLevel]; 
 
     private static final int totalLevel = 64;
@@ -42,7 +43,9 @@ public class GreenWeighting extends FastestWeighting {
     public GreenWeighting(FlagEncoder encoder, PMap map, GraphStorage graphStorage) {
         super(encoder, map);
         
-        _gsGreenIndex = GraphStorageUtils.getGraphExtension(graphStorage, GreenIndexGraphStorage.class);
+        _gsPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_GREEN_INDEX);
+        if (_gsPackedAttributes == null)
+            _gsGreenIndex = GraphStorageUtils.getGraphExtension(graphStorage, GreenIndexGraphStorage.class);
         double factor = map.getDouble("factor", 1);
         
         for (int i = 0; i < totalLevel; i++)
@@ -62,10 +65,20 @@ public class GreenWeighting extends FastestWeighting {
         return 1.0 - (1.0 - wf) * factor;
     }
 
+    /**
+     * @return the factors per green level, used by {@link AdditionWeighting} to look them up without this weighting.
+     */
+    double[] getFactors() {
+        return _factors;
+    }
+
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
+        if (_gsPackedAttributes != null)
+            return _factors[PackedEdgeAttributesGraphStorage.getGreenIndex(_gsPackedAttributes.getSoftAttributes(edgeState.getOriginalEdge()))];
+
         if (_gsGreenIndex != null) {
-            int greenLevel = _gsGreenIndex.getEdgeValue(edgeState.getOriginalEdge(), _buffer);
+            int greenLevel = _gsGreenIndex.getEdgeValue(edgeState.getOriginalEdge());
             return _factors[greenLevel];
         }
 
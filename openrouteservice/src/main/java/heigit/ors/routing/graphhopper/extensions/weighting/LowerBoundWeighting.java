@@ -0,0 +1,63 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.weighting;
+
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.PriorityWeighting;
+import com.graphhopper.util.EdgeIteratorState;
+
+/**
+ * Time based weighting which never exceeds any of the time based weightings used by ORS for the same flag encoder. 
+ * Priority weightings divide the travel time by at most 0.5 + 2.2 (see {@link PreferencePriorityWeighting}), all 
+ * other weightings and edge filters only increase weights or remove edges. Landmarks computed with this weighting 
+ * therefore give admissible lower bounds for every request of the encoder.
+ */
+public class LowerBoundWeighting extends FastestWeighting {
+	private static final double MAX_PRIORITY_DIVISOR = 0.5 + 2.2;
+
+	private final double _factor;
+
+	public LowerBoundWeighting(FlagEncoder encoder) {
+		super(encoder);
+
+		_factor = encoder.supports(PriorityWeighting.class) ? 1.0 / MAX_PRIORITY_DIVISOR : 1.0;
+	}
+
+	@Override
+	public double getMinWeight(double distance) {
+		return super.getMinWeight(distance) * _factor;
+	}
+
+	@Override
+	public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
+		double weight = super.calcWeight(edgeState, reverse, prevOrNextEdgeId);
+		if (Double.isInfinite(weight))
+			return Double.POSITIVE_INFINITY;
+
+		return weight * _factor;
+	}
+
+	@Override
+	public String getName() {
+		return "lower_bound_fastest";
+	}
+}
@@ -28,17 +28,25 @@ import com.graphhopper.util.PMap;
 
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.storages.NoiseIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 
 public class QuietWeighting extends FastestWeighting {
     private NoiseIndexGraphStorage _gsNoiseIndex;
-    private byte[] _buffer;
+    private PackedEdgeAttributesGraphStorage _gsPackedAttributes;
     private double _weightingFactor = 1;
+    private double[] _factors = new double[totalLevel];
+
+    private static final int totalLevel = 4;
 
     public QuietWeighting(FlagEncoder encoder, PMap map, GraphStorage graphStorage) {
         super(encoder, map);
-        _buffer = new byte[1];
-        _gsNoiseIndex = GraphStorageUtils.getGraphExtension(graphStorage, NoiseIndexGraphStorage.class);
+        _gsPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_NOISE_INDEX);
+        if (_gsPackedAttributes == null)
+            _gsNoiseIndex = GraphStorageUtils.getGraphExtension(graphStorage, NoiseIndexGraphStorage.class);
         _weightingFactor = map.getDouble("factor", 1);
+
+        for (int i = 0; i < totalLevel; i++)
+        	_factors[i] = calcNoiseWeightFactor(i);
     }
 
     private double calcNoiseWeightFactor(int level) {
@@ -54,11 +62,21 @@ public class QuietWeighting extends FastestWeighting {
         	throw new AssertionError("The noise level "+  level + " is not supported!");
     }
 
+    /**
+     * @return the factors per noise level, used by {@link AdditionWeighting} to look them up without this weighting.
+     */
+    double[] getFactors() {
+        return _factors;
+    }
+
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
-        if (_gsNoiseIndex != null) {
-            int noiseLevel = _gsNoiseIndex.getEdgeValue(edgeState.getOriginalEdge(), _buffer);
-            return calcNoiseWeightFactor(noiseLevel);
+        if (_gsPackedAttributes != null || _gsNoiseIndex != null) {
+            int noiseLevel = _gsPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getNoiseIndex(_gsPackedAttributes.getSoftAttributes(edgeState.getOriginalEdge())) 
+            		: _gsNoiseIndex.getEdgeValue(edgeState.getOriginalEdge());
+            if (noiseLevel >= totalLevel)
+            	throw new AssertionError("The noise level "+  noiseLevel + " is not supported!");
+            return _factors[noiseLevel];
         }
 
         return 1.0;
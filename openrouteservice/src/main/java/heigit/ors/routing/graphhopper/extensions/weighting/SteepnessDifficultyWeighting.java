@@ -22,6 +22,7 @@ package heigit.ors.routing.graphhopper.extensions.weighting;
 
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
 
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.FastestWeighting;
@@ -37,7 +38,7 @@ public class SteepnessDifficultyWeighting extends FastestWeighting
     public static final int KEY = 101;
     
 	private HillIndexGraphStorage gsHillIndex;
-	private byte[] buffer;
+	private PackedEdgeAttributesGraphStorage gsPackedAttributes;
 	private double[] difficultyWeights;
 	
 	private static double BIKE_DIFFICULTY_MATRIX[][];
@@ -199,13 +200,14 @@ public class SteepnessDifficultyWeighting extends FastestWeighting
     {
         super(encoder, map);
         
-        buffer = new byte[1];
 
 	    int difficultyLevel = map.getInt("level", -1);
 
-        gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        gsPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphStorage, PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX);
+        if (gsPackedAttributes == null)
+        	gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
         
-        if (gsHillIndex != null)
+        if (gsPackedAttributes != null || gsHillIndex != null)
         {
         	if (difficultyLevel >= 0)
         	{
@@ -218,13 +220,22 @@ public class SteepnessDifficultyWeighting extends FastestWeighting
         }
     }
     
+    /**
+     * @return the factors per hill index, or null if the factor is always 1.
+     */
+    double[] getFactors()
+    {
+    	return difficultyWeights;
+    }
+    
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId )
     {
-    	if (gsHillIndex != null)
+    	if (gsPackedAttributes != null || gsHillIndex != null)
     	{
     		boolean revert = edgeState.getBaseNode() < edgeState.getAdjNode();
-    		int hillIndex = gsHillIndex.getEdgeValue(edgeState.getOriginalEdge(), revert, buffer);
+    		int hillIndex = gsPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getHillIndex(gsPackedAttributes.getSoftAttributes(edgeState.getOriginalEdge()), revert) 
+    				: gsHillIndex.getEdgeValue(edgeState.getOriginalEdge(), revert);
 
     		if (difficultyWeights != null)
     			return difficultyWeights[hillIndex];
@@ -28,7 +28,6 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.PathProcessor;
 import com.graphhopper.routing.util.PriorityCode;
 import com.graphhopper.routing.weighting.PriorityWeighting;
-import com.graphhopper.routing.util.WaySurfaceDescription;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PointList;
 
@@ -51,6 +50,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 	private TollwaysGraphStorage _extTollways;
 	private TrailDifficultyScaleGraphStorage _extTrailDifficulty;
 	private HillIndexGraphStorage _extHillIndex;
+	private PackedEdgeAttributesGraphStorage _extPackedAttributes;
 	
 	private RouteExtraInfo _surfaceInfo;
 	private RouteExtraInfoBuilder _surfaceInfoBuilder;
@@ -87,7 +87,6 @@ public class ExtraInfoProcessor extends PathProcessor {
 	private FlagEncoder _encoder;
 	private double _maximumSpeed = -1;
 	private boolean _encoderWithPriority = false;
-	private byte[] buffer;
 	private boolean _lastSegment;
 
 	public ExtraInfoProcessor(ORSGraphHopper graphHopper, RoutingRequest req) throws Exception 
@@ -95,6 +94,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		_profileType = req.getSearchParameters().getProfileType();
 		_maximumSpeed = req.getSearchParameters().getMaximumSpeed();
 		int extraInfo = req.getExtraInfo();
+		int packedAttributes = 0;
 		
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.WayCategory))
 		{
@@ -105,6 +105,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 			
 			_wayCategoryInfo = new RouteExtraInfo("waycategory");
 			_wayCategoryInfoBuilder = new SimpleRouteExtraInfoBuilder(_wayCategoryInfo);
+			packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_WAY_CATEGORY;
 		}
 		
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Surface) || RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.WayType))
@@ -113,6 +114,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 			
 			if (_extWaySurface == null)
 				throw new Exception("WaySurfaceType storage is not found.");
+			packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_WAY_SURFACE;
 
 			if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Surface))
 			{
@@ -155,6 +157,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 			_tollwaysInfo = new RouteExtraInfo("tollways");
 			_tollwaysInfoBuilder = new SimpleRouteExtraInfoBuilder(_tollwaysInfo);
 			_tollwayExtractor = new TollwayExtractor(_extTollways, req.getSearchParameters().getVehicleType(), req.getSearchParameters().getProfileParameters());
+			packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_TOLLWAYS;
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.TrailDifficulty))
@@ -164,6 +167,9 @@ public class ExtraInfoProcessor extends PathProcessor {
 			
 			_trailDifficultyInfo = new RouteExtraInfo("traildifficulty");
 			_trailDifficultyInfoBuilder = new SimpleRouteExtraInfoBuilder(_trailDifficultyInfo);
+			packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_TRAIL_DIFFICULTY;
+			if (_extHillIndex != null)
+				packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX;
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Green)) {
@@ -173,6 +179,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 				throw new Exception("GreenIndex storage is not found.");
 			_greenInfo = new RouteExtraInfo("green");
 			_greenInfoBuilder = new SimpleRouteExtraInfoBuilder(_greenInfo);
+			packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_GREEN_INDEX;
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Noise)) {
@@ -183,9 +190,12 @@ public class ExtraInfoProcessor extends PathProcessor {
 				throw new Exception("NoiseIndex storage is not found.");
 			_noiseInfo = new RouteExtraInfo("noise");
 			_noiseInfoBuilder = new SimpleRouteExtraInfoBuilder(_noiseInfo);
+			packedAttributes |= PackedEdgeAttributesGraphStorage.ATTR_NOISE_INDEX;
 		}
 
-		buffer = new byte[4];
+		// all requested attributes of an edge are read from one row if the packed storage holds them
+		if (packedAttributes != 0)
+			_extPackedAttributes = PackedEdgeAttributesGraphStorage.getStorage(graphHopper.getGraphHopperStorage(), packedAttributes);
 	}
 
 	public void setSegmentIndex(int index, int count)
@@ -225,20 +235,34 @@ public class ExtraInfoProcessor extends PathProcessor {
 	public void processEdge(int pathIndex, EdgeIteratorState edge, boolean lastEdge, PointList geom) {
 		double dist = edge.getDistance();
 
+		int softAttributes = 0;
+		int wayAttributes = 0;
+		if (_extPackedAttributes != null)
+		{
+			softAttributes = _extPackedAttributes.getSoftAttributes(edge.getOriginalEdge());
+			wayAttributes = _extPackedAttributes.getWayAttributes(edge.getOriginalEdge());
+		}
+
 		if (_extWaySurface != null && _wayTypeInfo != null || _surfaceInfo != null)
 		{
-			WaySurfaceDescription wsd = _extWaySurface.getEdgeValue(edge.getOriginalEdge(), buffer);
+			int waySurface = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getWaySurface(wayAttributes) : _extWaySurface.getPackedInt(edge.getOriginalEdge());
 
 			if (_surfaceInfoBuilder != null)
-				_surfaceInfoBuilder.addSegment(wsd.SurfaceType, wsd.SurfaceType, geom, dist, lastEdge && _lastSegment);
+			{
+				int surfaceType = WaySurfaceTypeGraphStorage.getSurfaceType(waySurface);
+				_surfaceInfoBuilder.addSegment(surfaceType, surfaceType, geom, dist, lastEdge && _lastSegment);
+			}
 			
 			if (_wayTypeInfo != null)
-				_wayTypeInfoBuilder.addSegment(wsd.WayType, wsd.WayType, geom, dist, lastEdge && _lastSegment);
+			{
+				int wayType = WaySurfaceTypeGraphStorage.getWayType(waySurface);
+				_wayTypeInfoBuilder.addSegment(wayType, wayType, geom, dist, lastEdge && _lastSegment);
+			}
 		}
 		
 		if (_wayCategoryInfoBuilder != null)
 		{
-			int value = _extWayCategory.getEdgeValue(edge.getOriginalEdge(), buffer);
+			int value = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getWayCategory(wayAttributes) : _extWayCategory.getEdgeValue(edge.getOriginalEdge());
 			_wayCategoryInfoBuilder.addSegment(value, value, geom, dist, lastEdge && _lastSegment);
 		}
 		
@@ -251,15 +275,15 @@ public class ExtraInfoProcessor extends PathProcessor {
 				if (_extHillIndex != null)
 				{
 					boolean revert = edge.getBaseNode() > edge.getAdjNode();
-					int hillIndex = _extHillIndex.getEdgeValue(edge.getOriginalEdge(), revert, buffer);
+					int hillIndex = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getHillIndex(softAttributes, revert) : _extHillIndex.getEdgeValue(edge.getOriginalEdge(), revert);
 					if (hillIndex > 0)
 						uphill = true;
 				}
 				
-				value = _extTrailDifficulty.getMtbScale(edge.getOriginalEdge(), buffer, uphill);
+				value = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getMtbScale(wayAttributes, uphill) : _extTrailDifficulty.getMtbScale(edge.getOriginalEdge(), uphill);
 			}
 			else if (RoutingProfileType.isWalking(_profileType))
-				value = _extTrailDifficulty.getHikingScale(edge.getOriginalEdge(), buffer);
+				value = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getHikingScale(wayAttributes) : _extTrailDifficulty.getHikingScale(edge.getOriginalEdge());
 			
 			_trailDifficultyInfoBuilder.addSegment(value, value, geom, dist, lastEdge && _lastSegment);
 		}
@@ -274,7 +298,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		
 		if (_tollwaysInfoBuilder != null)
 		{
-			int value = _tollwayExtractor.getValue(edge.getOriginalEdge());
+			int value = _extPackedAttributes != null ? _tollwayExtractor.getValueOfType(_extPackedAttributes.getTollways(edge.getOriginalEdge())) : _tollwayExtractor.getValue(edge.getOriginalEdge());
 		    _tollwaysInfoBuilder.addSegment(value, value, geom, dist, lastEdge && _lastSegment);
 		}
 
@@ -306,7 +330,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		}
 
 		if (_greenInfoBuilder != null) {
-			int value = _extGreenIndex.getEdgeValue(edge.getOriginalEdge(), buffer);
+			int value = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getGreenIndex(softAttributes) : _extGreenIndex.getEdgeValue(edge.getOriginalEdge());
 			// This number is how many levels client can display in the stats bar
 			// FIXME should be changed when the specific bar legend for green routing is finished
 			int MIN_CLIENT_VAL = 3;
@@ -316,7 +340,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		}
 		
 		if (_noiseInfoBuilder != null) {
-			int noise_level = _extNoiseIndex.getEdgeValue(edge.getOriginalEdge(), buffer);
+			int noise_level = _extPackedAttributes != null ? PackedEdgeAttributesGraphStorage.getNoiseIndex(softAttributes) : _extNoiseIndex.getEdgeValue(edge.getOriginalEdge());
 			// convert the noise level (from 0 to 3) to the values (from 7 to 10) for the client
 			if (noise_level > 3)
 				noise_level = 3; 
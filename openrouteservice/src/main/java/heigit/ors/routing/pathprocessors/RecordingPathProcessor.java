@@ -0,0 +1,118 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.pathprocessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.graphhopper.routing.PathProcessingContext;
+import com.graphhopper.routing.util.PathProcessor;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.PointList;
+
+import heigit.ors.routing.util.ElevationSmoother;
+
+/**
+ * Path processor used for legs which are computed concurrently. It records the calls made while the path of a leg 
+ * is extracted so that they can be replayed into the (stateful) path processor of the route in the order of the legs, 
+ * see {@link #replay(PathProcessor)}. The points are smoothed in the same way as by {@link ExtraInfoProcessor} and 
+ * {@link ElevationSmoothPathProcessor}.
+ */
+public class RecordingPathProcessor extends PathProcessor {
+	private static final int EVENT_INIT = 0;
+	private static final int EVENT_EDGE = 1;
+	private static final int EVENT_POINTS = 2;
+	private static final int EVENT_FINISH = 3;
+
+	private List<Event> _events = new ArrayList<Event>();
+
+	@Override
+	public void init(PathProcessingContext cntx) {
+		Event e = new Event(EVENT_INIT);
+		e.context = cntx;
+		_events.add(e);
+	}
+
+	@Override
+	public void setSegmentIndex(int index, int count) {
+		// the segment index is set by replay
+	}
+
+	@Override
+	public void processEdge(int pathIndex, EdgeIteratorState edge, boolean lastEdge, PointList geom) {
+		Event e = new Event(EVENT_EDGE);
+		e.pathIndex = pathIndex;
+		// the edge and the geometry might be reused by the caller
+		e.edge = edge.detach(false);
+		e.lastEdge = lastEdge;
+		e.points = geom.clone(false);
+		_events.add(e);
+	}
+
+	@Override
+	public PointList processPoints(PointList points) {
+		Event e = new Event(EVENT_POINTS);
+		e.points = points.clone(false);
+		_events.add(e);
+
+		return points.is3D() ? ElevationSmoother.smooth(points) : points;
+	}
+
+	@Override
+	public void finish() {
+		_events.add(new Event(EVENT_FINISH));
+	}
+
+	/**
+	 * Pass the recorded calls to the given path processor.
+	 */
+	public void replay(PathProcessor pathProcessor) {
+		for (Event e : _events) {
+			switch (e.type) {
+			case EVENT_INIT:
+				pathProcessor.init(e.context);
+				break;
+			case EVENT_EDGE:
+				pathProcessor.processEdge(e.pathIndex, e.edge, e.lastEdge, e.points);
+				break;
+			case EVENT_POINTS:
+				pathProcessor.processPoints(e.points);
+				break;
+			case EVENT_FINISH:
+				pathProcessor.finish();
+				break;
+			}
+		}
+	}
+
+	private static class Event {
+		public int type;
+		public PathProcessingContext context;
+		public int pathIndex;
+		public EdgeIteratorState edge;
+		public boolean lastEdge;
+		public PointList points;
+
+		public Event(int type) {
+			this.type = type;
+		}
+	}
+}
@@ -30,7 +30,6 @@ public class TollwayExtractor {
 	private VehicleParameters _vehicleParams;
 	private int _vehicleType;
 	private TollwaysGraphStorage _storage;
-	private byte[] _buffer = new byte[4];
 
 	public TollwayExtractor(TollwaysGraphStorage storage, int vehicleType, ProfileParameters vehicleParams) {
 		_storage = storage;
@@ -46,8 +45,13 @@ public class TollwayExtractor {
 	 * @see HeavyVehicleAttributes
 	 */
 	public int getValue(int edgeId) {
-		int value = _storage.getEdgeValue(edgeId, _buffer);
+		return getValueOfType(_storage.getEdgeValue(edgeId));
+	}
 
+	/**
+	 * Same as {@link #getValue(int)} for a tollway type which has already been read from a storage.
+	 */
+	public int getValueOfType(int value) {
 		if (value != TollwayType.None) {
 
 			// Check if "toll=yes" is present. If no and you're a car, you're good to go
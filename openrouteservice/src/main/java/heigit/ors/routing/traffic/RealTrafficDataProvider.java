@@ -572,6 +572,7 @@ public class RealTrafficDataProvider {
 		// TODO make it thread safe.
 	    // System.out.println("edges size " +  edges.size() + " ; avoid edges size = "+ avoidEdges.size() + " ; blocked edges size = " + blockedEdges.size());
 		rptd.update(edges, avoidEdges, blockedEdges, blockedEdges_hv);
+		rptd.getRouteProfile().clearResultCache();
 		
 		// System.out.println("traffic edges size " + edges.keySet().toString());
 	    // System.out.println("TmcUpdateInfo size " + updateInfo.getTmcEdgeIds().size() +" info are "+ Arrays.deepToString(updateInfo.getTmcEdgeIds().toArray()));
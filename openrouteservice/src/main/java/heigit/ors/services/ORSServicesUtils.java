@@ -25,6 +25,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -36,16 +37,19 @@ import heigit.ors.localization.LocalizationManager;
 import heigit.ors.routing.RoutingProfile;
 import heigit.ors.routing.RoutingProfileManager;
 import heigit.ors.routing.RoutingProfileManagerStatus;
+import heigit.ors.routing.RoutingResultCache;
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
 import heigit.ors.routing.traffic.RealTrafficDataProvider;
 import heigit.ors.services.accessibility.AccessibilityServiceSettings;
 import heigit.ors.services.geocoding.GeocodingServiceSettings;
 import heigit.ors.services.isochrones.IsochronesServiceSettings;
+import heigit.ors.services.jobs.JobsServiceSettings;
 import heigit.ors.services.locations.LocationsServiceSettings;
 import heigit.ors.services.mapmatching.MapMatchingServiceSettings;
 import heigit.ors.services.matrix.MatrixServiceSettings;
 import heigit.ors.services.routing.RoutingServiceSettings;
 import heigit.ors.util.AppInfo;
+import heigit.ors.util.FormatUtility;
 
 import com.graphhopper.storage.StorableProperties;
 
@@ -80,6 +84,8 @@ public class ORSServicesUtils {
 					list.add("matrix");
 				if (MapMatchingServiceSettings.getEnabled())
 					list.add("mapmatching");
+				if (JobsServiceSettings.getEnabled())
+					list.add("jobs");
 				jInfo.put("services", list);
 				jInfo.put("languages", LocalizationManager.getInstance().getLanguages());
 
@@ -119,6 +125,23 @@ public class ORSServicesUtils {
 
 					jProfileProps.put("boundingbox", rp.getBounds().toString());
 
+					Map<String, Double> visitedNodes = rp.getAlgorithmStatistics().getAverageVisitedNodes();
+					if (visitedNodes.size() > 0) {
+						JSONObject jVisitedNodes = new JSONObject(true);
+						for (Map.Entry<String, Double> entry : visitedNodes.entrySet())
+							jVisitedNodes.put(entry.getKey(), Math.round(entry.getValue()));
+						jProfileProps.put("average_visited_nodes", jVisitedNodes);
+					}
+
+					RoutingResultCache resultCache = rp.getResultCache();
+					if (resultCache != null) {
+						JSONObject jResultCache = new JSONObject(true);
+						jResultCache.put("hits", resultCache.getHits());
+						jResultCache.put("misses", resultCache.getMisses());
+						jResultCache.put("hit_rate", FormatUtility.roundToDecimals(resultCache.getHitRate(), 3));
+						jProfileProps.put("result_cache", jResultCache);
+					}
+
 					jProfiles.put("profile " + Integer.toString(i), jProfileProps);
 					i++;
 				}
@@ -208,6 +208,10 @@ public class JsonAccessibilityRequestParser {
 				req.setIncludeElevation(Boolean.parseBoolean(value));
 		}
 		
+		value = json.optString("exact_reachability");
+		if (!Helper.isEmpty(value))
+			req.setExactReachability(Boolean.parseBoolean(value));
+
 		value = json.optString("id");
 		if (!Helper.isEmpty(value))
 			req.setId(value);
@@ -31,6 +31,9 @@ public class GeocodingServiceSettings
 	private static String userAgent = "ors";
 	private static String attribution = "";
 	private static boolean enabled = true;
+	private static int cacheSize = 1000;
+	private static int cacheTimeToLive = 3600;
+	private static int maximumConnections = 5;
 	
 	static 
 	{
@@ -55,6 +58,15 @@ public class GeocodingServiceSettings
 		value = AppConfig.Global().getServiceParameter("geocoding", "attribution");
 		if (value != null)
 			attribution = value;
+		value = AppConfig.Global().getServiceParameter("geocoding", "cache_size");
+		if (value != null)
+			cacheSize = Integer.parseInt(value);
+		value = AppConfig.Global().getServiceParameter("geocoding", "cache_time_to_live");
+		if (value != null)
+			cacheTimeToLive = Integer.parseInt(value);
+		value = AppConfig.Global().getServiceParameter("geocoding", "maximum_connections");
+		if (value != null)
+			maximumConnections = Integer.parseInt(value);
 	}
 	
 	public static Boolean getEnabled() {
@@ -84,4 +96,19 @@ public class GeocodingServiceSettings
 	public static String getAttribution() {
 		return attribution;
 	}
+
+	public static int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * @return the time in seconds a cached result is kept
+	 */
+	public static int getCacheTimeToLive() {
+		return cacheTimeToLive;
+	}
+
+	public static int getMaximumConnections() {
+		return maximumConnections;
+	}
 }
@@ -41,6 +41,7 @@ import heigit.ors.exceptions.ParameterOutOfRangeException;
 import heigit.ors.exceptions.ParameterValueException;
 import heigit.ors.exceptions.StatusCodeException;
 import heigit.ors.geocoding.geocoders.Address;
+import heigit.ors.geocoding.geocoders.CachedGeocoder;
 import heigit.ors.geocoding.geocoders.CircleSearchBoundary;
 import heigit.ors.geocoding.geocoders.Geocoder;
 import heigit.ors.geocoding.geocoders.GeocoderFactory;
@@ -56,6 +57,9 @@ import heigit.ors.util.AppInfo;
 
 public class JsonGeocodingRequestProcessor extends AbstractHttpRequestProcessor {
 	private static final Logger LOGGER = Logger.getLogger(JsonGeocodingRequestProcessor.class.getName());
+
+	// shared by all requests, so that connections and cached results are reused
+	private static Geocoder _geocoder;
 	
 	public JsonGeocodingRequestProcessor(HttpServletRequest request) throws Exception {
 		super(request);
@@ -236,7 +240,7 @@ public class JsonGeocodingRequestProcessor extends AbstractHttpRequestProcessor
 
 		try
 		{
-			Geocoder geocoder = GeocoderFactory.createGeocoder(GeocodingServiceSettings.getGeocoderName(), GeocodingServiceSettings.getGeocodingURL(), GeocodingServiceSettings.getReverseGeocodingURL(), GeocodingServiceSettings.getUserAgent()); 
+			Geocoder geocoder = getGeocoder(); 
 
 			if (req.getLocation() != null)
 			{
@@ -270,6 +274,19 @@ public class JsonGeocodingRequestProcessor extends AbstractHttpRequestProcessor
 		}
 	}
 
+	private static synchronized Geocoder getGeocoder() throws Exception
+	{
+		if (_geocoder == null)
+		{
+			Geocoder geocoder = GeocoderFactory.createGeocoder(GeocodingServiceSettings.getGeocoderName(), GeocodingServiceSettings.getGeocodingURL(), GeocodingServiceSettings.getReverseGeocodingURL(), GeocodingServiceSettings.getUserAgent(), GeocodingServiceSettings.getMaximumConnections());
+			if (GeocodingServiceSettings.getCacheSize() > 0)
+				geocoder = new CachedGeocoder(geocoder, GeocodingServiceSettings.getCacheSize(), GeocodingServiceSettings.getCacheTimeToLive() * 1000L);
+			_geocoder = geocoder;
+		}
+
+		return _geocoder;
+	}
+
 	private void writeGeocodingResponse(HttpServletResponse response, GeocodingRequest request, GeocodingResult[] result) throws Exception
 	{
 		JSONObject resp = new JSONObject(true);
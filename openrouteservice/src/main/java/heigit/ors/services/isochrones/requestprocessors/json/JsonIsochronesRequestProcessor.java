@@ -90,6 +90,32 @@ public class JsonIsochronesRequestProcessor extends AbstractHttpRequestProcessor
 		if (req == null)
 			throw new StatusCodeException(StatusCode.BAD_REQUEST, IsochronesErrorCodes.UNKNOWN, "IsochronesRequest object is null.");
 
+		validateRequest(req, IsochronesServiceSettings.getMaximumLocations());
+
+		List<TravellerInfo> travellers = req.getTravellers();
+
+		if (travellers.size() > 0)
+		{
+			String[] nonDefaultAttrs = req.getNonDefaultAttributes();
+			
+			IsochroneMapCollection isoMaps = new IsochroneMapCollection();
+
+			for (int i = 0;i < travellers.size(); ++i){
+				IsochroneSearchParameters searchParams = req.getSearchParameters(i);
+				IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams, nonDefaultAttrs);
+				isoMaps.add(isochroneMap);
+			}
+
+			writeResponse(response, req, isoMaps);
+		}
+	}
+
+	/**
+	 * Checks the request against the limits of the isochrones service. The number of locations is passed separately
+	 * as isochrone jobs have their own limit.
+	 */
+	public static void validateRequest(IsochroneRequest req, int maximumLocations) throws Exception
+	{
 		if (!req.isValid())
 			throw new StatusCodeException(StatusCode.BAD_REQUEST, IsochronesErrorCodes.UNKNOWN, "IsochronesRequest is not valid.");
 
@@ -98,8 +124,8 @@ public class JsonIsochronesRequestProcessor extends AbstractHttpRequestProcessor
 		if (IsochronesServiceSettings.getAllowComputeArea() == false && req.hasAttribute("area"))
 			throw new StatusCodeException(StatusCode.BAD_REQUEST, IsochronesErrorCodes.FEATURE_NOT_SUPPORTED, "Area computation is not enabled.");
 
-		if (travellers.size() > IsochronesServiceSettings.getMaximumLocations())
-			throw new ParameterOutOfRangeException(IsochronesErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "locations", Integer.toString(travellers.size()), Integer.toString(IsochronesServiceSettings.getMaximumLocations()));
+		if (travellers.size() > maximumLocations)
+			throw new ParameterOutOfRangeException(IsochronesErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "locations", Integer.toString(travellers.size()), Integer.toString(maximumLocations));
 
 		for (int i = 0;i < travellers.size(); ++i){
 			TravellerInfo traveller = travellers.get(i);
@@ -114,21 +140,6 @@ public class JsonIsochronesRequestProcessor extends AbstractHttpRequestProcessor
 					throw new ParameterOutOfRangeException(IsochronesErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "range", Integer.toString(traveller.getRanges().length), Integer.toString(IsochronesServiceSettings.getMaximumIntervals()));
 			}
 		}
-
-		if (travellers.size() > 0)
-		{
-			String[] nonDefaultAttrs = req.getNonDefaultAttributes();
-			
-			IsochroneMapCollection isoMaps = new IsochroneMapCollection();
-
-			for (int i = 0;i < travellers.size(); ++i){
-				IsochroneSearchParameters searchParams = req.getSearchParameters(i);
-				IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams, nonDefaultAttrs);
-				isoMaps.add(isochroneMap);
-			}
-
-			writeResponse(response, req, isoMaps);
-		}
 	}
 
 	private void writeResponse(HttpServletResponse response, IsochroneRequest request, IsochroneMapCollection isochroneMaps) throws Exception
@@ -0,0 +1,103 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.jobs;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.json.JSONObject;
+
+import com.vividsolutions.jts.geom.Polygon;
+
+import heigit.ors.common.TravellerInfo;
+import heigit.ors.geojson.GeometryJSON;
+import heigit.ors.isochrones.Isochrone;
+import heigit.ors.isochrones.IsochroneMap;
+import heigit.ors.isochrones.IsochroneRequest;
+import heigit.ors.jobs.Job;
+import heigit.ors.jobs.JobTask;
+import heigit.ors.routing.RoutingProfileManager;
+
+/*
+ * Builds the isochrones of many locations one after another. Every isochrone is written as a GeoJSON 
+ * feature on its own line as soon as its location is done.
+ */
+public class IsochronesJobTask implements JobTask {
+	private IsochroneRequest _request;
+
+	public IsochronesJobTask(IsochroneRequest request) {
+		_request = request;
+	}
+
+	@Override
+	public String getType() {
+		return "isochrones";
+	}
+
+	@Override
+	public String getFileExtension() {
+		return "geojsonl";
+	}
+
+	@Override
+	public String getContentType() {
+		return "application/x-ndjson";
+	}
+
+	@Override
+	public void execute(Job job, OutputStream out) throws Exception {
+		List<TravellerInfo> travellers = _request.getTravellers();
+		String[] nonDefaultAttrs = _request.getNonDefaultAttributes();
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+
+		for (int i = 0; i < travellers.size(); ++i) {
+			job.checkCancelled();
+
+			IsochroneMap isoMap = RoutingProfileManager.getInstance().buildIsochrone(_request.getSearchParameters(i), nonDefaultAttrs);
+
+			for (Isochrone isoLine : isoMap.getIsochrones()) {
+				JSONObject jFeature = new JSONObject(true);
+				jFeature.put("type", "Feature");
+
+				JSONObject jPolygon = new JSONObject(true);
+				jPolygon.put("type", "Polygon");
+				jPolygon.put("coordinates", GeometryJSON.toJSON((Polygon)isoLine.getGeometry()));
+				jFeature.put("geometry", jPolygon);
+
+				JSONObject jProperties = new JSONObject(true);
+				jProperties.put("group_index", i);
+				jProperties.put("value", isoLine.getValue());
+				jProperties.put("center", GeometryJSON.toJSON(isoMap.getCenter()));
+				jFeature.put("properties", jProperties);
+
+				writer.write(jFeature.toString());
+				writer.write('\n');
+			}
+
+			job.setProgress((double) (i + 1) / travellers.size());
+		}
+
+		writer.flush();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.jobs;
+
+import java.io.File;
+
+import heigit.ors.config.AppConfig;
+
+public class JobsServiceSettings 
+{
+	private static boolean enabled = false;
+	private static String spoolPath = new File(System.getProperty("java.io.tmpdir"), "ors-jobs").getAbsolutePath();
+	private static int threads = 1;
+	private static int maximumQueuedJobs = 100;
+	private static long diskQuota = 1024L * 1024 * 1024;
+	private static int maximumMatrixLocations = 100000000;
+	private static int maximumIsochroneLocations = 10000;
+	
+	static 
+	{
+		String value = AppConfig.Global().getServiceParameter("jobs", "enabled");
+		if (value != null)
+			enabled = Boolean.parseBoolean(value);
+		value = AppConfig.Global().getServiceParameter("jobs", "spool_path");
+		if (value != null)
+			spoolPath = value;
+		value = AppConfig.Global().getServiceParameter("jobs", "threads");
+		if (value != null)
+			threads = Math.max(1, Integer.parseInt(value));
+		value = AppConfig.Global().getServiceParameter("jobs", "maximum_queued_jobs");
+		if (value != null)
+			maximumQueuedJobs = Math.max(1, Integer.parseInt(value));
+		value = AppConfig.Global().getServiceParameter("jobs", "disk_quota");
+		if (value != null)
+			diskQuota = Math.max(1, Long.parseLong(value)) * 1024 * 1024;
+		value = AppConfig.Global().getServiceParameter("jobs", "maximum_matrix_locations");
+		if (value != null)
+			maximumMatrixLocations = Math.max(1, Integer.parseInt(value));
+		value = AppConfig.Global().getServiceParameter("jobs", "maximum_isochrone_locations");
+		if (value != null)
+			maximumIsochroneLocations = Math.max(1, Integer.parseInt(value));
+	}
+	
+	public static Boolean getEnabled() {
+		return enabled;
+	}
+
+	public static String getSpoolPath() {
+		return spoolPath;
+	}
+
+	public static int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the maximum number of submitted jobs waiting for a thread.
+	 */
+	public static int getMaximumQueuedJobs() {
+		return maximumQueuedJobs;
+	}
+
+	/**
+	 * @return the space in bytes which the results of finished jobs may take up.
+	 */
+	public static long getDiskQuota() {
+		return diskQuota;
+	}
+
+	/**
+	 * @return the maximum number of cells, i.e. sources times destinations, of a matrix job.
+	 */
+	public static int getMaximumMatrixLocations() {
+		return maximumMatrixLocations;
+	}
+
+	public static int getMaximumIsochroneLocations() {
+		return maximumIsochroneLocations;
+	}
+}
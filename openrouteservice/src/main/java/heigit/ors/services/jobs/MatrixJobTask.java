@@ -0,0 +1,208 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.jobs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.jobs.Job;
+import heigit.ors.jobs.JobTask;
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+import heigit.ors.routing.RoutingProfileManager;
+import heigit.ors.services.matrix.requestprocessors.binary.BinaryMatrixResponseWriter;
+
+/*
+ * Computes a matrix which is too large for a single request in blocks of sources. Each block is computed 
+ * with the same algorithms as the matrix service and its rows are written out before the next block starts, 
+ * so that the memory needed does not grow with the number of sources. Binary results use the format of the 
+ * matrix service, see {@link BinaryMatrixResponseWriter}. As it stores the tables one after another behind the 
+ * resolved locations, the rows of each table are collected in a temporary file of the job until all blocks are 
+ * computed. These files are kept in the spool directory, so that they count towards its quota.
+ */
+public class MatrixJobTask implements JobTask {
+	private static final int[] METRICS = BinaryMatrixResponseWriter.METRICS;
+	// upper bound for the number of cells computed at once
+	private static final int MAXIMUM_BLOCK_CELLS = 1 << 20;
+
+	private MatrixRequest _request;
+	private boolean _binary;
+
+	public MatrixJobTask(MatrixRequest request, boolean binary) {
+		_request = request;
+		_binary = binary;
+	}
+
+	@Override
+	public String getType() {
+		return "matrix";
+	}
+
+	@Override
+	public String getFileExtension() {
+		return _binary ? "bin" : "csv";
+	}
+
+	@Override
+	public String getContentType() {
+		return _binary ? "application/octet-stream" : "text/csv";
+	}
+
+	@Override
+	public void execute(Job job, OutputStream out) throws Exception {
+		if (_binary)
+			executeBinary(job, out);
+		else
+			executeCsv(job, out);
+	}
+
+	private void executeCsv(Job job, OutputStream out) throws Exception {
+		Coordinate[] sources = _request.getSources();
+		int nDestinations = _request.getDestinations().length;
+		int blockSize = getBlockSize(nDestinations);
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+
+		for (int offset = 0; offset < sources.length; offset += blockSize) {
+			int rows = Math.min(blockSize, sources.length - offset);
+			MatrixResult result = computeBlock(job, offset, rows);
+
+			for (int i = 0; i < rows; i++) {
+				for (int metric : METRICS) {
+					if (MatrixMetricsType.isSet(_request.getMetrics(), metric))
+						writeCsvRow(writer, offset + i, getMetricName(metric), result.getTable(metric), i * nDestinations, nDestinations);
+				}
+			}
+
+			job.setProgress((double) (offset + rows) / sources.length);
+		}
+
+		writer.flush();
+	}
+
+	private void executeBinary(Job job, OutputStream out) throws Exception {
+		Coordinate[] sources = _request.getSources();
+		int nDestinations = _request.getDestinations().length;
+		int blockSize = getBlockSize(nDestinations);
+		ByteBuffer buffer = BinaryMatrixResponseWriter.createTableBuffer(nDestinations);
+
+		ResolvedLocation[] resolvedSources = new ResolvedLocation[sources.length];
+		ResolvedLocation[] resolvedDestinations = new ResolvedLocation[nDestinations];
+		File[] tableFiles = new File[METRICS.length];
+		OutputStream[] tableStreams = new OutputStream[METRICS.length];
+
+		try {
+			for (int m = 0; m < METRICS.length; m++) {
+				if (MatrixMetricsType.isSet(_request.getMetrics(), METRICS[m])) {
+					tableFiles[m] = job.createTempFile();
+					tableStreams[m] = new BufferedOutputStream(new FileOutputStream(tableFiles[m]));
+				}
+			}
+
+			for (int offset = 0; offset < sources.length; offset += blockSize) {
+				int rows = Math.min(blockSize, sources.length - offset);
+				MatrixResult result = computeBlock(job, offset, rows);
+
+				System.arraycopy(result.getSources(), 0, resolvedSources, offset, rows);
+				if (offset == 0)
+					resolvedDestinations = result.getDestinations();
+
+				for (int m = 0; m < METRICS.length; m++) {
+					if (tableStreams[m] != null)
+						BinaryMatrixResponseWriter.writeTable(tableStreams[m], buffer, result.getTable(METRICS[m]), 0, rows * nDestinations);
+				}
+
+				job.setProgress((double) (offset + rows) / sources.length);
+			}
+
+			for (int m = 0; m < METRICS.length; m++) {
+				if (tableStreams[m] != null) {
+					tableStreams[m].close();
+					tableStreams[m] = null;
+				}
+			}
+
+			BinaryMatrixResponseWriter.writeHeader(out, _request.getMetrics(), resolvedSources, resolvedDestinations, _request.getResolveLocations());
+			for (File file : tableFiles) {
+				if (file != null)
+					Files.copy(file.toPath(), out);
+			}
+		} finally {
+			for (int m = 0; m < METRICS.length; m++) {
+				if (tableStreams[m] != null)
+					tableStreams[m].close();
+				if (tableFiles[m] != null)
+					tableFiles[m].delete();
+			}
+		}
+	}
+
+	private static int getBlockSize(int nDestinations) {
+		return Math.max(1, MAXIMUM_BLOCK_CELLS / nDestinations);
+	}
+
+	private MatrixResult computeBlock(Job job, int offset, int rows) throws Exception {
+		job.checkCancelled();
+
+		Coordinate[] blockSources = new Coordinate[rows];
+		System.arraycopy(_request.getSources(), offset, blockSources, 0, rows);
+
+		return RoutingProfileManager.getInstance().computeMatrix(_request.copy(blockSources), false);
+	}
+
+	private void writeCsvRow(Writer writer, int source, String metric, float[] values, int offset, int length) throws IOException {
+		writer.write(Integer.toString(source));
+		writer.write(',');
+		writer.write(metric);
+
+		for (int j = 0; j < length; j++) {
+			writer.write(',');
+			float value = values[offset + j];
+			// unreachable destinations are left empty
+			if (value != -1)
+				writer.write(Float.toString(value));
+		}
+
+		writer.write('\n');
+	}
+
+	private static String getMetricName(int metric) {
+		switch (metric) {
+		case MatrixMetricsType.Duration:
+			return "duration";
+		case MatrixMetricsType.Distance:
+			return "distance";
+		default:
+			return "weight";
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.jobs.requestprocessors;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONObject;
+
+import com.graphhopper.util.Helper;
+
+import heigit.ors.common.StatusCode;
+import heigit.ors.exceptions.MissingParameterException;
+import heigit.ors.exceptions.ParameterOutOfRangeException;
+import heigit.ors.exceptions.StatusCodeException;
+import heigit.ors.exceptions.UnknownParameterValueException;
+import heigit.ors.isochrones.IsochroneRequest;
+import heigit.ors.jobs.Job;
+import heigit.ors.jobs.JobManager;
+import heigit.ors.jobs.JobStatus;
+import heigit.ors.jobs.JobTask;
+import heigit.ors.jobs.JobsErrorCodes;
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.services.isochrones.IsochronesServiceSettings;
+import heigit.ors.services.isochrones.requestprocessors.json.JsonIsochroneRequestParser;
+import heigit.ors.services.isochrones.requestprocessors.json.JsonIsochronesRequestProcessor;
+import heigit.ors.services.jobs.IsochronesJobTask;
+import heigit.ors.services.jobs.JobsServiceSettings;
+import heigit.ors.services.jobs.MatrixJobTask;
+import heigit.ors.services.matrix.requestprocessors.json.JsonMatrixRequestParser;
+import heigit.ors.servlet.http.AbstractHttpRequestProcessor;
+import heigit.ors.servlet.util.ServletUtility;
+import heigit.ors.util.FormatUtility;
+
+/*
+ * Handles the requests of the jobs service:
+ *   request=submit&type=matrix|isochrones   POST with the body of a matrix or isochrones request, returns the job id
+ *   request=status&id=...                   returns the state and progress of a job
+ *   request=result&id=...                   downloads the result of a finished job
+ *   request=cancel&id=...                   stops a job or removes its result
+ */
+public class JobsRequestProcessor extends AbstractHttpRequestProcessor 
+{
+	public JobsRequestProcessor(HttpServletRequest request) throws Exception
+	{
+		super(request);
+	}
+
+	@Override
+	public void process(HttpServletResponse response) throws Exception 
+	{
+		String requestParam = _request.getParameter("request");
+		if (Helper.isEmpty(requestParam))
+			throw new MissingParameterException(JobsErrorCodes.MISSING_PARAMETER, "request");
+
+		switch (requestParam.toLowerCase())
+		{
+		case "submit":
+			if (!"POST".equals(_request.getMethod()))
+				throw new StatusCodeException(StatusCode.METHOD_NOT_ALLOWED, JobsErrorCodes.UNKNOWN);
+			writeStatus(response, JobManager.getInstance().submit(createTask()));
+			break;
+		case "status":
+			writeStatus(response, getJob());
+			break;
+		case "result":
+			writeResult(response, getJob());
+			break;
+		case "cancel":
+			Job job = JobManager.getInstance().cancel(getJobId());
+			if (job == null)
+				throw new StatusCodeException(StatusCode.NOT_FOUND, JobsErrorCodes.JOB_NOT_FOUND, "Job '" + getJobId() + "' does not exist.");
+			writeStatus(response, job);
+			break;
+		default:
+			throw new UnknownParameterValueException(JobsErrorCodes.INVALID_PARAMETER_VALUE, "request", requestParam);
+		}
+	}
+
+	private JobTask createTask() throws Exception
+	{
+		String typeParam = _request.getParameter("type");
+		if (Helper.isEmpty(typeParam))
+			throw new MissingParameterException(JobsErrorCodes.MISSING_PARAMETER, "type");
+
+		switch (typeParam.toLowerCase())
+		{
+		case "matrix":
+			String formatParam = _request.getParameter("format");
+			if (Helper.isEmpty(formatParam))
+				formatParam = "csv";
+			else
+				formatParam = formatParam.toLowerCase();
+
+			if (!"csv".equals(formatParam) && !"binary".equals(formatParam))
+				throw new UnknownParameterValueException(JobsErrorCodes.INVALID_PARAMETER_VALUE, "format", formatParam);
+
+			MatrixRequest mtxReq = JsonMatrixRequestParser.parseFromStream(_request.getInputStream());
+			long cells = (long)mtxReq.getSources().length * mtxReq.getDestinations().length;
+			if (cells > JobsServiceSettings.getMaximumMatrixLocations())
+				throw new ParameterOutOfRangeException(JobsErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "sources/destinations", Long.toString(cells), Integer.toString(JobsServiceSettings.getMaximumMatrixLocations()));
+
+			return new MatrixJobTask(mtxReq, "binary".equals(formatParam));
+		case "isochrones":
+			IsochroneRequest isoReq = JsonIsochroneRequestParser.parseFromStream(_request.getInputStream());
+			JsonIsochronesRequestProcessor.validateRequest(isoReq, JobsServiceSettings.getMaximumIsochroneLocations());
+
+			return new IsochronesJobTask(isoReq);
+		default:
+			throw new UnknownParameterValueException(JobsErrorCodes.INVALID_PARAMETER_VALUE, "type", typeParam);
+		}
+	}
+
+	private String getJobId() throws Exception
+	{
+		String id = _request.getParameter("id");
+		if (Helper.isEmpty(id))
+			throw new MissingParameterException(JobsErrorCodes.MISSING_PARAMETER, "id");
+		return id;
+	}
+
+	private Job getJob() throws Exception
+	{
+		String id = getJobId();
+		Job job = JobManager.getInstance().getJob(id);
+		if (job == null)
+			throw new StatusCodeException(StatusCode.NOT_FOUND, JobsErrorCodes.JOB_NOT_FOUND, "Job '" + id + "' does not exist.");
+		return job;
+	}
+
+	private void writeStatus(HttpServletResponse response, Job job) throws Exception
+	{
+		JSONObject jResp = new JSONObject(true);
+		jResp.put("id", job.getId());
+		jResp.put("type", job.getTask().getType());
+		jResp.put("status", JobStatus.getName(job.getStatus()));
+		jResp.put("progress", FormatUtility.roundToDecimals(job.getProgress(), 3));
+		if (job.getStatus() == JobStatus.Finished)
+			jResp.put("size", job.getFile().length());
+		if (job.getError() != null)
+			jResp.put("error", job.getError());
+
+		ServletUtility.write(response, jResp);
+	}
+
+	private void writeResult(HttpServletResponse response, Job job) throws Exception
+	{
+		if (job.getStatus() != JobStatus.Finished)
+			throw new StatusCodeException(StatusCode.BAD_REQUEST, JobsErrorCodes.JOB_NOT_FINISHED, "Job '" + job.getId() + "' is " + JobStatus.getName(job.getStatus()) + ".");
+
+		InputStream in;
+		try {
+			in = new FileInputStream(job.getFile());
+		} catch (FileNotFoundException ex) {
+			// the result has been evicted or removed in the meantime
+			throw new StatusCodeException(StatusCode.NOT_FOUND, JobsErrorCodes.JOB_NOT_FOUND, "The result of job '" + job.getId() + "' is not available anymore.");
+		}
+
+		try {
+			response.setStatus(StatusCode.OK);
+			response.setContentType(job.getTask().getContentType());
+			response.setHeader("Content-Disposition", "attachment; filename=\"" + job.getFile().getName() + "\"");
+			response.setContentLengthLong(job.getFile().length());
+
+			OutputStream out = response.getOutputStream();
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+			out.flush();
+		} finally {
+			in.close();
+		}
+	}
+}
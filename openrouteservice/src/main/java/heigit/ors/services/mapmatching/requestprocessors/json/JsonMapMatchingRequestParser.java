@@ -93,6 +93,26 @@ public class JsonMapMatchingRequestParser
 			req.setCoordinates(coords);
 		}		
 
+		value = request.getParameter("accuracy");
+		if (!Helper.isEmpty(value))
+		{
+			double accuracy = 0.0;
+
+			try
+			{
+				accuracy = Double.parseDouble(value);
+			}
+			catch(NumberFormatException ex)
+			{
+				throw new ParameterValueException(MapMatchingErrorCodes.INVALID_PARAMETER_FORMAT, "accuracy");
+			}
+
+			if (accuracy <= 0 || accuracy > MapMatchingServiceSettings.getMaximumSearchRadius())
+				throw new ParameterValueException(MapMatchingErrorCodes.INVALID_PARAMETER_VALUE, "accuracy", value);
+
+			req.setAccuracy(accuracy);
+		}
+
 		value = request.getParameter("units");
 		if (!Helper.isEmpty(value))
 		{
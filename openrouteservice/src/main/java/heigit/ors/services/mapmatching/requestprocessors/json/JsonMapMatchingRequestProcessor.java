@@ -35,7 +35,6 @@ import heigit.ors.mapmatching.MapMatchingRequest;
 import heigit.ors.routing.RouteResult;
 import heigit.ors.routing.RoutingProfileManager;
 import heigit.ors.services.mapmatching.MapMatchingServiceSettings;
-import heigit.ors.services.matrix.MatrixServiceSettings;
 import heigit.ors.servlet.http.AbstractHttpRequestProcessor;
 import heigit.ors.servlet.util.ServletUtility;
 
@@ -53,8 +52,8 @@ public class JsonMapMatchingRequestProcessor extends AbstractHttpRequestProcesso
 		if (req == null)
 			throw new StatusCodeException(StatusCode.BAD_REQUEST, MapMatchingErrorCodes.UNKNOWN, "MapMatchingRequest object is null.");
 
-		if (MapMatchingServiceSettings.getMaximumLocations() > 0 && req.getCoordinates().length > MatrixServiceSettings.getMaximumLocations(false))
-			throw new ParameterOutOfRangeException(MapMatchingErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "sources/destinations", Integer.toString(req.getCoordinates().length), Integer.toString(MapMatchingServiceSettings.getMaximumLocations()));
+		if (MapMatchingServiceSettings.getMaximumLocations() > 0 && req.getCoordinates().length > MapMatchingServiceSettings.getMaximumLocations())
+			throw new ParameterOutOfRangeException(MapMatchingErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "coordinates", Integer.toString(req.getCoordinates().length), Integer.toString(MapMatchingServiceSettings.getMaximumLocations()));
 
 		
 		RouteResult result = RoutingProfileManager.getInstance().matchTrack(req);
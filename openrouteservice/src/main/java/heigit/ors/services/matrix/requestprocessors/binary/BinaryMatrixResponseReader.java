@@ -0,0 +1,114 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+
+/*
+ * Decodes matrix responses written by {@link BinaryMatrixResponseWriter}. The class depends only on the 
+ * matrix result classes, so that it can be copied into Java clients of the matrix service.
+ */
+public class BinaryMatrixResponseReader {
+
+	public static MatrixResult read(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = in.read(buffer)) != -1)
+			bytes.write(buffer, 0, read);
+
+		return read(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+
+	public static MatrixResult read(ByteBuffer buffer) throws IOException {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.remaining() < BinaryMatrixResponseWriter.HEADER_SIZE)
+			throw new IOException("Not a binary matrix response.");
+
+		byte[] magic = new byte[4];
+		buffer.get(magic);
+		for (int i = 0; i < magic.length; i++) {
+			if (magic[i] != BinaryMatrixResponseWriter.MAGIC[i])
+				throw new IOException("Not a binary matrix response.");
+		}
+
+		int version = buffer.getInt();
+		if (version != BinaryMatrixResponseWriter.VERSION)
+			throw new IOException("Unsupported version " + version + " of the binary matrix format.");
+
+		int rows = buffer.getInt();
+		int columns = buffer.getInt();
+		int metrics = buffer.getInt();
+		int locationsSize = buffer.getInt();
+
+		ResolvedLocation[] sources = readLocations(buffer, rows);
+		ResolvedLocation[] destinations = readLocations(buffer, columns);
+		buffer.position(buffer.position() + BinaryMatrixResponseWriter.getPadding(locationsSize));
+
+		MatrixResult result = new MatrixResult(sources, destinations);
+		for (int metric : BinaryMatrixResponseWriter.METRICS) {
+			if (!MatrixMetricsType.isSet(metrics, metric))
+				continue;
+
+			float[] values = new float[rows * columns];
+			buffer.asFloatBuffer().get(values);
+			buffer.position(buffer.position() + values.length * 4);
+			result.setTable(metric, values);
+		}
+
+		return result;
+	}
+
+	private static ResolvedLocation[] readLocations(ByteBuffer buffer, int count) {
+		ResolvedLocation[] locations = new ResolvedLocation[count];
+
+		for (int i = 0; i < count; i++) {
+			double x = buffer.getDouble();
+			double y = buffer.getDouble();
+			double snappedDistance = buffer.getFloat();
+
+			String name = null;
+			int nameLength = buffer.getInt();
+			if (nameLength >= 0) {
+				byte[] nameBytes = new byte[nameLength];
+				buffer.get(nameBytes);
+				name = new String(nameBytes, StandardCharsets.UTF_8);
+			}
+
+			if (!Double.isNaN(x))
+				locations[i] = new ResolvedLocation(new Coordinate(x, y), name, snappedDistance);
+		}
+
+		return locations;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.common.StatusCode;
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+
+/*
+ * Writes a matrix result in the binary format described in docs/services/matrix/binary_format.md. The tables 
+ * are copied in bulk from the float arrays of the result into a little-endian buffer, so that no 
+ * per value formatting is needed as for JSON.
+ */
+public class BinaryMatrixResponseWriter {
+	public static final String CONTENT_TYPE = "application/octet-stream";
+
+	static final byte[] MAGIC = new byte[] { 'O', 'R', 'M', 'X' };
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 24;
+	public static final int[] METRICS = new int[] { MatrixMetricsType.Duration, MatrixMetricsType.Distance, MatrixMetricsType.Weight };
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * @return true if the client asked for the binary format in the Accept header.
+	 */
+	public static boolean isAccepted(HttpServletRequest request) {
+		String accept = request.getHeader("Accept");
+		return accept != null && accept.contains(CONTENT_TYPE);
+	}
+
+	public static void write(HttpServletResponse response, MatrixRequest request, MatrixResult result) throws IOException {
+		byte[] locations = encodeLocations(result.getSources(), result.getDestinations(), request.getResolveLocations());
+
+		response.setStatus(StatusCode.OK);
+		response.setContentType(CONTENT_TYPE);
+		response.addHeader("Vary", "Accept");
+		response.setContentLengthLong(getSize(request, locations.length));
+
+		OutputStream out = response.getOutputStream();
+		write(out, request, result, locations);
+		out.flush();
+	}
+
+	public static void write(OutputStream out, MatrixRequest request, MatrixResult result) throws IOException {
+		write(out, request, result, encodeLocations(result.getSources(), result.getDestinations(), request.getResolveLocations()));
+	}
+
+	private static void write(OutputStream out, MatrixRequest request, MatrixResult result, byte[] locations) throws IOException {
+		writeHeader(out, request.getSources().length, request.getDestinations().length, request.getMetrics(), locations);
+
+		ByteBuffer buffer = createTableBuffer((long)request.getSources().length * request.getDestinations().length);
+		for (int metric : METRICS) {
+			if (MatrixMetricsType.isSet(request.getMetrics(), metric)) {
+				float[] values = result.getTable(metric);
+				writeTable(out, buffer, values, 0, values.length);
+			}
+		}
+	}
+
+	/**
+	 * Writes the header and the locations. It has to be followed by the tables of the given metrics in the order of 
+	 * {@link #METRICS}, each written row by row with {@link #writeTable}. This allows matrices which are computed in 
+	 * parts, like those of the jobs service, to be written without holding the whole result in memory.
+	 */
+	public static void writeHeader(OutputStream out, int metrics, ResolvedLocation[] sources, ResolvedLocation[] destinations, boolean includeNames) throws IOException {
+		writeHeader(out, sources.length, destinations.length, metrics, encodeLocations(sources, destinations, includeNames));
+	}
+
+	private static void writeHeader(OutputStream out, int rows, int columns, int metrics, byte[] locations) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(rows);
+		header.putInt(columns);
+		header.putInt(metrics);
+		header.putInt(locations.length);
+		out.write(header.array());
+		out.write(locations);
+		// the tables start at a multiple of 4 bytes, so that they can be mapped to a float buffer directly
+		out.write(new byte[getPadding(locations.length)]);
+	}
+
+	/**
+	 * @return a little-endian buffer for {@link #writeTable} which is not larger than needed for the given number of values.
+	 */
+	public static ByteBuffer createTableBuffer(long values) {
+		return ByteBuffer.allocate((int)Math.min(BUFFER_SIZE, Math.max(4, 4L * values))).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Appends <code>length</code> values starting at <code>offset</code> to a table, using the given buffer for the copy.
+	 */
+	public static void writeTable(OutputStream out, ByteBuffer buffer, float[] values, int offset, int length) throws IOException {
+		int bufferValues = buffer.capacity() / 4;
+		int end = offset + length;
+
+		for (int pos = offset; pos < end; pos += bufferValues) {
+			int count = Math.min(bufferValues, end - pos);
+			buffer.clear();
+			buffer.asFloatBuffer().put(values, pos, count);
+			out.write(buffer.array(), 0, count * 4);
+		}
+	}
+
+	/**
+	 * Each location consists of its longitude and latitude as doubles, the snapped distance as float and the length of
+	 * the UTF-8 encoded name followed by the name. Locations which could not be resolved have NaN coordinates.
+	 */
+	private static byte[] encodeLocations(ResolvedLocation[] sources, ResolvedLocation[] destinations, boolean includeNames) {
+		byte[][] names = new byte[sources.length + destinations.length][];
+
+		int size = 0;
+		for (int i = 0; i < names.length; i++) {
+			ResolvedLocation loc = i < sources.length ? sources[i] : destinations[i - sources.length];
+			if (includeNames && loc != null && loc.getName() != null)
+				names[i] = loc.getName().getBytes(StandardCharsets.UTF_8);
+			size += 8 + 8 + 4 + 4 + (names[i] == null ? 0 : names[i].length);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < names.length; i++) {
+			ResolvedLocation loc = i < sources.length ? sources[i] : destinations[i - sources.length];
+			if (loc != null) {
+				Coordinate c = loc.getCoordinate();
+				buffer.putDouble(c.x);
+				buffer.putDouble(c.y);
+				buffer.putFloat((float)loc.getSnappedDistance());
+			} else {
+				buffer.putDouble(Double.NaN);
+				buffer.putDouble(Double.NaN);
+				buffer.putFloat(0);
+			}
+
+			if (names[i] != null) {
+				buffer.putInt(names[i].length);
+				buffer.put(names[i]);
+			} else
+				buffer.putInt(-1);
+		}
+
+		return buffer.array();
+	}
+
+	private static long getSize(MatrixRequest request, int locationsSize) {
+		int tables = 0;
+		for (int metric : METRICS) {
+			if (MatrixMetricsType.isSet(request.getMetrics(), metric))
+				tables++;
+		}
+
+		return HEADER_SIZE + locationsSize + getPadding(locationsSize) + 4L * tables * request.getSources().length * request.getDestinations().length;
+	}
+
+	static int getPadding(int locationsSize) {
+		return (4 - (HEADER_SIZE + locationsSize) % 4) % 4;
+	}
+}
@@ -42,6 +42,7 @@ import heigit.ors.matrix.MatrixMetricsType;
 import heigit.ors.routing.RoutingProfileManager;
 import heigit.ors.routing.RoutingProfileType;
 import heigit.ors.services.matrix.MatrixServiceSettings;
+import heigit.ors.services.matrix.requestprocessors.binary.BinaryMatrixResponseWriter;
 import heigit.ors.servlet.http.AbstractHttpRequestProcessor;
 import heigit.ors.servlet.util.ServletUtility;
 import heigit.ors.util.AppInfo;
@@ -81,7 +82,10 @@ public class JsonMatrixRequestProcessor extends AbstractHttpRequestProcessor
 		
 		MatrixResult mtxResult = RoutingProfileManager.getInstance().computeMatrix(req);
 		
-		writeResponse(response, req, mtxResult);
+		if (BinaryMatrixResponseWriter.isAccepted(_request))
+			BinaryMatrixResponseWriter.write(response, req, mtxResult);
+		else
+			writeResponse(response, req, mtxResult);
 	}
 	
 	private void writeResponse(HttpServletResponse response, MatrixRequest request, MatrixResult mtxResult) throws Exception
@@ -127,7 +131,7 @@ public class JsonMatrixRequestProcessor extends AbstractHttpRequestProcessor
 		ServletUtility.write(response, jResp);
 	}
 	
-	private JSONArray createLocations(ResolvedLocation[] locations, boolean includeLocationNames)
+	static JSONArray createLocations(ResolvedLocation[] locations, boolean includeLocationNames)
 	{
 		JSONArray jLocations = new JSONArray(locations.length);
 		
@@ -158,7 +162,7 @@ public class JsonMatrixRequestProcessor extends AbstractHttpRequestProcessor
 		return jLocations;
 	}
 	
-	private JSONArray createTable(float[] values, int rows, int clms)
+	static JSONArray createTable(float[] values, int rows, int clms)
 	{
 		JSONArray jMatrix = new JSONArray(rows);
 		
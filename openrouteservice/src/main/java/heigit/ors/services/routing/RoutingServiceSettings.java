@@ -32,6 +32,11 @@ public class RoutingServiceSettings {
 	private static String sourceFile = "";
 	private static String workingMode = "Normal"; // Normal or PrepareGraphs
 	private static int initializationThreads = 1;
+	private static int parallelLegsThreads = 0;
+	private static boolean sharedQueryGraph = false;
+	private static int resultCacheSize = 0;
+	private static int batchThreads = 0;
+	private static int batchMaximumPairs = 10000;
 	private static boolean distanceApproximation = false;
 	private static String storageFormat = "Native";
 	private static String attribution = "";
@@ -66,6 +71,26 @@ public class RoutingServiceSettings {
 		if (value != null)
 			initializationThreads = Integer.parseInt(value);
 		
+		value = config.getServiceParameter("routing", "parallel_legs_threads");
+		if (value != null)
+			parallelLegsThreads = Integer.parseInt(value);
+		
+		value = config.getServiceParameter("routing", "shared_query_graph");
+		if (value != null)
+			sharedQueryGraph = Boolean.parseBoolean(value);
+		
+		value = config.getServiceParameter("routing", "result_cache_size");
+		if (value != null)
+			resultCacheSize = Integer.parseInt(value);
+		
+		value = config.getServiceParameter("routing", "batch_threads");
+		if (value != null)
+			batchThreads = Integer.parseInt(value);
+		
+		value = config.getServiceParameter("routing", "batch_maximum_pairs");
+		if (value != null)
+			batchMaximumPairs = Integer.parseInt(value);
+		
 		value = config.getServiceParameter("routing", "distance_approximation");
 		if (value != null)
 			distanceApproximation = Boolean.parseBoolean(value);
@@ -96,6 +121,41 @@ public class RoutingServiceSettings {
 		return initializationThreads;
 	}
 	
+	/**
+	 * @return the number of threads used to compute the legs of routes with several waypoints concurrently, values 
+	 * less than 2 disable the concurrent computation.
+	 */
+	public static int getParallelLegsThreads() {
+		return parallelLegsThreads;
+	}
+	
+	/**
+	 * @return true if the legs of routes with several waypoints are searched on a single query graph with the waypoints 
+	 * snapped only once.
+	 */
+	public static boolean getSharedQueryGraph() {
+		return sharedQueryGraph;
+	}
+	
+	/**
+	 * @return the number of route and matrix results kept per routing profile for repeated requests, 0 disables the cache.
+	 */
+	public static int getResultCacheSize() {
+		return resultCacheSize;
+	}
+	
+	/**
+	 * @return the number of threads shared by all batch requests, values less than 2 compute the routes of a batch on 
+	 * the thread of the request.
+	 */
+	public static int getBatchThreads() {
+		return batchThreads;
+	}
+	
+	public static int getBatchMaximumPairs() {
+		return batchMaximumPairs;
+	}
+	
 	public static boolean getDistanceApproximation()	{
 		return distanceApproximation;
 	}
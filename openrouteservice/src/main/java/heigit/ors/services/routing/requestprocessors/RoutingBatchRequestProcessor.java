@@ -0,0 +1,147 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.routing.requestprocessors;
+
+import java.io.Writer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.shapes.BBox;
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.common.StatusCode;
+import heigit.ors.exceptions.ParameterValueException;
+import heigit.ors.exceptions.ServerLimitExceededException;
+import heigit.ors.exceptions.StatusCodeException;
+import heigit.ors.routing.RouteBatchHandler;
+import heigit.ors.routing.RouteResult;
+import heigit.ors.routing.RoutingErrorCodes;
+import heigit.ors.routing.RoutingProfileManager;
+import heigit.ors.routing.RoutingRequest;
+import heigit.ors.services.routing.RoutingServiceSettings;
+import heigit.ors.services.routing.requestprocessors.json.JsonRoutingResponseWriter;
+import heigit.ors.servlet.http.AbstractHttpRequestProcessor;
+import heigit.ors.util.StreamUtility;
+
+/**
+ * Computes the routes between many origin-destination pairs with one request. The options shared by all routes are
+ * given as query parameters like for a single route, the pairs are posted as a JSON document:
+ * <pre>{"pairs": [[[8.68, 49.41], [8.69, 49.39]], ...]}</pre>
+ * Every route is written as a line of its own (NDJSON) as soon as it is computed, carrying the index of its pair
+ * and either the route or the error which occurred.
+ */
+public class RoutingBatchRequestProcessor extends AbstractHttpRequestProcessor {
+
+    public RoutingBatchRequestProcessor(HttpServletRequest request) throws Exception {
+        super(request);
+    }
+
+    @Override
+    public void process(HttpServletResponse response) throws Exception {
+        if (!"POST".equals(_request.getMethod()))
+            throw new StatusCodeException(StatusCode.METHOD_NOT_ALLOWED);
+
+        final RoutingRequest options = RoutingRequestParser.parseBatchOptionsFromRequestParams(_request);
+        final Coordinate[][] pairs = parsePairs(StreamUtility.readStream(_request.getInputStream()));
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        final Writer writer = response.getWriter();
+
+        RoutingProfileManager.getInstance().computeRouteBatch(options, pairs, new RouteBatchHandler() {
+            @Override
+            public void handleRoute(int index, RouteResult route) throws Exception {
+                RoutingRequest req = options.copy(pairs[index]);
+                JSONObject jLine = new JSONObject(true);
+                jLine.put("index", index);
+                jLine.put("routes", JsonRoutingResponseWriter.toJsonArray(req, new RouteResult[]{route}, new BBox(0, 0, 0, 0)));
+                writeLine(writer, jLine);
+            }
+
+            @Override
+            public void handleError(int index, Exception error) throws Exception {
+                JSONObject jError = new JSONObject(true);
+                if (error instanceof StatusCodeException && ((StatusCodeException) error).getInternalCode() > 0)
+                    jError.put("code", ((StatusCodeException) error).getInternalCode());
+                jError.put("message", error.getMessage());
+
+                JSONObject jLine = new JSONObject(true);
+                jLine.put("index", index);
+                jLine.put("error", jError);
+                writeLine(writer, jLine);
+            }
+        });
+
+        writer.flush();
+    }
+
+    /**
+     * Flushes every line, so that the client receives the routes while the remaining ones are computed.
+     */
+    private static void writeLine(Writer writer, JSONObject json) throws Exception {
+        writer.write(json.toString());
+        writer.write('\n');
+        writer.flush();
+    }
+
+    private static Coordinate[][] parsePairs(String body) throws Exception {
+        if (Helper.isEmpty(body))
+            throw new StatusCodeException(StatusCode.BAD_REQUEST, RoutingErrorCodes.INVALID_JSON_FORMAT, "Unable to parse JSON document.");
+
+        JSONArray jPairs = null;
+        try {
+            jPairs = new JSONObject(body).getJSONArray("pairs");
+        } catch (Exception ex) {
+            throw new StatusCodeException(StatusCode.BAD_REQUEST, RoutingErrorCodes.INVALID_JSON_FORMAT, "Unable to parse JSON document." + ex.getMessage());
+        }
+
+        if (jPairs.length() == 0)
+            throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "pairs");
+
+        int maxPairs = RoutingServiceSettings.getBatchMaximumPairs();
+        if (maxPairs > 0 && jPairs.length() > maxPairs)
+            throw new ServerLimitExceededException(RoutingErrorCodes.REQUEST_EXCEEDS_SERVER_LIMIT, "The number of pairs must not be greater than " + Integer.toString(maxPairs) + ".");
+
+        Coordinate[][] pairs = new Coordinate[jPairs.length()][];
+        for (int i = 0; i < pairs.length; i++) {
+            try {
+                JSONArray jPair = jPairs.getJSONArray(i);
+                if (jPair.length() != 2)
+                    throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "pairs");
+
+                JSONArray jSource = jPair.getJSONArray(0);
+                JSONArray jDest = jPair.getJSONArray(1);
+                pairs[i] = new Coordinate[] { new Coordinate(jSource.getDouble(0), jSource.getDouble(1)), new Coordinate(jDest.getDouble(0), jDest.getDouble(1)) };
+            } catch (ParameterValueException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_FORMAT, "pairs");
+            }
+        }
+
+        return pairs;
+    }
+}
@@ -47,6 +47,20 @@ import java.text.ParseException;
 public class RoutingRequestParser
 {
 	public static RoutingRequest parseFromRequestParams(HttpServletRequest request) throws Exception
+	{
+		return parseFromRequestParams(request, false);
+	}
+
+	/**
+	 * Parses the options shared by all routes of a batch request. The coordinates of the routes are 
+	 * given in the request body, per waypoint parameters like bearings and radiuses are not supported.
+	 */
+	public static RoutingRequest parseBatchOptionsFromRequestParams(HttpServletRequest request) throws Exception
+	{
+		return parseFromRequestParams(request, true);
+	}
+
+	private static RoutingRequest parseFromRequestParams(HttpServletRequest request, boolean batch) throws Exception
 	{
 		RoutingRequest req = new RoutingRequest();
 		RouteSearchParameters searchParams = req.getSearchParameters();
@@ -74,7 +88,12 @@ public class RoutingRequestParser
 		}
 
 		value = request.getParameter("coordinates");
-		if (!Helper.isEmpty(value))
+		if (batch)
+		{
+			if (!Helper.isEmpty(value))
+				throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "coordinates", value);
+		}
+		else if (!Helper.isEmpty(value))
 		{
 			Coordinate[] coords = null;
 
@@ -96,7 +115,9 @@ public class RoutingRequestParser
 			throw new MissingParameterException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "coordinates");
 		
 		value = request.getParameter("bearings");
-		if (!Helper.isEmpty(value))
+		if (!Helper.isEmpty(value) && batch)
+			throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "bearings", value);
+		else if (!Helper.isEmpty(value))
 		{
 			WayPointBearing[] bearings = null;
 
@@ -138,7 +159,9 @@ public class RoutingRequestParser
 		}
 		
 		value = request.getParameter("radiuses");
-		if (!Helper.isEmpty(value))
+		if (!Helper.isEmpty(value) && batch)
+			throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, "radiuses", value);
+		else if (!Helper.isEmpty(value))
 		{
 			double[] radiuses = ArraysUtility.parseDoubleArray(value, "radiuses", "\\|", RoutingErrorCodes.INVALID_PARAMETER_VALUE);
 			
@@ -49,6 +49,8 @@ public class RoutingServiceRequestProcessorFactory {
 		{
 			case "tmc":
 				return new TmcInformationRequestProcessor(request);
+			case "batch":
+				return new RoutingBatchRequestProcessor(request);
 			case "route":
 				String formatParam = request.getParameter("format");
 				if (Helper.isEmpty(formatParam))
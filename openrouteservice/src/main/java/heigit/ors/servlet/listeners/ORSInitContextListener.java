@@ -31,6 +31,7 @@ import heigit.ors.routing.RoutingProfileManager;
 import heigit.ors.routing.RoutingProfileManagerStatus;
 import heigit.ors.isochrones.statistics.StatisticsProviderFactory;
 import heigit.ors.locations.providers.LocationsDataProviderFactory;
+import heigit.ors.jobs.JobManager;
 
 public class ORSInitContextListener implements ServletContextListener
 {
@@ -60,6 +61,7 @@ public class ORSInitContextListener implements ServletContextListener
 			if (RoutingProfileManagerStatus.isReady())
 				RoutingProfileManager.getInstance().destroy();
 
+			JobManager.release();
 			LocationsDataProviderFactory.releaseProviders();
 			StatisticsProviderFactory.releaseProviders();
 			
@@ -89,7 +89,7 @@ public class CSVUtility {
      * @param customQuote   The character enclosing strings
      * @return
      */
-    private static ArrayList<String> parseLine(String csvLine, char separator, char customQuote) {
+    public static ArrayList<String> parseLine(String csvLine, char separator, char customQuote) {
 
         ArrayList<String> result = new ArrayList<>();
 
@@ -20,10 +20,10 @@
  */
 package heigit.ors.util;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 
@@ -44,26 +44,76 @@ public final class HTTPUtility {
 	}
 	
 	public static String getResponse(String req, int timeOut, String userAgent, String encoding) throws IOException
+	{
+		return getResponse(req, timeOut, timeOut, userAgent, encoding);
+	}
+
+	/**
+	 * Reads the whole response of a GET request. The body is always consumed completely, also in case of an error
+	 * status, so that the JDK can return the connection to its keep-alive cache and reuse it for the next request
+	 * to the same host.
+	 */
+	public static String getResponse(String req, int connectTimeOut, int timeOut, String userAgent, String encoding) throws IOException
 	{
 		URL url = new URL(req);
 		URLConnection conn = url.openConnection();
 		if (!Helper.isEmpty(userAgent))
 			conn.setRequestProperty("User-Agent", userAgent);
+		if (connectTimeOut > 0)
+			conn.setConnectTimeout(connectTimeOut);
 		if (timeOut > 0)
 			conn.setReadTimeout(timeOut);
 		// conn.setRequestProperty("Accept-Language",
 		// "de,de-de;q=0.8,en;q=0.5,en-us;q=0.3");
-		InputStream is = conn.getInputStream();
-		BufferedReader br = new BufferedReader(new InputStreamReader(is, encoding));
-		String line = "";
-		StringBuffer sb = new StringBuffer();
-		while ((line = br.readLine()) != null) {
-			sb.append(line);
+		InputStream is = null;
+		try
+		{
+			is = conn.getInputStream();
+		}
+		catch(IOException ex)
+		{
+			if (conn instanceof HttpURLConnection)
+				drain(((HttpURLConnection)conn).getErrorStream());
+			throw ex;
+		}
+
+		try
+		{
+			// line breaks are dropped, as the previous line based reading did
+			return readContent(is, encoding).replace("\r", "").replace("\n", "");
+		}
+		finally
+		{
+			is.close();
+		}
+	}
+
+	private static String readContent(InputStream is, String encoding) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = is.read(buffer)) != -1)
+			bytes.write(buffer, 0, n);
+
+		return bytes.toString(encoding);
+	}
+
+	private static void drain(InputStream is)
+	{
+		if (is == null)
+			return;
+
+		try
+		{
+			byte[] buffer = new byte[8192];
+			while (is.read(buffer) != -1);
+			is.close();
+		}
+		catch(IOException ex)
+		{
+			// the connection is discarded instead of being reused
 		}
-		br.close();
-		is.close();
-		
-		return sb.toString();
 	}
 	
 	public static String getRemoteAddr(HttpServletRequest req) {
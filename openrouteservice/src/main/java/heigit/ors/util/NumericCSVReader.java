@@ -0,0 +1,210 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.util;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming reader for CSV files with a numeric key in the first and a numeric value in the second column, such as
+ * the osm id based green and noise index files. Rows are tokenized directly from the byte stream so that no String
+ * objects are created per row. The first row is treated as header and used to detect the separator (';' or ',').
+ * Rows with an empty key or value are skipped, further columns are ignored.
+ */
+public class NumericCSVReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FIELD_LENGTH = 64;
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18 };
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPos;
+    private int bufferLimit;
+    private char separator = ',';
+    private final char[] keyChars = new char[MAX_FIELD_LENGTH];
+    private final char[] valueChars = new char[MAX_FIELD_LENGTH];
+    private int keyLength;
+    private int valueLength;
+    private long key;
+    private double value;
+    private boolean eof;
+
+    public NumericCSVReader(String file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    public NumericCSVReader(InputStream stream) throws IOException {
+        in = stream;
+        readHeader();
+    }
+
+    private void readHeader() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            if (c == ';')
+                separator = ';';
+        }
+
+        if (c == -1)
+            eof = true;
+    }
+
+    /**
+     * Advance to the next row having a key and a value.
+     *
+     * @return false if the end of the file has been reached
+     */
+    public boolean next() throws IOException {
+        while (!eof) {
+            if (readRow() && keyLength > 0 && valueLength > 0) {
+                key = parseLong(keyChars, keyLength);
+                value = parseDouble(valueChars, valueLength);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Read the first two fields of a row into the char buffers, leading and trailing whitespace is dropped.
+     *
+     * @return false if the row has less than two fields
+     */
+    private boolean readRow() throws IOException {
+        keyLength = 0;
+        valueLength = 0;
+        int field = 0;
+        int c;
+
+        while ((c = read()) != -1 && c != '\n') {
+            if (c == separator) {
+                field++;
+            } else if (field == 0) {
+                keyLength = append(keyChars, keyLength, c);
+            } else if (field == 1) {
+                valueLength = append(valueChars, valueLength, c);
+            }
+        }
+
+        if (c == -1)
+            eof = true;
+
+        return field > 0;
+    }
+
+    private int read() throws IOException {
+        if (bufferPos == bufferLimit) {
+            bufferLimit = in.read(buffer, 0, BUFFER_SIZE);
+            bufferPos = 0;
+            if (bufferLimit <= 0) {
+                bufferLimit = 0;
+                return -1;
+            }
+        }
+
+        return buffer[bufferPos++] & 0xFF;
+    }
+
+    private int append(char[] chars, int length, int c) throws IOException {
+        if (c <= ' ')
+            return length; // whitespace (including '\r') never appears within a number
+        if (length == chars.length)
+            throw new IOException("CSV field exceeds " + MAX_FIELD_LENGTH + " characters.");
+
+        chars[length] = (char) c;
+        return length + 1;
+    }
+
+    private static long parseLong(char[] chars, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (chars[0] == '-' || chars[0] == '+') {
+            negative = chars[0] == '-';
+            i++;
+        }
+
+        if (i == length)
+            throw new NumberFormatException("For input string: \"" + new String(chars, 0, length) + "\"");
+
+        long res = 0;
+        for (; i < length; i++) {
+            int d = chars[i] - '0';
+            if (d < 0 || d > 9 || res > (Long.MAX_VALUE - d) / 10)
+                return Long.parseLong(new String(chars, 0, length)); // throws the usual exception
+            res = res * 10 + d;
+        }
+
+        return negative ? -res : res;
+    }
+
+    /**
+     * Parse plain decimal numbers without creating a String, everything else (exponents, too many digits) is passed
+     * to Double.parseDouble.
+     */
+    private static double parseDouble(char[] chars, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (chars[0] == '-' || chars[0] == '+') {
+            negative = chars[0] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < length; i++) {
+            char c = chars[i];
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0)
+                    decimals++;
+            } else {
+                return Double.parseDouble(new String(chars, 0, length));
+            }
+        }
+
+        if (digits == 0)
+            return Double.parseDouble(new String(chars, 0, length)); // throws the usual exception
+
+        double res = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return negative ? -res : res;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
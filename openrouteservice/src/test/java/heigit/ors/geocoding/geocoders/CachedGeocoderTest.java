@@ -0,0 +1,98 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.geocoding.geocoders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class CachedGeocoderTest {
+    private static final String RESPONSE = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\","
+            + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[8.6821,49.4077]},"
+            + "\"properties\":{\"name\":\"Berliner Strasse 45\",\"street\":\"Berliner Strasse\",\"housenumber\":\"45\","
+            + "\"locality\":\"Heidelberg\",\"country\":\"Germany\",\"layer\":\"address\",\"confidence\":0.9}}]}";
+
+    private HttpServer server;
+    private AtomicInteger requests;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        requests = new AtomicInteger();
+        // stands in for a Pelias backend
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // the narrowed fallback request is sent in parallel and may or may not arrive
+                if (!exchange.getRequestURI().getQuery().contains("layers="))
+                    requests.incrementAndGet();
+
+                byte[] body = RESPONSE.getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(body);
+                os.close();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/search";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Test that queries which differ only in case and white space are answered from the cache
+     */
+    @Test
+    public void TestNormalisedQueryIsCached() throws Exception {
+        CachedGeocoder geocoder = new CachedGeocoder(new PeliasGeocoder(url, url, "test"), 10, 0);
+
+        GeocodingResult[] results = geocoder.geocode("Berliner Strasse 45, Heidelberg", "en", null, 5);
+        assertNotNull(results);
+        assertEquals("Heidelberg", results[0].locality);
+
+        GeocodingResult[] results2 = geocoder.geocode("  berliner strasse   45, HEIDELBERG ", "en", null, 5);
+        assertEquals(results[0], results2[0]);
+        assertEquals(1, requests.get());
+        assertEquals(1, geocoder.getHits());
+
+        // a different limit is a different query
+        geocoder.geocode("Berliner Strasse 45, Heidelberg", "en", null, 10);
+        assertEquals(2, requests.get());
+    }
+}
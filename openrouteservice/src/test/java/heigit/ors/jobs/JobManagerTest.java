@@ -0,0 +1,273 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.jobs;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import heigit.ors.common.StatusCode;
+import heigit.ors.exceptions.StatusCodeException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JobManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JobManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = new JobManager(folder.newFolder("spool"), 1, 1, 1500);
+    }
+
+    @After
+    public void tearDown() {
+        manager.destroy();
+    }
+
+    /**
+     * Test that the results of the oldest jobs are removed once the quota is exceeded
+     */
+    @Test
+    public void TestEvictsOldestResults() throws Exception {
+        Job first = manager.submit(new BytesTask(1000));
+        waitFor(first);
+        assertEquals(JobStatus.Finished, first.getStatus());
+        assertEquals(1000, first.getFile().length());
+
+        Job second = manager.submit(new BytesTask(1000));
+        waitFor(second);
+        // results are evicted right after the job has finished
+        for (int i = 0; i < 500 && manager.getJob(first.getId()) != null; i++)
+            Thread.sleep(10);
+
+        assertNull(manager.getJob(first.getId()));
+        assertFalse(first.getFile().exists());
+        assertEquals(JobStatus.Finished, manager.getJob(second.getId()).getStatus());
+        assertTrue(second.getFile().exists());
+    }
+
+    /**
+     * Test that a failing task does not leave a result behind
+     */
+    @Test
+    public void TestFailedJob() throws Exception {
+        Job job = manager.submit(new BytesTask(-1));
+        waitFor(job);
+
+        assertEquals(JobStatus.Failed, job.getStatus());
+        assertEquals("failed", job.getError());
+        assertFalse(job.getFile().exists());
+    }
+
+    /**
+     * Test that only result files of previous jobs are removed from the spool directory at startup
+     */
+    @Test
+    public void TestKeepsForeignFiles() throws Exception {
+        File spoolDir = folder.newFolder("shared");
+        File result = new File(spoolDir, UUID.randomUUID().toString() + ".csv");
+        File foreign = new File(spoolDir, "notes.csv");
+        assertTrue(result.createNewFile());
+        assertTrue(foreign.createNewFile());
+
+        new JobManager(spoolDir, 1, 1, 1500).destroy();
+
+        assertFalse(result.exists());
+        assertTrue(foreign.exists());
+    }
+
+    /**
+     * Test that temporary files of a task are created in the spool directory and removed when the job ends
+     */
+    @Test
+    public void TestTempFiles() throws Exception {
+        TempFileTask task = new TempFileTask();
+        Job job = manager.submit(task);
+        waitFor(job);
+
+        assertEquals(JobStatus.Finished, job.getStatus());
+        assertEquals(job.getFile().getParentFile(), task.tempFile.getParentFile());
+        assertTrue(task.existed);
+        assertFalse(task.tempFile.exists());
+        assertEquals(2, job.getFile().length());
+    }
+
+    /**
+     * Test that jobs are rejected once the queue is full
+     */
+    @Test
+    public void TestRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            Job running = manager.submit(new BlockingTask(latch));
+            for (int i = 0; i < 500 && running.getStatus() != JobStatus.Running; i++)
+                Thread.sleep(10);
+
+            Job queued = manager.submit(new BytesTask(10));
+            try {
+                manager.submit(new BytesTask(10));
+                fail("the job should have been rejected");
+            } catch (StatusCodeException ex) {
+                assertEquals(StatusCode.SERVICE_UNAVAILABLE, ex.getStatusCode());
+            }
+
+            latch.countDown();
+            waitFor(queued);
+            assertEquals(JobStatus.Finished, queued.getStatus());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Test that jobs are rejected while the results of running jobs fill the quota
+     */
+    @Test
+    public void TestRejectsWhenQuotaIsFull() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            Job running = manager.submit(new PartialTask(2000, written, latch));
+            written.await();
+
+            try {
+                manager.submit(new BytesTask(10));
+                fail("the job should have been rejected");
+            } catch (StatusCodeException ex) {
+                assertEquals(StatusCode.SERVICE_UNAVAILABLE, ex.getStatusCode());
+                assertEquals(JobsErrorCodes.DISK_QUOTA_EXCEEDED, ex.getInternalCode());
+            }
+
+            latch.countDown();
+            waitFor(running);
+            assertEquals(JobStatus.Finished, running.getStatus());
+
+            // the result of a finished job can be evicted, so it does not block further jobs
+            Job next = manager.submit(new BytesTask(10));
+            waitFor(next);
+            assertEquals(JobStatus.Finished, next.getStatus());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    private static void waitFor(Job job) throws InterruptedException {
+        for (int i = 0; i < 500 && !JobStatus.isTerminal(job.getStatus()); i++)
+            Thread.sleep(10);
+    }
+
+    private static class BytesTask implements JobTask {
+        private int size;
+
+        BytesTask(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public String getType() {
+            return "test";
+        }
+
+        @Override
+        public String getFileExtension() {
+            return "bin";
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public void execute(Job job, OutputStream out) throws Exception {
+            if (size < 0)
+                throw new Exception("failed");
+            out.write(new byte[size]);
+        }
+    }
+
+    private static class TempFileTask extends BytesTask {
+        private volatile File tempFile;
+        private volatile boolean existed;
+
+        TempFileTask() {
+            super(2);
+        }
+
+        @Override
+        public void execute(Job job, OutputStream out) throws Exception {
+            tempFile = job.createTempFile();
+            existed = tempFile.exists();
+            super.execute(job, out);
+        }
+    }
+
+    /**
+     * Writes its result and waits before it finishes.
+     */
+    private static class PartialTask extends BytesTask {
+        private CountDownLatch written;
+        private CountDownLatch latch;
+
+        PartialTask(int size, CountDownLatch written, CountDownLatch latch) {
+            super(size);
+            this.written = written;
+            this.latch = latch;
+        }
+
+        @Override
+        public void execute(Job job, OutputStream out) throws Exception {
+            super.execute(job, out);
+            out.flush();
+            written.countDown();
+            latch.await();
+        }
+    }
+
+    private static class BlockingTask extends BytesTask {
+        private CountDownLatch latch;
+
+        BlockingTask(CountDownLatch latch) {
+            super(1);
+            this.latch = latch;
+        }
+
+        @Override
+        public void execute(Job job, OutputStream out) throws Exception {
+            latch.await();
+            super.execute(job, out);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.locations.providers.local;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import heigit.ors.exceptions.UnknownParameterValueException;
+import heigit.ors.locations.LocationDetailsType;
+import heigit.ors.locations.LocationsCategory;
+import heigit.ors.locations.LocationsRequest;
+import heigit.ors.locations.LocationsResult;
+import heigit.ors.locations.LocationsResultSortType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LocalLocationsDataProviderTest {
+    private static final int HOTEL = 108;
+    private static final int BAR = 561;
+    private static final int FAST_FOOD = 566;
+    private static final int RESTAURANT = 570;
+    private static final int ACCOMODATION_GROUP = 100;
+    private static final int SUSTENANCE_GROUP = 560;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private LocalLocationsDataProvider provider;
+
+    private static String[] attributes(String name, String wheelchair, String smoking) {
+        String[] attributes = new String[LocationsIndex.ATTRIBUTE_NAMES.length];
+        attributes[LocationsIndex.NAME] = name;
+        attributes[LocationsIndex.ADDRESS] = "Hauptstrasse";
+        attributes[LocationsIndex.WHEELCHAIR] = wheelchair;
+        attributes[LocationsIndex.SMOKING] = smoking;
+        return attributes;
+    }
+
+    /**
+     * Points of interest around 8.0, 49.0 with their distance to it, and many restaurants far away from it
+     */
+    @Before
+    public void setUp() {
+        LocationsIndexBuilder builder = new LocationsIndexBuilder();
+        // 111 m north
+        builder.add(1, 1, RESTAURANT, 8.0, 49.001, attributes("Pizzeria Roma", "yes", "no"), 0);
+        // 146 m east
+        builder.add(2, 1, BAR, 8.002, 49.0, attributes("Roma Bar", "no", "yes"), -1);
+        // 334 m north
+        builder.add(3, 2, HOTEL, 8.0, 49.003, attributes("Hotel Europa", "limited", "no"), 1);
+        // 557 m south
+        builder.add(4, 1, RESTAURANT, 8.0, 48.995, attributes("Zur Post", "yes", null), 0);
+        // 730 m east
+        builder.add(5, 1, FAST_FOOD, 8.01, 49.0, attributes("Roma Snack", "yes", null), -1);
+        for (int i = 0; i < 500; i++)
+            builder.add(1000 + i, 1, RESTAURANT, 8.5 + (i % 20) * 0.01, 49.5 + (i / 20) * 0.01, attributes("Roma " + i, "yes", "no"), 0);
+
+        provider = new LocalLocationsDataProvider();
+        provider.init(builder.build());
+    }
+
+    private LocationsRequest createRequest(double radius) {
+        LocationsRequest request = new LocationsRequest();
+        request.setGeometry(geometryFactory.createPoint(new Coordinate(8.0, 49.0)));
+        request.setRadius(radius);
+        request.setLimit(100);
+        return request;
+    }
+
+    private static List<Long> getOsmIds(List<LocationsResult> results) {
+        List<Long> osmIds = new ArrayList<Long>();
+        for (LocationsResult result : results)
+            osmIds.add((Long) result.getProperties().get("osm_id"));
+        return osmIds;
+    }
+
+    private static Set<Long> asSet(long... osmIds) {
+        Set<Long> set = new HashSet<Long>();
+        for (long osmId : osmIds)
+            set.add(osmId);
+        return set;
+    }
+
+    private static List<Long> asList(long... osmIds) {
+        List<Long> list = new ArrayList<Long>();
+        for (long osmId : osmIds)
+            list.add(osmId);
+        return list;
+    }
+
+    private Set<Long> findOsmIds(LocationsRequest request) throws Exception {
+        return new HashSet<Long>(getOsmIds(provider.findLocations(request)));
+    }
+
+    /**
+     * Test that a radius search returns the points within the radius ordered by their distance in meters
+     */
+    @Test
+    public void TestRadiusSearch() throws Exception {
+        LocationsRequest request = createRequest(400);
+        request.setSortType(LocationsResultSortType.DISTANCE);
+
+        List<LocationsResult> results = provider.findLocations(request);
+        assertEquals(3, results.size());
+        assertEquals(1L, results.get(0).getProperties().get("osm_id"));
+        assertEquals(111.32, (Double) results.get(0).getProperties().get("distance"), 0.5);
+        assertEquals(2L, results.get(1).getProperties().get("osm_id"));
+        assertEquals(146.07, (Double) results.get(1).getProperties().get("distance"), 0.5);
+        assertEquals(3L, results.get(2).getProperties().get("osm_id"));
+        assertEquals(333.96, (Double) results.get(2).getProperties().get("distance"), 0.5);
+        assertEquals((short) 2, results.get(2).getProperties().get("osm_type"));
+        assertEquals(HOTEL, results.get(2).getProperties().get("category"));
+        assertEquals("Hotel Europa", results.get(2).getProperties().get("name"));
+        // only requested details are returned
+        assertFalse(results.get(2).getProperties().containsKey("address"));
+        assertEquals(8.0, results.get(2).getGeometry().getCoordinate().x, 1e-9);
+        assertEquals(49.003, results.get(2).getGeometry().getCoordinate().y, 1e-9);
+    }
+
+    /**
+     * Test that a polygon search returns the points within the polygon without a distance
+     */
+    @Test
+    public void TestPolygonSearch() throws Exception {
+        Coordinate[] ring = new Coordinate[] { new Coordinate(7.999, 48.999), new Coordinate(8.003, 48.999),
+                new Coordinate(8.003, 49.0015), new Coordinate(7.999, 49.0015), new Coordinate(7.999, 48.999) };
+        LocationsRequest request = new LocationsRequest();
+        request.setGeometry(geometryFactory.createPolygon(geometryFactory.createLinearRing(ring), null));
+        request.setDetails(LocationDetailsType.ADDRESS);
+
+        List<LocationsResult> results = provider.findLocations(request);
+        assertEquals(asSet(1, 2), new HashSet<Long>(getOsmIds(results)));
+        for (LocationsResult result : results) {
+            assertFalse(result.getProperties().containsKey("distance"));
+            assertEquals("Hauptstrasse", result.getProperties().get("address"));
+        }
+
+        // a buffer of 200 m around the polygon includes the hotel 334 m north of 8.0, 49.0
+        request.setRadius(200);
+        assertEquals(asSet(1, 2, 3), findOsmIds(request));
+    }
+
+    /**
+     * Test that names are matched case-insensitive either exactly or with wildcards
+     */
+    @Test
+    public void TestNameFilter() throws Exception {
+        LocationsRequest request = createRequest(1000);
+
+        request.getSearchFilter().setName("roma*");
+        assertEquals(asSet(2, 5), findOsmIds(request));
+
+        request.getSearchFilter().setName("*ROMA");
+        assertEquals(asSet(1), findOsmIds(request));
+
+        request.getSearchFilter().setName("*roma*");
+        assertEquals(asSet(1, 2, 5), findOsmIds(request));
+
+        request.getSearchFilter().setName("zur post");
+        assertEquals(asSet(4), findOsmIds(request));
+
+        // without a wildcard the whole name has to match
+        request.getSearchFilter().setName("roma");
+        assertTrue(findOsmIds(request).isEmpty());
+    }
+
+    /**
+     * Test the wheelchair, smoking and fee filters, the filtered attributes are added to the results
+     */
+    @Test
+    public void TestAttributeFilters() throws Exception {
+        LocationsRequest request = createRequest(1000);
+
+        request.getSearchFilter().setWheelchair("yes");
+        List<LocationsResult> results = provider.findLocations(request);
+        assertEquals(asSet(1, 4, 5), new HashSet<Long>(getOsmIds(results)));
+        for (LocationsResult result : results)
+            assertEquals("yes", result.getProperties().get("wheelchair"));
+
+        request.getSearchFilter().setWheelchair("yes, limited");
+        assertEquals(asSet(1, 3, 4, 5), findOsmIds(request));
+
+        request.getSearchFilter().setWheelchair(null);
+        request.getSearchFilter().setSmoking("no");
+        assertEquals(asSet(1, 3), findOsmIds(request));
+
+        request.getSearchFilter().setSmoking(null);
+        request.getSearchFilter().setFee(true);
+        results = provider.findLocations(request);
+        assertEquals(asSet(3), new HashSet<Long>(getOsmIds(results)));
+        assertEquals(1, results.get(0).getProperties().get("fee"));
+
+        // points with an unknown fee match neither value
+        request.getSearchFilter().setFee(false);
+        assertEquals(asSet(1, 4), findOsmIds(request));
+    }
+
+    /**
+     * Test the category filters and that an unknown category group is rejected
+     */
+    @Test(expected = UnknownParameterValueException.class)
+    public void TestCategoryFilters() throws Exception {
+        LocationsRequest request = createRequest(1000);
+
+        request.getSearchFilter().setCategoryIds(new int[] { RESTAURANT, HOTEL });
+        assertEquals(asSet(1, 3, 4), findOsmIds(request));
+
+        request.getSearchFilter().setCategoryIds(null);
+        request.getSearchFilter().setCategoryGroupIds(new int[] { SUSTENANCE_GROUP });
+        assertEquals(asSet(1, 2, 4, 5), findOsmIds(request));
+
+        request.getSearchFilter().setCategoryGroupIds(new int[] { 12345 });
+        provider.findLocations(request);
+    }
+
+    /**
+     * Test sorting by distance and category and that the limit applies after sorting
+     */
+    @Test
+    public void TestSortAndLimit() throws Exception {
+        LocationsRequest request = createRequest(1000);
+        request.setSortType(LocationsResultSortType.DISTANCE);
+        assertEquals(asList(1, 2, 3, 4, 5), getOsmIds(provider.findLocations(request)));
+
+        request.setLimit(2);
+        assertEquals(asList(1, 2), getOsmIds(provider.findLocations(request)));
+
+        request.setLimit(100);
+        request.setSortType(LocationsResultSortType.CATEGORY);
+        List<LocationsResult> results = provider.findLocations(request);
+        List<Integer> categories = new ArrayList<Integer>();
+        for (LocationsResult result : results)
+            categories.add((Integer) result.getProperties().get("category"));
+        assertEquals(Arrays.asList(HOTEL, BAR, FAST_FOOD, RESTAURANT, RESTAURANT), categories);
+
+        // without sorting any points within the area may be returned
+        request.setSortType(LocationsResultSortType.NONE);
+        request.setLimit(3);
+        results = provider.findLocations(request);
+        assertEquals(3, results.size());
+        assertTrue(asSet(1, 2, 3, 4, 5).containsAll(getOsmIds(results)));
+    }
+
+    /**
+     * Test that the points within the search area are counted per category and category group
+     */
+    @Test
+    public void TestCategoryCounts() throws Exception {
+        LocationsRequest request = createRequest(1000);
+
+        Map<Integer, LocationsCategory> groups = new HashMap<Integer, LocationsCategory>();
+        for (LocationsCategory group : provider.findCategories(request))
+            groups.put(group.getCategoryId(), group);
+
+        assertEquals(2, groups.size());
+        assertEquals(1, groups.get(ACCOMODATION_GROUP).getTotalCount());
+        assertEquals(Long.valueOf(1), groups.get(ACCOMODATION_GROUP).getStats().get(HOTEL));
+        assertEquals(4, groups.get(SUSTENANCE_GROUP).getTotalCount());
+        assertEquals(Long.valueOf(2), groups.get(SUSTENANCE_GROUP).getStats().get(RESTAURANT));
+        assertEquals(Long.valueOf(1), groups.get(SUSTENANCE_GROUP).getStats().get(BAR));
+        assertEquals(Long.valueOf(1), groups.get(SUSTENANCE_GROUP).getStats().get(FAST_FOOD));
+
+        // the filters apply to the counts as well
+        request.getSearchFilter().setWheelchair("yes");
+        groups.clear();
+        for (LocationsCategory group : provider.findCategories(request))
+            groups.put(group.getCategoryId(), group);
+
+        assertEquals(1, groups.size());
+        assertEquals(3, groups.get(SUSTENANCE_GROUP).getTotalCount());
+    }
+}
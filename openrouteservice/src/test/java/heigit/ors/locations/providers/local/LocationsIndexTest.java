@@ -0,0 +1,94 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.locations.providers.local;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocationsIndexTest {
+    /**
+     * Build a grid of 100 x 100 points with the categories 0 to 199 spread over it
+     */
+    private LocationsIndex createIndex() {
+        LocationsIndexBuilder builder = new LocationsIndexBuilder();
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 100; j++)
+                builder.add(i * 100 + j, 1, (i * 100 + j) % 200, 8.0 + i * 0.01, 49.0 + j * 0.01, new String[] { "poi " + (i * 100 + j) }, -1);
+        }
+        return builder.build();
+    }
+
+    private List<Integer> query(LocationsIndex index, double minX, double minY, double maxX, double maxY, long[] mask) {
+        final List<Integer> items = new ArrayList<>();
+        index.query(minX, minY, maxX, maxY, mask, new LocationsIndex.Visitor() {
+            @Override
+            public boolean visit(int item) {
+                items.add(item);
+                return true;
+            }
+        });
+        return items;
+    }
+
+    /**
+     * Test that a box query returns exactly the points within the box
+     */
+    @Test
+    public void TestBoxQuery() {
+        LocationsIndex index = createIndex();
+        assertEquals(10000, index.size());
+
+        List<Integer> items = query(index, 8.095, 49.195, 8.205, 49.305, null);
+        assertEquals(11 * 11, items.size());
+        for (int item : items) {
+            assertTrue(index.getX(item) >= 8.095 && index.getX(item) <= 8.205);
+            assertTrue(index.getY(item) >= 49.195 && index.getY(item) <= 49.305);
+            assertEquals("poi " + index.getOsmId(item), index.getAttribute(item, LocationsIndex.NAME));
+        }
+    }
+
+    /**
+     * Test that only points of the requested categories are returned
+     */
+    @Test
+    public void TestCategoryQuery() {
+        LocationsIndex index = createIndex();
+        long[] mask = index.createCategoryMask();
+        index.addCategories(mask, 5, 5);
+        index.addCategories(mask, 150, 151);
+
+        List<Integer> items = query(index, 7, 48, 10, 51, mask);
+        assertEquals(3 * 50, items.size());
+        for (int item : items) {
+            int category = index.getCategory(item);
+            assertTrue(category == 5 || category == 150 || category == 151);
+        }
+
+        mask = index.createCategoryMask();
+        index.addCategories(mask, 500, 600);
+        assertEquals(0, query(index, 7, 48, 10, 51, mask).size());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.mapmatching.hmm;
+
+import com.carrotsearch.hppc.IntArrayList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ViterbiSolverTest {
+    private static final double NO = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Test that the online decoder commits observations as soon as all paths share them and returns the
+     * same sequence as the offline solver.
+     */
+    @Test
+    public void TestOnlineDecoding() {
+        double[][] emissions = new double[][] {
+                { Math.log(0.6), Math.log(0.4) },
+                { Math.log(0.5), Math.log(0.5) },
+                { Math.log(0.1), Math.log(0.9) }
+        };
+        double[][] transitions = new double[][] {
+                { Math.log(0.7), Math.log(0.3) },
+                { Math.log(0.4), Math.log(0.6) }
+        };
+
+        ViterbiSolver solver = new ViterbiSolver();
+        IntArrayList states = new IntArrayList();
+
+        solver.start(emissions[0]);
+        for (int t = 1; t < emissions.length; t++)
+            solver.next(transitions, emissions[t]);
+        solver.flush(states);
+
+        double[] startProbs = new double[] { 1.0, 1.0 };
+        double[][] transProbs = new double[][] { { 0.7, 0.3 }, { 0.4, 0.6 } };
+        double[][] emissionProbs = new double[][] { { 0.6, 0.5, 0.1 }, { 0.4, 0.5, 0.9 } };
+        int[] expected = new ViterbiSolver().findPath(startProbs, transProbs, emissionProbs, true);
+
+        assertEquals(expected.length, states.size());
+        for (int t = 0; t < expected.length; t++)
+            assertEquals(expected[t], states.get(t));
+    }
+
+    /**
+     * Test that the number of pending observations is bounded by the window size.
+     */
+    @Test
+    public void TestWindowSize() {
+        double[] emission = new double[] { Math.log(0.5), Math.log(0.5) };
+        double[][] transitions = new double[][] { { Math.log(0.5), Math.log(0.5) }, { Math.log(0.5), Math.log(0.5) } };
+
+        ViterbiSolver solver = new ViterbiSolver();
+        solver.setWindowSize(4);
+        IntArrayList states = new IntArrayList();
+
+        solver.start(emission);
+        for (int t = 1; t < 100; t++) {
+            solver.next(transitions, emission);
+            solver.poll(states);
+            assertEquals(true, t + 1 - states.size() <= 4);
+        }
+
+        solver.flush(states);
+        assertEquals(100, states.size());
+    }
+
+    /**
+     * Test that an observation which cannot be reached from any state is rejected.
+     */
+    @Test
+    public void TestBreak() {
+        ViterbiSolver solver = new ViterbiSolver();
+        solver.start(new double[] { 0.0 });
+
+        assertFalse(solver.next(new double[][] { { NO, NO } }, new double[] { 0.0, 0.0 }));
+    }
+}
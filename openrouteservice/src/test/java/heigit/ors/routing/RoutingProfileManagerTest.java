@@ -0,0 +1,237 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import com.graphhopper.routing.Dijkstra;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.PathProcessingContext;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.PathProcessor;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.Instruction;
+import com.graphhopper.util.PathMerger;
+import com.graphhopper.util.PointList;
+import com.graphhopper.util.Translation;
+import com.graphhopper.util.TranslationMap;
+import com.vividsolutions.jts.geom.Coordinate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class RoutingProfileManagerTest {
+
+    private static final int SIZE = 6;
+
+    private final EncodingManager encodingManager = new EncodingManager("car");
+    private final FlagEncoder encoder = encodingManager.getEncoder("car");
+    private final Weighting weighting = new FastestWeighting(encoder);
+    private final Translation translation = new TranslationMap().doImport().getWithFallBack(Locale.ENGLISH);
+
+    private GraphHopperStorage createGrid() {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        NodeAccess nodeAccess = graph.getNodeAccess();
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int node = y * SIZE + x;
+                nodeAccess.setNode(node, 49 + y * 0.01, 8 + x * 0.01);
+                // the street names change along the way, so that the legs have several instructions
+                if (x > 0)
+                    graph.edge(node - 1, node, 700 + (node % 5) * 100, true).setName("row " + y);
+                if (y > 0)
+                    graph.edge(node - SIZE, node, 1100 - (node % 4) * 100, true).setName("column " + x);
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Routes a leg between two grid nodes and passes its path to the path processor of the context like GraphHopper
+     * does. The heading the leg was requested with is returned in the hints of the response.
+     */
+    private RoutingProfileManager.LegRouter createLegRouter(final GraphHopperStorage graph) {
+        return new RoutingProfileManager.LegRouter() {
+            @Override
+            public GHResponse computeRoute(Coordinate c0, Coordinate c1, WayPointBearing[] bearings, double[] radiuses, RouteProcessContext routeProcCntx) {
+                Path path = new Dijkstra(graph, weighting, TraversalMode.NODE_BASED).calcPath(getNode(c0), getNode(c1));
+
+                PathWrapper pathWrapper = new PathWrapper();
+                new PathMerger().setEnableInstructions(true).doWork(pathWrapper, Collections.singletonList(path), translation);
+
+                PathProcessor pathProcessor = routeProcCntx.getPathProcessor();
+                if (pathProcessor != null) {
+                    pathProcessor.init(null);
+                    List<EdgeIteratorState> edges = path.calcEdges();
+                    for (int i = 0; i < edges.size(); i++)
+                        pathProcessor.processEdge(0, edges.get(i), i == edges.size() - 1, edges.get(i).fetchWayGeometry(3));
+                    pathWrapper.setPoints(pathProcessor.processPoints(pathWrapper.getPoints()));
+                    pathProcessor.finish();
+                }
+
+                GHResponse response = new GHResponse();
+                response.add(pathWrapper);
+                if (bearings != null && bearings[0] != null)
+                    response.getHints().put("heading", bearings[0].getValue());
+
+                return response;
+            }
+        };
+    }
+
+    private static int getNode(Coordinate c) {
+        return (int) Math.round((c.y - 49) / 0.01) * SIZE + (int) Math.round((c.x - 8) / 0.01);
+    }
+
+    private static RoutingRequest createRequest(boolean continueStraight) {
+        RoutingRequest req = new RoutingRequest();
+        req.setCoordinates(new Coordinate[] { new Coordinate(8.0, 49.0), new Coordinate(8.04, 49.03),
+                new Coordinate(8.01, 49.05), new Coordinate(8.05, 49.05), new Coordinate(8.02, 49.01) });
+        req.setContinueStraight(continueStraight);
+
+        return req;
+    }
+
+    private static void assertSameLegs(List<GHResponse> expected, List<GHResponse> legs) {
+        assertEquals(expected.size(), legs.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            PathWrapper expectedPath = expected.get(i).getBest();
+            PathWrapper path = legs.get(i).getBest();
+
+            assertEquals(expectedPath.getPoints().toString(), path.getPoints().toString());
+            assertEquals(expectedPath.getDistance(), path.getDistance(), 1e-6);
+            assertEquals(expected.get(i).getHints().getDouble("heading", Double.NaN), legs.get(i).getHints().getDouble("heading", Double.NaN), 1e-9);
+
+            assertEquals(expectedPath.getInstructions().size(), path.getInstructions().size());
+            for (int j = 0; j < expectedPath.getInstructions().size(); j++) {
+                Instruction expectedInstruction = expectedPath.getInstructions().get(j);
+                Instruction instruction = path.getInstructions().get(j);
+                assertEquals(expectedInstruction.getSign(), instruction.getSign());
+                assertEquals(expectedInstruction.getName(), instruction.getName());
+                assertEquals(expectedInstruction.getDistance(), instruction.getDistance(), 1e-6);
+            }
+        }
+    }
+
+    private void assertSameAsSequential(boolean continueStraight) throws Exception {
+        GraphHopperStorage graph = createGrid();
+        RoutingProfileManager.LegRouter legRouter = createLegRouter(graph);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            LoggingPathProcessor expectedProcessor = new LoggingPathProcessor();
+            List<GHResponse> expected = RoutingProfileManager.computeLegs(legRouter, createRequest(continueStraight), expectedProcessor);
+
+            // repeated, as the order in which the legs are finished differs from run to run
+            for (int run = 0; run < 10; run++) {
+                LoggingPathProcessor pathProcessor = new LoggingPathProcessor();
+                List<GHResponse> legs = RoutingProfileManager.computeLegsConcurrently(executor, legRouter, createRequest(continueStraight), pathProcessor);
+
+                assertSameLegs(expected, legs);
+                assertEquals(expectedProcessor.calls, pathProcessor.calls);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that concurrently computed legs give the same route, path processor calls and instructions as sequentially computed legs
+     */
+    @Test
+    public void TestConcurrentLegs() throws Exception {
+        assertSameAsSequential(false);
+    }
+
+    /**
+     * Test that concurrently computed legs which depend on the heading of the previous leg are the same as sequentially computed legs
+     */
+    @Test
+    public void TestConcurrentLegsContinueStraight() throws Exception {
+        assertSameAsSequential(true);
+    }
+
+    /**
+     * Test that legs which depend on the heading of the previous leg are not passed to the executor
+     */
+    @Test
+    public void TestDependentLegsAreSequential() throws Exception {
+        RoutingProfileManager.LegRouter legRouter = createLegRouter(createGrid());
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        // submitting a leg to the executor fails once it is shut down
+        executor.shutdown();
+
+        List<GHResponse> expected = RoutingProfileManager.computeLegs(legRouter, createRequest(true), null);
+        List<GHResponse> legs = RoutingProfileManager.computeLegsConcurrently(executor, legRouter, createRequest(true), null);
+
+        assertSameLegs(expected, legs);
+    }
+
+    /**
+     * Stands in for the extra info processor of a route, the extras depend on the order of the calls it receives.
+     */
+    private static class LoggingPathProcessor extends PathProcessor {
+        private final List<String> calls = new ArrayList<String>();
+
+        @Override
+        public void init(PathProcessingContext cntx) {
+            calls.add("init");
+        }
+
+        @Override
+        public void setSegmentIndex(int index, int count) {
+            calls.add("segment " + index + "/" + count);
+        }
+
+        @Override
+        public void processEdge(int pathIndex, EdgeIteratorState edge, boolean lastEdge, PointList geom) {
+            calls.add("edge " + edge.getEdge() + " " + edge.getBaseNode() + "-" + edge.getAdjNode() + " " + edge.getName() + (lastEdge ? " last " : " ") + geom);
+        }
+
+        @Override
+        public PointList processPoints(PointList points) {
+            calls.add("points " + points);
+            return points;
+        }
+
+        @Override
+        public void finish() {
+            calls.add("finish");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RoutingResultCacheTest {
+    /**
+     * Test that the least recently used result is evicted first
+     */
+    @Test
+    public void TestEviction() {
+        RoutingResultCache cache = new RoutingResultCache(2);
+        cache.put("a", "A", cache.getVersion());
+        cache.put("b", "B", cache.getVersion());
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C", cache.getVersion());
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Test that results computed before the cache was cleared are not stored
+     */
+    @Test
+    public void TestClearDropsStaleResults() {
+        RoutingResultCache cache = new RoutingResultCache(10);
+        cache.put("a", "A", cache.getVersion());
+        long version = cache.getVersion();
+        cache.clear();
+        cache.put("b", "B", version);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(0.0, cache.getHitRate(), 0);
+    }
+}
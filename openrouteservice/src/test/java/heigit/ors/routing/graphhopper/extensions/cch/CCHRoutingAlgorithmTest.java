@@ -0,0 +1,160 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.cch;
+
+import com.graphhopper.routing.Dijkstra;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.QueryGraph;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.QueryResult;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.shapes.GHPoint;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CCHRoutingAlgorithmTest {
+
+    private static final int SIZE = 6;
+
+    private final EncodingManager encodingManager = new EncodingManager("car");
+    private final FlagEncoder encoder = encodingManager.getEncoder("car");
+    private final Weighting weighting = new FastestWeighting(encoder);
+
+    private GraphHopperStorage createGrid() {
+        GraphHopperStorage graph = new GraphBuilder(encodingManager).create();
+        NodeAccess nodeAccess = graph.getNodeAccess();
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int node = y * SIZE + x;
+                nodeAccess.setNode(node, 49 + y * 0.01, 8 + x * 0.01);
+                // every third street is a one-way street
+                if (x > 0)
+                    graph.edge(node - 1, node, 700 + (node % 5) * 100, node % 3 != 0);
+                if (y > 0)
+                    graph.edge(node - SIZE, node, 1100 - (node % 4) * 100, node % 3 != 1);
+            }
+        }
+
+        return graph;
+    }
+
+    private void assertSameWeights(GraphHopperStorage graph, CCHMetric metric, EdgeFilter edgeFilter) {
+        int nodes = graph.getNodes();
+
+        for (int from = 0; from < nodes; from++) {
+            for (int to = 0; to < nodes; to++) {
+                Dijkstra dijkstra = new Dijkstra(graph, weighting, TraversalMode.NODE_BASED);
+                if (edgeFilter != null)
+                    dijkstra.setEdgeFilter(edgeFilter);
+                Path expected = dijkstra.calcPath(from, to);
+                Path path = new CCHRoutingAlgorithm(graph, weighting, metric).calcPath(from, to);
+
+                assertEquals(expected.isFound(), path.isFound());
+                if (expected.isFound())
+                    assertEquals(expected.getWeight(), path.getWeight(), 1e-2);
+            }
+        }
+    }
+
+    @Test
+    public void TestShortestPaths() {
+        GraphHopperStorage graph = createGrid();
+        CCHPreparation cch = new CCHPreparation(graph, 2);
+        cch.doWork();
+
+        assertSameWeights(graph, cch.customize("fastest", weighting, null), null);
+    }
+
+    @Test
+    public void TestCustomizedEdgeFilter() {
+        GraphHopperStorage graph = createGrid();
+        CCHPreparation cch = new CCHPreparation(graph, 2);
+        cch.doWork();
+
+        EdgeFilter edgeFilter = new EdgeFilter() {
+            @Override
+            public boolean accept(EdgeIteratorState iter) {
+                return iter.getEdge() % 4 != 1;
+            }
+        };
+
+        assertSameWeights(graph, cch.customize("blocked", weighting, edgeFilter), edgeFilter);
+    }
+
+    @Test
+    public void TestVirtualNodes() {
+        GraphHopperStorage graph = createGrid();
+        CCHPreparation cch = new CCHPreparation(graph, 2);
+        cch.doWork();
+        CCHMetric metric = cch.customize("fastest", weighting, null);
+
+        LocationIndexTree index = new LocationIndexTree(graph, new RAMDirectory());
+        index.prepareIndex();
+
+        // points in the middle of edges, two of them on the same edge so that the local searches meet directly
+        GHPoint[] points = new GHPoint[] { new GHPoint(49.005, 8.013), new GHPoint(49.012, 8.02), new GHPoint(49.018, 8.02),
+                new GHPoint(49.035, 8.047), new GHPoint(49.05, 8.004) };
+
+        List<QueryResult> results = new ArrayList<QueryResult>();
+        for (GHPoint point : points)
+            results.add(index.findClosest(point.lat, point.lon, EdgeFilter.ALL_EDGES));
+
+        QueryGraph queryGraph = new QueryGraph(graph);
+        queryGraph.lookup(results);
+
+        for (QueryResult fromRes : results) {
+            for (QueryResult toRes : results) {
+                int from = fromRes.getClosestNode();
+                int to = toRes.getClosestNode();
+
+                Path expected = new Dijkstra(queryGraph, weighting, TraversalMode.NODE_BASED).calcPath(from, to);
+                Path path = new CCHRoutingAlgorithm(queryGraph, weighting, metric).calcPath(from, to);
+
+                assertEquals(expected.isFound(), path.isFound());
+                if (!expected.isFound())
+                    continue;
+
+                assertEquals(expected.getWeight(), path.getWeight(), 1e-2);
+                // the spliced local and upward parts have to form a connected path between both virtual nodes
+                assertEquals(expected.getDistance(), path.getDistance(), 1e-2);
+                if (from != to) {
+                    assertEquals(from, path.calcNodes().get(0));
+                    assertEquals(to, path.calcNodes().get(path.calcNodes().size() - 1));
+                }
+            }
+        }
+    }
+}
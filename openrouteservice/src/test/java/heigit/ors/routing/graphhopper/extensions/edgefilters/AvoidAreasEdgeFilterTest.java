@@ -0,0 +1,120 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import com.graphhopper.routing.VirtualEdgeIteratorState;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.Helper;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AvoidAreasEdgeFilterTest {
+
+    private final FlagEncoder encoder = new EncodingManager("car").getEncoder("car");
+    private final Polygon[] _polys;
+
+    public AvoidAreasEdgeFilterTest() {
+        GeometryFactory gf = new GeometryFactory();
+        _polys = new Polygon[] { gf.createPolygon(new Coordinate[] {
+                new Coordinate(0.4, 50.9), new Coordinate(0.6, 50.9), new Coordinate(0.6, 51.1),
+                new Coordinate(0.4, 51.1), new Coordinate(0.4, 50.9) }) };
+    }
+
+    private VirtualEdgeIteratorState generateEdge(int id, double lat) {
+        return new VirtualEdgeIteratorState(0, id, id, 1, 2, 10,
+                encoder.setProperties(10, true, true), "test", Helper.createPointList(lat,0,lat,1));
+    }
+
+    @Test
+    public void TestAvoidAreas() {
+        AvoidAreasEdgeFilter filter = new AvoidAreasEdgeFilter(encoder, _polys);
+
+        assertFalse(filter.accept(generateEdge(1, 51)));
+        assertTrue(filter.accept(generateEdge(2, 52)));
+    }
+
+    @Test
+    public void TestEdgeMask() {
+        AvoidAreasEdgeMask mask = new AvoidAreasEdgeMask(_polys, 10);
+        AvoidAreasEdgeFilter filter = new AvoidAreasEdgeFilter(encoder, mask);
+
+        assertFalse(filter.accept(generateEdge(1, 51)));
+        assertTrue(filter.accept(generateEdge(2, 52)));
+
+        // results of edges within the mask are resolved only once
+        assertFalse(filter.accept(generateEdge(1, 52)));
+
+        // edges away from the polygons are rejected by their bounding box and not stored
+        assertEquals(1, mask.getStoredEdges());
+        assertFalse(filter.accept(generateEdge(2, 51)));
+
+        // edges outside of the mask are always tested
+        assertFalse(filter.accept(generateEdge(11, 51)));
+        assertTrue(filter.accept(generateEdge(11, 52)));
+    }
+
+    /**
+     * Test that edges are rejected by their tower nodes only if none of their points can reach the polygons
+     */
+    @Test
+    public void TestTowerNodes() {
+        GraphHopperStorage graph = new GraphBuilder(new EncodingManager(encoder)).create();
+        NodeAccess nodeAccess = graph.getNodeAccess();
+        nodeAccess.setNode(0, 52, 0);
+        nodeAccess.setNode(1, 52, 1);
+        nodeAccess.setNode(2, 53, 0);
+        nodeAccess.setNode(3, 53, 1);
+
+        // the tower nodes are far from the polygon, but the edge runs through it
+        DistanceCalcEarth distCalc = new DistanceCalcEarth();
+        EdgeIteratorState detour = graph.edge(0, 1, distCalc.calcDist(52, 0, 51, 0.5) + distCalc.calcDist(51, 0.5, 52, 1), true);
+        detour.setWayGeometry(Helper.createPointList(51, 0.5));
+        EdgeIteratorState straight = graph.edge(2, 3, distCalc.calcDist(53, 0, 53, 1), true);
+
+        AvoidAreasEdgeMask mask = new AvoidAreasEdgeMask(_polys, graph);
+        AvoidAreasEdgeFilter filter = new AvoidAreasEdgeFilter(encoder, mask);
+
+        assertFalse(filter.accept(detour));
+        assertTrue(filter.accept(straight));
+        assertEquals(1, mask.getStoredEdges());
+    }
+
+    @Test
+    public void TestEdgeMaskCache() {
+        AvoidAreasEdgeMaskCache cache = new AvoidAreasEdgeMaskCache(new GraphBuilder(new EncodingManager(encoder)).create(), 2);
+
+        AvoidAreasEdgeMask mask = cache.getMask(_polys);
+        assertSame(mask, cache.getMask(new Polygon[] { (Polygon)_polys[0].clone() }));
+    }
+}
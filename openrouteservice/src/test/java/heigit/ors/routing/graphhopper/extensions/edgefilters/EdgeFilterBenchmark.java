@@ -0,0 +1,176 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.edgefilters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.GHDirectory;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+
+import heigit.ors.routing.RouteSearchParameters;
+import heigit.ors.routing.graphhopper.extensions.storages.BordersGraphStorage;
+import heigit.ors.routing.pathprocessors.BordersExtractor;
+
+/**
+ * Compares an {@link EdgeFilterSequence} with the filter created by {@link EdgeFilterSequence#fuse(FlagEncoder)} for 
+ * the filter combinations of typical requests. Every invocation relaxes all edges of a grid once, in the way a search 
+ * explores the edges of a node. This is not a unit test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.routing.graphhopper.extensions.edgefilters.EdgeFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EdgeFilterBenchmark {
+
+    private static final int SIZE = 200;
+
+    /**
+     * The filters of a request: avoided borders, avoid polygons and edges blocked by traffic.
+     */
+    @Param({ "borders", "borders,areas", "borders,areas,blocked" })
+    public String filters;
+
+    private final FlagEncoder encoder = new EncodingManager("car").getEncoder("car");
+    private GraphHopperStorage graph;
+    private EdgeExplorer explorer;
+    private EdgeFilterSequence sequence;
+    private EdgeFilter fused;
+
+    @Setup
+    public void setUp() {
+        graph = new GraphBuilder(new EncodingManager(encoder)).create();
+        NodeAccess nodeAccess = graph.getNodeAccess();
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int node = y * SIZE + x;
+                nodeAccess.setNode(node, 49 + y * 0.001, 8 + x * 0.001);
+                // every seventh street is a one-way street
+                if (x > 0)
+                    graph.edge(node - 1, node, 100, node % 7 != 0);
+                if (y > 0)
+                    graph.edge(node - SIZE, node, 100, node % 7 != 3);
+            }
+        }
+        explorer = graph.createEdgeExplorer();
+
+        Random random = new Random(42);
+        ArrayList<EdgeFilter> edgeFilters = new ArrayList<EdgeFilter>();
+        for (String filter : filters.split(",")) {
+            if (filter.equals("borders")) {
+                BordersGraphStorage borders = new BordersGraphStorage();
+                borders.init(null, new GHDirectory("", DAType.RAM_STORE));
+                borders.create(graph.getAllEdges().getMaxId());
+                for (int edge = 0; edge < graph.getAllEdges().getMaxId(); edge++) {
+                    if (random.nextInt(100) == 0)
+                        borders.setEdgeValue(edge, BordersGraphStorage.CONTROLLED_BORDER, (short) 1, (short) 2);
+                    else
+                        borders.setEdgeValue(edge, BordersGraphStorage.NO_BORDER, (short) 1, (short) 1);
+                }
+
+                RouteSearchParameters searchParams = new RouteSearchParameters();
+                searchParams.setAvoidBorders(BordersExtractor.Avoid.CONTROLLED);
+                searchParams.setAvoidCountries(new int[] {});
+                edgeFilters.add(new AvoidBordersEdgeFilter(encoder, searchParams, borders));
+            } else if (filter.equals("areas")) {
+                GeometryFactory geometryFactory = new GeometryFactory();
+                Polygon[] polygons = new Polygon[3];
+                for (int i = 0; i < polygons.length; i++) {
+                    double x = 8 + (i + 1) * 0.04, y = 49 + (i + 1) * 0.04;
+                    polygons[i] = geometryFactory.createPolygon(geometryFactory.createLinearRing(new Coordinate[] {
+                            new Coordinate(x, y), new Coordinate(x + 0.02, y), new Coordinate(x + 0.02, y + 0.03),
+                            new Coordinate(x, y + 0.03), new Coordinate(x, y) }), null);
+                }
+                // like the profile, the mask memorizes the results for the edges of the base graph
+                edgeFilters.add(new AvoidAreasEdgeFilter(encoder, new AvoidAreasEdgeMask(polygons, graph)));
+            } else if (filter.equals("blocked")) {
+                List<Integer> blockedEdges = new ArrayList<Integer>();
+                for (int i = 0; i < 50; i++)
+                    blockedEdges.add(random.nextInt(graph.getAllEdges().getMaxId()));
+                edgeFilters.add(new BlockedEdgesEdgeFilter(encoder, blockedEdges, new ArrayList<Integer>()));
+            }
+        }
+
+        sequence = new EdgeFilterSequence(edgeFilters);
+        fused = sequence.fuse(encoder);
+
+        // the avoid areas mask is filled lazily, the first pass memorizes the edge states for both benchmarks
+        relaxAll(sequence);
+    }
+
+    private int relaxAll(EdgeFilter filter) {
+        int accepted = 0;
+        for (int node = 0; node < SIZE * SIZE; node++) {
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (filter.accept(iter))
+                    accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int sequence() {
+        return relaxAll(sequence);
+    }
+
+    @Benchmark
+    public int fused() {
+        return relaxAll(fused);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EdgeFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
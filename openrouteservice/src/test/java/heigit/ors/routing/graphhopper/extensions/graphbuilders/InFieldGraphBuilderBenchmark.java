@@ -0,0 +1,165 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.graphbuilders;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIndexedContainer;
+import com.graphhopper.coll.GHLongIntBTree;
+import com.graphhopper.coll.LongIntMap;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.util.EdgeIteratorState;
+
+import heigit.ors.routing.graphhopper.extensions.DataReaderContext;
+
+/**
+ * Times {@link InFieldGraphBuilder#createEdges} for the open spaces of a city sized extract, modelled as 500 squares 
+ * with a star shaped (concave) boundary, every fourth of their nodes being a tower node where a street joins. The 
+ * builder is shared by all areas like during an import. This is not a unit test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.routing.graphhopper.extensions.graphbuilders.InFieldGraphBuilderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class InFieldGraphBuilderBenchmark {
+
+    private static final int AREAS = 500;
+    private static final int TOWER_NODE_INTERVAL = 4;
+
+    /**
+     * The number of boundary nodes of every open space.
+     */
+    @Param({ "8", "32", "128" })
+    public int nodes;
+
+    private BenchmarkReaderContext readerCntx;
+    private List<LongArrayList> areas;
+    private ReaderWay way;
+    private InFieldGraphBuilder builder;
+    private List<EdgeIteratorState> createdEdges = new ArrayList<EdgeIteratorState>();
+
+    /**
+     * Resolves the nodes of the areas, tower nodes get internal ids below -2 and pillar nodes above 2 as in the OSM reader.
+     */
+    private static class BenchmarkReaderContext implements DataReaderContext {
+        private final LongIntMap nodeMap = new GHLongIntBTree(200);
+        private final double[] longitudes;
+        private final double[] latitudes;
+
+        BenchmarkReaderContext(int nodes) {
+            longitudes = new double[nodes + 3];
+            latitudes = new double[nodes + 3];
+        }
+
+        void addNode(long osmId, boolean tower, double lon, double lat) {
+            int index = (int) nodeMap.getSize() + 3;
+            nodeMap.put(osmId, tower ? -index : index);
+            longitudes[index] = lon;
+            latitudes[index] = lat;
+        }
+
+        @Override
+        public LongIntMap getNodeMap() {
+            return nodeMap;
+        }
+
+        @Override
+        public double getNodeLongitude(int nodeId) {
+            return longitudes[Math.abs(nodeId)];
+        }
+
+        @Override
+        public double getNodeLatitude(int nodeId) {
+            return latitudes[Math.abs(nodeId)];
+        }
+
+        @Override
+        public Collection<EdgeIteratorState> addWay(LongIndexedContainer subgraphNodes, long wayFlags, long wayId) {
+            return Collections.<EdgeIteratorState>emptyList();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        readerCntx = new BenchmarkReaderContext(AREAS * nodes);
+        areas = new ArrayList<LongArrayList>(AREAS);
+
+        long osmId = 1;
+        for (int a = 0; a < AREAS; a++) {
+            // the squares are spread over a grid of about 2 by 2 km
+            double centerLon = 8.67 + (a % 25) * 0.001;
+            double centerLat = 49.40 + (a / 25) * 0.001;
+
+            LongArrayList osmNodeIds = new LongArrayList(nodes + 1);
+            for (int j = 0; j < nodes; j++) {
+                double angle = 2 * Math.PI * j / nodes;
+                double radius = j % 2 == 0 ? 0.0004 : 0.00025;
+                readerCntx.addNode(osmId, j % TOWER_NODE_INTERVAL == 0, centerLon + radius * Math.cos(angle), centerLat + radius * Math.sin(angle));
+                osmNodeIds.add(osmId++);
+            }
+            osmNodeIds.add(osmNodeIds.get(0));
+            areas.add(osmNodeIds);
+        }
+
+        way = new ReaderWay(1);
+        way.setTag("area", "yes");
+        builder = new InFieldGraphBuilder();
+    }
+
+    @Benchmark
+    public int createEdges() throws Exception {
+        int count = 0;
+        for (LongArrayList osmNodeIds : areas) {
+            createdEdges.clear();
+            if (builder.createEdges(readerCntx, way, osmNodeIds, 0, createdEdges))
+                count++;
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(InFieldGraphBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
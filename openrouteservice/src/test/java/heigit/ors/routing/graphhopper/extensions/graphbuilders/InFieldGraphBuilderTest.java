@@ -0,0 +1,173 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.graphbuilders;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIndexedContainer;
+import com.graphhopper.coll.GHLongIntBTree;
+import com.graphhopper.coll.LongIntMap;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.util.EdgeIteratorState;
+import heigit.ors.routing.graphhopper.extensions.DataReaderContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InFieldGraphBuilderTest {
+
+    /**
+     * The L-shaped open space 0-1-2-3-4-5 (lon, lat in 1/1000 degrees), the notch is at the reflex corner 3:
+     * <pre>
+     * 5--4
+     * |  |
+     * |  3--------2
+     * |           |
+     * 0-----------1
+     * </pre>
+     * The diagonals 0-2, 0-3, 0-4, 1-3 and 3-5 lie within the area. 1-4, 1-5 and 2-5 cross the boundary, 2-4 touches
+     * it only at its ends but runs outside of the area.
+     */
+    private static final double[][] COORDINATES = { { 0, 0 }, { 3, 0 }, { 3, 1 }, { 1, 1 }, { 1, 2 }, { 0, 2 } };
+
+    private static final long FIRST_OSM_ID = 101;
+
+    private static class TestReaderContext implements DataReaderContext {
+        private final LongIntMap nodeMap = new GHLongIntBTree(200);
+        private final Map<Integer, double[]> coordinates = new HashMap<Integer, double[]>();
+        private final Set<String> edges = new HashSet<String>();
+
+        /**
+         * Adds the boundary nodes, tower nodes get internal ids below -2 as in the OSM reader.
+         */
+        public TestReaderContext(int... towerNodes) {
+            for (int i = 0; i < COORDINATES.length; i++) {
+                int internalId = i + 3;
+                for (int tower : towerNodes) {
+                    if (tower == i)
+                        internalId = -i - 3;
+                }
+
+                nodeMap.put(FIRST_OSM_ID + i, internalId);
+                coordinates.put(internalId, COORDINATES[i]);
+            }
+        }
+
+        @Override
+        public LongIntMap getNodeMap() {
+            return nodeMap;
+        }
+
+        @Override
+        public double getNodeLongitude(int nodeId) {
+            return coordinates.get(nodeId)[0] / 1000;
+        }
+
+        @Override
+        public double getNodeLatitude(int nodeId) {
+            return coordinates.get(nodeId)[1] / 1000;
+        }
+
+        @Override
+        public Collection<EdgeIteratorState> addWay(LongIndexedContainer subgraphNodes, long wayFlags, long wayId) {
+            assertEquals(2, subgraphNodes.size());
+            assertTrue("edge added twice", edges.add(edgeKey(subgraphNodes.get(0), subgraphNodes.get(1))));
+            return Collections.<EdgeIteratorState>emptyList();
+        }
+    }
+
+    private static String edgeKey(long osmIdA, long osmIdB) {
+        return (Math.min(osmIdA, osmIdB) - FIRST_OSM_ID) + "-" + (Math.max(osmIdA, osmIdB) - FIRST_OSM_ID);
+    }
+
+    private static Set<String> createEdges(InFieldGraphBuilder builder, int... towerNodes) throws Exception {
+        TestReaderContext readerCntx = new TestReaderContext(towerNodes);
+
+        LongArrayList osmNodeIds = new LongArrayList();
+        for (int i = 0; i < COORDINATES.length; i++)
+            osmNodeIds.add(FIRST_OSM_ID + i);
+        osmNodeIds.add(FIRST_OSM_ID);
+
+        ReaderWay way = new ReaderWay(1);
+        way.setTag("area", "yes");
+
+        assertTrue(builder.createEdges(readerCntx, way, osmNodeIds, 0, new ArrayList<EdgeIteratorState>()));
+
+        return readerCntx.edges;
+    }
+
+    private static Set<String> boundaryAnd(String... diagonals) {
+        Set<String> edges = new HashSet<String>(Arrays.asList("0-1", "1-2", "2-3", "3-4", "4-5", "0-5"));
+        edges.addAll(Arrays.asList(diagonals));
+        return edges;
+    }
+
+    /**
+     * Test that only the diagonals on the shortest paths between the tower nodes are added, paths which join a path
+     * that has already been added are traced back only up to that path
+     */
+    @Test
+    public void TestConcaveOpenSpace() throws Exception {
+        // 1 reaches 4 and 5 around the notch through 3, 4 and 5 are connected by the boundary
+        assertEquals(boundaryAnd("1-3", "3-5"), createEdges(new InFieldGraphBuilder(), 1, 4, 5));
+    }
+
+    /**
+     * Test that the lines outside of the area are never used and the buffers of the builder can be reused for another way
+     */
+    @Test
+    public void TestReuseForAnotherOpenSpace() throws Exception {
+        InFieldGraphBuilder builder = new InFieldGraphBuilder();
+        createEdges(builder, 1, 4, 5);
+
+        // 2-4 would be the shortest path between 2 and 4 if it was inside the area
+        Set<String> edges = createEdges(builder, 0, 2, 4);
+        assertEquals(boundaryAnd("0-2", "0-4"), edges);
+        assertFalse(edges.contains("2-4"));
+    }
+
+    /**
+     * Test that ways which are not closed or not tagged as an area are left to the other graph builders
+     */
+    @Test
+    public void TestNoOpenSpace() throws Exception {
+        TestReaderContext readerCntx = new TestReaderContext(0, 2);
+        LongArrayList osmNodeIds = new LongArrayList();
+        for (int i = 0; i < COORDINATES.length; i++)
+            osmNodeIds.add(FIRST_OSM_ID + i);
+        osmNodeIds.add(FIRST_OSM_ID);
+
+        List<EdgeIteratorState> createdEdges = new ArrayList<EdgeIteratorState>();
+        assertFalse(new InFieldGraphBuilder().createEdges(readerCntx, new ReaderWay(1), osmNodeIds, 0, createdEdges));
+        assertTrue(readerCntx.edges.isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.graphbuilders;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisibilityGraphTest {
+
+    /**
+     * Builds a square 0-1-2-3 with the diagonal 0-2 and a detour 0-4-2.
+     */
+    private VisibilityGraph createGraph(VisibilityGraph graph) {
+        graph.reset(5);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 0, 1);
+        graph.addEdge(0, 2, 1.5);
+        graph.addEdge(0, 4, 1);
+        graph.addEdge(4, 2, 1);
+        return graph;
+    }
+
+    @Test
+    public void TestSearchFindsShortestPaths() {
+        VisibilityGraph graph = createGraph(new VisibilityGraph());
+
+        boolean[] targets = new boolean[] { false, false, true, true, false };
+        graph.search(0, targets, 2);
+
+        assertTrue(graph.isSettled(2));
+        assertEquals(1.5, graph.getWeight(2), 1e-9);
+        assertEquals(0, graph.getParent(2));
+        assertEquals(1, graph.getWeight(3), 1e-9);
+        assertEquals(0, graph.getParent(3));
+        assertEquals(-1, graph.getParent(0));
+    }
+
+    @Test
+    public void TestReuseAfterReset() {
+        VisibilityGraph graph = createGraph(new VisibilityGraph());
+        graph.search(0, new boolean[] { false, false, true, false, false }, 1);
+
+        // a larger graph without the diagonal, the edges of the previous graph must be gone
+        graph.reset(100);
+        for (int i = 0; i < 99; i++)
+            graph.addEdge(i, i + 1, 1);
+
+        boolean[] targets = new boolean[100];
+        targets[2] = true;
+        graph.search(0, targets, 1);
+
+        assertEquals(2, graph.getWeight(2), 1e-9);
+        assertEquals(1, graph.getParent(2));
+        // the search stops once all targets are settled
+        assertFalse(graph.isSettled(50));
+    }
+}
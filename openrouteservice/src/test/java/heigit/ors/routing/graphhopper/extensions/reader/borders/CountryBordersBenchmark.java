@@ -0,0 +1,193 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.reader.borders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Compares the lookups of {@link CountryBordersReader} through its STR-tree with the linear search over all 
+ * hierarchies and polygons which was used before, including its unprepared point in polygon test. The borders are 
+ * a synthetic world of 648 countries with jagged boundaries of 800 vertices, grouped into 72 hierarchies. Every 
+ * invocation classifies 1000 points or the coordinates of 1000 short ways, as done for the ways of an import. 
+ * Building the tree is measured separately, as it is done once per import. This is not a unit test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.routing.graphhopper.extensions.reader.borders.CountryBordersBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CountryBordersBenchmark {
+
+    private static final int CELL_SIZE = 10;
+    private static final int HIERARCHY_CELLS = 3;
+    private static final int VERTICES_PER_SIDE = 200;
+    private static final int LOOKUPS = 1000;
+    private static final int WAY_LENGTH = 10;
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private final List<CountryBordersHierarchy> hierarchies = new ArrayList<CountryBordersHierarchy>();
+    private CountryBordersReader reader;
+    private Coordinate[] points;
+    private Coordinate[][] ways;
+
+    @Setup
+    public void setUp() throws Exception {
+        for (int row = 0; row < 180 / (CELL_SIZE * HIERARCHY_CELLS); row++) {
+            for (int column = 0; column < 360 / (CELL_SIZE * HIERARCHY_CELLS); column++) {
+                long id = hierarchies.size() + 1;
+                CountryBordersHierarchy hierarchy = new CountryBordersHierarchy(id);
+
+                for (int i = 0; i < HIERARCHY_CELLS * HIERARCHY_CELLS; i++) {
+                    double minX = -180 + (column * HIERARCHY_CELLS + i % HIERARCHY_CELLS) * CELL_SIZE;
+                    double minY = -90 + (row * HIERARCHY_CELLS + i / HIERARCHY_CELLS) * CELL_SIZE;
+                    hierarchy.add(new CountryBordersPolygon("country " + id + "/" + i, gf.createPolygon(createCell(minX, minY)), id));
+                }
+
+                hierarchies.add(hierarchy);
+            }
+        }
+
+        reader = createReader();
+
+        Random random = new Random(42);
+        points = new Coordinate[LOOKUPS];
+        ways = new Coordinate[LOOKUPS][WAY_LENGTH];
+        for (int i = 0; i < LOOKUPS; i++) {
+            points[i] = new Coordinate(-180 + random.nextDouble() * 360, -90 + random.nextDouble() * 180);
+            ways[i][0] = points[i];
+            for (int j = 1; j < WAY_LENGTH; j++)
+                ways[i][j] = new Coordinate(ways[i][j - 1].x + random.nextDouble() * 0.01, ways[i][j - 1].y + random.nextDouble() * 0.01);
+        }
+    }
+
+    /**
+     * A square cell whose sides zigzag by a tenth of a degree.
+     */
+    private static Coordinate[] createCell(double minX, double minY) {
+        Coordinate[] coords = new Coordinate[4 * VERTICES_PER_SIDE + 1];
+        double step = (double) CELL_SIZE / VERTICES_PER_SIDE;
+
+        for (int i = 0; i < VERTICES_PER_SIDE; i++) {
+            double offset = (i % 2) * 0.1;
+            coords[i] = new Coordinate(minX + i * step, minY + offset);
+            coords[VERTICES_PER_SIDE + i] = new Coordinate(minX + CELL_SIZE - offset, minY + i * step);
+            coords[2 * VERTICES_PER_SIDE + i] = new Coordinate(minX + CELL_SIZE - i * step, minY + CELL_SIZE - offset);
+            coords[3 * VERTICES_PER_SIDE + i] = new Coordinate(minX + offset, minY + CELL_SIZE - i * step);
+        }
+        coords[coords.length - 1] = coords[0];
+
+        return coords;
+    }
+
+    private CountryBordersReader createReader() {
+        CountryBordersReader reader = new CountryBordersReader();
+        for (int i = 0; i < hierarchies.size(); i++)
+            reader.addHierarchy((long) i + 1, hierarchies.get(i));
+        // the tree is built on the first lookup
+        reader.getCandidateCountry(new Coordinate(0, 0));
+
+        return reader;
+    }
+
+    @Benchmark
+    public CountryBordersReader buildIndex() {
+        return createReader();
+    }
+
+    @Benchmark
+    public int getCountryIndexed() {
+        int count = 0;
+        for (Coordinate c : points)
+            count += reader.getCountry(c).length;
+        return count;
+    }
+
+    @Benchmark
+    public int getCountryScan() {
+        int count = 0;
+        for (Coordinate c : points) {
+            for (CountryBordersHierarchy hierarchy : hierarchies) {
+                if (hierarchy.inBbox(c)) {
+                    for (CountryBordersPolygon polygon : hierarchy.getPolygons()) {
+                        if (polygon.inBbox(c) && polygon.getBoundary().contains(gf.createPoint(c)))
+                            count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int wayCandidatesIndexed() {
+        int count = 0;
+        for (Coordinate[] way : ways) {
+            for (CountryBordersPolygon[] countries : reader.getCandidateCountry(way))
+                count += countries.length;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int wayCandidatesScan() {
+        int count = 0;
+        for (Coordinate[] way : ways) {
+            for (Coordinate c : way) {
+                for (CountryBordersHierarchy hierarchy : hierarchies) {
+                    if (hierarchy.inBbox(c)) {
+                        for (CountryBordersPolygon polygon : hierarchy.getPolygons()) {
+                            if (polygon.inBbox(c))
+                                count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CountryBordersBenchmark.class.getSimpleName()).build()).run();
+    }
+}
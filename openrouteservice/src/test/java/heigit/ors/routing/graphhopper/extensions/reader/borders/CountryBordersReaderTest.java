@@ -114,6 +114,28 @@ public class CountryBordersReaderTest {
         assertEquals("country3", polys[0].getName());
     }
 
+    /**
+     * Test that the candidate countries of all coordinates of a way are returned by the batched lookup
+     */
+    @Test
+    public void TestGetCandidateCountryBatch() {
+        Coordinate[] coords = new Coordinate[] {
+                new Coordinate(-0.25, -0.25),
+                new Coordinate(0.5, 0.5),
+                new Coordinate(Double.NaN, 0),
+                new Coordinate(10, 10)
+        };
+        CountryBordersPolygon[][] polys = _reader.getCandidateCountry(coords);
+
+        assertEquals(4, polys.length);
+        assertEquals(1, polys[0].length);
+        assertEquals("country3", polys[0][0].getName());
+        assertEquals(1, polys[1].length);
+        assertEquals("country1", polys[1][0].getName());
+        assertEquals(0, polys[2].length);
+        assertEquals(0, polys[3].length);
+    }
+
     /**
      * Test that the correct id is returned for a country of the given local name
      */
@@ -0,0 +1,113 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphExtension.ExtendedStorageSequence;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PackedEdgeAttributesGraphStorageTest {
+
+    private GraphHopperStorage _graph;
+    private GreenIndexGraphStorage _greenStorage;
+    private NoiseIndexGraphStorage _noiseStorage;
+    private HillIndexGraphStorage _hillStorage;
+    private TrailDifficultyScaleGraphStorage _trailStorage;
+    private PackedEdgeAttributesGraphStorage _packedStorage;
+
+    @Before
+    public void setUp() {
+        _greenStorage = new GreenIndexGraphStorage();
+        _noiseStorage = new NoiseIndexGraphStorage();
+        _hillStorage = new HillIndexGraphStorage(new HashMap<String, String>());
+        _trailStorage = new TrailDifficultyScaleGraphStorage();
+        _packedStorage = new PackedEdgeAttributesGraphStorage();
+
+        ArrayList<GraphExtension> extensions = new ArrayList<GraphExtension>();
+        extensions.add(_greenStorage);
+        extensions.add(_noiseStorage);
+        extensions.add(_hillStorage);
+        extensions.add(_trailStorage);
+        extensions.add(_packedStorage);
+
+        _graph = new GraphHopperStorage(new RAMDirectory(), new EncodingManager("car"), false, new ExtendedStorageSequence(extensions));
+        _graph.create(100);
+        _graph.edge(0, 1, 100, true);
+        _graph.edge(1, 2, 100, true);
+
+        _greenStorage.setEdgeValue(0, (byte) 63);
+        _greenStorage.setEdgeValue(1, (byte) 5);
+        _noiseStorage.setEdgeValue(0, (byte) 1);
+        _noiseStorage.setEdgeValue(1, (byte) 3);
+        _hillStorage.setEdgeValue(0, 0, 0);
+        _hillStorage.setEdgeValue(1, 15, 7);
+        _trailStorage.setEdgeValue(0, 0, 0, 0);
+        _trailStorage.setEdgeValue(1, 6, 3, 5);
+    }
+
+    /**
+     * Test that the rows are used only after they have been populated and only for packed attributes.
+     */
+    @Test
+    public void TestGetStorage() {
+        assertNull(PackedEdgeAttributesGraphStorage.getStorage(_graph, PackedEdgeAttributesGraphStorage.ATTR_GREEN_INDEX));
+
+        _packedStorage.importFrom(_graph);
+
+        assertNotNull(PackedEdgeAttributesGraphStorage.getStorage(_graph, PackedEdgeAttributesGraphStorage.ATTR_GREEN_INDEX 
+                | PackedEdgeAttributesGraphStorage.ATTR_NOISE_INDEX | PackedEdgeAttributesGraphStorage.ATTR_HILL_INDEX));
+        assertNull(PackedEdgeAttributesGraphStorage.getStorage(_graph, PackedEdgeAttributesGraphStorage.ATTR_GREEN_INDEX 
+                | PackedEdgeAttributesGraphStorage.ATTR_WHEELCHAIR));
+    }
+
+    /**
+     * Test that the packed rows hold the values of the individual storages.
+     */
+    @Test
+    public void TestImportFrom() {
+        _packedStorage.importFrom(_graph);
+
+        for (int edgeId = 0; edgeId < 2; edgeId++) {
+            int softAttributes = _packedStorage.getSoftAttributes(edgeId);
+            assertEquals(_greenStorage.getEdgeValue(edgeId), PackedEdgeAttributesGraphStorage.getGreenIndex(softAttributes));
+            assertEquals(_noiseStorage.getEdgeValue(edgeId), PackedEdgeAttributesGraphStorage.getNoiseIndex(softAttributes));
+            assertEquals(_hillStorage.getEdgeValue(edgeId, false), PackedEdgeAttributesGraphStorage.getHillIndex(softAttributes, false));
+            assertEquals(_hillStorage.getEdgeValue(edgeId, true), PackedEdgeAttributesGraphStorage.getHillIndex(softAttributes, true));
+
+            int wayAttributes = _packedStorage.getWayAttributes(edgeId);
+            assertEquals(_trailStorage.getHikingScale(edgeId), PackedEdgeAttributesGraphStorage.getHikingScale(wayAttributes));
+            assertEquals(_trailStorage.getMtbScale(edgeId, false), PackedEdgeAttributesGraphStorage.getMtbScale(wayAttributes, false));
+            assertEquals(_trailStorage.getMtbScale(edgeId, true), PackedEdgeAttributesGraphStorage.getMtbScale(wayAttributes, true));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.WaySurfaceDescription;
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphExtension.ExtendedStorageSequence;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+
+/**
+ * Compares the accessors of the edge storages which copy into a byte[] buffer or return a description object per edge 
+ * with those reading the value straight from the DataAccess. Every invocation reads the values of all edges. The 
+ * benchmark runs with the GC profiler, so that the allocation rate of both variants is reported next to their time. 
+ * This is not a unit test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.routing.graphhopper.extensions.storages.StorageAccessorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StorageAccessorBenchmark {
+
+    private static final int EDGES = 1000000;
+
+    private DataAccess copiedValues;
+    private GreenIndexGraphStorage greenStorage;
+    private WaySurfaceTypeGraphStorage waySurfaceStorage;
+    private final byte[] buffer = new byte[1];
+
+    @Setup
+    public void setUp() {
+        greenStorage = new GreenIndexGraphStorage();
+        waySurfaceStorage = new WaySurfaceTypeGraphStorage();
+
+        ArrayList<GraphExtension> extensions = new ArrayList<GraphExtension>();
+        extensions.add(greenStorage);
+        extensions.add(waySurfaceStorage);
+        GraphHopperStorage graph = new GraphHopperStorage(new RAMDirectory(), new EncodingManager("car"), false, new ExtendedStorageSequence(extensions));
+        graph.create(1000);
+
+        // the green index storage as it was read before, with a copy of every value into a buffer
+        copiedValues = new RAMDirectory().find("copied_values");
+        copiedValues.create(EDGES);
+
+        Random random = new Random(42);
+        WaySurfaceDescription wayDesc = new WaySurfaceDescription();
+        for (int edgeId = 0; edgeId < EDGES; edgeId++) {
+            byte greenIndex = (byte) random.nextInt(64);
+            greenStorage.setEdgeValue(edgeId, greenIndex);
+            copiedValues.setBytes(edgeId, new byte[] { greenIndex }, 1);
+
+            wayDesc.WayType = (byte) random.nextInt(16);
+            wayDesc.SurfaceType = (byte) random.nextInt(16);
+            waySurfaceStorage.setEdgeValue(edgeId, wayDesc);
+        }
+    }
+
+    @Benchmark
+    public long greenIndexCopy() {
+        long sum = 0;
+        for (int edgeId = 0; edgeId < EDGES; edgeId++) {
+            copiedValues.getBytes(edgeId, buffer, 1);
+            sum += buffer[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long greenIndexDirect() {
+        long sum = 0;
+        for (int edgeId = 0; edgeId < EDGES; edgeId++)
+            sum += greenStorage.getEdgeValue(edgeId);
+        return sum;
+    }
+
+    @Benchmark
+    public long waySurfaceDescription() {
+        long sum = 0;
+        for (int edgeId = 0; edgeId < EDGES; edgeId++) {
+            WaySurfaceDescription wayDesc = waySurfaceStorage.getEdgeValue(edgeId, buffer);
+            sum += wayDesc.WayType + wayDesc.SurfaceType;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long waySurfacePacked() {
+        long sum = 0;
+        for (int edgeId = 0; edgeId < EDGES; edgeId++) {
+            int value = waySurfaceStorage.getPackedInt(edgeId);
+            sum += WaySurfaceTypeGraphStorage.getWayType(value) + WaySurfaceTypeGraphStorage.getSurfaceType(value);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(StorageAccessorBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
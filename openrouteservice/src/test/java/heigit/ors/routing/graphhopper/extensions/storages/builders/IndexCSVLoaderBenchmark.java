@@ -0,0 +1,168 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.storages.builders;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the green and noise index loaders with the former ones, which split every row into Strings and kept the 
+ * values in a boxed HashMap per osm way. The files are generated with one row per way. The time and, through the GC 
+ * profiler, the allocations of a load are measured by JMH. The memory retained by the loaded indices is printed during 
+ * the setup; it is taken from the used heap after a full GC and therefore only approximate. This is not a unit test, 
+ * run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.routing.graphhopper.extensions.storages.builders.IndexCSVLoaderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexCSVLoaderBenchmark {
+
+    @Param({ "green", "noise" })
+    public String index;
+
+    /**
+     * The number of ways in the file.
+     */
+    @Param({ "1000000" })
+    public int ways;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = File.createTempFile("ors-index", ".csv");
+
+        Random random = new Random(42);
+        PrintWriter writer = new PrintWriter(file, "UTF-8");
+        try {
+            writer.println(index.equals("green") ? "osm_id;ungreen_factor" : "osm_id,noise_level");
+            long osmId = 4000000;
+            for (int i = 0; i < ways; i++) {
+                osmId += 1 + random.nextInt(100);
+                if (index.equals("green"))
+                    writer.println(osmId + ";" + random.nextDouble());
+                else
+                    writer.println(osmId + "," + (1 + random.nextInt(3)));
+            }
+        } finally {
+            writer.close();
+        }
+
+        long used = getUsedMemory();
+        Object boxed = loadBoxed();
+        long boxedMemory = getUsedMemory() - used;
+        System.out.println(boxed.getClass().getSimpleName() + " of " + index + " indices retains about " + boxedMemory / 1024 + " KB");
+        boxed = null;
+
+        used = getUsedMemory();
+        Object primitive = loadPrimitive();
+        long primitiveMemory = getUsedMemory() - used;
+        System.out.println(primitive.getClass().getSimpleName() + " of " + index + " indices retains about " + primitiveMemory / 1024 + " KB");
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Object loadBoxed() throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            // the header decides about the separator like in the former green index loader
+            String row = reader.readLine();
+            char separator = row.contains(";") ? ';' : ',';
+            Map<Long, Object> values = new HashMap<Long, Object>();
+
+            while ((row = reader.readLine()) != null) {
+                int pos = row.indexOf(separator);
+                if (pos <= 0)
+                    continue;
+
+                String key = row.substring(0, pos).trim();
+                String value = row.substring(pos + 1, row.length()).trim();
+                if (key.isEmpty() || value.isEmpty())
+                    continue;
+
+                if (index.equals("green"))
+                    values.put(Long.parseLong(key), Double.parseDouble(value));
+                else
+                    values.put(Long.parseLong(key), Integer.parseInt(value));
+            }
+
+            return values;
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public Object loadPrimitive() throws Exception {
+        AbstractGraphStorageBuilder builder = index.equals("green") ? new GreenIndexGraphStorageBuilder() : new NoiseIndexGraphStorageBuilder();
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("filepath", file.getAbsolutePath());
+        builder.setParameters(parameters);
+        // the builders don't use the GraphHopper instance while loading their file
+        builder.init(null);
+
+        return builder;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(IndexCSVLoaderBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.weighting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphExtension.ExtendedStorageSequence;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.PMap;
+
+import heigit.ors.routing.graphhopper.extensions.storages.GreenIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.NoiseIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
+
+/**
+ * Compares the soft weightings of {@link AdditionWeighting} read from the individual green, noise and hill index 
+ * storages (one read and one virtual call per weighting) with the fused evaluation over the packed attributes 
+ * (one read per edge). Every invocation weights all edges of a grid in both directions. This is not a unit test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.routing.graphhopper.extensions.weighting.AdditionWeightingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AdditionWeightingBenchmark {
+
+    private static final int SIZE = 200;
+
+    /**
+     * separate: the graph has no packed storage, packed: the weightings are fused over the packed attributes.
+     */
+    @Param({ "separate", "packed" })
+    public String storage;
+
+    /**
+     * The custom weightings of a request.
+     */
+    @Param({ "green", "green,quiet", "green,quiet,steepness" })
+    public String weightings;
+
+    private GraphHopperStorage graph;
+    private EdgeExplorer explorer;
+    private AdditionWeighting weighting;
+
+    @Setup
+    public void setUp() {
+        FlagEncoder encoder = new EncodingManager("car").getEncoder("car");
+
+        GreenIndexGraphStorage greenStorage = new GreenIndexGraphStorage();
+        NoiseIndexGraphStorage noiseStorage = new NoiseIndexGraphStorage();
+        HillIndexGraphStorage hillStorage = new HillIndexGraphStorage(new HashMap<String, String>());
+        PackedEdgeAttributesGraphStorage packedStorage = new PackedEdgeAttributesGraphStorage();
+
+        ArrayList<GraphExtension> extensions = new ArrayList<GraphExtension>();
+        extensions.add(greenStorage);
+        extensions.add(noiseStorage);
+        extensions.add(hillStorage);
+        if (storage.equals("packed"))
+            extensions.add(packedStorage);
+
+        graph = new GraphHopperStorage(new RAMDirectory(), new EncodingManager(encoder), false, new ExtendedStorageSequence(extensions));
+        graph.create(1000);
+
+        Random random = new Random(42);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int node = y * SIZE + x;
+                if (x > 0)
+                    addEdge(graph.edge(node - 1, node, 100, true).getEdge(), random, greenStorage, noiseStorage, hillStorage);
+                if (y > 0)
+                    addEdge(graph.edge(node - SIZE, node, 100, true).getEdge(), random, greenStorage, noiseStorage, hillStorage);
+            }
+        }
+
+        if (storage.equals("packed"))
+            packedStorage.importFrom(graph);
+
+        explorer = graph.createEdgeExplorer();
+
+        String[] names = weightings.split(",");
+        Weighting[] softWeightings = new Weighting[names.length];
+        for (int i = 0; i < names.length; i++) {
+            PMap map = new PMap();
+            if (names[i].equals("green"))
+                softWeightings[i] = new GreenWeighting(encoder, map, graph);
+            else if (names[i].equals("quiet"))
+                softWeightings[i] = new QuietWeighting(encoder, map, graph);
+            else if (names[i].equals("steepness"))
+                softWeightings[i] = new AvoidHillsWeighting(encoder, map, graph);
+        }
+
+        weighting = new AdditionWeighting(softWeightings, new ShortestWeighting(encoder), encoder, new PMap(), graph);
+    }
+
+    private static void addEdge(int edgeId, Random random, GreenIndexGraphStorage greenStorage, NoiseIndexGraphStorage noiseStorage, 
+            HillIndexGraphStorage hillStorage) {
+        greenStorage.setEdgeValue(edgeId, (byte) random.nextInt(64));
+        noiseStorage.setEdgeValue(edgeId, (byte) random.nextInt(4));
+        hillStorage.setEdgeValue(edgeId, random.nextInt(8), random.nextInt(8));
+    }
+
+    @Benchmark
+    public double weightAll() {
+        double sum = 0;
+        for (int node = 0; node < SIZE * SIZE; node++) {
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                sum += weighting.calcWeight(iter, false, EdgeIterator.NO_EDGE);
+                sum += weighting.calcWeight(iter, true, EdgeIterator.NO_EDGE);
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(AdditionWeightingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
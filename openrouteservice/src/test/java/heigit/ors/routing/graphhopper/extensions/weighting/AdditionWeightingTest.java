@@ -0,0 +1,100 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.weighting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphExtension.ExtendedStorageSequence;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.PMap;
+
+import heigit.ors.routing.graphhopper.extensions.storages.GreenIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.NoiseIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.PackedEdgeAttributesGraphStorage;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdditionWeightingTest {
+
+    /**
+     * Test that the soft weightings fused over the packed attributes give the same weights as the individual weightings.
+     */
+    @Test
+    public void TestPackedWeights() {
+        FlagEncoder encoder = new EncodingManager("bike").getEncoder("bike");
+
+        GreenIndexGraphStorage greenStorage = new GreenIndexGraphStorage();
+        NoiseIndexGraphStorage noiseStorage = new NoiseIndexGraphStorage();
+        HillIndexGraphStorage hillStorage = new HillIndexGraphStorage(new HashMap<String, String>());
+        PackedEdgeAttributesGraphStorage packedStorage = new PackedEdgeAttributesGraphStorage();
+
+        ArrayList<GraphExtension> extensions = new ArrayList<GraphExtension>();
+        extensions.add(greenStorage);
+        extensions.add(noiseStorage);
+        extensions.add(hillStorage);
+        extensions.add(packedStorage);
+
+        GraphHopperStorage graph = new GraphHopperStorage(new RAMDirectory(), new EncodingManager(encoder), false, new ExtendedStorageSequence(extensions));
+        graph.create(100);
+        for (int i = 0; i < 10; i++) {
+            int edgeId = graph.edge(i, i + 1, 100, true).getEdge();
+            greenStorage.setEdgeValue(edgeId, (byte) (i * 6));
+            noiseStorage.setEdgeValue(edgeId, (byte) (i % 4));
+            hillStorage.setEdgeValue(edgeId, i, 9 - i);
+        }
+
+        // the rows are not populated yet, so the weighting reads the individual storages
+        AdditionWeighting separateWeighting = createWeighting(encoder, graph);
+        packedStorage.importFrom(graph);
+        AdditionWeighting packedWeighting = createWeighting(encoder, graph);
+
+        EdgeExplorer explorer = graph.createEdgeExplorer();
+        for (int node = 0; node <= 10; node++) {
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                assertEquals(separateWeighting.calcWeight(iter, false, EdgeIterator.NO_EDGE), packedWeighting.calcWeight(iter, false, EdgeIterator.NO_EDGE), 1e-9);
+                assertEquals(separateWeighting.calcWeight(iter, true, EdgeIterator.NO_EDGE), packedWeighting.calcWeight(iter, true, EdgeIterator.NO_EDGE), 1e-9);
+            }
+        }
+    }
+
+    private AdditionWeighting createWeighting(FlagEncoder encoder, GraphHopperStorage graph) {
+        PMap steepnessMap = new PMap();
+        steepnessMap.put("level", 2);
+
+        Weighting[] weightings = new Weighting[] { new GreenWeighting(encoder, new PMap(), graph), new QuietWeighting(encoder, new PMap(), graph), 
+                new AvoidHillsWeighting(encoder, new PMap(), graph), new SteepnessDifficultyWeighting(encoder, steepnessMap, graph) };
+
+        return new AdditionWeighting(weightings, new ShortestWeighting(encoder), encoder, new PMap(), graph);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BinaryMatrixResponseTest {
+    /**
+     * Test that the reader restores the tables and locations written by the writer
+     */
+    @Test
+    public void TestRoundTrip() throws Exception {
+        MatrixRequest req = new MatrixRequest();
+        req.setSources(new Coordinate[] { new Coordinate(8.68, 49.41), new Coordinate(8.69, 49.42) });
+        req.setDestinations(new Coordinate[] { new Coordinate(8.70, 49.43), new Coordinate(8.71, 49.44), new Coordinate(8.72, 49.45) });
+        req.setMetrics(MatrixMetricsType.Duration | MatrixMetricsType.Weight);
+        req.setResolveLocations(true);
+
+        ResolvedLocation[] sources = new ResolvedLocation[] { new ResolvedLocation(new Coordinate(8.68, 49.41), "Berliner Straße", 1.5), null };
+        ResolvedLocation[] destinations = new ResolvedLocation[] {
+                new ResolvedLocation(new Coordinate(8.70, 49.43), null, 0),
+                new ResolvedLocation(new Coordinate(8.71, 49.44), "Hauptstraße", 2),
+                new ResolvedLocation(new Coordinate(8.72, 49.45), null, 3) };
+        MatrixResult result = new MatrixResult(sources, destinations);
+        float[] durations = new float[] { 0, 10.5f, -1, 20, 30, 40 };
+        float[] weights = new float[] { 1, 2, 3, 4, 5, 6 };
+        result.setTable(MatrixMetricsType.Duration, durations);
+        result.setTable(MatrixMetricsType.Weight, weights);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMatrixResponseWriter.write(out, req, result);
+        MatrixResult decoded = BinaryMatrixResponseReader.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertArrayEquals(durations, decoded.getTable(MatrixMetricsType.Duration), 0);
+        assertArrayEquals(weights, decoded.getTable(MatrixMetricsType.Weight), 0);
+        assertNull(decoded.getTable(MatrixMetricsType.Distance));
+
+        assertEquals(2, decoded.getSources().length);
+        assertEquals("Berliner Straße", decoded.getSources()[0].getName());
+        assertEquals(1.5, decoded.getSources()[0].getSnappedDistance(), 1e-6);
+        assertNull(decoded.getSources()[1]);
+        assertEquals(8.71, decoded.getDestinations()[1].getCoordinate().x, 0);
+        assertEquals("Hauptstraße", decoded.getDestinations()[1].getName());
+        assertNull(decoded.getDestinations()[2].getName());
+    }
+
+    /**
+     * Test that a matrix written in parts, as done by matrix jobs, is identical to one written at once
+     */
+    @Test
+    public void TestIncrementalWrite() throws Exception {
+        MatrixRequest req = new MatrixRequest();
+        req.setSources(new Coordinate[] { new Coordinate(8.68, 49.41), new Coordinate(8.69, 49.42), new Coordinate(8.67, 49.40) });
+        req.setDestinations(new Coordinate[] { new Coordinate(8.70, 49.43), new Coordinate(8.71, 49.44) });
+        req.setMetrics(MatrixMetricsType.Duration | MatrixMetricsType.Distance);
+
+        ResolvedLocation[] sources = new ResolvedLocation[] { new ResolvedLocation(new Coordinate(8.68, 49.41), null, 1.5),
+                new ResolvedLocation(new Coordinate(8.69, 49.42), null, 0), new ResolvedLocation(new Coordinate(8.67, 49.40), null, 4) };
+        ResolvedLocation[] destinations = new ResolvedLocation[] { new ResolvedLocation(new Coordinate(8.70, 49.43), null, 0), null };
+        MatrixResult result = new MatrixResult(sources, destinations);
+        float[] durations = new float[] { 0, -1, 20, -1, 30, -1 };
+        float[] distances = new float[] { 100, -1, 200, -1, 300, -1 };
+        result.setTable(MatrixMetricsType.Duration, durations);
+        result.setTable(MatrixMetricsType.Distance, distances);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        BinaryMatrixResponseWriter.write(expected, req, result);
+
+        // a buffer of a single value forces every row to be copied in several parts
+        ByteBuffer buffer = BinaryMatrixResponseWriter.createTableBuffer(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMatrixResponseWriter.writeHeader(out, req.getMetrics(), sources, destinations, false);
+        for (float[] table : new float[][] { durations, distances }) {
+            for (int row = 0; row < sources.length; row++)
+                BinaryMatrixResponseWriter.writeTable(out, buffer, table, row * destinations.length, destinations.length);
+        }
+
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+    }
+}
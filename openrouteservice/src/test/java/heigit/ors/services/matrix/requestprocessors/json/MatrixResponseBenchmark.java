@@ -0,0 +1,130 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.services.matrix.requestprocessors.json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+import heigit.ors.services.matrix.requestprocessors.binary.BinaryMatrixResponseWriter;
+
+/**
+ * Compares the time needed to encode a square matrix of durations and distances as JSON, the way the matrix service 
+ * writes it, with the binary format of {@link BinaryMatrixResponseWriter}. Both are written into memory, so that the 
+ * numbers don't include the network. The size of the encoded responses is printed during the setup. This is not a 
+ * unit test, run it with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=heigit.ors.services.matrix.requestprocessors.json.MatrixResponseBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MatrixResponseBenchmark {
+
+    /**
+     * The number of sources and destinations.
+     */
+    @Param({ "100", "1000" })
+    public int locations;
+
+    private MatrixRequest request;
+    private MatrixResult result;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        Coordinate[] coordinates = new Coordinate[locations];
+        ResolvedLocation[] resolved = new ResolvedLocation[locations];
+        for (int i = 0; i < locations; i++) {
+            coordinates[i] = new Coordinate(8.6 + random.nextDouble() * 0.2, 49.3 + random.nextDouble() * 0.2);
+            resolved[i] = new ResolvedLocation(coordinates[i], null, random.nextDouble() * 10);
+        }
+
+        request = new MatrixRequest();
+        request.setSources(coordinates);
+        request.setDestinations(coordinates);
+        request.setMetrics(MatrixMetricsType.Duration | MatrixMetricsType.Distance);
+
+        result = new MatrixResult(resolved, resolved);
+        float[] durations = new float[locations * locations];
+        float[] distances = new float[locations * locations];
+        for (int i = 0; i < durations.length; i++) {
+            // a few unreachable destinations as in real matrices
+            durations[i] = random.nextInt(100) == 0 ? -1 : random.nextFloat() * 3600;
+            distances[i] = durations[i] == -1 ? -1 : random.nextFloat() * 50000;
+        }
+        result.setTable(MatrixMetricsType.Duration, durations);
+        result.setTable(MatrixMetricsType.Distance, distances);
+
+        System.out.println("json: " + writeJson().length + " bytes, binary: " + writeBinary().size() + " bytes");
+    }
+
+    @Benchmark
+    public byte[] writeJson() {
+        int rows = request.getSources().length;
+        int columns = request.getDestinations().length;
+
+        JSONObject jResp = new JSONObject(true);
+        jResp.put("distances", JsonMatrixRequestProcessor.createTable(result.getTable(MatrixMetricsType.Distance), rows, columns));
+        jResp.put("durations", JsonMatrixRequestProcessor.createTable(result.getTable(MatrixMetricsType.Duration), rows, columns));
+        jResp.put("destinations", JsonMatrixRequestProcessor.createLocations(result.getDestinations(), false));
+        jResp.put("sources", JsonMatrixRequestProcessor.createLocations(result.getSources(), false));
+
+        return jResp.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeBinary() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryMatrixResponseWriter.write(out, request, result);
+        return out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MatrixResponseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
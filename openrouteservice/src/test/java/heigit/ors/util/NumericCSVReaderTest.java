@@ -0,0 +1,70 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file 
+ *  distributed with this work for additional information regarding copyright 
+ *  ownership. The GIScience licenses this file to you under the Apache License, 
+ *  Version 2.0 (the "License"); you may not use this file except in compliance 
+ *  with the License. You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NumericCSVReaderTest {
+    private NumericCSVReader createReader(String data) throws IOException {
+        return new NumericCSVReader(new ByteArrayInputStream(data.getBytes("UTF-8")));
+    }
+
+    /**
+     * Test that keys and values are parsed and that rows without a value are skipped
+     */
+    @Test
+    public void TestReadRows() throws IOException {
+        NumericCSVReader reader = createReader("osm_id,value\n1,0.5\r\n 23 , -2 \n4,\n\n5,1.25e2,7\n");
+
+        assertTrue(reader.next());
+        assertEquals(1, reader.getKey());
+        assertEquals(0.5, reader.getValue(), 0);
+        assertTrue(reader.next());
+        assertEquals(23, reader.getKey());
+        assertEquals(-2, reader.getValue(), 0);
+        assertTrue(reader.next());
+        assertEquals(5, reader.getKey());
+        assertEquals(125, reader.getValue(), 0);
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    /**
+     * Test that the separator is taken from the header
+     */
+    @Test
+    public void TestSemicolonSeparator() throws IOException {
+        NumericCSVReader reader = createReader("osm_id;value\n9876543210;0.123456789");
+
+        assertTrue(reader.next());
+        assertEquals(9876543210L, reader.getKey());
+        assertEquals(0.123456789, reader.getValue(), 0);
+        assertFalse(reader.next());
+        reader.close();
+    }
+}